@@ -22,6 +22,7 @@
 package io.crate.blob;
 
 import io.crate.blob.exceptions.DigestNotFoundException;
+import io.crate.blob.stats.BlobStats;
 import io.crate.common.Hex;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.io.FileSystemUtils;
@@ -31,7 +32,12 @@ import org.elasticsearch.common.logging.Loggers;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -57,6 +63,14 @@ public class BlobContainer {
     private final File tmpDirectory;
     private final File varDirectory;
 
+    /**
+     * number and total size of the blobs, maintained on every change once they were
+     * loaded by walking the container, see {@link #stats()}. guarded by this.
+     */
+    private boolean statsLoaded = false;
+    private long blobsCount;
+    private long blobsSize;
+
     public BlobContainer(File baseDirectory) {
         this.baseDirectory = baseDirectory;
         this.tmpDirectory = new File(baseDirectory, "tmp");
@@ -87,20 +101,103 @@ public class BlobContainer {
 
     }
 
-    public void walkFiles(FilenameFilter filter, FileVisitor visitor) {
+    /**
+     * visit all files of the sub-directories, the directories are streamed instead of listing them at once
+     *
+     * @param filter only visit files accepted by this filter, visit all files if null
+     */
+    public void walkFiles(FilenameFilter filter, FileVisitor visitor) throws IOException {
         for (File dir : subDirs) {
-            File[] files = dir.listFiles(filter);
-            if (files == null) {
-                continue;
-            }
-            for (File file : files) {
-                if (!visitor.visit(file)) {
-                    return;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+                for (Path path : stream) {
+                    if (filter != null && !filter.accept(dir, path.getFileName().toString())) {
+                        continue;
+                    }
+                    if (!visitor.visit(path.toFile())) {
+                        return;
+                    }
                 }
+            } catch (NoSuchFileException e) {
+                // ignore, same as an empty directory
             }
         }
     }
 
+    /**
+     * @return the number and total size of the blobs in this container.
+     *
+     * They are calculated by walking the container on the first call,
+     * later calls don't touch the file system as they are updated on every commit or delete.
+     * Incomplete files which are left over from an interrupted recovery aren't counted.
+     */
+    public synchronized BlobStats stats() throws IOException {
+        if (!statsLoaded) {
+            final long[] countAndSize = new long[2];
+            walkFiles(COMPLETE_BLOBS_FILTER, new FileVisitor() {
+                @Override
+                public boolean visit(File file) {
+                    countAndSize[0]++;
+                    countAndSize[1] += file.length();
+                    return true;
+                }
+            });
+            blobsCount = countAndSize[0];
+            blobsSize = countAndSize[1];
+            statsLoaded = true;
+        }
+        BlobStats stats = new BlobStats();
+        stats.count(blobsCount);
+        stats.totalUsage(blobsSize);
+        return stats;
+    }
+
+    private static final FilenameFilter COMPLETE_BLOBS_FILTER = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return !name.contains(".");
+        }
+    };
+
+    /**
+     * rename a completely written blob file to its location within the var directory
+     * and account it in the stats.
+     *
+     * @return false if the target exists already, the source file is left untouched in that case
+     * @throws IOException if the source file couldn't be renamed
+     */
+    public synchronized boolean moveIntoPlace(File source, File target) throws IOException {
+        if (target.exists()) {
+            return false;
+        }
+        long length = source.length();
+        if (!source.renameTo(target)) {
+            throw new IOException(String.format("couldn't rename %s to %s", source, target));
+        }
+        if (statsLoaded) {
+            blobsCount++;
+            blobsSize += length;
+        }
+        return true;
+    }
+
+    /**
+     * delete the blob with the given digest
+     *
+     * @return true if the blob was deleted
+     */
+    public synchronized boolean delete(String digest) {
+        File file = getFile(digest);
+        long length = file.length();
+        if (!file.delete()) {
+            return false;
+        }
+        if (statsLoaded) {
+            blobsCount--;
+            blobsSize -= length;
+        }
+        return true;
+    }
+
     /**
      * get all digests in a subfolder
      * the digests are returned as byte[][] instead as String[] to save overhead in the BlobRecovery
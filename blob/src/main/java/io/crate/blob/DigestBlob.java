@@ -37,8 +37,20 @@ import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A blob which is written to a temporary file while its SHA-1 digest is calculated.
+ *
+ * The digest is updated with every chunk as it is written. If a transfer is resumed
+ * the head (the bytes before the resume position) arrives concurrently to the tail.
+ * The tail chunks can only be added to the digest after the head, so the tail which has
+ * been written until the head caught up is read back once at that point, using a direct
+ * buffer. After that the tail chunks are digested as they arrive again, so that
+ * {@link #commit()} doesn't have to re-read the file.
+ */
 public class DigestBlob {
 
+    private static final int DIGEST_READ_BUFFER_SIZE = 256 * 1024;
+
     private final String digest;
     private final BlobContainer container;
     private final UUID transferId;
@@ -51,6 +63,16 @@ public class DigestBlob {
     private MessageDigest md;
     private long chunks;
     private CountDownLatch headCatchedUpLatch;
+
+    /**
+     * guards the digest and the tail counters, head and tail are added by different threads
+     */
+    private final Object digestLock = new Object();
+    // bytes written after the head
+    private long tailWritten;
+    // bytes written after the head which are part of the digest
+    private long tailDigested;
+
     private static final ESLogger logger = Loggers.getLogger(DigestBlob.class);
 
     public DigestBlob(BlobContainer container, String digest, UUID transferId) {
@@ -83,7 +105,7 @@ public class DigestBlob {
         return tmpFile;
     }
 
-    private void updateDigest(ByteBuffer bbf) throws IOException {
+    private MessageDigest md() throws IOException {
         if (md == null){
             try {
                 md = MessageDigest.getInstance("SHA-1");
@@ -91,13 +113,50 @@ public class DigestBlob {
                 throw new IOException(e);
             }
         }
-        md.update(bbf.slice());
+        return md;
+    }
+
+    private void updateDigest(ByteBuffer bbf) throws IOException {
+        md().update(bbf.slice());
+    }
+
+    private boolean headCatchedUp() {
+        return headLength == 0 || headSize.get() == headLength;
+    }
+
+    /**
+     * add the tail bytes which have been written but aren't part of the digest yet,
+     * must be called with the digestLock held and after the head caught up.
+     */
+    private void digestTail() throws IOException {
+        assert headCatchedUp() : "Head hasn't catched up, can't digest the tail";
+        if (tailDigested == tailWritten) {
+            return;
+        }
+        long position = headLength + tailDigested;
+        long end = headLength + tailWritten;
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(DIGEST_READ_BUFFER_SIZE, end - position));
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(String.format("%s ends before position %d", file, end));
+                }
+                buffer.flip();
+                md().update(buffer);
+                position += read;
+            }
+        }
+        tailDigested = tailWritten;
     }
 
     private void addContent(ChannelBuffer buffer, boolean last) throws IOException {
         if (buffer != null) {
             int readableBytes = buffer.readableBytes();
-            ByteBuffer byteBuffer = buffer.toByteBuffer();
+            // composite buffers are written using a gathering write instead of copying them into one buffer
+            ByteBuffer[] byteBuffers = buffer.toByteBuffers();
             if (file == null) {
                 file = createTmpFile();
             }
@@ -106,15 +165,21 @@ public class DigestBlob {
                 fileChannel = outputStream.getChannel();
             }
 
-            int written = 0;
-            do {
-                if (headLength == 0) {
-                    updateDigest(byteBuffer);
+            synchronized (digestLock) {
+                if (headCatchedUp() && tailDigested == tailWritten) {
+                    for (ByteBuffer byteBuffer : byteBuffers) {
+                        updateDigest(byteBuffer);
+                    }
+                    tailDigested += readableBytes;
                 }
-                written += fileChannel.write(byteBuffer);
-            } while (written < readableBytes);
+                long written = 0;
+                while (written < readableBytes) {
+                    written += fileChannel.write(byteBuffers);
+                }
+                tailWritten += readableBytes;
+            }
             size += readableBytes;
-            buffer.readerIndex(buffer.readerIndex() + written);
+            buffer.readerIndex(buffer.readerIndex() + readableBytes);
             chunks ++;
         }
         if (last) {
@@ -135,35 +200,30 @@ public class DigestBlob {
         }
     }
 
-    private void calculateDigest() {
-        assert headSize.get() == headLength : "Head hasn't catched up, can't calculate digest";
-        try {
-            FileInputStream stream = new FileInputStream(file);
-            stream.skip(headLength);
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = stream.read(buffer, 0, 4096)) > 0) {
-                md.update(buffer, 0, bytesRead);
-            }
-            stream.close();
-        } catch (IOException ex) {
-            logger.error("error accessing file to calculate digest", ex);
-        }
-    }
-
     public File commit() throws DigestMismatchException {
-        if (headLength > 0) {
-            calculateDigest();
+        String contentDigest;
+        synchronized (digestLock) {
+            try {
+                digestTail();
+                contentDigest = Hex.encodeHexString(md().digest());
+            } catch (IOException ex) {
+                logger.error("error accessing file to calculate digest", ex);
+                contentDigest = null;
+            }
         }
-
-        assert md != null;
-        String contentDigest = Hex.encodeHexString(md.digest());
-        if (!contentDigest.equals(digest)) {
+        if (!digest.equals(contentDigest)) {
             file.delete();
             throw new DigestMismatchException(digest, contentDigest);
         }
         File newFile = container.getFile(digest);
-        file.renameTo(newFile);
+        try {
+            if (!container.moveIntoPlace(file, newFile)) {
+                // uploaded concurrently, the content is the same
+                file.delete();
+            }
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, size, e);
+        }
         return newFile;
     }
 
@@ -180,19 +240,28 @@ public class DigestBlob {
             return;
         }
 
-        int written = 0;
+        long written = 0;
         ChannelBuffer channelBuffer = content.toChannelBuffer();
         int readableBytes = channelBuffer.readableBytes();
         assert readableBytes + headSize.get() <= headLength : "Got too many bytes in addToHead()";
 
-        ByteBuffer byteBuffer = channelBuffer.toByteBuffer();
-        while (written < readableBytes) {
-            updateDigest(byteBuffer);
-            written += headFileChannel.write(byteBuffer);
-        }
-        headSize.addAndGet(written);
-        if (headSize.get() == headLength) {
-            headCatchedUpLatch.countDown();
+        ByteBuffer[] byteBuffers = channelBuffer.toByteBuffers();
+        synchronized (digestLock) {
+            for (ByteBuffer byteBuffer : byteBuffers) {
+                updateDigest(byteBuffer);
+            }
+            while (written < readableBytes) {
+                written += headFileChannel.write(byteBuffers);
+            }
+            headSize.addAndGet(written);
+            if (headSize.get() == headLength) {
+                try {
+                    // the tail written so far is read back once, later chunks are digested as they arrive
+                    digestTail();
+                } finally {
+                    headCatchedUpLatch.countDown();
+                }
+            }
         }
     }
 
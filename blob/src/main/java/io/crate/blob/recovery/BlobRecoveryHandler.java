@@ -26,6 +26,7 @@ import io.crate.blob.BlobTransferTarget;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.blob.v2.BlobShard;
 import io.crate.common.Hex;
+import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -35,19 +36,38 @@ import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.service.InternalIndexShard;
 import org.elasticsearch.indices.recovery.*;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class BlobRecoveryHandler {
 
+    /**
+     * number of chunks of a single file which are sent without waiting for the target to acknowledge them
+     */
+    public static final String SETTING_MAX_CHUNKS_IN_FLIGHT = "indices.recovery.blobs.max_chunks_in_flight";
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 4;
+
+    /**
+     * number of two char prefixes whose digests are compared using a single request
+     */
+    private static final int PREFIXES_PER_SYNC = 16;
+
     private final ESLogger logger = Loggers.getLogger(getClass());
     private final StartRecoveryRequest request;
     private final TransportService transportService;
@@ -56,14 +76,17 @@ public class BlobRecoveryHandler {
     private final InternalIndexShard shard;
     private final BlobTransferTarget blobTransferTarget;
     private final int GET_HEAD_TIMEOUT;
+    private final int maxChunksInFlight;
 
     public BlobRecoveryHandler(TransportService transportService,
                                RecoverySettings recoverySettings,
                                BlobTransferTarget blobTransferTarget,
                                BlobIndices blobIndices,
-                               InternalIndexShard shard, StartRecoveryRequest request)
+                               InternalIndexShard shard, StartRecoveryRequest request,
+                               int maxChunksInFlight)
     {
         this.recoverySettings = recoverySettings;
+        this.maxChunksInFlight = maxChunksInFlight;
         this.blobShard = blobIndices.blobShardSafe(request.shardId().index().name(), request.shardId().id());
         this.request = request;
         this.transportService = transportService;
@@ -77,12 +100,12 @@ public class BlobRecoveryHandler {
         }
     }
 
-    private Set<BytesArray> getExistingDigestsFromTarget(byte prefix) {
+    private Set<BytesArray> getExistingDigestsFromTarget(byte[] prefixes) {
         BlobStartPrefixResponse response =
             (BlobStartPrefixResponse)transportService.submitRequest(
                 request.targetNode(),
                 BlobRecoveryTarget.Actions.START_PREFIX,
-                new BlobStartPrefixSyncRequest(request.recoveryId(), request.shardId(), prefix),
+                new BlobStartPrefixSyncRequest(request.recoveryId(), request.shardId(), prefixes),
                 TransportRequestOptions.options(),
                 new FutureTransportResponseHandler<TransportResponse>() {
                     @Override
@@ -152,21 +175,31 @@ public class BlobRecoveryHandler {
     public void phase2() throws ElasticsearchException {
     }
 
+    /**
+     * compares the digests of a batch of prefixes at once and starts the transfers of the missing files
+     * without waiting for the transfers of the previous batches to finish.
+     */
     private void syncVarFiles(AtomicReference<Exception> lastException) throws InterruptedException {
+        List<CountDownLatch> latches = new ArrayList<>();
+        byte[] prefixes = BlobContainer.PREFIXES;
+        for (int from = 0; from < prefixes.length && lastException.get() == null; from += PREFIXES_PER_SYNC) {
+            byte[] batch = Arrays.copyOfRange(prefixes, from, Math.min(from + PREFIXES_PER_SYNC, prefixes.length));
 
-        for (byte prefix : BlobContainer.PREFIXES) {
             // byte[1] and byte[1] have different hashCodes
             // so setA.removeAll(setB) wouldn't work with byte[], that's why BytesArray is used here
-            Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix);
+            Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(batch);
             Set<BytesArray> localDigests = new HashSet<BytesArray>();
-            for (byte[] digest : blobShard.currentDigests(prefix)) {
-                localDigests.add(new BytesArray(digest));
+            for (byte prefix : batch) {
+                for (byte[] digest : blobShard.currentDigests(prefix)) {
+                    localDigests.add(new BytesArray(digest));
+                }
             }
 
             Set<BytesArray> localButNotRemoteDigests = new HashSet<BytesArray>(localDigests);
             localButNotRemoteDigests.removeAll(remoteDigests);
 
             final CountDownLatch latch = new CountDownLatch(localButNotRemoteDigests.size());
+            latches.add(latch);
             for (BytesArray digestBytes : localButNotRemoteDigests) {
                 final String digest = Hex.encodeHexString(digestBytes.toBytes());
                 logger.trace("[{}][{}] start to transfer file var/{} to {}",
@@ -178,13 +211,15 @@ public class BlobRecoveryHandler {
                         lastException, latch)
                 );
             }
-            latch.await();
 
             remoteDigests.removeAll(localDigests);
             if (!remoteDigests.isEmpty()) {
                 deleteFilesRequest(remoteDigests.toArray(new BytesArray[remoteDigests.size()]));
             }
         }
+        for (CountDownLatch latch : latches) {
+            latch.await();
+        }
     }
 
     private void deleteFilesRequest(BytesArray[] digests) {
@@ -215,6 +250,32 @@ public class BlobRecoveryHandler {
         ).txGet();
     }
 
+    private static BytesArray readChunk(FileChannel channel, long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("unexpected end of file at position " + (position + buffer.position()));
+            }
+        }
+        return new BytesArray(bytes);
+    }
+
+    /**
+     * pause if the recovery bandwidth, which is shared by all recoveries of this node, is exhausted
+     */
+    private void throttle(int bytes) {
+        RateLimiter rateLimiter = recoverySettings.rateLimiter();
+        if (rateLimiter != null) {
+            rateLimiter.pause(bytes);
+        }
+    }
+
+    /**
+     * sends a file using a start request followed by chunk requests.
+     * Up to maxChunksInFlight chunks are sent without waiting for their responses,
+     * the target writes them at their position, so they may arrive in any order.
+     */
     private class TransferFileRunnable implements Runnable {
         private final AtomicReference<Exception> lastException;
         private final String baseDir;
@@ -231,87 +292,81 @@ public class BlobRecoveryHandler {
 
         @Override
         public void run() {
-
-            try {
-                final int BUFFER_SIZE = 4 * 4096;
-
-                long fileSize = file.length();
+            if (lastException.get() != null) {
+                // another transfer failed already, the recovery will fail anyway
+                latch.countDown();
+                return;
+            }
+            final Semaphore inFlight = new Semaphore(maxChunksInFlight);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                final int chunkSize = (int) recoverySettings.fileChunkSize().bytes();
+                long fileSize = channel.size();
 
                 if (fileSize == 0) {
                     logger.warn("[{}][{}] empty file: {}",
                         request.shardId().index().name(), request.shardId().id(), file.getName());
                 }
 
-                try (FileInputStream fileStream = new FileInputStream(file)) {
-                    String filePath = file.getAbsolutePath();
-                    String relPath = filePath.substring(baseDir.length(), filePath.length());
-                    byte[] buf = new byte[BUFFER_SIZE];
-                    int bytesRead = fileStream.read(buf, 0, BUFFER_SIZE);
-                    long bytesReadTotal = 0;
-                    BytesArray content = new BytesArray(buf, 0, bytesRead);
-                    BlobRecoveryStartTransferRequest startTransferRequest =
-                        new BlobRecoveryStartTransferRequest(request.recoveryId(), relPath, content,
-                            fileSize
-                        );
-
-                    if (bytesRead > 0) {
-                        bytesReadTotal += bytesRead;
-
-                        logger.trace("[{}][{}] send BlobRecoveryStartTransferRequest to {} for file {} with size {}",
-                            request.shardId().index().name(), request.shardId().id(),
-                            request.targetNode().getName(),
-                            relPath,
-                            fileSize
-                        );
-                        transportService.submitRequest(
-                            request.targetNode(),
-                            BlobRecoveryTarget.Actions.START_TRANSFER,
-                            startTransferRequest,
-                            TransportRequestOptions.options(),
-                            EmptyTransportResponseHandler.INSTANCE_SAME
-                        ).txGet();
-
-                        boolean isLast = false;
-                        boolean sentChunks = false;
-                        while ((bytesRead = fileStream.read(buf, 0, BUFFER_SIZE)) > 0) {
-
-                            sentChunks = true;
-                            bytesReadTotal += bytesRead;
-
-                            if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
-                                throw new IndexShardClosedException(shard.shardId());
-                            }
-                            if (bytesReadTotal == fileSize) {
-                                isLast = true;
+                String filePath = file.getAbsolutePath();
+                String relPath = filePath.substring(baseDir.length(), filePath.length());
+                int length = (int) Math.min(chunkSize, fileSize);
+                throttle(length);
+                BlobRecoveryStartTransferRequest startTransferRequest =
+                    new BlobRecoveryStartTransferRequest(request.recoveryId(), relPath,
+                        readChunk(channel, 0, length), fileSize
+                    );
+
+                logger.trace("[{}][{}] send BlobRecoveryStartTransferRequest to {} for file {} with size {}",
+                    request.shardId().index().name(), request.shardId().id(),
+                    request.targetNode().getName(),
+                    relPath,
+                    fileSize
+                );
+                transportService.submitRequest(
+                    request.targetNode(),
+                    BlobRecoveryTarget.Actions.START_TRANSFER,
+                    startTransferRequest,
+                    TransportRequestOptions.options(),
+                    EmptyTransportResponseHandler.INSTANCE_SAME
+                ).txGet();
+
+                long position = length;
+                while (position < fileSize && lastException.get() == null) {
+                    if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
+                        throw new IndexShardClosedException(shard.shardId());
+                    }
+                    length = (int) Math.min(chunkSize, fileSize - position);
+                    BytesArray content = readChunk(channel, position, length);
+                    throttle(length);
+                    inFlight.acquire();
+                    transportService.sendRequest(request.targetNode(),
+                        BlobRecoveryTarget.Actions.TRANSFER_CHUNK,
+                        new BlobRecoveryChunkRequest(request.recoveryId(),
+                            startTransferRequest.transferId(), content, position),
+                        TransportRequestOptions.options(),
+                        new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+                            @Override
+                            public void handleResponse(TransportResponse.Empty response) {
+                                inFlight.release();
                             }
-                            content = new BytesArray(buf, 0, bytesRead);
-
-                            transportService.submitRequest(request.targetNode(),
-                                BlobRecoveryTarget.Actions.TRANSFER_CHUNK,
-                                new BlobRecoveryChunkRequest(request.recoveryId(),
-                                    startTransferRequest.transferId(), content, isLast),
-                                TransportRequestOptions.options(),
-                                EmptyTransportResponseHandler.INSTANCE_SAME
-                            ).txGet();
-                        }
 
-                        if (!isLast && sentChunks) {
-                            logger.error("Sending isLast because it wasn't sent before for {}", relPath);
-                            transportService.submitRequest(request.targetNode(),
-                                BlobRecoveryTarget.Actions.TRANSFER_CHUNK,
-                                new BlobRecoveryChunkRequest(request.recoveryId(),
-                                    startTransferRequest.transferId(), BytesArray.EMPTY, true),
-                                TransportRequestOptions.options(),
-                                EmptyTransportResponseHandler.INSTANCE_SAME
-                            ).txGet();
+                            @Override
+                            public void handleException(TransportException exp) {
+                                logger.error("exception while file transfer", exp);
+                                lastException.set(exp);
+                                inFlight.release();
+                            }
                         }
-                    }
-
-                    logger.trace("[{}][{}] completed to transfer file {} to {}",
-                        request.shardId().index().name(), request.shardId().id(), file.getName(),
-                        request.targetNode().getName());
+                    );
+                    position += length;
                 }
-            } catch (IOException ex) {
+                // wait for the responses of the chunks in flight
+                inFlight.acquire(maxChunksInFlight);
+
+                logger.trace("[{}][{}] completed to transfer file {} to {}",
+                    request.shardId().index().name(), request.shardId().id(), file.getName(),
+                    request.targetNode().getName());
+            } catch (Exception ex) {
                 logger.error("exception while file transfer", ex);
                 lastException.set(ex);
             } finally {
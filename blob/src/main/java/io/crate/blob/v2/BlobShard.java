@@ -24,6 +24,7 @@ package io.crate.blob.v2;
 import io.crate.blob.BlobContainer;
 import io.crate.blob.BlobEnvironment;
 import io.crate.blob.stats.BlobStats;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -33,6 +34,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.service.IndexShard;
 
 import java.io.File;
+import java.io.IOException;
 
 public class BlobShard extends AbstractIndexShardComponent {
 
@@ -55,7 +57,7 @@ public class BlobShard extends AbstractIndexShardComponent {
     }
 
     public boolean delete(String digest) {
-        return blobContainer.getFile(digest).delete();
+        return blobContainer.delete(digest);
     }
 
     public BlobContainer blobContainer() {
@@ -67,19 +69,14 @@ public class BlobShard extends AbstractIndexShardComponent {
     }
 
     public BlobStats blobStats() {
-        final BlobStats stats = new BlobStats();
-
-        stats.location(blobContainer().getBaseDirectory().getAbsolutePath());
-        stats.availableSpace(blobContainer().getBaseDirectory().getFreeSpace());
-        blobContainer().walkFiles(null, new BlobContainer.FileVisitor() {
-            @Override
-            public boolean visit(File file) {
-                stats.totalUsage(stats.totalUsage() + file.length());
-                stats.count(stats.count() + 1);
-                return true;
-            }
-        });
-
+        final BlobStats stats;
+        try {
+            stats = blobContainer.stats();
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to read blob stats", e);
+        }
+        stats.location(blobContainer.getBaseDirectory().getAbsolutePath());
+        stats.availableSpace(blobContainer.getBaseDirectory().getFreeSpace());
         return stats;
     }
 
@@ -23,6 +23,7 @@ package io.crate.http.netty;
 
 import com.google.common.base.Strings;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
@@ -87,50 +88,8 @@ public class NettyHttpChannel extends HttpChannel {
 
     @Override
     public void sendResponse(RestResponse response) {
-        // Decide whether to close the connection or not.
-        boolean http10 = nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
-        boolean close =
-                HttpHeaders.Values.CLOSE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)) ||
-                        (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)));
-
-        // Build the response object.
-        HttpResponseStatus status = getStatus(response.status());
-        org.jboss.netty.handler.codec.http.HttpResponse resp;
-        if (http10) {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
-            if (!close) {
-                resp.headers().add(HttpHeaders.Names.CONNECTION, "Keep-Alive");
-            }
-        } else {
-            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
-        }
-        if (RestUtils.isBrowser(nettyRequest.headers().get(USER_AGENT))) {
-            if (transport.settings().getAsBoolean(SETTING_CORS_ENABLED, false)) {
-                String originHeader = request.header(ORIGIN);
-                if (!Strings.isNullOrEmpty(originHeader)) {
-                    if (corsPattern == null) {
-                        resp.headers().add(ACCESS_CONTROL_ALLOW_ORIGIN, transport.settings().get(SETTING_CORS_ALLOW_ORIGIN, "*"));
-                    } else {
-                        resp.headers().add(ACCESS_CONTROL_ALLOW_ORIGIN, corsPattern.matcher(originHeader).matches() ? originHeader : "null");
-                    }
-                }
-                if (nettyRequest.getMethod() == HttpMethod.OPTIONS) {
-                    // Allow Ajax requests based on the CORS "preflight" request
-                    resp.headers().add(ACCESS_CONTROL_MAX_AGE, transport.settings().getAsInt(SETTING_CORS_MAX_AGE, 1728000));
-                    resp.headers().add(ACCESS_CONTROL_ALLOW_METHODS, transport.settings().get(SETTING_CORS_ALLOW_METHODS, "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
-                    resp.headers().add(ACCESS_CONTROL_ALLOW_HEADERS, transport.settings().get(SETTING_CORS_ALLOW_HEADERS, "X-Requested-With, Content-Type, Content-Length"));
-                }
-
-                if (transport.settings().getAsBoolean(SETTING_CORS_ALLOW_CREDENTIALS, false)) {
-                    resp.headers().add(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
-                }
-            }
-        }
-
-        String opaque = nettyRequest.headers().get("X-Opaque-Id");
-        if (opaque != null) {
-            resp.headers().add("X-Opaque-Id", opaque);
-        }
+        boolean close = closeConnection();
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(response.status(), close);
 
         // Add all custom headers
         Map<String, List<String>> customHeaders = response.getHeaders();
@@ -219,6 +178,131 @@ public class NettyHttpChannel extends HttpChannel {
         }
     }
 
+    private boolean closeConnection() {
+        boolean http10 = nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
+        return HttpHeaders.Values.CLOSE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)) ||
+                (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)));
+    }
+
+    private org.jboss.netty.handler.codec.http.HttpResponse newResponse(RestStatus restStatus, boolean close) {
+        boolean http10 = nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
+        // Build the response object.
+        HttpResponseStatus status = getStatus(restStatus);
+        org.jboss.netty.handler.codec.http.HttpResponse resp;
+        if (http10) {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
+            if (!close) {
+                resp.headers().add(HttpHeaders.Names.CONNECTION, "Keep-Alive");
+            }
+        } else {
+            resp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        }
+        if (RestUtils.isBrowser(nettyRequest.headers().get(USER_AGENT))) {
+            if (transport.settings().getAsBoolean(SETTING_CORS_ENABLED, false)) {
+                String originHeader = request.header(ORIGIN);
+                if (!Strings.isNullOrEmpty(originHeader)) {
+                    if (corsPattern == null) {
+                        resp.headers().add(ACCESS_CONTROL_ALLOW_ORIGIN, transport.settings().get(SETTING_CORS_ALLOW_ORIGIN, "*"));
+                    } else {
+                        resp.headers().add(ACCESS_CONTROL_ALLOW_ORIGIN, corsPattern.matcher(originHeader).matches() ? originHeader : "null");
+                    }
+                }
+                if (nettyRequest.getMethod() == HttpMethod.OPTIONS) {
+                    // Allow Ajax requests based on the CORS "preflight" request
+                    resp.headers().add(ACCESS_CONTROL_MAX_AGE, transport.settings().getAsInt(SETTING_CORS_MAX_AGE, 1728000));
+                    resp.headers().add(ACCESS_CONTROL_ALLOW_METHODS, transport.settings().get(SETTING_CORS_ALLOW_METHODS, "OPTIONS, HEAD, GET, POST, PUT, DELETE"));
+                    resp.headers().add(ACCESS_CONTROL_ALLOW_HEADERS, transport.settings().get(SETTING_CORS_ALLOW_HEADERS, "X-Requested-With, Content-Type, Content-Length"));
+                }
+
+                if (transport.settings().getAsBoolean(SETTING_CORS_ALLOW_CREDENTIALS, false)) {
+                    resp.headers().add(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+                }
+            }
+        }
+
+        String opaque = nettyRequest.headers().get("X-Opaque-Id");
+        if (opaque != null) {
+            resp.headers().add("X-Opaque-Id", opaque);
+        }
+
+        return resp;
+    }
+
+    /**
+     * Start a response with chunked transfer encoding. The status line and headers are sent immediately,
+     * the body is sent piece by piece using the returned {@link ChunkedResponse}.
+     *
+     * @return null if the request doesn't support chunked responses (HTTP/1.0 or JSONP requests)
+     */
+    @Nullable
+    public ChunkedResponse startChunkedResponse(RestStatus status, String contentType) {
+        if (nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0) || request.param("callback") != null) {
+            return null;
+        }
+        boolean close = closeConnection();
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(status, close);
+        resp.setChunked(true);
+        resp.headers().add(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        resp.headers().add(HttpHeaders.Names.CONTENT_TYPE, contentType);
+        ChunkedResponse chunkedResponse = new ChunkedResponse(close);
+        chunkedResponse.write(resp, false);
+        return chunkedResponse;
+    }
+
+    /**
+     * The body of a response started with {@link #startChunkedResponse(RestStatus, String)}.
+     */
+    public class ChunkedResponse {
+
+        private final boolean close;
+        private int subSequence = 0;
+
+        private ChunkedResponse(boolean close) {
+            this.close = close;
+        }
+
+        private ChannelFuture write(Object message, boolean last) {
+            if (orderedUpstreamMessageEvent != null) {
+                OrderedDownstreamChannelEvent downstreamChannelEvent =
+                        new OrderedDownstreamChannelEvent(orderedUpstreamMessageEvent, subSequence++, last, message);
+                channel.getPipeline().sendDownstream(downstreamChannelEvent);
+                return downstreamChannelEvent.getFuture();
+            }
+            return channel.write(message);
+        }
+
+        /**
+         * send the given bytes as one chunk.
+         * The content must not be modified until the returned future is done.
+         */
+        public ChannelFuture write(BytesReference content) {
+            return write(new DefaultHttpChunk(content.toChannelBuffer()), false);
+        }
+
+        /**
+         * send the terminating chunk
+         */
+        public ChannelFuture finish() {
+            ChannelFuture future = write(HttpChunk.LAST_CHUNK, true);
+            if (close) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+            return future;
+        }
+
+        /**
+         * close the connection without sending the terminating chunk
+         * so that the client notices the response is incomplete
+         */
+        public void abort() {
+            channel.close();
+        }
+
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+    }
+
     private static final HttpResponseStatus TOO_MANY_REQUESTS = new HttpResponseStatus(429, "Too Many Requests");
 
     private HttpResponseStatus getStatus(RestStatus status) {
@@ -93,6 +93,7 @@ public class BlobRecoverySource extends AbstractComponent {
     private final TimeValue internalActionLongTimeout;
     private final BlobTransferTarget blobTransferTarget;
     private final BlobIndices blobIndices;
+    private final int maxChunksInFlight;
 
 
     @Inject
@@ -116,6 +117,8 @@ public class BlobRecoverySource extends AbstractComponent {
 
         this.internalActionTimeout = componentSettings.getAsTime("internal_action_timeout", TimeValue.timeValueMinutes(15));
         this.internalActionLongTimeout = new TimeValue(internalActionTimeout.millis() * 2);
+        this.maxChunksInFlight = settings.getAsInt(BlobRecoveryHandler.SETTING_MAX_CHUNKS_IN_FLIGHT,
+            BlobRecoveryHandler.DEFAULT_MAX_CHUNKS_IN_FLIGHT);
     }
 
     public void registerHandler() {
@@ -157,7 +160,8 @@ public class BlobRecoverySource extends AbstractComponent {
 
         if (BlobIndices.isBlobIndex(shard.shardId().getIndex())) {
             blobRecoveryHandler = new BlobRecoveryHandler(
-                transportService, recoverySettings, blobTransferTarget, blobIndices, shard, request);
+                transportService, recoverySettings, blobTransferTarget, blobIndices, shard, request,
+                maxChunksInFlight);
         } else {
             blobRecoveryHandler = null;
         }
@@ -41,7 +41,12 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 
 public class BlobRecoveryTarget extends AbstractComponent {
@@ -52,16 +57,16 @@ public class BlobRecoveryTarget extends AbstractComponent {
     * actor SourceNode as s
     * actor TargetNode as t
     *
-    * group for every two char prefix
-    * s -> t:StartPrefixSync(prefix)
-    * t -> t:getDigests for prefix
+    * group for every batch of two char prefixes
+    * s -> t:StartPrefixSync(prefixes)
+    * t -> t:getDigests for prefixes
     * t --> s:found digests
     * s -> s: get missing digests
     * group for every missing digest
     *  s -> t:BlobSyncStartRequest(transferId, digest, contents, totalsize)
     *  t -> s: ack
-    *  s -> s: BlobSyncChunkRequest(transferid, contents, isLast)
-    *  t -> t: if isLast move to final
+    *  s -> s: BlobSyncChunkRequest(transferid, contents, position), several in flight
+    *  t -> t: if all bytes were written move to final
     *  t -> s: ack
     * end
     * s -> t:FinishPrefixSync(deletableDigests)
@@ -200,12 +205,8 @@ public class BlobRecoveryTarget extends AbstractComponent {
             if (!content.hasArray()) {
                 content = content.toBytesArray();
             }
-            transferStatus.outputStream().write(
-                content.array(), content.arrayOffset(), content.length()
-            );
-
-            if (request.isLast()) {
-                transferStatus.outputStream().close();
+            if (transferStatus.write(content, request.position())) {
+                transferStatus.channel().close();
                 File source = new File(shard.blobContainer().getBaseDirectory(),
                     transferStatus.sourcePath()
                 );
@@ -213,14 +214,14 @@ public class BlobRecoveryTarget extends AbstractComponent {
                     transferStatus.targetPath()
                 );
 
-                if (target.exists()) {
-                    logger.info("target file {} exists already.", target.getName());
-                    // this might happen on bad timing while recovering/relocating.
-                    // noop
-                } else {
-                    if (!source.renameTo(target)) {
-                        throw new BlobWriteException(target.getName(), target.length(), null);
+                try {
+                    if (!shard.blobContainer().moveIntoPlace(source, target)) {
+                        logger.info("target file {} exists already.", target.getName());
+                        // this might happen on bad timing while recovering/relocating.
+                        // noop
                     }
+                } catch (IOException e) {
+                    throw new BlobWriteException(target.getName(), target.length(), e);
                 }
 
                 onGoingRecovery.onGoingTransfers().remove(request.transferId());
@@ -250,7 +251,11 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 throw new IndexShardClosedException(status.shardId());
             }
             BlobStartPrefixResponse response = new BlobStartPrefixResponse();
-            response.existingDigests = status.blobShard.currentDigests(request.prefix());
+            List<byte[]> digests = new ArrayList<>();
+            for (byte prefix : request.prefixes()) {
+                Collections.addAll(digests, status.blobShard.currentDigests(prefix));
+            }
+            response.existingDigests = digests.toArray(new byte[digests.size()][]);
             channel.sendResponse(response);
         }
     }
@@ -278,31 +283,30 @@ public class BlobRecoveryTarget extends AbstractComponent {
 
             BlobShard shard = status.blobShard;
             String tmpPath = request.path() + "." + request.transferId();
-            FileOutputStream outputStream = new FileOutputStream(
-                new File(shard.blobContainer().getBaseDirectory(), tmpPath)
+            FileChannel fileChannel = FileChannel.open(
+                new File(shard.blobContainer().getBaseDirectory(), tmpPath).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+            );
+            BlobRecoveryTransferStatus transferStatus = new BlobRecoveryTransferStatus(
+                request.transferId(), fileChannel, request.size(), 0, tmpPath, request.path()
             );
 
             BytesReference content = request.content();
             if (!content.hasArray()) {
                 content = content.toBytesArray();
             }
-            outputStream.write(content.array(), content.arrayOffset(), content.length());
-
-            if (request.size() == request.content().length()) {  // start request contains the whole file.
-                outputStream.close();
+            if (transferStatus.write(content, 0)) {  // start request contains the whole file.
+                fileChannel.close();
                 File source = new File(shard.blobContainer().getBaseDirectory(), tmpPath);
                 File target = new File(shard.blobContainer().getBaseDirectory(), request.path());
-                if (!target.exists()) {
-                    if (!source.renameTo(target)) {
-                        throw new IllegalBlobRecoveryStateException(
-                            "couldn't rename file to " + request.path()
-                        );
-                    }
+                try {
+                    shard.blobContainer().moveIntoPlace(source, target);
+                } catch (IOException e) {
+                    throw new IllegalBlobRecoveryStateException(
+                        "couldn't rename file to " + request.path()
+                    );
                 }
             } else {
-                BlobRecoveryTransferStatus transferStatus= new BlobRecoveryTransferStatus(
-                    request.transferId(), outputStream, tmpPath, request.path()
-                );
                 status.onGoingTransfers().put(request.transferId(), transferStatus);
             }
 
@@ -342,7 +346,7 @@ public class BlobRecoveryTarget extends AbstractComponent {
             BlobRecoveryStatus status = onGoingRecoveries.get(request.recoveryId);
 
             for (BlobRecoveryTransferStatus transferStatus : status.onGoingTransfers().values()) {
-                if (transferStatus.outputStream().getChannel().isOpen()) {
+                if (transferStatus.channel().isOpen()) {
                     throw new IllegalBlobRecoveryStateException(
                         "File channel was left open for "
                     );
@@ -29,33 +29,35 @@ import java.io.IOException;
 
 public class BlobStartPrefixSyncRequest extends BlobRecoveryRequest {
 
-    private byte prefix;
+    private byte[] prefixes;
     private ShardId shardId;
 
     public BlobStartPrefixSyncRequest() {
     }
 
-    public BlobStartPrefixSyncRequest(long recoveryId, ShardId shardId, byte prefix) {
+    public BlobStartPrefixSyncRequest(long recoveryId, ShardId shardId, byte[] prefixes) {
         super(recoveryId);
-        this.prefix = prefix;
+        this.prefixes = prefixes;
         this.shardId = shardId;
     }
 
-    public byte prefix() {
-        return prefix;
+    public byte[] prefixes() {
+        return prefixes;
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        prefix = in.readByte();
-        ShardId.readShardId(in);
+        prefixes = new byte[in.readVInt()];
+        in.readBytes(prefixes, 0, prefixes.length);
+        shardId = ShardId.readShardId(in);
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
-        out.writeByte(prefix);
+        out.writeVInt(prefixes.length);
+        out.writeBytes(prefixes);
         shardId.writeTo(out);
     }
 
@@ -23,7 +23,11 @@ package io.crate;
 
 import io.crate.blob.BlobContainer;
 import io.crate.blob.DigestBlob;
+import io.crate.blob.exceptions.DigestMismatchException;
+import io.crate.common.Hex;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,10 +40,11 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Random;
 import java.util.UUID;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class DigestBlobTests {
 
@@ -144,4 +149,70 @@ public class DigestBlobTests {
         file.delete();
     }
 
+    @Test
+    public void testCompositeChunks() throws Exception {
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = new DigestBlob(container, "417de3231e23dcd6d224ff60918024bc6c59aa58", transferId);
+
+        digestBlob.addContent(new ChannelBufferBytesReference(ChannelBuffers.wrappedBuffer(
+                "ABC".getBytes(), "DEFG".getBytes(), "HIJ".getBytes())), false);
+        digestBlob.addContent(new ChannelBufferBytesReference(ChannelBuffers.wrappedBuffer(
+                "KLM".getBytes(), "NO".getBytes())), true);
+        assertEquals(15, digestBlob.size());
+
+        File file = digestBlob.commit();
+        assertTrue(file.exists());
+        file.delete();
+    }
+
+    @Test
+    public void testResumeLargeTailBeforeHead() throws Exception {
+        // larger than the buffer used to read the tail back, so it's read in several steps
+        byte[] content = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        String digest = Hex.encodeHexString(MessageDigest.getInstance("SHA-1").digest(content));
+        int headLength = 1000;
+
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = DigestBlob.resumeTransfer(container, digest, transferId, headLength);
+
+        int chunkSize = 64 * 1024;
+        int pos = headLength;
+        while (pos < content.length - chunkSize) {
+            digestBlob.addContent(new BytesArray(content, pos, chunkSize), false);
+            pos += chunkSize;
+        }
+        digestBlob.addToHead(new BytesArray(content, 0, 600));
+        digestBlob.addToHead(new BytesArray(content, 600, headLength - 600));
+        digestBlob.addContent(new BytesArray(content, pos, content.length - pos), true);
+        digestBlob.waitForHead();
+
+        File file = digestBlob.commit();
+        assertTrue(file.exists());
+        assertEquals(content.length, file.length());
+        file.delete();
+    }
+
+    @Test
+    public void testMismatch() throws Exception {
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = DigestBlob.resumeTransfer(
+            container, "417de3231e23dcd6d224ff60918024bc6c59aa58", transferId, 2);
+
+        digestBlob.addContent(new BytesArray("CDEFGHIJKLMN".getBytes()), false);
+        digestBlob.addToHead(new BytesArray("XY".getBytes()));
+        digestBlob.addContent(new BytesArray("O".getBytes()), true);
+
+        File tmpFile = digestBlob.file();
+        try {
+            digestBlob.commit();
+            fail("expected DigestMismatchException");
+        } catch (DigestMismatchException e) {
+            assertFalse(tmpFile.exists());
+        }
+    }
+
 }
@@ -25,10 +25,14 @@ import io.crate.blob.PutChunkReplicaRequest;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.recovery.BlobRecoveryChunkRequest;
+import org.elasticsearch.indices.recovery.BlobStartPrefixSyncRequest;
 import org.junit.Test;
 
 import java.util.UUID;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class SerializationTests {
@@ -60,4 +64,36 @@ public class SerializationTests {
         assertEquals(requestOut.transferId, requestIn.transferId);
         assertEquals(requestOut.index(), requestIn.index());
     }
+
+    @Test
+    public void testBlobRecoveryChunkRequestSerialization() throws Exception {
+        BytesStreamOutput outputStream = new BytesStreamOutput();
+        BlobRecoveryChunkRequest requestOut = new BlobRecoveryChunkRequest(
+            1L, 2L, new BytesArray(new byte[] { 0x65, 0x66 }), 1024L * 1024L);
+        requestOut.writeTo(outputStream);
+        BytesStreamInput inputStream = new BytesStreamInput(outputStream.bytes().copyBytesArray());
+
+        BlobRecoveryChunkRequest requestIn = new BlobRecoveryChunkRequest();
+        requestIn.readFrom(inputStream);
+
+        assertEquals(requestOut.recoveryId(), requestIn.recoveryId());
+        assertEquals(requestOut.transferId(), requestIn.transferId());
+        assertEquals(requestOut.content(), requestIn.content());
+        assertEquals(requestOut.position(), requestIn.position());
+    }
+
+    @Test
+    public void testBlobStartPrefixSyncRequestSerialization() throws Exception {
+        BytesStreamOutput outputStream = new BytesStreamOutput();
+        BlobStartPrefixSyncRequest requestOut = new BlobStartPrefixSyncRequest(
+            1L, new ShardId("blob.b1", 0), new byte[] { 0x00, 0x01, (byte) 0xff });
+        requestOut.writeTo(outputStream);
+        BytesStreamInput inputStream = new BytesStreamInput(outputStream.bytes().copyBytesArray());
+
+        BlobStartPrefixSyncRequest requestIn = new BlobStartPrefixSyncRequest();
+        requestIn.readFrom(inputStream);
+
+        assertEquals(requestOut.recoveryId(), requestIn.recoveryId());
+        assertArrayEquals(requestOut.prefixes(), requestIn.prefixes());
+    }
 }
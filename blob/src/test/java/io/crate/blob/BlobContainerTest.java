@@ -0,0 +1,119 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.blob.stats.BlobStats;
+import io.crate.common.Hex;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BlobContainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BlobContainer container;
+
+    @Before
+    public void prepare() throws Exception {
+        container = new BlobContainer(folder.newFolder());
+    }
+
+    private String upload(String content) throws Exception {
+        byte[] bytes = content.getBytes();
+        String digest = Hex.encodeHexString(MessageDigest.getInstance("SHA-1").digest(bytes));
+        DigestBlob blob = container.createBlob(digest, UUID.randomUUID());
+        blob.addContent(new BytesArray(bytes), true);
+        blob.commit();
+        return digest;
+    }
+
+    private void assertStats(long count, long size) throws IOException {
+        BlobStats stats = container.stats();
+        assertThat(stats.count(), is(count));
+        assertThat(stats.totalUsage(), is(size));
+    }
+
+    @Test
+    public void testStatsAreMaintainedOnCommitAndDelete() throws Exception {
+        assertStats(0L, 0L);
+
+        String digest = upload("foo");
+        upload("barbaz");
+        assertStats(2L, 9L);
+
+        // uploading an existing blob doesn't change anything
+        upload("foo");
+        assertStats(2L, 9L);
+
+        assertThat(container.delete(digest), is(true));
+        assertStats(1L, 6L);
+        assertThat(container.delete(digest), is(false));
+        assertStats(1L, 6L);
+    }
+
+    @Test
+    public void testStatsAreLoadedLazily() throws Exception {
+        upload("foo");
+        upload("barbaz");
+        // incomplete files of a recovery are ignored
+        File incomplete = new File(container.getFile(upload("x")).getParentFile(), "abc.1");
+        try (FileOutputStream out = new FileOutputStream(incomplete)) {
+            out.write(new byte[10]);
+        }
+
+        BlobContainer restarted = new BlobContainer(container.getBaseDirectory());
+        BlobStats stats = restarted.stats();
+        assertThat(stats.count(), is(3L));
+        assertThat(stats.totalUsage(), is(10L));
+    }
+
+    @Test
+    public void testMoveIntoPlace() throws Exception {
+        File source = new File(container.getTmpDirectory(), "source");
+        try (FileOutputStream out = new FileOutputStream(source)) {
+            out.write(new byte[4]);
+        }
+        File target = container.getFile("0a0b");
+        assertStats(0L, 0L);
+        assertThat(container.moveIntoPlace(source, target), is(true));
+        assertStats(1L, 4L);
+
+        assertThat(source.createNewFile(), is(true));
+        assertThat(container.moveIntoPlace(source, target), is(false));
+        assertThat(source.exists(), is(true));
+        assertStats(1L, 4L);
+    }
+}
@@ -636,7 +636,7 @@ frameBound
     ;
 
 explainStmt
-    : EXPLAIN explainOptions? statement -> ^(EXPLAIN explainOptions? statement)
+    : EXPLAIN ANALYZE? explainOptions? statement -> ^(EXPLAIN ANALYZE? explainOptions? statement)
     ;
 
 explainOptions
@@ -878,7 +878,11 @@ nestedColumnDefinition
     ;
 
 columnDefinition
-    : ident dataType columnConstDef* -> ^(COLUMN_DEF ident dataType columnConstDef*)
+    : ident dataType generatedColumnDefinition? columnConstDef* -> ^(COLUMN_DEF ident dataType generatedColumnDefinition? columnConstDef*)
+    ;
+
+generatedColumnDefinition
+    : GENERATED ALWAYS AS '(' expr ')' -> ^(GENERATED expr)
     ;
 
 dataType
@@ -1013,9 +1017,9 @@ settingsType
     ;
 
 nonReserved
-    : ALIAS | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
+    : ALIAS | ALWAYS | ANALYZE | ANALYZER | BERNOULLI | BLOB | CATALOGS | CHAR_FILTERS | CLUSTERED
     | COLUMNS | COPY | CURRENT | DATE | DAY | DISTRIBUTED | DYNAMIC | EXPLAIN
-    | EXTENDS | FOLLOWING | FORMAT | FULLTEXT | FUNCTIONS | GEO_POINT | GLOBAL
+    | EXTENDS | FOLLOWING | FORMAT | FULLTEXT | FUNCTIONS | GENERATED | GEO_POINT | GLOBAL
     | GRAPHVIZ | HOUR | IGNORED | INTERVAL | LOGICAL | MATERIALIZED | MINUTE
     | MONTH | OFF | OVER | PARTITION | PARTITIONED | PARTITIONS | PLAIN
     | PRECEDING | RANGE | REFRESH | ROW | ROWS | SCHEMA | SCHEMAS | SECOND
@@ -1171,9 +1175,12 @@ INDEX: 'INDEX';
 DYNAMIC: 'DYNAMIC';
 STRICT: 'STRICT';
 IGNORED: 'IGNORED';
+GENERATED: 'GENERATED';
+ALWAYS: 'ALWAYS';
 
 ARRAY: 'ARRAY';
 
+ANALYZE: 'ANALYZE';
 ANALYZER: 'ANALYZER';
 EXTENDS: 'EXTENDS';
 TOKENIZER: 'TOKENIZER';
@@ -566,7 +566,12 @@ whenList returns [List<WhenClause> value = new ArrayList<>()]
     ;
 
 explain returns [Statement value]
-    : ^(EXPLAIN explainOptions? statement) { $value = new Explain($statement.value, $explainOptions.value); }
+    : ^(EXPLAIN explainAnalyze explainOptions? statement) { $value = new Explain($statement.value, $explainOptions.value, $explainAnalyze.value); }
+    ;
+
+explainAnalyze returns [boolean value]
+    : ANALYZE { $value = true; }
+    |         { $value = false; }
     ;
 
 explainOptions returns [List<ExplainOption> value = new ArrayList<>()]
@@ -787,12 +792,19 @@ nestedColumnDefinition returns [NestedColumnDefinition value]
     ;
 
 columnDefinition returns [ColumnDefinition value]
-    : ^(COLUMN_DEF ident dataType columnConstraints)
+    : ^(COLUMN_DEF ident dataType generatedColumnDefinition? columnConstraints)
         {
-            $value = new ColumnDefinition($ident.value, $dataType.value, $columnConstraints.value);
+            $value = new ColumnDefinition($ident.value,
+                                          $dataType.value,
+                                          $generatedColumnDefinition.value,
+                                          $columnConstraints.value);
         }
     ;
 
+generatedColumnDefinition returns [Expression value]
+    : ^(GENERATED expr) { $value = $expr.value; }
+    ;
+
 dataType returns [ColumnType value]
     : type=(BOOLEAN | BYTE | SHORT | INT | INTEGER | LONG | FLOAT | DOUBLE |
             TIMESTAMP | STRING_TYPE | IP | GEO_POINT )
@@ -31,11 +31,20 @@ public class ColumnDefinition extends TableElement {
 
     private final String ident;
     private final ColumnType type;
+    private final Expression generatedExpression;
     private final List<ColumnConstraint> constraints;
 
     public ColumnDefinition(String ident, ColumnType type, @Nullable List<ColumnConstraint> constraints) {
+        this(ident, type, null, constraints);
+    }
+
+    public ColumnDefinition(String ident,
+                            ColumnType type,
+                            @Nullable Expression generatedExpression,
+                            @Nullable List<ColumnConstraint> constraints) {
         this.ident = ident;
         this.type = type;
+        this.generatedExpression = generatedExpression;
         this.constraints = Objects.firstNonNull(constraints, ImmutableList.<ColumnConstraint>of());
     }
 
@@ -48,13 +57,21 @@ public class ColumnDefinition extends TableElement {
         return type;
     }
 
+    /**
+     * the expression of a <code>GENERATED ALWAYS AS (expression)</code> column, null for regular columns
+     */
+    @Nullable
+    public Expression generatedExpression() {
+        return generatedExpression;
+    }
+
     public List<ColumnConstraint> constraints() {
         return constraints;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(ident, type, constraints);
+        return Objects.hashCode(ident, type, generatedExpression, constraints);
     }
 
     @Override
@@ -67,6 +84,7 @@ public class ColumnDefinition extends TableElement {
         if (!constraints.equals(that.constraints)) return false;
         if (!ident.equals(that.ident)) return false;
         if (!type.equals(that.type)) return false;
+        if (!Objects.equal(generatedExpression, that.generatedExpression)) return false;
 
         return true;
     }
@@ -76,6 +94,7 @@ public class ColumnDefinition extends TableElement {
         return Objects.toStringHelper(this)
                 .add("ident", ident)
                 .add("type", type)
+                .add("generatedExpression", generatedExpression)
                 .add("constraints", constraints)
                 .toString();
     }
@@ -33,10 +33,17 @@ public class Explain
 {
     private final Statement statement;
     private final List<ExplainOption> options;
+    private final boolean analyze;
 
     public Explain(Statement statement, List<ExplainOption> options)
+    {
+        this(statement, options, false);
+    }
+
+    public Explain(Statement statement, List<ExplainOption> options, boolean analyze)
     {
         this.statement = checkNotNull(statement, "statement is null");
+        this.analyze = analyze;
         if (options == null) {
             this.options = ImmutableList.of();
         }
@@ -55,6 +62,14 @@ public class Explain
         return options;
     }
 
+    /**
+     * @return true if the statement should be executed and its runtime metrics returned
+     */
+    public boolean isAnalyze()
+    {
+        return analyze;
+    }
+
     @Override
     public <R, C> R accept(AstVisitor<R, C> visitor, C context)
     {
@@ -64,7 +79,7 @@ public class Explain
     @Override
     public int hashCode()
     {
-        return Objects.hashCode(statement, options);
+        return Objects.hashCode(statement, options, analyze);
     }
 
     @Override
@@ -78,7 +93,8 @@ public class Explain
         }
         Explain o = (Explain) obj;
         return Objects.equal(statement, o.statement) &&
-                Objects.equal(options, o.options);
+                Objects.equal(options, o.options) &&
+                analyze == o.analyze;
     }
 
     @Override
@@ -87,6 +103,7 @@ public class Explain
         return Objects.toStringHelper(this)
                 .add("statement", statement)
                 .add("options", options)
+                .add("analyze", analyze)
                 .toString();
     }
 }
@@ -23,6 +23,7 @@ package io.crate.sql.parser;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import io.crate.sql.ExpressionFormatter;
 import io.crate.sql.SqlFormatter;
 import io.crate.sql.tree.*;
 import org.antlr.runtime.tree.CommonTree;
@@ -138,6 +139,8 @@ public class TestStatementBuilder
         printStatement("create table t (id integer primary key, name string) with (number_of_replicas=-4)");
         printStatement("create table t (o object(dynamic) as (i integer, d double))");
         printStatement("create table t (id integer, name string, primary key (id))");
+        printStatement("create table t (ts timestamp, day timestamp generated always as (date_trunc('day', ts)))");
+        printStatement("create table t (name string, prefix string generated always as (substr(name, 1, 3)) index off)");
         printStatement("create table t (" +
                 "  \"_i\" integer, " +
                 "  \"in\" int," +
@@ -270,6 +273,19 @@ public class TestStatementBuilder
         printStatement("select a['x'] from foo where a[1 + 2]['y'] = 1");
     }
 
+    @Test
+    public void testGeneratedColumnDefinition() throws Exception {
+        CreateTable createTable = (CreateTable) SqlParser.createStatement(
+                "create table t (ts timestamp, day timestamp generated always as (date_trunc('day', ts)) primary key)");
+        ColumnDefinition ts = (ColumnDefinition) createTable.tableElements().get(0);
+        assertThat(ts.generatedExpression() == null, is(true));
+
+        ColumnDefinition day = (ColumnDefinition) createTable.tableElements().get(1);
+        assertThat(day.generatedExpression(), instanceOf(FunctionCall.class));
+        assertThat(ExpressionFormatter.formatExpression(day.generatedExpression()), is("date_trunc('day', \"ts\")"));
+        assertThat(day.constraints().get(0), instanceOf(PrimaryKeyColumnConstraint.class));
+    }
+
     @Test
     public void testBlobTable() throws Exception {
         printStatement("create blob table screenshots");
@@ -329,6 +345,20 @@ public class TestStatementBuilder
         printStatement("select cast(y as integer) from foo");
     }
 
+    @Test
+    public void testExplain() throws Exception {
+        Explain explain = (Explain) SqlParser.createStatement("explain select * from foo");
+        assertFalse(explain.isAnalyze());
+        assertThat(explain.getStatement(), instanceOf(Query.class));
+
+        explain = (Explain) SqlParser.createStatement("explain analyze select * from foo");
+        assertThat(explain.isAnalyze(), is(true));
+        assertThat(explain.getStatement(), instanceOf(Query.class));
+
+        printStatement("explain analyze select count(*) from foo group by bar");
+        printStatement("select analyze from foo");
+    }
+
     @Test
     public void testSubscript() throws Exception {
         Expression expression = SqlParser.createExpression("a['sub']");
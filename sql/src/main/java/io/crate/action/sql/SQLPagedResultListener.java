@@ -0,0 +1,51 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.types.DataType;
+
+/**
+ * Receives the result of a statement executed using
+ * {@link TransportSQLAction#executePaged(SQLRequest, int, SQLPagedResultListener)} page by page.
+ */
+public interface SQLPagedResultListener {
+
+    /**
+     * called once before the first page is handed over
+     */
+    void onStart(String[] outputNames, DataType[] outputTypes);
+
+    /**
+     * @return a future that is done once the rows have been consumed.
+     *         The next page is fetched only afterwards, so at most one page is held in memory.
+     */
+    ListenableFuture<?> onPage(Object[][] rows);
+
+    void onFinish(long rowCount);
+
+    /**
+     * called if the execution failed.
+     * If {@link #onStart(String[], DataType[])} has been called already the result is incomplete.
+     */
+    void onFailure(Throwable e);
+}
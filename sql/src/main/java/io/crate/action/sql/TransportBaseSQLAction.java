@@ -24,10 +24,12 @@ package io.crate.action.sql;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Constants;
+import io.crate.executor.QueryResult;
 import io.crate.executor.TaskResult;
 import io.crate.metadata.PartitionName;
 import io.crate.analyze.Analysis;
@@ -38,7 +40,9 @@ import io.crate.executor.Executor;
 import io.crate.executor.Job;
 import io.crate.metadata.TableIdent;
 import io.crate.operation.collect.StatsTables;
+import io.crate.planner.ExplainPlan;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.PlanPrinter;
 import io.crate.planner.Planner;
 import io.crate.sql.parser.ParsingException;
@@ -51,6 +55,7 @@ import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Provider;
+import org.elasticsearch.common.lucene.BytesRefs;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.engine.DocumentAlreadyExistsException;
 import org.elasticsearch.index.mapper.MapperParsingException;
@@ -66,8 +71,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
@@ -85,19 +89,27 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                     }
             );
 
-    private final ClusterService clusterService;
+    protected final ClusterService clusterService;
     protected final Analyzer analyzer;
     protected final Planner planner;
-    private final Provider<Executor> executorProvider;
-    private final StatsTables statsTables;
+    private final PlanCache planCache;
+    protected final Provider<Executor> executorProvider;
+    protected final StatsTables statsTables;
     private volatile boolean disabled;
 
+    private static final Object[][] EMPTY_BULK_ARGS = new Object[0][];
+    private static final Statement OPERATIONS_LOG_STATEMENT = SqlParser.createStatement(
+            "select _node['name'], id, name, started, ended, used_bytes, " +
+            "rows_in, rows_out, rows_sent, cpu_time, projectors, error " +
+            "from sys.operations_log where job_id = ? order by started");
+
     public TransportBaseSQLAction(ClusterService clusterService,
                                   Settings settings,
                                   String actionName,
                                   ThreadPool threadPool,
                                   Analyzer analyzer,
                                   Planner planner,
+                                  PlanCache planCache,
                                   Provider<Executor> executorProvider,
                                   StatsTables statsTables,
                                   ActionFilters actionFilters) {
@@ -105,12 +117,22 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         this.clusterService = clusterService;
         this.analyzer = analyzer;
         this.planner = planner;
+        this.planCache = planCache;
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
     }
 
     public abstract Analysis getAnalysis(Statement statement, TRequest request);
 
+    /**
+     * @return the arguments the analysis of the request depends on if its analysis and plan
+     * may be cached, null otherwise
+     */
+    @Nullable
+    protected Object[] cacheableArgs(TRequest request) {
+        return null;
+    }
+
     /**
      * create an empty SQLBaseResponse instance with no rows
      * and a rowCount of 0
@@ -147,9 +169,8 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
             return;
         }
         try {
-            Statement statement = statementCache.get(request.stmt());
-            Analysis analysis = getAnalysis(statement, request);
-            processAnalysis(analysis, request, listener);
+            Tuple<Analysis, Plan> analysisAndPlan = analyzeAndPlan(request);
+            processPlan(analysisAndPlan.v1(), analysisAndPlan.v2(), request, listener);
         } catch (Throwable e) {
             logger.debug("Error executing SQLRequest", e);
             sendResponse(listener, buildSQLActionException(e));
@@ -166,7 +187,50 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         statsTables.activeRequestsDec();
     }
 
-    private void processAnalysis(Analysis analysis, TRequest request, ActionListener<TResponse> listener) {
+    /**
+     * analyze and plan the statement of the request, the plan cache is used if possible.
+     *
+     * @return the analysis and the plan, the plan is null if the statement has no result
+     */
+    protected Tuple<Analysis, Plan> analyzeAndPlan(TRequest request) throws Exception {
+        PlanCache.Key cacheKey = null;
+        Object[] cacheableArgs = cacheableArgs(request);
+        if (cacheableArgs != null) {
+            cacheKey = planCache.key(request.stmt(), cacheableArgs);
+        }
+        if (cacheKey != null) {
+            PlanCache.Entry entry = planCache.get(cacheKey, cacheableArgs);
+            if (entry != null) {
+                if (entry.planned()) {
+                    return new Tuple<>(entry.analysis(), entry.plan());
+                }
+                // the cached analysis was bound to other arguments
+                return new Tuple<>(entry.analysis(), plan(entry.analysis()));
+            }
+        }
+        Statement statement = statementCache.get(request.stmt());
+        Analysis analysis = getAnalysis(statement, request);
+        Plan plan = plan(analysis);
+        if (cacheKey != null) {
+            planCache.put(cacheKey, cacheableArgs, analysis, plan);
+        }
+        return new Tuple<>(analysis, plan);
+    }
+
+    @Nullable
+    private Plan plan(Analysis analysis) {
+        if (analysis.analyzedStatement().hasNoResult()) {
+            return null;
+        }
+        Plan plan = planner.plan(analysis);
+        tracePlan(plan);
+        return plan;
+    }
+
+    protected void processPlan(Analysis analysis,
+                               @Nullable Plan plan,
+                               TRequest request,
+                               ActionListener<TResponse> listener) {
         AnalyzedStatement analyzedStatement = analysis.analyzedStatement();
         final String[] outputNames = analyzedStatement.outputNames().toArray(new String[analyzedStatement.outputNames().size()]);
         DataType[] outputTypes = analyzedStatement.outputTypes().toArray(new DataType[analyzedStatement.outputTypes().size()]);
@@ -175,11 +239,133 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
             listener.onResponse(emptyResponse(request, outputNames, outputTypes));
             return;
         }
-        final Plan plan = planner.plan(analysis);
-        tracePlan(plan);
-
+        assert plan != null : "plan must not be null if the statement has a result";
+        if (plan instanceof ExplainPlan) {
+            explainPlan((ExplainPlan) plan, outputNames, outputTypes, listener, request);
+            return;
+        }
         executePlan(analyzedStatement, plan, outputNames, outputTypes, listener, request);
+    }
 
+    /**
+     * respond with the printed sub plan of an EXPLAIN statement.
+     * In case of EXPLAIN ANALYZE the sub plan is executed with instrumented operations first and
+     * their runtime metrics are read from <code>sys.operations_log</code>, which requires stats to be enabled.
+     */
+    private void explainPlan(final ExplainPlan plan,
+                             final String[] outputNames,
+                             final DataType[] outputTypes,
+                             final ActionListener<TResponse> listener,
+                             final TRequest request) {
+        final String printedPlan = new PlanPrinter().print(plan.subPlan());
+        if (!plan.analyze()) {
+            sendResponse(listener, createResponseFromResult(
+                    outputNames,
+                    outputTypes,
+                    ImmutableList.<TaskResult>of(new QueryResult(new Object[][]{new Object[]{printedPlan}})),
+                    false,
+                    request.creationTime(),
+                    request.includeTypesOnResponse()));
+            return;
+        }
+        if (!statsTables.isEnabled()) {
+            sendResponse(listener, buildSQLActionException(new UnsupportedFeatureException(
+                    "EXPLAIN ANALYZE requires stats to be enabled, set stats.enabled to true")));
+            return;
+        }
+
+        final Executor executor = executorProvider.get();
+        Job job = executor.newJob(plan.subPlan(), true);
+        final UUID jobId = job.id();
+        statsTables.jobStarted(jobId, request.stmt());
+        Futures.addCallback(Futures.allAsList(executor.execute(job)), new FutureCallback<List<TaskResult>>() {
+            @Override
+            public void onSuccess(@Nullable List<TaskResult> result) {
+                statsTables.jobFinished(jobId, null);
+                long rowCount = 0;
+                if (result != null && !result.isEmpty()) {
+                    rowCount = result.get(result.size() - 1).rows().length;
+                }
+                explainAnalyzeResponse(executor, jobId, rowCount, printedPlan,
+                        outputNames, outputTypes, listener, request);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                logger.debug("Error processing SQLRequest", t);
+                statsTables.jobFinished(jobId, Exceptions.messageOf(t));
+                sendResponse(listener, buildSQLActionException(t));
+            }
+        });
+    }
+
+    private void explainAnalyzeResponse(Executor executor,
+                                        final UUID jobId,
+                                        final long rowCount,
+                                        final String printedPlan,
+                                        final String[] outputNames,
+                                        final DataType[] outputTypes,
+                                        final ActionListener<TResponse> listener,
+                                        final TRequest request) {
+        List<ListenableFuture<TaskResult>> resultFutureList;
+        try {
+            Analysis analysis = analyzer.analyze(
+                    OPERATIONS_LOG_STATEMENT, new Object[]{jobId.toString()}, EMPTY_BULK_ARGS);
+            resultFutureList = executor.execute(executor.newJob(planner.plan(analysis)));
+        } catch (Throwable e) {
+            sendResponse(listener, buildSQLActionException(e));
+            return;
+        }
+        Futures.addCallback(Futures.allAsList(resultFutureList), new FutureCallback<List<TaskResult>>() {
+            @Override
+            public void onSuccess(@Nullable List<TaskResult> result) {
+                assert result != null && result.size() == 1;
+                Object[][] rows = result.get(0).rows();
+                List<Map<String, Object>> operations = new ArrayList<>(rows.length);
+                for (Object[] row : rows) {
+                    Map<String, Object> operation = new LinkedHashMap<>();
+                    operation.put("node", BytesRefs.toString(row[0]));
+                    operation.put("id", BytesRefs.toString(row[1]));
+                    operation.put("name", BytesRefs.toString(row[2]));
+                    Long started = (Long) row[3];
+                    Long ended = (Long) row[4];
+                    operation.put("wall_time", started == null || ended == null ? null : ended - started);
+                    operation.put("used_bytes", row[5]);
+                    operation.put("rows_in", row[6]);
+                    operation.put("rows_out", row[7]);
+                    operation.put("rows_sent", row[8]);
+                    operation.put("cpu_time", row[9]);
+                    operation.put("projectors", row[10]);
+                    operation.put("error", BytesRefs.toString(row[11]));
+                    operations.add(operation);
+                }
+                Map<String, Object> metrics = new LinkedHashMap<>();
+                metrics.put("job_id", jobId.toString());
+                metrics.put("rows", rowCount);
+                metrics.put("operations", operations);
+
+                TResponse response;
+                try {
+                    response = createResponseFromResult(
+                            outputNames,
+                            outputTypes,
+                            ImmutableList.<TaskResult>of(new QueryResult(new Object[][]{
+                                    new Object[]{printedPlan, metrics}})),
+                            false,
+                            request.creationTime(),
+                            request.includeTypesOnResponse());
+                } catch (Throwable e) {
+                    sendResponse(listener, buildSQLActionException(e));
+                    return;
+                }
+                sendResponse(listener, response);
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+                sendResponse(listener, buildSQLActionException(t));
+            }
+        });
     }
 
     private void executePlan(final AnalyzedStatement analyzedStatement,
@@ -351,6 +537,10 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         return new SQLActionException(message, errorCode, restStatus, stackTrace.toString());
     }
 
+    protected boolean disabled() {
+        return disabled;
+    }
+
     public void enable() {
         disabled = false;
     }
@@ -21,29 +21,39 @@
 
 package io.crate.action.sql;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import io.crate.analyze.Analysis;
+import io.crate.analyze.AnalyzedStatement;
 import io.crate.analyze.Analyzer;
-import io.crate.executor.BytesRefUtils;
-import io.crate.executor.Executor;
-import io.crate.executor.TaskResult;
+import io.crate.exceptions.Exceptions;
+import io.crate.executor.*;
 import io.crate.executor.transport.ResponseForwarder;
+import io.crate.executor.transport.task.elasticsearch.QueryThenFetchTask;
 import io.crate.operation.collect.StatsTables;
+import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BaseTransportRequestHandler;
+import org.elasticsearch.transport.NodeDisconnectedException;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportService;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 
 public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLResponse> {
@@ -55,12 +65,13 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
             ThreadPool threadPool,
             Analyzer analyzer,
             Planner planner,
+            PlanCache planCache,
             Provider<Executor> executor,
             TransportService transportService,
             StatsTables statsTables,
             ActionFilters actionFilters) {
         super(clusterService, settings, SQLAction.NAME, threadPool,
-                analyzer, planner, executor, statsTables, actionFilters);
+                analyzer, planner, planCache, executor, statsTables, actionFilters);
         transportService.registerHandler(SQLAction.NAME, new TransportHandler());
     }
 
@@ -69,6 +80,11 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
         return analyzer.analyze(statement, request.args(), SQLBulkRequest.EMPTY_BULK_ARGS);
     }
 
+    @Override
+    protected Object[] cacheableArgs(SQLRequest request) {
+        return request.args();
+    }
+
     @Override
     public SQLResponse emptyResponse(SQLRequest request,
                                      String[] outputNames,
@@ -111,6 +127,179 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
         );
     }
 
+    /**
+     * Execute the statement of the request and hand its result over to the listener page by page.
+     * Only statements that are executed by a single {@link QueryThenFetchTask} are actually fetched in pages,
+     * the result of any other statement is handed over as a single page.
+     *
+     * @param pageSize the maximum number of rows of a page
+     */
+    public void executePaged(SQLRequest request, int pageSize, final SQLPagedResultListener listener) {
+        logger.debug("{}", request);
+        statsTables.activeRequestsInc();
+        if (disabled()) {
+            statsTables.activeRequestsDec();
+            listener.onFailure(new NodeDisconnectedException(clusterService.localNode(), actionName));
+            return;
+        }
+        final Tuple<Analysis, Plan> analysisAndPlan;
+        try {
+            analysisAndPlan = analyzeAndPlan(request);
+        } catch (Throwable e) {
+            logger.debug("Error executing SQLRequest", e);
+            statsTables.activeRequestsDec();
+            listener.onFailure(buildSQLActionException(e));
+            return;
+        }
+        Plan plan = analysisAndPlan.v2();
+        AnalyzedStatement analyzedStatement = analysisAndPlan.v1().analyzedStatement();
+        if (plan != null && !analyzedStatement.expectsAffectedRows()) {
+            Job job = executorProvider.get().newJob(plan);
+            if (job.tasks().size() == 1 && job.tasks().get(0) instanceof QueryThenFetchTask) {
+                new PagedExecution(request, analyzedStatement, job, pageSize, listener).start();
+                return;
+            }
+        }
+        processPlan(analysisAndPlan.v1(), plan, request, new ActionListener<SQLResponse>() {
+            @Override
+            public void onResponse(final SQLResponse response) {
+                listener.onStart(response.cols(), response.columnTypes());
+                Futures.addCallback(listener.onPage(response.rows()), new FutureCallback<Object>() {
+                    @Override
+                    public void onSuccess(@Nullable Object result) {
+                        listener.onFinish(response.rowCount());
+                    }
+
+                    @Override
+                    public void onFailure(@Nonnull Throwable t) {
+                        listener.onFailure(t);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * fetches the pages of a {@link QueryThenFetchTask} one after another,
+     * the next page is only fetched once the listener consumed the previous one.
+     */
+    private class PagedExecution implements FutureCallback<TaskResult> {
+
+        private final SQLRequest request;
+        private final String[] outputNames;
+        private final DataType[] outputTypes;
+        private final UUID jobId;
+        private final QueryThenFetchTask task;
+        private final int pageSize;
+        private final SQLPagedResultListener listener;
+
+        private int remaining;
+        private long rowCount = 0L;
+        private PageInfo pageInfo;
+        private boolean started = false;
+
+        private PagedExecution(SQLRequest request,
+                               AnalyzedStatement analyzedStatement,
+                               Job job,
+                               int pageSize,
+                               SQLPagedResultListener listener) {
+            this.request = request;
+            this.outputNames = analyzedStatement.outputNames().toArray(new String[analyzedStatement.outputNames().size()]);
+            this.outputTypes = analyzedStatement.outputTypes().toArray(new DataType[analyzedStatement.outputTypes().size()]);
+            this.jobId = job.id();
+            this.task = (QueryThenFetchTask) job.tasks().get(0);
+            this.pageSize = pageSize;
+            this.listener = listener;
+            this.remaining = task.limit();
+        }
+
+        private void start() {
+            statsTables.jobStarted(jobId, request.stmt());
+            if (remaining == 0) {
+                listener.onStart(outputNames, outputTypes);
+                finish();
+                return;
+            }
+            pageInfo = PageInfo.firstPage(Math.min(pageSize, remaining));
+            task.start(pageInfo);
+            Futures.addCallback(task.result().get(0), this);
+        }
+
+        @Override
+        public void onSuccess(@Nullable TaskResult result) {
+            final PageableTaskResult pageableResult = (PageableTaskResult) result;
+            assert pageableResult != null;
+            final Object[][] rows;
+            try {
+                Page page = pageableResult.page();
+                rows = new Object[(int) page.size()][];
+                int idx = 0;
+                for (Object[] row : page) {
+                    rows[idx++] = row;
+                }
+                BytesRefUtils.ensureStringTypesAreStrings(outputTypes, rows);
+            } catch (Throwable t) {
+                close(pageableResult);
+                onFailure(t);
+                return;
+            }
+            rowCount += rows.length;
+            remaining -= rows.length;
+            final boolean last = rows.length < pageInfo.size() || remaining == 0;
+
+            // start only once the first page is there, so that failures of the query can still be reported as such
+            if (!started) {
+                started = true;
+                listener.onStart(outputNames, outputTypes);
+            }
+            Futures.addCallback(listener.onPage(rows), new FutureCallback<Object>() {
+                @Override
+                public void onSuccess(@Nullable Object result) {
+                    if (last) {
+                        close(pageableResult);
+                        finish();
+                    } else {
+                        pageInfo = pageInfo.nextPage(Math.min(pageSize, remaining));
+                        Futures.addCallback(pageableResult.fetch(pageInfo), PagedExecution.this);
+                    }
+                }
+
+                @Override
+                public void onFailure(@Nonnull Throwable t) {
+                    close(pageableResult);
+                    PagedExecution.this.onFailure(t);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull Throwable t) {
+            logger.debug("Error processing paged SQLRequest", t);
+            statsTables.jobFinished(jobId, Exceptions.messageOf(t));
+            statsTables.activeRequestsDec();
+            listener.onFailure(buildSQLActionException(t));
+        }
+
+        private void finish() {
+            statsTables.jobFinished(jobId, null);
+            statsTables.activeRequestsDec();
+            listener.onFinish(rowCount);
+        }
+
+        private void close(PageableTaskResult result) {
+            try {
+                result.close();
+            } catch (IOException e) {
+                logger.error("error closing paged task result", e);
+            }
+        }
+    }
+
     private class TransportHandler extends BaseTransportRequestHandler<SQLRequest> {
 
         @Override
@@ -28,6 +28,7 @@ import io.crate.executor.RowCountResult;
 import io.crate.executor.TaskResult;
 import io.crate.executor.transport.ResponseForwarder;
 import io.crate.operation.collect.StatsTables;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
@@ -53,12 +54,13 @@ public class TransportSQLBulkAction extends TransportBaseSQLAction<SQLBulkReques
                                   ThreadPool threadPool,
                                   Analyzer analyzer,
                                   Planner planner,
+                                  PlanCache planCache,
                                   Provider<Executor> executor,
                                   TransportService transportService,
                                   StatsTables statsTables,
                                   ActionFilters actionFilters) {
         super(clusterService, settings, SQLBulkAction.NAME, threadPool, analyzer,
-                planner, executor, statsTables, actionFilters);
+                planner, planCache, executor, statsTables, actionFilters);
         transportService.registerHandler(SQLBulkAction.NAME, new TransportHandler());
     }
 
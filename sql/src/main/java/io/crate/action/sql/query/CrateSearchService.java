@@ -25,6 +25,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import io.crate.Constants;
 import io.crate.core.StringUtils;
+import io.crate.executor.transport.task.elasticsearch.ESFieldExtractor;
 import io.crate.executor.transport.task.elasticsearch.SortOrder;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.ColumnIdent;
@@ -69,6 +70,7 @@ import org.elasticsearch.search.dfs.DfsPhase;
 import org.elasticsearch.search.fetch.FetchPhase;
 import org.elasticsearch.search.fetch.QueryFetchSearchResult;
 import org.elasticsearch.search.fetch.ScrollQueryFetchSearchResult;
+import org.elasticsearch.search.fetch.fielddata.FieldDataFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.query.QueryPhase;
@@ -330,11 +332,25 @@ public class CrateSearchService extends InternalSearchService {
                     context.needWholeSource = true;
                 }
             } else if (!context.partitionBy.contains(symbol.info())) {
-                context.fields.add(columnIdent.fqn());
+                if (hasDocValues(symbol.info(), context.searchContext)) {
+                    // loaded from the doc values by the fetch phase, see ESFieldExtractor.FieldDataOrSource
+                    context.searchContext.fieldDataFields().add(
+                            new FieldDataFieldsContext.FieldDataField(columnIdent.fqn()));
+                } else {
+                    context.fields.add(columnIdent.fqn());
+                }
             }
             return null;
         }
 
+        private static boolean hasDocValues(ReferenceInfo info, SearchContext searchContext) {
+            if (!ESFieldExtractor.FieldDataOrSource.SUPPORTED_TYPES.contains(info.type())) {
+                return false;
+            }
+            FieldMapper fieldMapper = searchContext.smartNameFieldMapper(info.ident().columnIdent().fqn());
+            return fieldMapper != null && fieldMapper.hasDocValues();
+        }
+
         @Override
         public Void visitDynamicReference(DynamicReference symbol, OutputContext context) {
             return visitReference(symbol, context);
@@ -448,12 +464,13 @@ public class CrateSearchService extends InternalSearchService {
             return new SortField(function.toString(), new IndexFieldData.XFieldComparatorSource() {
                 @Override
                 public FieldComparator<?> newComparator(String fieldName, int numHits, int sortPos, boolean reversed) throws IOException {
-                    return new InputFieldComparator(
+                    return newInputComparator(
                             numHits,
                             context.context,
                             expressions,
                             functionInput,
                             function.valueType(),
+                            type,
                             missingObject(sortOrder.missing(), reversed)
                     );
                 }
@@ -472,11 +489,76 @@ public class CrateSearchService extends InternalSearchService {
         }
     }
 
-    static class InputFieldComparator extends FieldComparator {
+    /**
+     * create a comparator for the values of the input.
+     * Numeric values are kept in primitive arrays to avoid comparing boxed values.
+     */
+    static FieldComparator<?> newInputComparator(int numHits,
+                                                 CollectorContext context,
+                                                 List<LuceneCollectorExpression> collectorExpressions,
+                                                 Input input,
+                                                 DataType valueType,
+                                                 SortField.Type sortType,
+                                                 Object missingValue) {
+        switch (sortType) {
+            case LONG:
+                return new LongInputFieldComparator(
+                        numHits, context, collectorExpressions, input, ((Number) missingValue).longValue());
+            case INT:
+                return new IntInputFieldComparator(
+                        numHits, context, collectorExpressions, input, ((Number) missingValue).intValue());
+            case DOUBLE:
+                return new DoubleInputFieldComparator(
+                        numHits, context, collectorExpressions, input, ((Number) missingValue).doubleValue());
+            case FLOAT:
+                return new FloatInputFieldComparator(
+                        numHits, context, collectorExpressions, input, ((Number) missingValue).floatValue());
+            default:
+                return new InputFieldComparator(
+                        numHits, context, collectorExpressions, input, valueType, missingValue);
+        }
+    }
+
+    abstract static class AbstractInputFieldComparator<T> extends FieldComparator<T> {
 
-        private final Object[] values;
-        private final Input input;
+        protected final Input input;
         private final List<LuceneCollectorExpression> collectorExpressions;
+
+        protected AbstractInputFieldComparator(CollectorContext context,
+                                               List<LuceneCollectorExpression> collectorExpressions,
+                                               Input input) {
+            this.collectorExpressions = collectorExpressions;
+            this.input = input;
+            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
+                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
+                collectorExpression.startCollect(context);
+            }
+        }
+
+        /**
+         * @return the value of the input for the given doc
+         */
+        protected Object inputValue(int doc) {
+            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
+                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
+                collectorExpression.setNextDocId(doc);
+            }
+            return input.value();
+        }
+
+        @Override
+        public FieldComparator<T> setNextReader(AtomicReaderContext context) throws IOException {
+            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
+                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
+                collectorExpression.setNextReader(context);
+            }
+            return this;
+        }
+    }
+
+    static class InputFieldComparator extends AbstractInputFieldComparator<Object> {
+
+        private final Object[] values;
         private final Object missingValue;
         private final DataType valueType;
         private Object bottom;
@@ -488,15 +570,10 @@ public class CrateSearchService extends InternalSearchService {
                                     Input input,
                                     DataType valueType,
                                     Object missingValue) {
-            this.collectorExpressions = collectorExpressions;
+            super(context, collectorExpressions, input);
             this.missingValue = missingValue;
-            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
-                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
-                collectorExpression.startCollect(context);
-            }
             this.valueType = valueType;
             this.values = new Object[numHits];
-            this.input = input;
         }
 
         @Override
@@ -518,30 +595,18 @@ public class CrateSearchService extends InternalSearchService {
         @SuppressWarnings("unchecked")
         @Override
         public int compareBottom(int doc) throws IOException {
-            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
-                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
-                collectorExpression.setNextDocId(doc);
-            }
-            return valueType.compareValueTo(bottom, input.value());
+            return valueType.compareValueTo(bottom, inputValue(doc));
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public int compareTop(int doc) throws IOException {
-            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
-                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
-                collectorExpression.setNextDocId(doc);
-            }
-            return valueType.compareValueTo(top, input.value());
+            return valueType.compareValueTo(top, inputValue(doc));
         }
 
         @Override
         public void copy(int slot, int doc) throws IOException {
-            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
-                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
-                collectorExpression.setNextDocId(doc);
-            }
-            Object value = input.value();
+            Object value = inputValue(doc);
             if (value == null) {
                 values[slot] = missingValue;
             } else {
@@ -550,16 +615,239 @@ public class CrateSearchService extends InternalSearchService {
         }
 
         @Override
-        public FieldComparator setNextReader(AtomicReaderContext context) throws IOException {
-            for (int i = 0, collectorExpressionsSize = collectorExpressions.size(); i < collectorExpressionsSize; i++) {
-                LuceneCollectorExpression collectorExpression = collectorExpressions.get(i);
-                collectorExpression.setNextReader(context);
-            }
-            return this;
+        public Object value(int slot) {
+            return values[slot];
+        }
+    }
+
+    static class LongInputFieldComparator extends AbstractInputFieldComparator<Long> {
+
+        private final long[] values;
+        private final long missingValue;
+        private long bottom;
+        private long top;
+
+        public LongInputFieldComparator(int numHits,
+                                        CollectorContext context,
+                                        List<LuceneCollectorExpression> collectorExpressions,
+                                        Input input,
+                                        long missingValue) {
+            super(context, collectorExpressions, input);
+            this.missingValue = missingValue;
+            this.values = new long[numHits];
+        }
+
+        private long docValue(int doc) {
+            Object value = inputValue(doc);
+            return value == null ? missingValue : ((Number) value).longValue();
         }
 
         @Override
-        public Object value(int slot) {
+        public int compare(int slot1, int slot2) {
+            return Long.compare(values[slot1], values[slot2]);
+        }
+
+        @Override
+        public void setBottom(int slot) {
+            bottom = values[slot];
+        }
+
+        @Override
+        public void setTopValue(Long value) {
+            top = value;
+        }
+
+        @Override
+        public int compareBottom(int doc) throws IOException {
+            return Long.compare(bottom, docValue(doc));
+        }
+
+        @Override
+        public int compareTop(int doc) throws IOException {
+            return Long.compare(top, docValue(doc));
+        }
+
+        @Override
+        public void copy(int slot, int doc) throws IOException {
+            values[slot] = docValue(doc);
+        }
+
+        @Override
+        public Long value(int slot) {
+            return values[slot];
+        }
+    }
+
+    static class IntInputFieldComparator extends AbstractInputFieldComparator<Integer> {
+
+        private final int[] values;
+        private final int missingValue;
+        private int bottom;
+        private int top;
+
+        public IntInputFieldComparator(int numHits,
+                                       CollectorContext context,
+                                       List<LuceneCollectorExpression> collectorExpressions,
+                                       Input input,
+                                       int missingValue) {
+            super(context, collectorExpressions, input);
+            this.missingValue = missingValue;
+            this.values = new int[numHits];
+        }
+
+        private int docValue(int doc) {
+            Object value = inputValue(doc);
+            return value == null ? missingValue : ((Number) value).intValue();
+        }
+
+        @Override
+        public int compare(int slot1, int slot2) {
+            return Integer.compare(values[slot1], values[slot2]);
+        }
+
+        @Override
+        public void setBottom(int slot) {
+            bottom = values[slot];
+        }
+
+        @Override
+        public void setTopValue(Integer value) {
+            top = value;
+        }
+
+        @Override
+        public int compareBottom(int doc) throws IOException {
+            return Integer.compare(bottom, docValue(doc));
+        }
+
+        @Override
+        public int compareTop(int doc) throws IOException {
+            return Integer.compare(top, docValue(doc));
+        }
+
+        @Override
+        public void copy(int slot, int doc) throws IOException {
+            values[slot] = docValue(doc);
+        }
+
+        @Override
+        public Integer value(int slot) {
+            return values[slot];
+        }
+    }
+
+    static class DoubleInputFieldComparator extends AbstractInputFieldComparator<Double> {
+
+        private final double[] values;
+        private final double missingValue;
+        private double bottom;
+        private double top;
+
+        public DoubleInputFieldComparator(int numHits,
+                                          CollectorContext context,
+                                          List<LuceneCollectorExpression> collectorExpressions,
+                                          Input input,
+                                          double missingValue) {
+            super(context, collectorExpressions, input);
+            this.missingValue = missingValue;
+            this.values = new double[numHits];
+        }
+
+        private double docValue(int doc) {
+            Object value = inputValue(doc);
+            return value == null ? missingValue : ((Number) value).doubleValue();
+        }
+
+        @Override
+        public int compare(int slot1, int slot2) {
+            return Double.compare(values[slot1], values[slot2]);
+        }
+
+        @Override
+        public void setBottom(int slot) {
+            bottom = values[slot];
+        }
+
+        @Override
+        public void setTopValue(Double value) {
+            top = value;
+        }
+
+        @Override
+        public int compareBottom(int doc) throws IOException {
+            return Double.compare(bottom, docValue(doc));
+        }
+
+        @Override
+        public int compareTop(int doc) throws IOException {
+            return Double.compare(top, docValue(doc));
+        }
+
+        @Override
+        public void copy(int slot, int doc) throws IOException {
+            values[slot] = docValue(doc);
+        }
+
+        @Override
+        public Double value(int slot) {
+            return values[slot];
+        }
+    }
+
+    static class FloatInputFieldComparator extends AbstractInputFieldComparator<Float> {
+
+        private final float[] values;
+        private final float missingValue;
+        private float bottom;
+        private float top;
+
+        public FloatInputFieldComparator(int numHits,
+                                         CollectorContext context,
+                                         List<LuceneCollectorExpression> collectorExpressions,
+                                         Input input,
+                                         float missingValue) {
+            super(context, collectorExpressions, input);
+            this.missingValue = missingValue;
+            this.values = new float[numHits];
+        }
+
+        private float docValue(int doc) {
+            Object value = inputValue(doc);
+            return value == null ? missingValue : ((Number) value).floatValue();
+        }
+
+        @Override
+        public int compare(int slot1, int slot2) {
+            return Float.compare(values[slot1], values[slot2]);
+        }
+
+        @Override
+        public void setBottom(int slot) {
+            bottom = values[slot];
+        }
+
+        @Override
+        public void setTopValue(Float value) {
+            top = value;
+        }
+
+        @Override
+        public int compareBottom(int doc) throws IOException {
+            return Float.compare(bottom, docValue(doc));
+        }
+
+        @Override
+        public int compareTop(int doc) throws IOException {
+            return Float.compare(top, docValue(doc));
+        }
+
+        @Override
+        public void copy(int slot, int doc) throws IOException {
+            values[slot] = docValue(doc);
+        }
+
+        @Override
+        public Float value(int slot) {
             return values[slot];
         }
     }
@@ -32,6 +32,8 @@ import io.crate.sql.tree.DefaultTraversalVisitor;
 import io.crate.sql.tree.Insert;
 
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
 
 public abstract class AbstractInsertAnalyzer<T> extends DefaultTraversalVisitor<AnalyzedStatement, T> {
 
@@ -41,7 +43,9 @@ public abstract class AbstractInsertAnalyzer<T> extends DefaultTraversalVisitor<
         int numColumns;
 
         if (node.columns().size() == 0) { // no columns given in statement
-            numColumns = context.tableInfo().columns().size();
+            // generated columns are computed, values are only given for the other columns
+            Map<ColumnIdent, String> generatedColumns = context.tableInfo().generatedColumns();
+            numColumns = context.tableInfo().columns().size() - generatedColumns.size();
             if (maxInsertValues > numColumns) {
                 throw new IllegalArgumentException("too many values");
             }
@@ -50,6 +54,9 @@ public abstract class AbstractInsertAnalyzer<T> extends DefaultTraversalVisitor<
             int i = 0;
             for (ReferenceInfo columnInfo : context.tableInfo().columns()) {
                 if (i >= maxInsertValues) { break; }
+                if (generatedColumns.containsKey(columnInfo.ident().columnIdent())) {
+                    continue;
+                }
                 addColumn(columnInfo.ident().columnIdent().name(), context, i);
                 i++;
             }
@@ -97,6 +104,10 @@ public abstract class AbstractInsertAnalyzer<T> extends DefaultTraversalVisitor<
         if(Constants.INVALID_COLUMN_NAME_PREDICATE.apply(columnIdent.name())){
             throw new InvalidColumnNameException(columnIdent.name());
         }
+        if (context.tableInfo().generatedColumns().containsKey(columnIdent)) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Column \"%s\" is a generated column and cannot be written", columnIdent.sqlFqn()));
+        }
 
         // set primary key column if found
         for (ColumnIdent pkIdent : context.tableInfo().primaryKey()) {
@@ -21,18 +21,33 @@
 
 package io.crate.analyze;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 @Immutable
 public class Analysis {
 
     private final AnalyzedStatement analyzedStatement;
+    private final ParameterContext parameterContext;
 
     public Analysis(AnalyzedStatement analyzedStatement) {
+        this(analyzedStatement, null);
+    }
+
+    public Analysis(AnalyzedStatement analyzedStatement, @Nullable ParameterContext parameterContext) {
         this.analyzedStatement = analyzedStatement;
+        this.parameterContext = parameterContext;
     }
 
     public AnalyzedStatement analyzedStatement() {
         return analyzedStatement;
     }
+
+    /**
+     * @return the parameter context the statement was analyzed with or null if it is unknown
+     */
+    @Nullable
+    public ParameterContext parameterContext() {
+        return parameterContext;
+    }
 }
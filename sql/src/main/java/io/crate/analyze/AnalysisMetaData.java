@@ -21,17 +21,39 @@
 
 package io.crate.analyze;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.crate.analyze.relations.TableRelation;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceInfos;
 import io.crate.metadata.ReferenceResolver;
+import io.crate.metadata.table.TableInfo;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
 
+@Singleton
 public class AnalysisMetaData {
 
     private final Functions functions;
     private final ReferenceInfos referenceInfos;
     private final ReferenceResolver referenceResolver;
 
+    /**
+     * the table infos are replaced if the mapping of their table changes,
+     * so the generated columns are analyzed once per mapping
+     */
+    private final LoadingCache<TableInfo, GeneratedColumns> generatedColumns = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<TableInfo, GeneratedColumns>() {
+                @Override
+                public GeneratedColumns load(TableInfo tableInfo) throws Exception {
+                    return new GeneratedColumns(AnalysisMetaData.this, new TableRelation(tableInfo));
+                }
+            });
+
     @Inject
     public AnalysisMetaData(Functions functions,
                             ReferenceInfos referenceInfos,
@@ -52,4 +74,15 @@ public class AnalysisMetaData {
     public ReferenceResolver referenceResolver() {
         return referenceResolver;
     }
+
+    /**
+     * @return the analyzed expressions of the generated columns of the given table
+     */
+    public GeneratedColumns generatedColumns(TableInfo tableInfo) {
+        try {
+            return generatedColumns.getUnchecked(tableInfo);
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
 }
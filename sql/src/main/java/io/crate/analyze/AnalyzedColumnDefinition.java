@@ -28,6 +28,8 @@ import com.google.common.collect.Lists;
 import io.crate.Constants;
 import io.crate.exceptions.InvalidColumnNameException;
 import io.crate.metadata.ColumnIdent;
+import io.crate.sql.ExpressionFormatter;
+import io.crate.sql.tree.Expression;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 
@@ -51,6 +53,7 @@ public class AnalyzedColumnDefinition {
     private boolean isIndex = false;
     private ArrayList<String> copyToTargets;
     private boolean isParentColumn;
+    private Expression generatedExpression;
 
     public AnalyzedColumnDefinition(@Nullable AnalyzedColumnDefinition parent) {
         this.parent = parent;
@@ -158,6 +161,9 @@ public class AnalyzedColumnDefinition {
                             ident.sqlFqn()
                     ));
         }
+        if (isGenerated()) {
+            validateGeneratedColumn();
+        }
         if (isPrimaryKey() && collectionType != null) {
             throw new UnsupportedOperationException(
                     String.format("Cannot use columns of type \"%s\" as primary key", collectionType));
@@ -167,6 +173,21 @@ public class AnalyzedColumnDefinition {
         }
     }
 
+    private void validateGeneratedColumn() {
+        if (parent != null) {
+            throw new UnsupportedOperationException(String.format(Locale.ENGLISH,
+                    "Nested column \"%s\" cannot be a generated column", ident.sqlFqn()));
+        }
+        if (isPrimaryKey()) {
+            throw new UnsupportedOperationException(String.format(Locale.ENGLISH,
+                    "Generated column \"%s\" cannot be part of the primary key", ident.sqlFqn()));
+        }
+        if (collectionType != null || dataType.equals("object")) {
+            throw new UnsupportedOperationException(String.format(Locale.ENGLISH,
+                    "Generated column \"%s\" must be of a primitive type", ident.sqlFqn()));
+        }
+    }
+
     public String name() {
         return name;
     }
@@ -263,6 +284,29 @@ public class AnalyzedColumnDefinition {
         return collectionType != null || (parent != null && parent.isArrayOrInArray());
     }
 
+    public void generatedExpression(Expression generatedExpression) {
+        this.generatedExpression = generatedExpression;
+    }
+
+    /**
+     * the expression of a <code>GENERATED ALWAYS AS (expression)</code> column, null for regular columns
+     */
+    @Nullable
+    public Expression generatedExpression() {
+        return generatedExpression;
+    }
+
+    public boolean isGenerated() {
+        return generatedExpression != null;
+    }
+
+    /**
+     * @return the generated expression formatted as it is stored in the <code>_meta</code> mapping
+     */
+    public String formattedGeneratedExpression() {
+        return ExpressionFormatter.formatExpression(generatedExpression);
+    }
+
     public void isParentColumn(boolean isParentColumn) {
         this.isParentColumn = isParentColumn;
     }
@@ -24,8 +24,10 @@ package io.crate.analyze;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import io.crate.exceptions.ColumnUnknownException;
 import io.crate.metadata.ColumnIdent;
+import io.crate.sql.tree.*;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 
@@ -34,6 +36,8 @@ import java.util.*;
 
 public class AnalyzedTableElements {
 
+    private static final ReferencedColumnsCollector REFERENCED_COLUMNS_COLLECTOR = new ReferencedColumnsCollector();
+
     List<AnalyzedColumnDefinition> partitionedByColumns = new ArrayList<>();
     List<AnalyzedColumnDefinition> columns = new ArrayList<>();
     Set<ColumnIdent> columnIdents = new HashSet<>();
@@ -70,6 +74,10 @@ public class AnalyzedTableElements {
         if (!primaryKeys().isEmpty()) {
             meta.put("primary_keys", primaryKeys());
         }
+        Map<String, Object> generatedColumns = generatedColumns();
+        if (!generatedColumns.isEmpty()) {
+            meta.put("generated_columns", generatedColumns);
+        }
         mapping.put("_meta", meta);
         mapping.put("properties", properties);
         mapping.put("_all", ImmutableMap.of("enabled", false));
@@ -91,6 +99,28 @@ public class AnalyzedTableElements {
         return partitionedBy;
     }
 
+    /**
+     * @return the formatted expressions of all generated columns by column name
+     */
+    private Map<String, Object> generatedColumns() {
+        Map<String, Object> generatedColumns = new HashMap<>();
+        for (AnalyzedColumnDefinition column : Iterables.concat(columns, partitionedByColumns)) {
+            if (column.isGenerated()) {
+                generatedColumns.put(column.name(), column.formattedGeneratedExpression());
+            }
+        }
+        return generatedColumns;
+    }
+
+    public boolean isGenerated(ColumnIdent columnIdent) {
+        for (AnalyzedColumnDefinition column : Iterables.concat(columns, partitionedByColumns)) {
+            if (column.ident().equals(columnIdent)) {
+                return column.isGenerated();
+            }
+        }
+        return false;
+    }
+
     private void expandColumnIdents() {
         for (AnalyzedColumnDefinition column : columns) {
             expandColumn(column);
@@ -153,6 +183,65 @@ public class AnalyzedTableElements {
         }
         validateIndexDefinitions();
         validatePrimaryKeys();
+        validateGeneratedColumns();
+    }
+
+    /**
+     * generated columns may only refer to existing, non generated columns of the table
+     */
+    private void validateGeneratedColumns() {
+        for (AnalyzedColumnDefinition column : columns) {
+            if (!column.isGenerated()) {
+                continue;
+            }
+            Set<ColumnIdent> referencedColumns = new HashSet<>();
+            REFERENCED_COLUMNS_COLLECTOR.process(column.generatedExpression(), referencedColumns);
+            if (referencedColumns.isEmpty()) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Expression of generated column \"%s\" must refer to at least one column",
+                        column.ident().sqlFqn()));
+            }
+            for (ColumnIdent referencedColumn : referencedColumns) {
+                if (!columnIdents.contains(referencedColumn)) {
+                    throw new ColumnUnknownException(referencedColumn.sqlFqn());
+                }
+                if (isGenerated(referencedColumn)) {
+                    throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                            "Generated column \"%s\" cannot refer to generated column \"%s\"",
+                            column.ident().sqlFqn(), referencedColumn.sqlFqn()));
+                }
+            }
+        }
+    }
+
+    /**
+     * collects the top level columns a generated column expression refers to
+     */
+    private static class ReferencedColumnsCollector extends DefaultTraversalVisitor<Void, Set<ColumnIdent>> {
+
+        @Override
+        protected Void visitQualifiedNameReference(QualifiedNameReference node, Set<ColumnIdent> context) {
+            List<String> parts = node.getName().getParts();
+            if (parts.size() != 1) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Column reference \"%s\" in generated column expression must not have a schema or a table",
+                        node.getName()));
+            }
+            context.add(new ColumnIdent(parts.get(0)));
+            return null;
+        }
+
+        @Override
+        protected Void visitSubscriptExpression(SubscriptExpression node, Set<ColumnIdent> context) {
+            process(node.name(), context);
+            process(node.index(), context);
+            return null;
+        }
+
+        @Override
+        public Void visitParameterExpression(ParameterExpression node, Set<ColumnIdent> context) {
+            throw new IllegalArgumentException("Parameters are not allowed in generated column expressions");
+        }
     }
 
     private void addCopyToInfo(AnalyzedColumnDefinition column) {
@@ -44,7 +44,7 @@ public class Analyzer {
         ParameterContext parameterContext = new ParameterContext(parameters, bulkParams);
         AnalyzedStatement analyzedStatement = dispatcher.process(statement, parameterContext);
         assert analyzedStatement != null : "analyzed statement must not be null";
-        return new Analysis(analyzedStatement);
+        return new Analysis(analyzedStatement, parameterContext);
     }
 
 
@@ -194,6 +194,19 @@ public class Analyzer {
             return analyze(node, setStatementAnalyzer, context);
         }
 
+        @Override
+        protected AnalyzedStatement visitExplain(Explain node, ParameterContext context) {
+            if (!node.getOptions().isEmpty()) {
+                throw new UnsupportedOperationException("EXPLAIN options are not supported");
+            }
+            AnalyzedStatement statement = process(node.getStatement(), context);
+            if (statement.hasNoResult()) {
+                throw new UnsupportedOperationException(String.format(
+                        "cannot explain statement: '%s'", node.getStatement()));
+            }
+            return new ExplainAnalyzedStatement(context, statement, node.isAnalyze());
+        }
+
         @Override
         protected AnalyzedStatement visitNode(Node node, ParameterContext context) {
             throw new UnsupportedOperationException(String.format("cannot analyze statement: '%s'", node));
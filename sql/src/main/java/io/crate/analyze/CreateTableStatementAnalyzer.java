@@ -25,6 +25,7 @@ import io.crate.analyze.expressions.ExpressionToNumberVisitor;
 import io.crate.analyze.expressions.ExpressionToStringVisitor;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.FulltextAnalyzerResolver;
+import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceInfos;
 import io.crate.metadata.TableIdent;
 import io.crate.sql.tree.*;
@@ -40,12 +41,15 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
     private static final String CLUSTERED_BY_IN_PARTITIONED_ERROR = "Cannot use CLUSTERED BY column in PARTITIONED BY clause";
     private final ReferenceInfos referenceInfos;
     private final FulltextAnalyzerResolver fulltextAnalyzerResolver;
+    private final DeterministicExpressionValidator deterministicExpressionValidator;
 
     @Inject
     public CreateTableStatementAnalyzer(ReferenceInfos referenceInfos,
-                                        FulltextAnalyzerResolver fulltextAnalyzerResolver) {
+                                        FulltextAnalyzerResolver fulltextAnalyzerResolver,
+                                        Functions functions) {
         this.referenceInfos = referenceInfos;
         this.fulltextAnalyzerResolver = fulltextAnalyzerResolver;
+        this.deterministicExpressionValidator = new DeterministicExpressionValidator(functions);
     }
 
     @Override
@@ -75,6 +79,11 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
                 context.fulltextAnalyzerResolver()));
 
         context.analyzedTableElements().finalizeAndValidate();
+        for (AnalyzedColumnDefinition column : context.analyzedTableElements().columns()) {
+            if (column.isGenerated()) {
+                deterministicExpressionValidator.process(column.generatedExpression(), column);
+            }
+        }
         // update table settings
         context.tableParameter().settingsBuilder().put(context.analyzedTableElements().settings());
 
@@ -101,6 +110,10 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
                         String.format(Locale.ENGLISH, "Invalid or non-existent routing column \"%s\"",
                                 routingColumn));
             }
+            if (context.analyzedTableElements().isGenerated(routingColumn)) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                        "Cannot use generated column \"%s\" in CLUSTERED BY clause", routingColumn));
+            }
             if (context.primaryKeys().size() > 0 && !context.primaryKeys().contains(routingColumn.fqn())) {
                 throw new IllegalArgumentException("Clustered by column must be part of primary keys");
             }
@@ -134,4 +147,39 @@ public class CreateTableStatementAnalyzer extends AbstractStatementAnalyzer<Void
         }
         return null;
     }
+
+    /**
+     * the values of generated columns are computed whenever a document is written and queries on the
+     * generating expression are rewritten to the generated column,
+     * which is only correct if the expression always returns the same value for the same document.
+     */
+    private static class DeterministicExpressionValidator
+            extends DefaultTraversalVisitor<Void, AnalyzedColumnDefinition> {
+
+        private final Functions functions;
+
+        private DeterministicExpressionValidator(Functions functions) {
+            this.functions = functions;
+        }
+
+        @Override
+        protected Void visitFunctionCall(FunctionCall node, AnalyzedColumnDefinition context) {
+            String name = node.getName().toString();
+            if (!functions.isDeterministic(name)) {
+                throw nonDeterministic(name, context);
+            }
+            return super.visitFunctionCall(node, context);
+        }
+
+        @Override
+        protected Void visitCurrentTime(CurrentTime node, AnalyzedColumnDefinition context) {
+            throw nonDeterministic(node.getType().getName(), context);
+        }
+
+        private static IllegalArgumentException nonDeterministic(String function, AnalyzedColumnDefinition column) {
+            return new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Expression of generated column \"%s\" must be deterministic, \"%s\" is not",
+                    column.ident().sqlFqn(), function));
+        }
+    }
 }
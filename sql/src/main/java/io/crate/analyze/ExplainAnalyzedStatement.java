@@ -0,0 +1,80 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import java.util.List;
+
+public class ExplainAnalyzedStatement extends AnalyzedStatement {
+
+    private static final List<String> OUTPUT_NAMES = ImmutableList.of("plan");
+    private static final List<String> ANALYZE_OUTPUT_NAMES = ImmutableList.of("plan", "metrics");
+    private static final List<DataType> OUTPUT_TYPES = ImmutableList.<DataType>of(DataTypes.STRING);
+    private static final List<DataType> ANALYZE_OUTPUT_TYPES =
+            ImmutableList.<DataType>of(DataTypes.STRING, DataTypes.OBJECT);
+
+    private final AnalyzedStatement statement;
+    private final boolean analyze;
+
+    protected ExplainAnalyzedStatement(ParameterContext parameterContext,
+                                       AnalyzedStatement statement,
+                                       boolean analyze) {
+        super(parameterContext);
+        this.statement = statement;
+        this.analyze = analyze;
+        this.outputTypes = analyze ? ANALYZE_OUTPUT_TYPES : OUTPUT_TYPES;
+    }
+
+    /**
+     * the analyzed statement which is explained
+     */
+    public AnalyzedStatement statement() {
+        return statement;
+    }
+
+    public boolean analyze() {
+        return analyze;
+    }
+
+    @Override
+    public List<String> outputNames() {
+        return analyze ? ANALYZE_OUTPUT_NAMES : OUTPUT_NAMES;
+    }
+
+    @Override
+    public boolean hasNoResult() {
+        return false;
+    }
+
+    @Override
+    public void normalize() {
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitExplainStatement(this, context);
+    }
+}
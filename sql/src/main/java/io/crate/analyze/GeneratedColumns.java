@@ -0,0 +1,230 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.analyze.expressions.ExpressionAnalysisContext;
+import io.crate.analyze.expressions.ExpressionAnalyzer;
+import io.crate.analyze.relations.NameFieldResolver;
+import io.crate.analyze.relations.TableRelation;
+import io.crate.core.collections.StringObjectMaps;
+import io.crate.exceptions.ColumnValidationException;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.table.TableInfo;
+import io.crate.operation.Input;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.symbol.*;
+import io.crate.sql.parser.SqlParser;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The analyzed expressions of the generated columns of a table.
+ *
+ * The values of generated columns are computed whenever a document is written, so they are
+ * stored and indexed like the values of any other column. This makes it possible to replace
+ * the generating expression inside of a query with the generated column, which turns e.g.
+ * <code>date_trunc('day', ts) = ?</code> into a simple term query on the generated column.
+ *
+ * Instances are immutable and shared by all statements on the same table,
+ * use {@link AnalysisMetaData#generatedColumns(TableInfo)} to get them.
+ */
+public class GeneratedColumns {
+
+    private static final ReferenceReplacer REFERENCE_REPLACER = new ReferenceReplacer();
+    private static final ExpressionReplacer EXPRESSION_REPLACER = new ExpressionReplacer();
+    private static final ReferenceCollector REFERENCE_COLLECTOR = new ReferenceCollector();
+
+    private final EvaluatingNormalizer normalizer;
+    private final Map<Reference, Symbol> expressions = new LinkedHashMap<>();
+    private final Map<Reference, Set<ColumnIdent>> referencedColumns = new HashMap<>();
+
+    public GeneratedColumns(AnalysisMetaData analysisMetaData, TableRelation tableRelation) {
+        TableInfo tableInfo = tableRelation.tableInfo();
+        ExpressionAnalyzer expressionAnalyzer = new ExpressionAnalyzer(
+                analysisMetaData,
+                new ParameterContext(new Object[0], new Object[0][]),
+                new NameFieldResolver(tableRelation));
+        ExpressionAnalysisContext expressionAnalysisContext = new ExpressionAnalysisContext();
+        normalizer = new EvaluatingNormalizer(
+                analysisMetaData.functions(), RowGranularity.CLUSTER, analysisMetaData.referenceResolver());
+
+        for (Map.Entry<ColumnIdent, String> entry : tableInfo.generatedColumns().entrySet()) {
+            Reference generatedColumn = new Reference(tableInfo.getReferenceInfo(entry.getKey()));
+            Symbol expression = expressionAnalyzer.normalize(tableRelation.resolve(
+                    expressionAnalyzer.convert(SqlParser.createExpression(entry.getValue()), expressionAnalysisContext)));
+            expressions.put(generatedColumn, expression);
+
+            Set<ColumnIdent> columns = new HashSet<>();
+            REFERENCE_COLLECTOR.process(expression, columns);
+            referencedColumns.put(generatedColumn, columns);
+        }
+    }
+
+    public boolean isEmpty() {
+        return expressions.isEmpty();
+    }
+
+    public boolean isGenerated(ColumnIdent columnIdent) {
+        for (Reference generatedColumn : expressions.keySet()) {
+            if (generatedColumn.info().ident().columnIdent().equals(columnIdent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<Reference> generatedColumns() {
+        return expressions.keySet();
+    }
+
+    /**
+     * @return the analyzed expression of every generated column, in order of the columns
+     */
+    public Map<Reference, Symbol> expressions() {
+        return Collections.unmodifiableMap(expressions);
+    }
+
+    /**
+     * @return the top level columns the expression of the given generated column refers to
+     */
+    public Set<ColumnIdent> referencedColumns(Reference generatedColumn) {
+        return referencedColumns.get(generatedColumn);
+    }
+
+    /**
+     * computes the value of a generated column
+     *
+     * @param values the values of the top level columns of the written document.
+     *               Missing columns are treated as <code>null</code>.
+     */
+    @Nullable
+    public Object computeValue(Reference generatedColumn, Map<ColumnIdent, Object> values) {
+        return computeValue(generatedColumn, expressions.get(generatedColumn), values, normalizer);
+    }
+
+    /**
+     * computes the value of a generated column from its analyzed expression,
+     * used where rows are written without an analyzer at hand, e.g. in the indexing projectors.
+     *
+     * @see #computeValue(Reference, Map)
+     */
+    @Nullable
+    public static Object computeValue(Reference generatedColumn,
+                                      Symbol expression,
+                                      Map<ColumnIdent, Object> values,
+                                      EvaluatingNormalizer normalizer) {
+        Symbol computed = normalizer.normalize(REFERENCE_REPLACER.process(expression, values));
+        ColumnIdent columnIdent = generatedColumn.info().ident().columnIdent();
+        if (!(computed instanceof Input)) {
+            throw new ColumnValidationException(columnIdent.sqlFqn(),
+                    "Expression of generated column could not be evaluated");
+        }
+        try {
+            return generatedColumn.valueType().value(((Input) computed).value());
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new ColumnValidationException(columnIdent.sqlFqn(), String.format(Locale.ENGLISH,
+                    "Value of generated column expression cannot be converted to type \"%s\"",
+                    generatedColumn.valueType().getName()));
+        }
+    }
+
+    /**
+     * replaces occurrences of generating expressions with their generated column.
+     *
+     * Only expressions with the same type as their generated column are replaced,
+     * so that comparisons keep their semantics.
+     */
+    public Symbol rewriteQuery(Symbol query) {
+        if (expressions.isEmpty()) {
+            return query;
+        }
+        return EXPRESSION_REPLACER.process(query, expressions);
+    }
+
+    private static class ReferenceReplacer extends SymbolVisitor<Map<ColumnIdent, Object>, Symbol> {
+
+        @Override
+        public Symbol visitFunction(Function symbol, Map<ColumnIdent, Object> context) {
+            List<Symbol> arguments = new ArrayList<>(symbol.arguments().size());
+            for (Symbol argument : symbol.arguments()) {
+                arguments.add(process(argument, context));
+            }
+            return new Function(symbol.info(), arguments);
+        }
+
+        @Override
+        public Symbol visitReference(Reference symbol, Map<ColumnIdent, Object> context) {
+            ColumnIdent columnIdent = symbol.info().ident().columnIdent();
+            Object value = context.get(columnIdent.getRoot());
+            if (value != null && !columnIdent.isColumn()) {
+                value = StringObjectMaps.fromMapByPath((Map) value, columnIdent.path());
+            }
+            return Literal.newLiteral(symbol.valueType(), symbol.valueType().value(value));
+        }
+
+        @Override
+        protected Symbol visitSymbol(Symbol symbol, Map<ColumnIdent, Object> context) {
+            return symbol;
+        }
+    }
+
+    private static class ExpressionReplacer extends SymbolVisitor<Map<Reference, Symbol>, Symbol> {
+
+        @Override
+        public Symbol visitFunction(Function symbol, Map<Reference, Symbol> context) {
+            for (Map.Entry<Reference, Symbol> entry : context.entrySet()) {
+                if (entry.getValue().equals(symbol)
+                        && entry.getKey().valueType().equals(symbol.valueType())) {
+                    return entry.getKey();
+                }
+            }
+            List<Symbol> arguments = new ArrayList<>(symbol.arguments().size());
+            for (Symbol argument : symbol.arguments()) {
+                arguments.add(process(argument, context));
+            }
+            return new Function(symbol.info(), arguments);
+        }
+
+        @Override
+        protected Symbol visitSymbol(Symbol symbol, Map<Reference, Symbol> context) {
+            return symbol;
+        }
+    }
+
+    private static class ReferenceCollector extends SymbolVisitor<Set<ColumnIdent>, Void> {
+
+        @Override
+        public Void visitFunction(Function symbol, Set<ColumnIdent> context) {
+            for (Symbol argument : symbol.arguments()) {
+                process(argument, context);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitReference(Reference symbol, Set<ColumnIdent> context) {
+            context.add(symbol.info().ident().columnIdent().getRoot());
+            return null;
+        }
+    }
+}
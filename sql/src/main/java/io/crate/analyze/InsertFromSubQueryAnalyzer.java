@@ -50,7 +50,6 @@ public class InsertFromSubQueryAnalyzer extends AbstractInsertAnalyzer<Void> {
     public AnalyzedStatement visitInsertFromSubquery(InsertFromSubquery node, Void context) {
 
         TableInfo tableInfo = analysisMetaData.referenceInfos().getTableInfoUnsafe(TableIdent.of(node.table()));
-
         SelectStatementAnalyzer selectStatementAnalyzer = new SelectStatementAnalyzer(analysisMetaData, parameterContext);
         AnalyzedStatement statement = selectStatementAnalyzer.process(node.subQuery(), null);
         assert statement instanceof SelectAnalyzedStatement : "sub-query must be a SelectAnalyzedStatement";
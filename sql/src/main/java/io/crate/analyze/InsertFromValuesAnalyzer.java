@@ -47,6 +47,7 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -58,6 +59,7 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer<Void> {
 
     private ExpressionAnalyzer expressionAnalyzer;
     private ExpressionAnalysisContext expressionAnalysisContext;
+    private GeneratedColumns generatedColumns;
 
     public InsertFromValuesAnalyzer(AnalysisMetaData analysisMetaData, ParameterContext parameterContext) {
         this.analysisMetaData = analysisMetaData;
@@ -78,6 +80,9 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer<Void> {
                 );
         expressionAnalyzer.resolveWritableFields(true);
         expressionAnalysisContext = new ExpressionAnalysisContext();
+        if (!tableInfo.generatedColumns().isEmpty()) {
+            generatedColumns = analysisMetaData.generatedColumns(tableInfo);
+        }
 
         InsertFromValuesAnalyzedStatement statement = new InsertFromValuesAnalyzedStatement(tableInfo, parameterContext.hasBulkParams());
         handleInsertColumns(node, node.maxValuesLength(), statement);
@@ -129,6 +134,10 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer<Void> {
         String routingValue = null;
         List<Expression> values = node.values();
         List<ColumnIdent> primaryKey = context.tableInfo().primaryKey();
+        Map<ColumnIdent, Object> columnValues = null;
+        if (generatedColumns != null) {
+            columnValues = new HashMap<>(values.size());
+        }
 
         for (int i = 0, valuesSize = values.size(); i < valuesSize; i++) {
             Expression expression = values.get(i);
@@ -144,6 +153,9 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer<Void> {
             }
             try {
                 Object value = ((Input) valuesSymbol).value();
+                if (columnValues != null) {
+                    columnValues.put(columnIdent, value);
+                }
                 if (context.primaryKeyColumnIndices().contains(i)) {
                     int idx = primaryKey.indexOf(columnIdent);
                     if (idx < 0) {
@@ -181,10 +193,33 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer<Void> {
                         String.format("Invalid value of type '%s' in insert statement", valuesSymbol.symbolType().name()));
             }
         }
+        if (columnValues != null) {
+            addGeneratedColumnValues(columnValues, builder, context);
+        }
         context.sourceMaps().add(builder.bytes());
         context.addIdAndRouting(primaryKeyValues, routingValue);
     }
 
+    private void addGeneratedColumnValues(Map<ColumnIdent, Object> columnValues,
+                                          XContentBuilder builder,
+                                          InsertFromValuesAnalyzedStatement context) throws IOException {
+        for (Reference generatedColumn : generatedColumns.generatedColumns()) {
+            ColumnIdent columnIdent = generatedColumn.info().ident().columnIdent();
+            Object value = generatedColumns.computeValue(generatedColumn, columnValues);
+            if (context.tableInfo().partitionedBy().contains(columnIdent)) {
+                Map<String, String> partitionMap = context.currentPartitionMap();
+                if (partitionMap != null) {
+                    partitionMap.put(columnIdent.name(), BytesRefs.toString(value));
+                }
+            } else {
+                if (value instanceof BytesRef) {
+                    value = new BytesText(new BytesArray((BytesRef) value));
+                }
+                builder.field(columnIdent.name(), value);
+            }
+        }
+    }
+
     private void addPrimaryKeyValue(int index, Object value, List<BytesRef> primaryKeyValues) {
         if (value == null) {
             throw new IllegalArgumentException("Primary key value must not be NULL");
@@ -0,0 +1,186 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.SymbolVisitor;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Binds an analyzed statement to other parameter values by replacing the literals
+ * that were created for its parameters.
+ *
+ * Only selects, updates and deletes can be bound. If a parameter value was used directly
+ * during the analysis or if its literal has been normalized into another symbol,
+ * the statement can't be bound and has to be analyzed again.
+ */
+public class ParameterBinder {
+
+    private static final Object[][] EMPTY_BULK_ARGS = new Object[0][];
+
+    private static final StatementBinder STATEMENT_BINDER = new StatementBinder();
+    private static final SymbolBinder SYMBOL_BINDER = new SymbolBinder();
+
+    /**
+     * @param analysis an analysis of the statement with parameters of the same types
+     * @return a new analysis with the given parameters or null if the analysis can't be bound
+     */
+    @Nullable
+    public static Analysis bind(Analysis analysis, Object[] parameters) {
+        ParameterContext parameterContext = analysis.parameterContext();
+        if (parameterContext == null) {
+            return null;
+        }
+        Map<Literal, Integer> parameterLiterals = parameterContext.parameterLiterals();
+        if (parameterLiterals == null) {
+            return null;
+        }
+        for (Object parameter : parameters) {
+            if (parameter == null) {
+                // null values are normalized during analysis, e.g. to a where clause that can't match
+                return null;
+            }
+        }
+        Context context = new Context(parameterLiterals, parameters);
+        AnalyzedStatement analyzedStatement = STATEMENT_BINDER.process(analysis.analyzedStatement(), context);
+        if (analyzedStatement == null || context.boundLiterals.size() != parameterLiterals.size()) {
+            return null;
+        }
+        return new Analysis(analyzedStatement);
+    }
+
+    private static class Context {
+
+        private final Map<Literal, Integer> parameterLiterals;
+        private final Object[] parameters;
+        private final ParameterContext parameterContext;
+        private final Set<Literal> boundLiterals = Collections.newSetFromMap(new IdentityHashMap<Literal, Boolean>());
+
+        private Context(Map<Literal, Integer> parameterLiterals, Object[] parameters) {
+            this.parameterLiterals = parameterLiterals;
+            this.parameters = parameters;
+            this.parameterContext = new ParameterContext(parameters, EMPTY_BULK_ARGS);
+        }
+    }
+
+    private static class StatementBinder extends AnalyzedStatementVisitor<Context, AnalyzedStatement> {
+
+        @Override
+        protected AnalyzedStatement visitSelectStatement(SelectAnalyzedStatement analysis, Context context) {
+            OrderBy orderBy = analysis.orderBy();
+            if (orderBy != null) {
+                orderBy = new OrderBy(bind(orderBy.orderBySymbols(), context), orderBy.reverseFlags(), orderBy.nullsFirst());
+            }
+            return new SelectAnalyzedStatement(
+                    analysis.outputNames(),
+                    bind(analysis.outputSymbols(), context),
+                    analysis.sources(),
+                    bind(analysis.whereClause(), context),
+                    analysis.groupBy() == null ? null : bind(analysis.groupBy(), context),
+                    orderBy,
+                    analysis.havingClause() == null ? null : SYMBOL_BINDER.process(analysis.havingClause(), context),
+                    analysis.limit(),
+                    analysis.offset(),
+                    analysis.hasSysExpressions(),
+                    analysis.hasAggregates()
+            );
+        }
+
+        @Override
+        protected AnalyzedStatement visitDeleteStatement(DeleteAnalyzedStatement analysis, Context context) {
+            DeleteAnalyzedStatement boundAnalysis = new DeleteAnalyzedStatement(
+                    context.parameterContext, analysis.analyzedRelation());
+            for (WhereClause whereClause : analysis.whereClauses()) {
+                boundAnalysis.whereClauses.add(bind(whereClause, context));
+            }
+            return boundAnalysis;
+        }
+
+        @Override
+        protected AnalyzedStatement visitUpdateStatement(UpdateAnalyzedStatement analysis, Context context) {
+            List<UpdateAnalyzedStatement.NestedAnalyzedStatement> nestedStatements = new ArrayList<>(
+                    analysis.nestedStatements().size());
+            for (UpdateAnalyzedStatement.NestedAnalyzedStatement nestedStatement : analysis.nestedStatements()) {
+                UpdateAnalyzedStatement.NestedAnalyzedStatement boundStatement =
+                        new UpdateAnalyzedStatement.NestedAnalyzedStatement(bind(nestedStatement.whereClause(), context));
+                for (Map.Entry<Reference, Symbol> entry : nestedStatement.assignments().entrySet()) {
+                    boundStatement.addAssignment(entry.getKey(), SYMBOL_BINDER.process(entry.getValue(), context));
+                }
+                nestedStatements.add(boundStatement);
+            }
+            return new UpdateAnalyzedStatement(analysis.sourceRelation(), nestedStatements);
+        }
+
+        private static WhereClause bind(WhereClause whereClause, Context context) {
+            if (whereClause.noMatch() || !whereClause.hasQuery()) {
+                return whereClause;
+            }
+            // the clustered by value, the version and the partitions are derived from the query during planning
+            return new WhereClause(SYMBOL_BINDER.process(whereClause.query(), context));
+        }
+
+        private static List<Symbol> bind(List<Symbol> symbols, Context context) {
+            List<Symbol> boundSymbols = new ArrayList<>(symbols.size());
+            for (Symbol symbol : symbols) {
+                boundSymbols.add(SYMBOL_BINDER.process(symbol, context));
+            }
+            return boundSymbols;
+        }
+    }
+
+    /**
+     * copies functions because they are normalized in place during planning
+     */
+    private static class SymbolBinder extends SymbolVisitor<Context, Symbol> {
+
+        @Override
+        protected Symbol visitSymbol(Symbol symbol, Context context) {
+            return symbol;
+        }
+
+        @Override
+        public Symbol visitFunction(Function symbol, Context context) {
+            List<Symbol> arguments = new ArrayList<>(symbol.arguments().size());
+            for (Symbol argument : symbol.arguments()) {
+                arguments.add(process(argument, context));
+            }
+            return new Function(symbol.info(), arguments);
+        }
+
+        @Override
+        public Symbol visitLiteral(Literal symbol, Context context) {
+            Integer index = context.parameterLiterals.get(symbol);
+            if (index == null) {
+                return symbol;
+            }
+            context.boundLiterals.add(symbol);
+            DataType type = symbol.valueType();
+            return Literal.newLiteral(type, type.value(context.parameters[index]));
+        }
+    }
+}
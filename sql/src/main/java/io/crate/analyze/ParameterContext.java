@@ -21,10 +21,14 @@
 
 package io.crate.analyze;
 
+import io.crate.planner.symbol.Literal;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import static io.crate.planner.symbol.Literal.newLiteral;
 
@@ -36,6 +40,9 @@ public class ParameterContext {
 
     private int currentIdx = 0;
 
+    private final Map<Literal, Integer> parameterLiterals = new IdentityHashMap<>();
+    private boolean parametersConsumed = false;
+
     public ParameterContext(Object[] parameters, Object[][] bulkParameters) {
         this.parameters = parameters;
         if (bulkParameters.length > 0) {
@@ -96,10 +103,23 @@ public class ParameterContext {
         if (hasBulkParams()) {
             return bulkParameters[currentIdx];
         }
+        parametersConsumed = true;
         return parameters;
     }
 
-    public io.crate.planner.symbol.Literal getAsSymbol(int index) {
+    /**
+     * @return the literals created for the parameters mapped to the parameter position
+     *         or null if parameter values were used directly and can't be bound to other values
+     */
+    @Nullable
+    public Map<Literal, Integer> parameterLiterals() {
+        if (parametersConsumed || hasBulkParams()) {
+            return null;
+        }
+        return parameterLiterals;
+    }
+
+    public Literal getAsSymbol(int index) {
         try {
             if (hasBulkParams()) {
                 // already did a type guess so it is possible to create a literal directly
@@ -107,7 +127,9 @@ public class ParameterContext {
             }
             DataType type = guessTypeSafe(parameters[index]);
             // use type.value because some types need conversion (String to BytesRef, List to Array)
-            return newLiteral(type, type.value(parameters[index]));
+            Literal literal = newLiteral(type, type.value(parameters[index]));
+            parameterLiterals.put(literal, index);
+            return literal;
         } catch (ArrayIndexOutOfBoundsException e) {
             throw new IllegalArgumentException(String.format(Locale.ENGLISH,
                     "Tried to resolve a parameter but the arguments provided with the " +
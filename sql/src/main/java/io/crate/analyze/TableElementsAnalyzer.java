@@ -83,6 +83,9 @@ public class TableElementsAnalyzer {
         @Override
         public Void visitColumnDefinition(ColumnDefinition node, ColumnDefinitionContext context) {
             context.analyzedColumnDefinition.name(node.ident());
+            if (node.generatedExpression() != null) {
+                context.analyzedColumnDefinition.generatedExpression(node.generatedExpression());
+            }
             for (ColumnConstraint columnConstraint : node.constraints()) {
                 process(columnConstraint, context);
             }
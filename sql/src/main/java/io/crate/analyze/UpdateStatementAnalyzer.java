@@ -21,6 +21,7 @@
 
 package io.crate.analyze;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
@@ -30,6 +31,7 @@ import io.crate.exceptions.ColumnValidationException;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.ReferenceInfo;
 import io.crate.metadata.table.TableInfo;
+import io.crate.operation.Input;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
@@ -40,9 +42,7 @@ import io.crate.types.ArrayType;
 import io.crate.types.DataTypes;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 
 public class UpdateStatementAnalyzer extends DefaultTraversalVisitor<AnalyzedStatement, Void> {
@@ -82,6 +82,10 @@ public class UpdateStatementAnalyzer extends DefaultTraversalVisitor<AnalyzedSta
         ExpressionAnalyzer expressionAnalyzer =
                 new ExpressionAnalyzer(analysisMetaData, parameterContext, fieldResolver);
         ExpressionAnalysisContext expressionAnalysisContext = new ExpressionAnalysisContext();
+        GeneratedColumns generatedColumns = null;
+        if (!tableInfo.generatedColumns().isEmpty()) {
+            generatedColumns = analysisMetaData.generatedColumns(tableInfo);
+        }
 
         int numNested = 1;
         if (parameterContext.bulkParameters.length > 0) {
@@ -103,6 +107,9 @@ public class UpdateStatementAnalyzer extends DefaultTraversalVisitor<AnalyzedSta
                         expressionAnalysisContext
                 );
             }
+            if (generatedColumns != null) {
+                addGeneratedColumnAssignments(nestedAnalyzedStatement, tableInfo, generatedColumns);
+            }
             nestedAnalyzedStatements.add(nestedAnalyzedStatement);
         }
         if (expressionAnalysisContext.hasSysExpressions) {
@@ -128,6 +135,9 @@ public class UpdateStatementAnalyzer extends DefaultTraversalVisitor<AnalyzedSta
         if (ident.name().startsWith("_")) {
             throw new IllegalArgumentException("Updating system columns is not allowed");
         }
+        if (tableInfo.generatedColumns().containsKey(ident)) {
+            throw new ColumnValidationException(ident.sqlFqn(), "Updating a generated column is not supported");
+        }
 
         if (hasMatchingParent(tableInfo, reference.info(), IS_OBJECT_ARRAY)) {
             // cannot update fields of object arrays
@@ -157,6 +167,44 @@ public class UpdateStatementAnalyzer extends DefaultTraversalVisitor<AnalyzedSta
         nestedAnalyzedStatement.addAssignment(reference, value);
     }
 
+    /**
+     * re-computes the generated columns which refer to updated columns.
+     *
+     * This is only possible if all columns a generated column refers to are assigned a value.
+     */
+    private void addGeneratedColumnAssignments(UpdateAnalyzedStatement.NestedAnalyzedStatement nestedAnalyzedStatement,
+                                               TableInfo tableInfo,
+                                               GeneratedColumns generatedColumns) {
+        Set<ColumnIdent> updatedColumns = new HashSet<>();
+        Map<ColumnIdent, Object> values = new HashMap<>();
+        for (Map.Entry<Reference, Symbol> assignment : nestedAnalyzedStatement.assignments().entrySet()) {
+            ColumnIdent ident = assignment.getKey().info().ident().columnIdent();
+            updatedColumns.add(ident.getRoot());
+            if (ident.isColumn() && assignment.getValue() instanceof Input) {
+                values.put(ident, ((Input) assignment.getValue()).value());
+            }
+        }
+
+        for (Reference generatedColumn : generatedColumns.generatedColumns()) {
+            Set<ColumnIdent> referencedColumns = generatedColumns.referencedColumns(generatedColumn);
+            if (Collections.disjoint(referencedColumns, updatedColumns)) {
+                continue;
+            }
+            ColumnIdent ident = generatedColumn.info().ident().columnIdent();
+            if (tableInfo.partitionedBy().contains(ident)) {
+                throw new ColumnValidationException(ident.sqlFqn(),
+                        "Updating a column used by a partitioned-by generated column is not supported");
+            }
+            if (!values.keySet().containsAll(referencedColumns)) {
+                throw new ColumnValidationException(ident.sqlFqn(), String.format(Locale.ENGLISH,
+                        "Generated column can only be re-computed if all of its columns (%s) are updated",
+                        Joiner.on(", ").join(referencedColumns)));
+            }
+            nestedAnalyzedStatement.addAssignment(generatedColumn, Literal.newLiteral(
+                    generatedColumn.valueType(), generatedColumns.computeValue(generatedColumn, values)));
+        }
+    }
+
     private void ensureNotUpdated(ColumnIdent columnUpdated,
                                   Symbol newValue,
                                   ColumnIdent protectedColumnIdent,
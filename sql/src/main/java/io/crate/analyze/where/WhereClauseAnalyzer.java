@@ -24,19 +24,17 @@ package io.crate.analyze.where;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import io.crate.analyze.*;
+import com.google.common.collect.ImmutableMap;
 import io.crate.analyze.relations.TableRelation;
-import io.crate.metadata.PartitionName;
-import io.crate.metadata.PartitionReferenceResolver;
-import io.crate.metadata.ReferenceInfo;
-import io.crate.metadata.ReferenceResolver;
+import io.crate.metadata.*;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.TableInfo;
+import io.crate.operation.operator.*;
+import io.crate.operation.operator.any.AnyEqOperator;
 import io.crate.operation.reference.partitioned.PartitionExpression;
 import io.crate.planner.RowGranularity;
-import io.crate.planner.symbol.BytesRefValueSymbolVisitor;
-import io.crate.planner.symbol.Literal;
-import io.crate.planner.symbol.Symbol;
-import io.crate.types.DataTypes;
-import io.crate.types.SetType;
+import io.crate.planner.symbol.*;
+import io.crate.types.*;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.collect.Tuple;
 
@@ -46,6 +44,19 @@ import java.util.*;
 public class WhereClauseAnalyzer {
 
     private final static PrimaryKeyVisitor PRIMARY_KEY_VISITOR = new PrimaryKeyVisitor();
+    private final static PartitionColumnVisitor PARTITION_COLUMN_VISITOR = new PartitionColumnVisitor();
+
+    /**
+     * comparison operators with switched arguments: <code>literal op reference</code> ->
+     * <code>reference swapped_op literal</code>
+     */
+    private final static Map<String, String> SWAPPED_COMPARISONS = ImmutableMap.<String, String>builder()
+            .put(EqOperator.NAME, EqOperator.NAME)
+            .put(GtOperator.NAME, LtOperator.NAME)
+            .put(GteOperator.NAME, LteOperator.NAME)
+            .put(LtOperator.NAME, GtOperator.NAME)
+            .put(LteOperator.NAME, GteOperator.NAME)
+            .build();
     private final AnalysisMetaData analysisMetaData;
     private final TableInfo tableInfo;
     private final TableRelation tableRelation;
@@ -61,6 +72,10 @@ public class WhereClauseAnalyzer {
             return new WhereClauseContext(whereClause);
         }
         whereClause = tableRelation.resolve(whereClause);
+        if (!tableInfo.generatedColumns().isEmpty()) {
+            GeneratedColumns generatedColumns = analysisMetaData.generatedColumns(tableInfo);
+            whereClause = new WhereClause(generatedColumns.rewriteQuery(whereClause.query()));
+        }
         WhereClauseContext whereClauseContext = new WhereClauseContext(whereClause);
         PrimaryKeyVisitor.Context ctx = PRIMARY_KEY_VISITOR.process(tableInfo, whereClause.query());
         if (ctx != null) {
@@ -149,6 +164,10 @@ public class WhereClauseAnalyzer {
         assert tableInfo.isPartitioned() : "table must be partitioned in order to resolve partitions";
         if (tableInfo.partitions().isEmpty()) {
             whereClauseContext.whereClause(WhereClause.NO_MATCH); // table is partitioned but has no data / no partitions
+            return;
+        }
+        if (resolvePartitionsFromIndex(whereClauseContext)) {
+            return;
         }
 
         WhereClause whereClause = whereClauseContext.whereClause();
@@ -195,6 +214,144 @@ public class WhereClauseAnalyzer {
         }
     }
 
+    private PartitionIndex partitionIndex() {
+        if (tableInfo instanceof DocTableInfo) {
+            return ((DocTableInfo) tableInfo).partitionIndex();
+        }
+        return new PartitionIndex(tableInfo.partitionedByColumns(), tableInfo.partitions());
+    }
+
+    /**
+     * Resolves the partitions using the {@link PartitionIndex} of the table if the query is a
+     * conjunction of conditions that either compare a partition column with literals
+     * (=, <, <=, >, >=, IN, = ANY) or don't involve any partition column at all.
+     *
+     * The conditions on partition columns are removed from the query as they're satisfied
+     * by every resolved partition, the same way the normalization of the query would do.
+     *
+     * @return false if the query contains other conditions on partition columns which
+     *         have to be evaluated against every partition.
+     */
+    private boolean resolvePartitionsFromIndex(WhereClauseContext whereClauseContext) {
+        WhereClause whereClause = whereClauseContext.whereClause();
+        if (!whereClause.hasQuery()) {
+            return true;
+        }
+        PartitionIndex index = partitionIndex();
+        List<Symbol> conjuncts = new ArrayList<>();
+        splitConjunction(whereClause.query(), conjuncts);
+
+        BitSet matching = null;
+        Symbol remaining = null;
+        for (Symbol conjunct : conjuncts) {
+            if (!PARTITION_COLUMN_VISITOR.process(conjunct, index)) {
+                remaining = remaining == null
+                        ? conjunct
+                        : new Function(AndOperator.INFO, Arrays.asList(remaining, conjunct));
+                continue;
+            }
+            BitSet conjunctMatches = lookupPartitions(index, conjunct);
+            if (conjunctMatches == null) {
+                return false;
+            }
+            if (matching == null) {
+                matching = conjunctMatches;
+            } else {
+                matching.and(conjunctMatches);
+            }
+        }
+        if (matching == null) {
+            return true; // no partition columns inside the where clause
+        }
+        if (matching.isEmpty()) {
+            whereClauseContext.whereClause(WhereClause.NO_MATCH);
+            return true;
+        }
+
+        List<Literal> partitions = new ArrayList<>(matching.cardinality());
+        for (int i = matching.nextSetBit(0); i >= 0; i = matching.nextSetBit(i + 1)) {
+            partitions.add(Literal.newLiteral(index.partitions().get(i).stringValue()));
+        }
+        WhereClause resolved = new WhereClause(remaining == null ? Literal.newLiteral(true) : remaining);
+        resolved.partitions(partitions);
+        whereClauseContext.whereClause(resolved);
+        return true;
+    }
+
+    private static void splitConjunction(Symbol query, List<Symbol> conjuncts) {
+        if (query instanceof Function && ((Function) query).info().ident().name().equals(AndOperator.NAME)) {
+            for (Symbol argument : ((Function) query).arguments()) {
+                splitConjunction(argument, conjuncts);
+            }
+        } else {
+            conjuncts.add(query);
+        }
+    }
+
+    /**
+     * @return the partitions matching the given condition
+     *         or null if the condition can't be resolved using the partition index.
+     */
+    @Nullable
+    private static BitSet lookupPartitions(PartitionIndex index, Symbol condition) {
+        if (!(condition instanceof Function)) {
+            return null;
+        }
+        Function function = (Function) condition;
+        if (function.arguments().size() != 2) {
+            return null;
+        }
+        String operator = function.info().ident().name();
+        Symbol left = function.arguments().get(0);
+        Symbol right = function.arguments().get(1);
+        if (left instanceof Literal && right instanceof Reference) {
+            operator = SWAPPED_COMPARISONS.get(operator);
+            Symbol tmp = left;
+            left = right;
+            right = tmp;
+        }
+        if (operator == null || !(left instanceof Reference) || !(right instanceof Literal)) {
+            return null;
+        }
+        ReferenceInfo column = ((Reference) left).info();
+        Literal literal = (Literal) right;
+        if (!index.isPartitionColumn(column)) {
+            return null;
+        }
+
+        DataType literalType = literal.valueType();
+        if (literalType.equals(column.type())) {
+            Object value = literal.value();
+            switch (operator) {
+                case EqOperator.NAME:
+                    return index.eq(column, value);
+                case GtOperator.NAME:
+                    return value == null ? new BitSet() : index.range(column, value, false, null, false);
+                case GteOperator.NAME:
+                    return value == null ? new BitSet() : index.range(column, value, true, null, false);
+                case LtOperator.NAME:
+                    return value == null ? new BitSet() : index.range(column, null, false, value, false);
+                case LteOperator.NAME:
+                    return value == null ? new BitSet() : index.range(column, null, false, value, true);
+                default:
+                    return null;
+            }
+        }
+        if ((operator.equals(InOperator.NAME) || operator.equals(AnyEqOperator.NAME))
+                && literalType instanceof CollectionType
+                && ((CollectionType) literalType).innerType().equals(column.type())) {
+            Object value = literal.value();
+            if (value == null) {
+                return new BitSet();
+            } else if (value instanceof Object[]) {
+                return index.in(column, Arrays.asList((Object[]) value));
+            } else if (value instanceof Collection) {
+                return index.in(column, (Collection<?>) value);
+            }
+        }
+        return null;
+    }
+
     private WhereClause tieBreakPartitionQueries(EvaluatingNormalizer normalizer,
                                                  Map<Symbol, List<Literal>> queryPartitionMap) throws UnsupportedOperationException{
         /**
@@ -247,4 +404,29 @@ public class WhereClauseAnalyzer {
                         "involve partitioned columns led to a query that can't be executed.");
     }
 
+    /**
+     * returns true if the visited symbol contains a reference to a partitioned-by column
+     */
+    private static class PartitionColumnVisitor extends SymbolVisitor<PartitionIndex, Boolean> {
+
+        @Override
+        public Boolean visitFunction(Function symbol, PartitionIndex index) {
+            for (Symbol argument : symbol.arguments()) {
+                if (process(argument, index)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean visitReference(Reference symbol, PartitionIndex index) {
+            return index.isPartitionColumn(symbol.info());
+        }
+
+        @Override
+        protected Boolean visitSymbol(Symbol symbol, PartitionIndex index) {
+            return false;
+        }
+    }
 }
@@ -30,6 +30,11 @@ public interface Executor {
 
     public Job newJob(Plan plan);
 
+    /**
+     * create a job whose operations record runtime metrics if <code>instrumented</code> is true
+     */
+    public Job newJob(Plan plan, boolean instrumented);
+
     public List<ListenableFuture<TaskResult>> execute(Job job);
 
 }
@@ -29,6 +29,7 @@ import java.util.UUID;
 public class Job {
 
     private final UUID id;
+    private final boolean instrumented;
     private List<Task> tasks = new ArrayList<>();
 
     public Job() {
@@ -36,13 +37,26 @@ public class Job {
     }
 
     public Job(UUID id) {
+        this(id, false);
+    }
+
+    public Job(UUID id, boolean instrumented) {
         this.id = id;
+        this.instrumented = instrumented;
     }
 
     public UUID id() {
         return id;
     }
 
+    /**
+     * if true the operations of this job record runtime metrics
+     * (see {@link io.crate.operation.OperationMetrics})
+     */
+    public boolean instrumented() {
+        return instrumented;
+    }
+
     public void addTask(Task task){
         tasks.add(task);
     }
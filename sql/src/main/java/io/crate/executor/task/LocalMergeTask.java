@@ -35,6 +35,7 @@ import io.crate.executor.QueryResult;
 import io.crate.executor.TaskResult;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.StatsTables;
 import io.crate.operation.merge.MergeOperation;
 import io.crate.planner.node.dql.MergeNode;
@@ -115,9 +116,10 @@ public class LocalMergeTask extends JobTask {
         String ramAccountingContextId = String.format("%s: %s", mergeNode.id(), operationId.toString());
         final RamAccountingContext ramAccountingContext =
                 new RamAccountingContext(ramAccountingContextId, circuitBreaker);
+        final OperationMetrics metrics = mergeNode.instrumented() ? new OperationMetrics() : null;
         final MergeOperation mergeOperation = new MergeOperation(
                 clusterService, settings, transportActionProvider, symbolVisitor, mergeNode,
-                ramAccountingContext);
+                ramAccountingContext, metrics);
         final AtomicInteger countdown = new AtomicInteger(upstreamResults.size());
         statsTables.operationStarted(operationId, mergeNode.contextId(), mergeNode.id());
 
@@ -125,7 +127,10 @@ public class LocalMergeTask extends JobTask {
             @Override
             public void onSuccess(@Nullable Object[][] rows) {
                 ramAccountingContext.close();
-                statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes());
+                if (metrics != null && rows != null) {
+                    metrics.rowsSent(rows.length);
+                }
+                statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes(), metrics);
                 result.set(new QueryResult(rows));
             }
 
@@ -133,7 +138,7 @@ public class LocalMergeTask extends JobTask {
             public void onFailure(@Nonnull Throwable t) {
                 ramAccountingContext.close();
                 statsTables.operationFinished(operationId, Exceptions.messageOf(t),
-                        ramAccountingContext.totalBytes());
+                        ramAccountingContext.totalBytes(), metrics);
                 result.setException(t);
             }
         });
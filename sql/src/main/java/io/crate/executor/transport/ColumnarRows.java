@@ -0,0 +1,442 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.types.*;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.BytesRefs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column oriented wire format for result rows.
+ *
+ * Instead of writing every cell with its own null marker each column is written as a block:
+ * an encoding byte, an optional null bitmap and the non-null values in a type specific packed form
+ * (zig-zag delta varints for longs, bitmaps for booleans, dictionary or prefix coded strings).
+ * Columns without a specialized encoding fall back to their {@link Streamer}.
+ *
+ * Older crate nodes run the same elasticsearch version, so the stream version can't tell
+ * whether the receiver understands this format. Instead nodes advertise it with the
+ * {@link #NODE_ATTRIBUTE} node attribute and requests whose responses may use it carry the
+ * {@link #REQUEST_HEADER} header. The format starts with {@link #MARKER}, which is never a valid
+ * row count of the row-wise format, so readers can handle both formats.
+ */
+public class ColumnarRows {
+
+    /**
+     * node attribute of nodes that can read the columnar format
+     */
+    public static final String NODE_ATTRIBUTE = "columnar_rows";
+
+    /**
+     * header of requests whose sender can read a response in the columnar format
+     */
+    public static final String REQUEST_HEADER = "columnar_rows";
+
+    /**
+     * written instead of the row count of the row-wise format
+     */
+    public static final int MARKER = -1;
+
+    private static final byte FALLBACK = 0;
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte STRING = 8;
+
+    private static final byte STRING_PREFIX = 0;
+    private static final byte STRING_DICTIONARY = 1;
+
+    private ColumnarRows() {}
+
+    public static boolean isSupported(DiscoveryNode node) {
+        return Boolean.parseBoolean(node.attributes().get(NODE_ATTRIBUTE));
+    }
+
+    /**
+     * write rows whose column types are described by the given streamers, starting with the {@link #MARKER}
+     */
+    public static void writeTo(StreamOutput out, Object[][] rows, Streamer<?>[] streamers) throws IOException {
+        out.writeVInt(MARKER);
+        out.writeVInt(rows.length);
+        for (int c = 0; c < streamers.length; c++) {
+            byte encoding = encodingFor(streamers[c]);
+            out.writeByte(encoding);
+            if (encoding == FALLBACK) {
+                for (Object[] row : rows) {
+                    streamers[c].writeValueTo(out, row[c]);
+                }
+            } else {
+                writeColumn(out, encoding, rows, c);
+            }
+        }
+    }
+
+    /**
+     * read rows written by {@link #writeTo(StreamOutput, Object[][], Streamer[])}
+     * after the {@link #MARKER} has been read
+     */
+    public static Object[][] readFrom(StreamInput in, Streamer<?>[] streamers) throws IOException {
+        Object[][] rows = newRows(in.readVInt(), streamers.length);
+        for (int c = 0; c < streamers.length; c++) {
+            byte encoding = in.readByte();
+            if (encoding == FALLBACK) {
+                for (Object[] row : rows) {
+                    row[c] = streamers[c].readValueFrom(in);
+                }
+            } else {
+                readColumn(in, encoding, rows, c);
+            }
+        }
+        return rows;
+    }
+
+    private static Object[][] newRows(int numRows, int numColumns) {
+        Object[][] rows = new Object[numRows][];
+        for (int r = 0; r < numRows; r++) {
+            rows[r] = new Object[numColumns];
+        }
+        return rows;
+    }
+
+    private static byte encodingFor(Streamer<?> streamer) {
+        if (!(streamer instanceof DataType)) {
+            return FALLBACK;
+        }
+        switch (((DataType) streamer).id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return LONG;
+            case IntegerType.ID:
+                return INTEGER;
+            case ShortType.ID:
+                return SHORT;
+            case ByteType.ID:
+                return BYTE;
+            case DoubleType.ID:
+                return DOUBLE;
+            case FloatType.ID:
+                return FLOAT;
+            case BooleanType.ID:
+                return BOOLEAN;
+            case StringType.ID:
+            case IpType.ID:
+                return STRING;
+            default:
+                return FALLBACK;
+        }
+    }
+
+    private static void writeColumn(StreamOutput out, byte encoding, Object[][] rows, int column) throws IOException {
+        boolean hasNulls = false;
+        for (Object[] row : rows) {
+            if (row[column] == null) {
+                hasNulls = true;
+                break;
+            }
+        }
+        out.writeBoolean(hasNulls);
+        if (hasNulls) {
+            byte[] nulls = new byte[bitmapSize(rows.length)];
+            for (int r = 0; r < rows.length; r++) {
+                if (rows[r][column] == null) {
+                    nulls[r >>> 3] |= 1 << (r & 7);
+                }
+            }
+            out.writeBytes(nulls);
+        }
+
+        switch (encoding) {
+            case LONG:
+                long previous = 0L;
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        long value = ((Number) row[column]).longValue();
+                        writeZLong(out, value - previous);
+                        previous = value;
+                    }
+                }
+                break;
+            case INTEGER:
+            case SHORT:
+            case BYTE:
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        writeZLong(out, ((Number) row[column]).intValue());
+                    }
+                }
+                break;
+            case DOUBLE:
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        out.writeDouble(((Number) row[column]).doubleValue());
+                    }
+                }
+                break;
+            case FLOAT:
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        out.writeFloat(((Number) row[column]).floatValue());
+                    }
+                }
+                break;
+            case BOOLEAN:
+                byte[] bits = new byte[bitmapSize(rows.length)];
+                int idx = 0;
+                for (Object[] row : rows) {
+                    if (row[column] != null) {
+                        if ((Boolean) row[column]) {
+                            bits[idx >>> 3] |= 1 << (idx & 7);
+                        }
+                        idx++;
+                    }
+                }
+                out.writeBytes(bits, 0, bitmapSize(idx));
+                break;
+            case STRING:
+                writeStrings(out, rows, column);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown column encoding " + encoding);
+        }
+    }
+
+    private static void readColumn(StreamInput in,
+                                   byte encoding,
+                                   Object[][] rows,
+                                   int column) throws IOException {
+        byte[] nulls = null;
+        if (in.readBoolean()) {
+            nulls = new byte[bitmapSize(rows.length)];
+            in.readBytes(nulls, 0, nulls.length);
+        }
+        switch (encoding) {
+            case LONG:
+                long previous = 0L;
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        previous += readZLong(in);
+                        rows[r][column] = previous;
+                    }
+                }
+                break;
+            case INTEGER:
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = (int) readZLong(in);
+                    }
+                }
+                break;
+            case SHORT:
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = (short) readZLong(in);
+                    }
+                }
+                break;
+            case BYTE:
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = (byte) readZLong(in);
+                    }
+                }
+                break;
+            case DOUBLE:
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = in.readDouble();
+                    }
+                }
+                break;
+            case FLOAT:
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = in.readFloat();
+                    }
+                }
+                break;
+            case BOOLEAN:
+                int numValues = rows.length - countSet(nulls, rows.length);
+                byte[] bits = new byte[bitmapSize(numValues)];
+                in.readBytes(bits, 0, bits.length);
+                int idx = 0;
+                for (int r = 0; r < rows.length; r++) {
+                    if (!isSet(nulls, r)) {
+                        rows[r][column] = isSet(bits, idx);
+                        idx++;
+                    }
+                }
+                break;
+            case STRING:
+                readStrings(in, rows, column, nulls);
+                break;
+            default:
+                throw new IOException("unknown column encoding " + encoding);
+        }
+    }
+
+    /**
+     * Strings are dictionary encoded if at most every second value is distinct,
+     * otherwise every value is written as suffix to the prefix it shares with its predecessor.
+     */
+    private static void writeStrings(StreamOutput out, Object[][] rows, int column) throws IOException {
+        List<BytesRef> values = new ArrayList<>(rows.length);
+        for (Object[] row : rows) {
+            if (row[column] != null) {
+                values.add(BytesRefs.toBytesRef(row[column]));
+            }
+        }
+        int maxDictionarySize = values.size() / 2;
+        Map<BytesRef, Integer> dictionary = new HashMap<>();
+        int[] ordinals = new int[values.size()];
+        for (int i = 0; i < ordinals.length && dictionary.size() <= maxDictionarySize; i++) {
+            BytesRef value = values.get(i);
+            Integer ordinal = dictionary.get(value);
+            if (ordinal == null) {
+                ordinal = dictionary.size();
+                dictionary.put(value, ordinal);
+            }
+            ordinals[i] = ordinal;
+        }
+
+        if (values.size() > 0 && dictionary.size() <= maxDictionarySize) {
+            out.writeByte(STRING_DICTIONARY);
+            BytesRef[] entries = new BytesRef[dictionary.size()];
+            for (Map.Entry<BytesRef, Integer> entry : dictionary.entrySet()) {
+                entries[entry.getValue()] = entry.getKey();
+            }
+            out.writeVInt(entries.length);
+            for (BytesRef entry : entries) {
+                out.writeVInt(entry.length);
+                out.writeBytes(entry.bytes, entry.offset, entry.length);
+            }
+            for (int ordinal : ordinals) {
+                out.writeVInt(ordinal);
+            }
+        } else {
+            out.writeByte(STRING_PREFIX);
+            BytesRef previous = new BytesRef();
+            for (BytesRef value : values) {
+                int shared = sharedPrefix(previous, value);
+                out.writeVInt(shared);
+                out.writeVInt(value.length - shared);
+                out.writeBytes(value.bytes, value.offset + shared, value.length - shared);
+                previous = value;
+            }
+        }
+    }
+
+    private static void readStrings(StreamInput in,
+                                    Object[][] rows,
+                                    int column,
+                                    byte[] nulls) throws IOException {
+        byte stringEncoding = in.readByte();
+        if (stringEncoding == STRING_DICTIONARY) {
+            BytesRef[] entries = new BytesRef[in.readVInt()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = in.readBytesRef(in.readVInt());
+            }
+            for (int r = 0; r < rows.length; r++) {
+                if (!isSet(nulls, r)) {
+                    rows[r][column] = entries[in.readVInt()];
+                }
+            }
+        } else if (stringEncoding == STRING_PREFIX) {
+            BytesRef previous = new BytesRef();
+            for (int r = 0; r < rows.length; r++) {
+                if (isSet(nulls, r)) {
+                    continue;
+                }
+                int shared = in.readVInt();
+                int suffix = in.readVInt();
+                byte[] bytes = new byte[shared + suffix];
+                System.arraycopy(previous.bytes, previous.offset, bytes, 0, shared);
+                in.readBytes(bytes, shared, suffix);
+                previous = new BytesRef(bytes);
+                rows[r][column] = previous;
+            }
+        } else {
+            throw new IOException("unknown string encoding " + stringEncoding);
+        }
+    }
+
+    private static int sharedPrefix(BytesRef a, BytesRef b) {
+        int limit = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < limit && a.bytes[a.offset + i] == b.bytes[b.offset + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int bitmapSize(int numBits) {
+        return (numBits + 7) >>> 3;
+    }
+
+    private static boolean isSet(byte[] bitmap, int idx) {
+        return bitmap != null && (bitmap[idx >>> 3] & (1 << (idx & 7))) != 0;
+    }
+
+    private static int countSet(byte[] bitmap, int numBits) {
+        int count = 0;
+        for (int i = 0; i < numBits; i++) {
+            if (isSet(bitmap, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeZLong(StreamOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0L) {
+            out.writeByte((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((byte) zigZag);
+    }
+
+    private static long readZLong(StreamInput in) throws IOException {
+        long zigZag = 0L;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            zigZag |= (b & 0x7FL) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
@@ -21,8 +21,10 @@
 
 package io.crate.executor.transport;
 
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
 import io.crate.planner.node.dql.CollectNode;
 import io.crate.planner.node.dql.FileUriCollectNode;
+import io.crate.planner.projection.AbstractIndexWriterProjection;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
@@ -38,6 +40,12 @@ public class NodeCollectRequest extends TransportRequest {
 
     public NodeCollectRequest(CollectNode collectNode) {
         this.collectNode = collectNode;
+        if (collectNode.instrumented()) {
+            putHeader(AbstractDQLPlanNode.INSTRUMENTED_HEADER, Boolean.TRUE);
+        }
+        if (AbstractIndexWriterProjection.hasGeneratedColumns(collectNode.projections())) {
+            putHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER, Boolean.TRUE);
+        }
     }
 
     public CollectNode collectNode() {
@@ -53,6 +61,10 @@ public class NodeCollectRequest extends TransportRequest {
             collectNode = new CollectNode();
         }
         collectNode.readFrom(in);
+        collectNode.instrumented(hasHeader(AbstractDQLPlanNode.INSTRUMENTED_HEADER));
+        if (hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER)) {
+            AbstractIndexWriterProjection.readGeneratedColumns(collectNode.projections(), in);
+        }
     }
 
     @Override
@@ -64,5 +76,8 @@ public class NodeCollectRequest extends TransportRequest {
             out.writeBoolean(false);
         }
         collectNode.writeTo(out);
+        if (hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER)) {
+            AbstractIndexWriterProjection.writeGeneratedColumns(collectNode.projections(), out);
+        }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.analyze.WhereClause;
+import org.elasticsearch.action.support.broadcast.BroadcastOperationRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * count the documents matching a whereClause on all shards of the given indices.
+ * The whereClause is sent as symbol tree and converted into a lucene query on the shards.
+ */
+public class SQLCountRequest extends BroadcastOperationRequest<SQLCountRequest> {
+
+    private WhereClause whereClause;
+    @Nullable
+    private String routing;
+
+    SQLCountRequest() {
+    }
+
+    public SQLCountRequest(String[] indices, WhereClause whereClause, @Nullable String routing) {
+        super(indices);
+        this.whereClause = whereClause;
+        this.routing = routing;
+    }
+
+    public WhereClause whereClause() {
+        return whereClause;
+    }
+
+    /**
+     * a single routing value, it is not split by comma
+     */
+    @Nullable
+    public String routing() {
+        return routing;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        whereClause = new WhereClause(in);
+        routing = in.readOptionalString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        whereClause.writeTo(out);
+        out.writeOptionalString(routing);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.action.support.single.instance.InstanceShardOperationRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates many documents of one shard using the same assignments.
+ * Every item carries the id of the document and the version it is required to have.
+ */
+public class ShardBulkUpdateRequest extends InstanceShardOperationRequest<ShardBulkUpdateRequest> {
+
+    private List<String> ids;
+    private List<Long> versions;
+    private Map<String, Symbol> assignments;
+
+    public ShardBulkUpdateRequest() {
+    }
+
+    public ShardBulkUpdateRequest(ShardId shardId, Map<String, Symbol> assignments) {
+        super(shardId.getIndex());
+        this.shardId = shardId.id();
+        this.assignments = assignments;
+        this.ids = new ArrayList<>();
+        this.versions = new ArrayList<>();
+    }
+
+    public ShardBulkUpdateRequest add(Uid uid, @Nullable Long version) {
+        ids.add(uid.id());
+        versions.add(version == null ? Versions.MATCH_ANY : version);
+        return this;
+    }
+
+    public int shardId() {
+        return shardId;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public String id(int location) {
+        return ids.get(location);
+    }
+
+    public long version(int location) {
+        return versions.get(location);
+    }
+
+    public Map<String, Symbol> assignments() {
+        return assignments;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int mapSize = in.readVInt();
+        assignments = new HashMap<>(mapSize);
+        for (int i = 0; i < mapSize; i++) {
+            assignments.put(in.readString(), Symbol.fromStream(in));
+        }
+        int size = in.readVInt();
+        ids = new ArrayList<>(size);
+        versions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(in.readString());
+            versions.add(Versions.readVersion(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(assignments.size());
+        for (Map.Entry<String, Symbol> entry : assignments.entrySet()) {
+            out.writeString(entry.getKey());
+            Symbol.toStream(entry.getValue(), out);
+        }
+        out.writeVInt(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            out.writeString(ids.get(i));
+            Versions.writeVersion(versions.get(i), out);
+        }
+    }
+}
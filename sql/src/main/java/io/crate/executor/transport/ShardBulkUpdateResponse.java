@@ -0,0 +1,155 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contains one {@link Item} for every document of a {@link ShardBulkUpdateRequest},
+ * in the same order as the request.
+ */
+public class ShardBulkUpdateResponse extends ActionResponse {
+
+    private List<Item> items;
+
+    public ShardBulkUpdateResponse() {
+    }
+
+    public ShardBulkUpdateResponse(List<Item> items) {
+        this.items = items;
+    }
+
+    public List<Item> items() {
+        return items;
+    }
+
+    /**
+     * @return the number of documents which were updated successfully
+     */
+    public long successfulCount() {
+        long count = 0;
+        for (Item item : items) {
+            if (!item.failed()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int size = in.readVInt();
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Item item = new Item();
+            item.readFrom(in);
+            items.add(item);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(items.size());
+        for (Item item : items) {
+            item.writeTo(out);
+        }
+    }
+
+    public static class Item implements Streamable {
+
+        private String id;
+        private long version;
+        @Nullable
+        private String failure;
+        private boolean versionConflict;
+
+        Item() {
+        }
+
+        public static Item success(String id, long version) {
+            Item item = new Item();
+            item.id = id;
+            item.version = version;
+            return item;
+        }
+
+        public static Item failure(String id, String failure, boolean versionConflict) {
+            Item item = new Item();
+            item.id = id;
+            item.version = -1L;
+            item.failure = failure;
+            item.versionConflict = versionConflict;
+            return item;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        /**
+         * the version of the updated document or -1 if the update failed
+         */
+        public long version() {
+            return version;
+        }
+
+        public boolean failed() {
+            return failure != null;
+        }
+
+        @Nullable
+        public String failure() {
+            return failure;
+        }
+
+        public boolean versionConflict() {
+            return versionConflict;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            id = in.readString();
+            version = in.readLong();
+            failure = in.readOptionalString();
+            versionConflict = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(id);
+            out.writeLong(version);
+            out.writeOptionalString(failure);
+            out.writeBoolean(versionConflict);
+        }
+    }
+}
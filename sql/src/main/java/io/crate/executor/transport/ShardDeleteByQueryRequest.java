@@ -0,0 +1,85 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.analyze.WhereClause;
+import org.elasticsearch.action.support.replication.ShardReplicationOperationRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * delete the documents matching a whereClause on a single shard and its replicas.
+ *
+ * The whereClause is converted into a lucene query on the shard, the querySource is only
+ * written to the translog, from where it is parsed again if the translog is replayed.
+ */
+public class ShardDeleteByQueryRequest extends ShardReplicationOperationRequest<ShardDeleteByQueryRequest> {
+
+    private int shardId;
+    private WhereClause whereClause;
+    private BytesReference querySource;
+
+    ShardDeleteByQueryRequest() {
+    }
+
+    public ShardDeleteByQueryRequest(String index,
+                                     int shardId,
+                                     WhereClause whereClause,
+                                     BytesReference querySource) {
+        this.index = index;
+        this.shardId = shardId;
+        this.whereClause = whereClause;
+        this.querySource = querySource;
+    }
+
+    public int shardId() {
+        return shardId;
+    }
+
+    public WhereClause whereClause() {
+        return whereClause;
+    }
+
+    public BytesReference querySource() {
+        return querySource;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        shardId = in.readVInt();
+        whereClause = new WhereClause(in);
+        querySource = in.readBytesReference();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(shardId);
+        whereClause.writeTo(out);
+        out.writeBytesReference(querySource);
+    }
+}
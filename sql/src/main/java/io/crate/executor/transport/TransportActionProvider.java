@@ -35,9 +35,7 @@ import org.elasticsearch.action.admin.indices.template.put.TransportPutIndexTemp
 import org.elasticsearch.action.bulk.TransportShardBulkAction;
 import org.elasticsearch.action.bulk.TransportShardBulkActionDelegate;
 import org.elasticsearch.action.bulk.TransportShardBulkActionDelegateImpl;
-import org.elasticsearch.action.count.CrateTransportCountAction;
 import org.elasticsearch.action.delete.TransportDeleteAction;
-import org.elasticsearch.action.deletebyquery.CrateTransportDeleteByQueryAction;
 import org.elasticsearch.action.get.TransportGetAction;
 import org.elasticsearch.action.get.TransportMultiGetAction;
 import org.elasticsearch.action.index.TransportIndexAction;
@@ -61,8 +59,8 @@ public class TransportActionProvider {
     private final Provider<TransportPutIndexTemplateAction> transportPutIndexTemplateActionProvider;
     private final Provider<TransportDeleteIndexTemplateAction> transportDeleteIndexTemplateActionProvider;
     private final Provider<TransportClusterUpdateSettingsAction> transportClusterUpdateSettingsActionProvider;
-    private final Provider<CrateTransportCountAction> transportCountActionProvider;
-    private final Provider<CrateTransportDeleteByQueryAction> transportDeleteByQueryActionProvider;
+    private final Provider<TransportSQLCountAction> transportCountActionProvider;
+    private final Provider<TransportShardDeleteByQueryAction> transportShardDeleteByQueryActionProvider;
     private final Provider<TransportDeleteAction> transportDeleteActionProvider;
 
     private final Provider<TransportGetAction> transportGetActionProvider;
@@ -71,6 +69,7 @@ public class TransportActionProvider {
     private final Provider<TransportQueryShardAction> transportQueryShardActionProvider;
     private final Provider<TransportUpdateAction> transportUpdateActionProvider;
     private final Provider<TransportShardUpdateAction> transportShardUpdateActionProvider;
+    private final Provider<TransportShardBulkUpdateAction> transportShardBulkUpdateActionProvider;
     private final Provider<TransportPutMappingAction> transportPutMappingActionProvider;
     private final Provider<TransportRefreshAction> transportRefreshActionProvider;
     private final Provider<TransportUpdateSettingsAction> transportUpdateSettingsActionProvider;
@@ -85,14 +84,15 @@ public class TransportActionProvider {
                                    Provider<TransportPutIndexTemplateAction> transportPutIndexTemplateActionProvider,
                                    Provider<TransportDeleteIndexTemplateAction> transportDeleteIndexTemplateActionProvider,
                                    Provider<TransportClusterUpdateSettingsAction> transportClusterUpdateSettingsActionProvider,
-                                   Provider<CrateTransportCountAction> transportCountActionProvider,
-                                   Provider<CrateTransportDeleteByQueryAction> transportDeleteByQueryActionProvider,
+                                   Provider<TransportSQLCountAction> transportCountActionProvider,
+                                   Provider<TransportShardDeleteByQueryAction> transportShardDeleteByQueryActionProvider,
                                    Provider<TransportDeleteAction> transportDeleteActionProvider,
                                    Provider<TransportGetAction> transportGetActionProvider,
                                    Provider<TransportMultiGetAction> transportMultiGetActionProvider,
                                    Provider<TransportIndexAction> transportIndexActionProvider,
                                    Provider<TransportUpdateAction> transportUpdateActionProvider,
                                    Provider<TransportShardUpdateAction> transportShardUpdateActionProvider,
+                                   Provider<TransportShardBulkUpdateAction> transportShardBulkUpdateActionProvider,
                                    Provider<TransportQueryShardAction> transportQueryShardActionProvider,
                                    Provider<TransportSearchAction> transportSearchActionProvider,
                                    Provider<SearchServiceTransportAction> searchServiceTransportActionProvider,
@@ -106,7 +106,7 @@ public class TransportActionProvider {
         this.transportDeleteIndexTemplateActionProvider = transportDeleteIndexTemplateActionProvider;
         this.transportClusterUpdateSettingsActionProvider = transportClusterUpdateSettingsActionProvider;
         this.transportCountActionProvider = transportCountActionProvider;
-        this.transportDeleteByQueryActionProvider = transportDeleteByQueryActionProvider;
+        this.transportShardDeleteByQueryActionProvider = transportShardDeleteByQueryActionProvider;
         this.transportDeleteActionProvider = transportDeleteActionProvider;
         this.transportGetActionProvider = transportGetActionProvider;
         this.transportMultiGetActionProvider = transportMultiGetActionProvider;
@@ -114,6 +114,7 @@ public class TransportActionProvider {
         this.transportQueryShardActionProvider = transportQueryShardActionProvider;
         this.transportUpdateActionProvider = transportUpdateActionProvider;
         this.transportShardUpdateActionProvider = transportShardUpdateActionProvider;
+        this.transportShardBulkUpdateActionProvider = transportShardBulkUpdateActionProvider;
         this.transportShardBulkActionProvider = transportShardBulkActionProvider;
         this.transportCollectNodeActionProvider = transportCollectNodeActionProvider;
         this.transportMergeNodeActionProvider = transportMergeNodeActionProvider;
@@ -149,12 +150,12 @@ public class TransportActionProvider {
         return transportClusterUpdateSettingsActionProvider.get();
     }
 
-    public CrateTransportCountAction transportCountAction() {
+    public TransportSQLCountAction transportCountAction() {
         return transportCountActionProvider.get();
     }
 
-    public CrateTransportDeleteByQueryAction transportDeleteByQueryAction() {
-        return transportDeleteByQueryActionProvider.get();
+    public TransportShardDeleteByQueryAction transportShardDeleteByQueryAction() {
+        return transportShardDeleteByQueryActionProvider.get();
     }
 
     public TransportDeleteAction transportDeleteAction() {
@@ -181,6 +182,10 @@ public class TransportActionProvider {
         return transportShardUpdateActionProvider.get();
     }
 
+    public TransportShardBulkUpdateAction transportShardBulkUpdateAction() {
+        return transportShardBulkUpdateActionProvider.get();
+    }
+
     public TransportShardBulkActionDelegate transportShardBulkAction() {
         return new TransportShardBulkActionDelegateImpl(transportShardBulkActionProvider.get());
     }
@@ -29,6 +29,7 @@ import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.exceptions.Exceptions;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.DistributingCollectOperation;
 import io.crate.operation.collect.MapSideDataCollectOperation;
 import io.crate.operation.collect.StatsTables;
@@ -109,18 +110,19 @@ public class TransportCollectNodeAction {
         String ramAccountingContextId = String.format("%s: %s", node.id(), operationId);
         final RamAccountingContext ramAccountingContext =
                 new RamAccountingContext(ramAccountingContextId, circuitBreaker);
+        final OperationMetrics metrics = node.instrumented() ? new OperationMetrics() : null;
 
         try {
             if (node.hasDownstreams()) {
-                collectResult = distributingCollectOperation.collect(node, ramAccountingContext);
+                collectResult = distributingCollectOperation.collect(node, ramAccountingContext, metrics);
             } else {
-                collectResult = localDataCollector.collect(node, ramAccountingContext);
+                collectResult = localDataCollector.collect(node, ramAccountingContext, metrics);
             }
         } catch (Throwable e){
             logger.error("Error when creating result futures", e);
-            collectResponse.onFailure(e);
             statsTables.operationFinished(operationId, Exceptions.messageOf(e),
-                    ramAccountingContext.totalBytes());
+                    ramAccountingContext.totalBytes(), metrics);
+            collectResponse.onFailure(e);
             ramAccountingContext.close();
             return;
         }
@@ -133,16 +135,22 @@ public class TransportCollectNodeAction {
                         planNodeStreamerVisitor.process(node, ramAccountingContext).outputStreamers());
                 response.rows(result);
 
+                if (metrics != null) {
+                    // rows of distributing collects are sent to the downstreams by the collect operation
+                    Long rowsOut = metrics.rowsOut();
+                    metrics.rowsSent(node.hasDownstreams() ? (rowsOut == null ? 0L : rowsOut) : result.length);
+                }
+                // finish the operation before responding, so that its metrics are available once the job is done
+                statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes(), metrics);
                 collectResponse.onResponse(response);
-                statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes());
                 ramAccountingContext.close();
             }
 
             @Override
             public void onFailure(@Nonnull Throwable t) {
-                collectResponse.onFailure(t);
                 statsTables.operationFinished(operationId, Exceptions.messageOf(t),
-                        ramAccountingContext.totalBytes());
+                        ramAccountingContext.totalBytes(), metrics);
+                collectResponse.onFailure(t);
                 ramAccountingContext.close();
             }
         });
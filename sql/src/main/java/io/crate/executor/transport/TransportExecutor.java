@@ -31,6 +31,7 @@ import io.crate.executor.task.DDLTask;
 import io.crate.executor.task.LocalCollectTask;
 import io.crate.executor.task.LocalMergeTask;
 import io.crate.executor.task.NoopTask;
+import io.crate.executor.task.join.HashJoinTask;
 import io.crate.executor.task.join.NestedLoopTask;
 import io.crate.executor.transport.task.*;
 import io.crate.executor.transport.task.elasticsearch.*;
@@ -46,6 +47,7 @@ import io.crate.planner.node.PlanNodeVisitor;
 import io.crate.planner.node.ddl.*;
 import io.crate.planner.node.dml.*;
 import io.crate.planner.node.dql.*;
+import io.crate.planner.node.dql.join.HashJoinNode;
 import io.crate.planner.node.dql.join.NestedLoopNode;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.breaker.CircuitBreaker;
@@ -123,7 +125,12 @@ public class TransportExecutor implements Executor, TaskExecutor {
 
     @Override
     public Job newJob(Plan plan) {
-        final Job job = new Job();
+        return newJob(plan, false);
+    }
+
+    @Override
+    public Job newJob(Plan plan, boolean instrumented) {
+        final Job job = new Job(UUID.randomUUID(), instrumented);
         planVisitor.process(plan, job);
         return job;
     }
@@ -156,6 +163,16 @@ public class TransportExecutor implements Executor, TaskExecutor {
 
     class TaskCollectingVisitor extends PlanVisitor<Job, Void> {
 
+        private ImmutableList<Task> visitCollectNode(CollectNode node, Job job) {
+            node.instrumented(job.instrumented());
+            return nodeVisitor.visitCollectNode(node, job.id());
+        }
+
+        private ImmutableList<Task> visitMergeNode(MergeNode node, Job job) {
+            node.instrumented(job.instrumented());
+            return nodeVisitor.visitMergeNode(node, job.id());
+        }
+
         @Override
         public Void visitIterablePlan(IterablePlan plan, Job job) {
             for (PlanNode planNode : plan) {
@@ -172,22 +189,22 @@ public class TransportExecutor implements Executor, TaskExecutor {
 
         @Override
         public Void visitGlobalAggregate(GlobalAggregate plan, Job job) {
-            job.addTasks(nodeVisitor.visitCollectNode(plan.collectNode(), job.id()));
-            job.addTasks(nodeVisitor.visitMergeNode(plan.mergeNode(), job.id()));
+            job.addTasks(visitCollectNode(plan.collectNode(), job));
+            job.addTasks(visitMergeNode(plan.mergeNode(), job));
             return null;
         }
 
         @Override
         public Void visitQueryAndFetch(QueryAndFetch plan, Job job) {
-            job.addTasks(nodeVisitor.visitCollectNode(plan.collectNode(), job.id()));
-            job.addTasks(nodeVisitor.visitMergeNode(plan.localMergeNode(), job.id()));
+            job.addTasks(visitCollectNode(plan.collectNode(), job));
+            job.addTasks(visitMergeNode(plan.localMergeNode(), job));
             return null;
         }
 
         @Override
         public Void visitNonDistributedGroupBy(NonDistributedGroupBy plan, Job job) {
-            job.addTasks(nodeVisitor.visitCollectNode(plan.collectNode(), job.id()));
-            job.addTasks(nodeVisitor.visitMergeNode(plan.localMergeNode(), job.id()));
+            job.addTasks(visitCollectNode(plan.collectNode(), job));
+            job.addTasks(visitMergeNode(plan.localMergeNode(), job));
             return null;
         }
 
@@ -208,9 +225,9 @@ public class TransportExecutor implements Executor, TaskExecutor {
 
         @Override
         public Void visitDistributedGroupBy(DistributedGroupBy plan, Job job) {
-            job.addTasks(nodeVisitor.visitCollectNode(plan.collectNode(), job.id()));
-            job.addTasks(nodeVisitor.visitMergeNode(plan.reducerMergeNode(), job.id()));
-            job.addTasks(nodeVisitor.visitMergeNode(plan.localMergeNode(), job.id()));
+            job.addTasks(visitCollectNode(plan.collectNode(), job));
+            job.addTasks(visitMergeNode(plan.reducerMergeNode(), job));
+            job.addTasks(visitMergeNode(plan.localMergeNode(), job));
             return null;
         }
 
@@ -302,6 +319,23 @@ public class TransportExecutor implements Executor, TaskExecutor {
             );
         }
 
+        @Override
+        public ImmutableList<Task> visitHashJoinNode(HashJoinNode node, UUID jobId) {
+            List<Task> leftTasks = node.left().accept(this, jobId);
+            List<Task> rightTasks = node.right().accept(this, jobId);
+            return singleTask(
+                    new HashJoinTask(
+                            jobId,
+                            clusterService.localNode().id(),
+                            node,
+                            leftTasks,
+                            rightTasks,
+                            TransportExecutor.this,
+                            globalProjectionToProjectionVisitor,
+                            circuitBreaker)
+            );
+        }
+
         @Override
         public ImmutableList<Task> visitESGetNode(ESGetNode node, UUID jobId) {
             return singleTask(new ESGetTask(
@@ -318,7 +352,8 @@ public class TransportExecutor implements Executor, TaskExecutor {
             return singleTask(new ESDeleteByQueryTask(
                     jobId,
                     node,
-                    transportActionProvider.transportDeleteByQueryAction()));
+                    transportActionProvider.transportShardDeleteByQueryAction(),
+                    clusterService));
         }
 
         @Override
@@ -39,6 +39,9 @@ public class TransportExecutorModule extends AbstractModule {
         bind(TransportMergeNodeAction.class).asEagerSingleton();
         bind(TransportQueryShardAction.class).asEagerSingleton();
         bind(TransportShardUpdateAction.class).asEagerSingleton();
+        bind(TransportShardBulkUpdateAction.class).asEagerSingleton();
+        bind(TransportSQLCountAction.class).asEagerSingleton();
+        bind(TransportShardDeleteByQueryAction.class).asEagerSingleton();
 
         bind(CrateResultSorter.class).asEagerSingleton();
 
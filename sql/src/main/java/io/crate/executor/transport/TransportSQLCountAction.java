@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.metadata.Functions;
+import io.crate.operation.collect.LuceneDocCollector;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ShardOperationFailedException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.DefaultShardOperationFailedException;
+import org.elasticsearch.action.support.broadcast.BroadcastShardOperationFailedException;
+import org.elasticsearch.action.support.broadcast.TransportBroadcastOperationAction;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.MinimumScoreCollector;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * counts the documents matching a whereClause on every shard.
+ *
+ * Unlike the count action of elasticsearch the whereClause isn't rendered into a json query which has to be
+ * parsed on every shard (falling back to scripts for scalar functions), the symbol tree is sent to the shards
+ * and converted into a lucene query directly using the {@link io.crate.lucene.LuceneQueryBuilder},
+ * just like a collect does.
+ */
+public class TransportSQLCountAction extends TransportBroadcastOperationAction<SQLCountRequest, SQLCountResponse, ShardCountRequest, ShardCountResponse> {
+
+    private final static String ACTION_NAME = "indices:crate/data/read/count";
+
+    private final IndicesService indicesService;
+    private final ScriptService scriptService;
+    private final CacheRecycler cacheRecycler;
+    private final PageCacheRecycler pageCacheRecycler;
+    private final BigArrays bigArrays;
+    private final Functions functions;
+
+    @Inject
+    public TransportSQLCountAction(Settings settings,
+                                   ThreadPool threadPool,
+                                   ClusterService clusterService,
+                                   TransportService transportService,
+                                   ActionFilters actionFilters,
+                                   IndicesService indicesService,
+                                   ScriptService scriptService,
+                                   CacheRecycler cacheRecycler,
+                                   PageCacheRecycler pageCacheRecycler,
+                                   BigArrays bigArrays,
+                                   Functions functions) {
+        super(settings, ACTION_NAME, threadPool, clusterService, transportService, actionFilters);
+        this.indicesService = indicesService;
+        this.scriptService = scriptService;
+        this.cacheRecycler = cacheRecycler;
+        this.pageCacheRecycler = pageCacheRecycler;
+        this.bigArrays = bigArrays;
+        this.functions = functions;
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.SEARCH;
+    }
+
+    @Override
+    protected SQLCountRequest newRequest() {
+        return new SQLCountRequest();
+    }
+
+    @Override
+    protected ShardCountRequest newShardRequest() {
+        return new ShardCountRequest();
+    }
+
+    @Override
+    protected ShardCountRequest newShardRequest(int numShards, ShardRouting shard, SQLCountRequest request) {
+        return new ShardCountRequest(shard.shardId(), request);
+    }
+
+    @Override
+    protected ShardCountResponse newShardResponse() {
+        return new ShardCountResponse();
+    }
+
+    @Override
+    protected GroupShardsIterator shards(ClusterState clusterState, SQLCountRequest request, String[] concreteIndices) {
+        Map<String, Set<String>> routingMap = clusterState.metaData().resolveSearchRouting(
+                request.routing() == null ? ImmutableSet.<String>of() : ImmutableSet.of(request.routing()),
+                request.indices()
+        );
+        return clusterService.operationRouting().searchShards(
+                clusterState, request.indices(), concreteIndices, routingMap, null);
+    }
+
+    @Override
+    protected ClusterBlockException checkGlobalBlock(ClusterState state, SQLCountRequest request) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.READ);
+    }
+
+    @Override
+    protected ClusterBlockException checkRequestBlock(ClusterState state, SQLCountRequest request, String[] concreteIndices) {
+        return state.blocks().indicesBlockedException(ClusterBlockLevel.READ, concreteIndices);
+    }
+
+    @Override
+    protected SQLCountResponse newResponse(SQLCountRequest request, AtomicReferenceArray shardsResponses, ClusterState clusterState) {
+        int successfulShards = 0;
+        int failedShards = 0;
+        long count = 0;
+        List<ShardOperationFailedException> shardFailures = null;
+        for (int i = 0; i < shardsResponses.length(); i++) {
+            Object shardResponse = shardsResponses.get(i);
+            if (shardResponse == null) {
+                // non active shard, ignore
+            } else if (shardResponse instanceof BroadcastShardOperationFailedException) {
+                failedShards++;
+                if (shardFailures == null) {
+                    shardFailures = new ArrayList<>();
+                }
+                shardFailures.add(new DefaultShardOperationFailedException(
+                        (BroadcastShardOperationFailedException) shardResponse));
+            } else {
+                count += ((ShardCountResponse) shardResponse).count();
+                successfulShards++;
+            }
+        }
+        return new SQLCountResponse(count, shardsResponses.length(), successfulShards, failedShards, shardFailures);
+    }
+
+    @Override
+    protected ShardCountResponse shardOperation(ShardCountRequest request) throws ElasticsearchException {
+        IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
+        SearchContext searchContext;
+        try {
+            searchContext = LuceneDocCollector.createSearchContext(
+                    threadPool,
+                    clusterService,
+                    request.shardId(),
+                    indexService,
+                    scriptService,
+                    cacheRecycler,
+                    pageCacheRecycler,
+                    bigArrays,
+                    functions,
+                    request.whereClause());
+        } catch (Exception e) {
+            throw ExceptionsHelper.convertToElastic(e);
+        }
+        SearchContext.setCurrent(searchContext);
+        try {
+            TotalHitCountCollector countCollector = new TotalHitCountCollector();
+            Collector collector = countCollector;
+            Float minScore = searchContext.minimumScore();
+            if (minScore != null) {
+                collector = new MinimumScoreCollector(countCollector, minScore);
+            }
+            searchContext.searcher().search(searchContext.query(), collector);
+            return new ShardCountResponse(request.shardId(), countCollector.getTotalHits());
+        } catch (Exception e) {
+            throw ExceptionsHelper.convertToElastic(e);
+        } finally {
+            searchContext.close();
+            SearchContext.removeCurrent();
+        }
+    }
+}
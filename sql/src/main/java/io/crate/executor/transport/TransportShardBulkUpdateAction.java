@@ -0,0 +1,210 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.Constants;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkShardRequests;
+import org.elasticsearch.action.bulk.BulkShardResponse;
+import org.elasticsearch.action.bulk.TransportShardBulkAction;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.TransportActions;
+import org.elasticsearch.action.support.single.instance.TransportInstanceSingleOperationAction;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Updates many documents of a shard with one request.
+ *
+ * The documents are read and merged with the assignments on the node holding the primary shard,
+ * the resulting index requests are written using a single shard bulk request.
+ * Failures, like version conflicts, are reported per document.
+ */
+public class TransportShardBulkUpdateAction extends TransportInstanceSingleOperationAction<ShardBulkUpdateRequest, ShardBulkUpdateResponse> {
+
+    private final static String ACTION_NAME = "indices:crate/data/write/bulk_update";
+
+    private final TransportShardUpdateAction shardUpdateAction;
+    private final TransportShardBulkAction shardBulkAction;
+    private final IndicesService indicesService;
+
+    @Inject
+    public TransportShardBulkUpdateAction(Settings settings,
+                                          ThreadPool threadPool,
+                                          ClusterService clusterService,
+                                          TransportService transportService,
+                                          ActionFilters actionFilters,
+                                          TransportShardUpdateAction shardUpdateAction,
+                                          TransportShardBulkAction shardBulkAction,
+                                          IndicesService indicesService) {
+        super(settings, ACTION_NAME, threadPool, clusterService, transportService, actionFilters);
+        this.shardUpdateAction = shardUpdateAction;
+        this.shardBulkAction = shardBulkAction;
+        this.indicesService = indicesService;
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.INDEX;
+    }
+
+    @Override
+    protected ShardBulkUpdateRequest newRequest() {
+        return new ShardBulkUpdateRequest();
+    }
+
+    @Override
+    protected ShardBulkUpdateResponse newResponse() {
+        return new ShardBulkUpdateResponse();
+    }
+
+    @Override
+    protected boolean retryOnFailure(Throwable e) {
+        return TransportActions.isShardNotAvailableException(e);
+    }
+
+    @Override
+    protected boolean resolveRequest(ClusterState state, InternalRequest request, ActionListener<ShardBulkUpdateResponse> listener) {
+        return true;
+    }
+
+    @Override
+    protected ShardIterator shards(ClusterState clusterState, InternalRequest request) throws ElasticsearchException {
+        return clusterState.routingTable().index(request.concreteIndex()).shard(request.request().shardId()).primaryShardIt();
+    }
+
+    @Override
+    protected void shardOperation(InternalRequest request, ActionListener<ShardBulkUpdateResponse> listener) throws ElasticsearchException {
+        ShardBulkUpdateRequest bulkRequest = request.request();
+        List<Integer> locations = new ArrayList<>(bulkRequest.size());
+        for (int i = 0; i < bulkRequest.size(); i++) {
+            locations.add(i);
+        }
+        ShardBulkUpdateResponse.Item[] items = new ShardBulkUpdateResponse.Item[bulkRequest.size()];
+        shardOperation(request.concreteIndex(), bulkRequest, locations, items, listener, 0);
+    }
+
+    /**
+     * updates the documents at the given locations of the request,
+     * documents which failed because of a concurrent modification are retried
+     */
+    protected void shardOperation(final String concreteIndex,
+                                  final ShardBulkUpdateRequest request,
+                                  final List<Integer> locations,
+                                  final ShardBulkUpdateResponse.Item[] items,
+                                  final ActionListener<ShardBulkUpdateResponse> listener,
+                                  final int retryCount) {
+        IndexService indexService = indicesService.indexServiceSafe(concreteIndex);
+        IndexShard indexShard = indexService.shardSafe(request.shardId());
+
+        final List<IndexRequest> indexRequests = new ArrayList<>(locations.size());
+        final List<Integer> indexLocations = new ArrayList<>(locations.size());
+        for (Integer location : locations) {
+            ShardUpdateRequest updateRequest = new ShardUpdateRequest(request.index(), request.id(location))
+                    .shardId(request.shardId())
+                    .version(request.version(location))
+                    .assignments(request.assignments());
+            try {
+                indexRequests.add(shardUpdateAction.prepare(updateRequest, indexShard));
+                indexLocations.add(location);
+            } catch (Throwable t) {
+                t = ExceptionsHelper.unwrapCause(t);
+                items[location] = ShardBulkUpdateResponse.Item.failure(request.id(location),
+                        ExceptionsHelper.detailedMessage(t), t instanceof VersionConflictEngineException);
+            }
+        }
+        if (indexRequests.isEmpty()) {
+            listener.onResponse(new ShardBulkUpdateResponse(Arrays.asList(items)));
+            return;
+        }
+
+        ShardId shardId = new ShardId(concreteIndex, request.shardId());
+        shardBulkAction.execute(BulkShardRequests.of(shardId, indexRequests), new ActionListener<BulkShardResponse>() {
+            @Override
+            public void onResponse(BulkShardResponse bulkShardResponse) {
+                final List<Integer> retryLocations = new ArrayList<>();
+                for (BulkItemResponse itemResponse : bulkShardResponse.getResponses()) {
+                    int location = indexLocations.get(itemResponse.getItemId());
+                    String id = request.id(location);
+                    if (!itemResponse.isFailed()) {
+                        items[location] = ShardBulkUpdateResponse.Item.success(id, itemResponse.getVersion());
+                        continue;
+                    }
+                    boolean versionConflict = itemResponse.getFailure().getStatus() == RestStatus.CONFLICT;
+                    if (versionConflict && retryCount < retryOnConflict(request.version(location))) {
+                        retryLocations.add(location);
+                    } else {
+                        items[location] = ShardBulkUpdateResponse.Item.failure(
+                                id, itemResponse.getFailureMessage(), versionConflict);
+                    }
+                }
+                if (retryLocations.isEmpty()) {
+                    listener.onResponse(new ShardBulkUpdateResponse(Arrays.asList(items)));
+                    return;
+                }
+                try {
+                    threadPool.executor(executor()).execute(new ActionRunnable<ShardBulkUpdateResponse>(listener) {
+                        @Override
+                        protected void doRun() {
+                            shardOperation(concreteIndex, request, retryLocations, items, listener, retryCount + 1);
+                        }
+                    });
+                } catch (EsRejectedExecutionException e) {
+                    logger.debug("Can not retry bulk update, execution rejected for listener [{}]", listener);
+                    listener.onFailure(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    private static int retryOnConflict(long version) {
+        return version == Versions.MATCH_ANY ? Constants.UPDATE_RETRY_ON_CONFLICT : 0;
+    }
+}
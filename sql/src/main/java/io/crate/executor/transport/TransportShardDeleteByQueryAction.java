@@ -0,0 +1,181 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import io.crate.Constants;
+import io.crate.metadata.Functions;
+import io.crate.operation.collect.LuceneDocCollector;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.replication.TransportShardReplicationOperationAction;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+/**
+ * deletes the documents matching a whereClause on a shard and its replicas.
+ *
+ * The query is built from the symbol tree of the whereClause with the {@link io.crate.lucene.LuceneQueryBuilder}
+ * on the primary and on every replica instead of parsing a json query.
+ *
+ * The translog can't store the symbol tree, the operation is recorded with the json query rendered by the
+ * {@link io.crate.executor.transport.task.elasticsearch.ESQueryBuilder} instead, which elasticsearch parses
+ * if the translog is replayed (on recovery or if a replica is allocated). Both builders translate the same
+ * whereClause and must match the same documents. The ESQueryBuilder rejects whereClauses it can't express,
+ * so a delete which can't be replayed fails before any shard is modified.
+ */
+public class TransportShardDeleteByQueryAction extends TransportShardReplicationOperationAction<ShardDeleteByQueryRequest, ShardDeleteByQueryRequest, ShardDeleteByQueryResponse> {
+
+    private final static String ACTION_NAME = "indices:crate/data/write/delete_by_query";
+
+    private final ScriptService scriptService;
+    private final CacheRecycler cacheRecycler;
+    private final PageCacheRecycler pageCacheRecycler;
+    private final BigArrays bigArrays;
+    private final Functions functions;
+
+    @Inject
+    public TransportShardDeleteByQueryAction(Settings settings,
+                                             TransportService transportService,
+                                             ClusterService clusterService,
+                                             IndicesService indicesService,
+                                             ThreadPool threadPool,
+                                             ShardStateAction shardStateAction,
+                                             ActionFilters actionFilters,
+                                             ScriptService scriptService,
+                                             CacheRecycler cacheRecycler,
+                                             PageCacheRecycler pageCacheRecycler,
+                                             BigArrays bigArrays,
+                                             Functions functions) {
+        super(settings, ACTION_NAME, transportService, clusterService,
+                indicesService, threadPool, shardStateAction, actionFilters);
+        this.scriptService = scriptService;
+        this.cacheRecycler = cacheRecycler;
+        this.pageCacheRecycler = pageCacheRecycler;
+        this.bigArrays = bigArrays;
+        this.functions = functions;
+    }
+
+    @Override
+    protected ShardDeleteByQueryRequest newRequestInstance() {
+        return new ShardDeleteByQueryRequest();
+    }
+
+    @Override
+    protected ShardDeleteByQueryRequest newReplicaRequestInstance() {
+        return new ShardDeleteByQueryRequest();
+    }
+
+    @Override
+    protected ShardDeleteByQueryResponse newResponseInstance() {
+        return new ShardDeleteByQueryResponse();
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.INDEX;
+    }
+
+    @Override
+    protected PrimaryResponse<ShardDeleteByQueryResponse, ShardDeleteByQueryRequest> shardOperationOnPrimary(
+            ClusterState clusterState, PrimaryOperationRequest shardRequest) {
+        ShardDeleteByQueryRequest request = shardRequest.request;
+        deleteByQuery(shardRequest.shardId, request, Engine.Operation.Origin.PRIMARY);
+        return new PrimaryResponse<>(request, new ShardDeleteByQueryResponse(), null);
+    }
+
+    @Override
+    protected void shardOperationOnReplica(ReplicaOperationRequest shardRequest) {
+        deleteByQuery(shardRequest.shardId, shardRequest.request, Engine.Operation.Origin.REPLICA);
+    }
+
+    private void deleteByQuery(ShardId shardId, ShardDeleteByQueryRequest request, Engine.Operation.Origin origin) {
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        IndexShard indexShard = indexService.shardSafe(shardId.id());
+        SearchContext searchContext;
+        try {
+            searchContext = LuceneDocCollector.createSearchContext(
+                    threadPool,
+                    clusterService,
+                    shardId,
+                    indexService,
+                    scriptService,
+                    cacheRecycler,
+                    pageCacheRecycler,
+                    bigArrays,
+                    functions,
+                    request.whereClause());
+        } catch (Exception e) {
+            throw ExceptionsHelper.convertToElastic(e);
+        }
+        SearchContext.setCurrent(searchContext);
+        try {
+            indexShard.deleteByQuery(new Engine.DeleteByQuery(
+                    searchContext.query(),
+                    request.querySource(),
+                    null,
+                    null,
+                    null,
+                    origin,
+                    System.nanoTime(),
+                    Constants.DEFAULT_MAPPING_TYPE));
+        } finally {
+            searchContext.close();
+            SearchContext.removeCurrent();
+        }
+    }
+
+    @Override
+    protected ShardIterator shards(ClusterState clusterState, InternalRequest request) throws ElasticsearchException {
+        return clusterState.routingTable()
+                .index(request.concreteIndex())
+                .shard(request.request().shardId())
+                .shardsIt();
+    }
+
+    @Override
+    protected boolean checkWriteConsistency() {
+        return true;
+    }
+
+    @Override
+    protected boolean resolveIndex() {
+        return false;
+    }
+}
@@ -30,12 +30,12 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.executor.transport.merge.NodeMergeResponse;
 import io.crate.metadata.Functions;
 import io.crate.operation.DownstreamOperationFactory;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.planner.node.dql.MergeNode;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.breaker.CircuitBreaker;
-import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.HandlesStreamInput;
 import org.elasticsearch.common.logging.ESLogger;
@@ -66,8 +66,8 @@ public class DistributedRequestContextManager {
     private final ESLogger logger = Loggers.getLogger(getClass());
 
     private final Map<UUID, DownstreamOperationContext> activeMergeOperations = new HashMap<>();
-    private final Map<UUID, List<BytesReference>> unreadStreams = new HashMap<>();
-    private final Set<UUID> unreadFailures = new HashSet<>();
+    private final Map<UUID, List<DistributedResultRequest>> unreadRequests = new HashMap<>();
+    private final Map<UUID, Integer> unreadFailures = new HashMap<>();
     private final Object lock = new Object();
     private final DownstreamOperationFactory downstreamOperationFactory;
     private final PlanNodeStreamerVisitor planNodeStreamerVisitor;
@@ -98,11 +98,13 @@ public class DistributedRequestContextManager {
         String ramAccountingContextId = String.format("%s: %s", mergeNode.id(), operationId);
         final RamAccountingContext ramAccountingContext =
                 new RamAccountingContext(ramAccountingContextId, circuitBreaker);
+        final OperationMetrics metrics = mergeNode.instrumented() ? new OperationMetrics() : null;
         statsTables.operationStarted(operationId, mergeNode.contextId(), mergeNode.id());
         PlanNodeStreamerVisitor.Context streamerContext = planNodeStreamerVisitor.process(mergeNode, ramAccountingContext);
-        SettableFuture<Object[][]> settableFuture = wrapActionListener(streamerContext.outputStreamers(), listener);
+        SettableFuture<Object[][]> settableFuture = wrapActionListener(
+                streamerContext.outputStreamers(), listener, metrics);
         DownstreamOperationContext downstreamOperationContext = new DownstreamOperationContext(
-                downstreamOperationFactory.create(mergeNode, ramAccountingContext),
+                downstreamOperationFactory.create(mergeNode, ramAccountingContext, metrics),
                 settableFuture,
                 streamerContext.inputStreamers(),
                 new DoneCallback() {
@@ -110,7 +112,7 @@ public class DistributedRequestContextManager {
                     public void finished() {
                         logger.trace("DoneCallback.finished: {} {}", mergeNode.contextId());
                         activeMergeOperations.remove(mergeNode.contextId());
-                        statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes());
+                        statsTables.operationFinished(operationId, null, ramAccountingContext.totalBytes(), metrics);
                         ramAccountingContext.close();
                     }
                 }
@@ -145,7 +147,7 @@ public class DistributedRequestContextManager {
             if (request.failure()) {
                 operationContext.addFailure(null);
             } else {
-                operationContext.add(request.rows());
+                operationContext.add(request.rows(), request.last());
             }
             logger.trace("addToContext rowsRead succes");
             return;
@@ -157,16 +159,16 @@ public class DistributedRequestContextManager {
                 logger.trace("addToContext: without context norows failure: {}", request.failure());
                 assert !request.rowsRead();
                 if (request.failure()) {
-                    unreadFailures.add(request.contextId());
+                    addUnreadFailure(request.contextId());
                     logger.error("adding unread failure from distributed result for context: ", request.contextId());
                 } else {
                     assert request.memoryStream() != null;
-                    List<BytesReference> bytesStreamOutputs = unreadStreams.get(request.contextId());
-                    if (bytesStreamOutputs == null) {
-                        bytesStreamOutputs = new ArrayList<>();
-                        unreadStreams.put(request.contextId(), bytesStreamOutputs);
+                    List<DistributedResultRequest> requests = unreadRequests.get(request.contextId());
+                    if (requests == null) {
+                        requests = new ArrayList<>();
+                        unreadRequests.put(request.contextId(), requests);
                     }
-                    bytesStreamOutputs.add(request.memoryStream().bytes());
+                    requests.add(request);
                 }
             } else {
                 logger.trace("addToContext: with context norows failure: {}", request.failure());
@@ -176,18 +178,22 @@ public class DistributedRequestContextManager {
                     return;
                 }
                 logger.trace("addToContext: using memory stream: ", request.memoryStream());
-                addFromBytesReference(request.memoryStream().bytes(), operationContext);
+                addFromBytesReference(request, operationContext);
             }
         }
         logger.trace("addToContext: finished");
     }
 
     private SettableFuture<Object[][]> wrapActionListener(final Streamer<?>[] streamers,
-                                                          final ActionListener<NodeMergeResponse> listener) {
+                                                          final ActionListener<NodeMergeResponse> listener,
+                                                          @Nullable final OperationMetrics metrics) {
         SettableFuture<Object[][]> settableFuture = SettableFuture.create();
         Futures.addCallback(settableFuture, new FutureCallback<Object[][]>() {
             @Override
             public void onSuccess(@Nullable Object[][] result) {
+                if (metrics != null && result != null) {
+                    metrics.rowsSent(result.length);
+                }
                 listener.onResponse(new NodeMergeResponse(streamers, result));
             }
 
@@ -200,28 +206,33 @@ public class DistributedRequestContextManager {
     }
 
     private void put(UUID contextId, DownstreamOperationContext downstreamOperationContext) {
-        List<BytesReference> bytesReferences;
+        List<DistributedResultRequest> requests;
         synchronized (lock) {
             logger.trace("put: {} {}", contextId, downstreamOperationContext);
             activeMergeOperations.put(contextId, downstreamOperationContext);
-            bytesReferences = unreadStreams.remove(contextId);
-            if (unreadFailures.contains(contextId)) {
-                unreadFailures.remove(contextId);
-                downstreamOperationContext.addFailure(null);
+            requests = unreadRequests.remove(contextId);
+            Integer numFailures = unreadFailures.remove(contextId);
+            if (numFailures != null) {
+                // every failed upstream counts as finished upstream
+                for (int i = 0; i < numFailures; i++) {
+                    downstreamOperationContext.addFailure(null);
+                }
             }
         }
-        if (bytesReferences != null) {
-            for (BytesReference bytes : bytesReferences) {
-                addFromBytesReference(bytes, downstreamOperationContext);
+        if (requests != null) {
+            for (DistributedResultRequest request : requests) {
+                addFromBytesReference(request, downstreamOperationContext);
             }
         }
     }
 
-    private void addFromBytesReference(BytesReference bytesReference, DownstreamOperationContext ctx) {
+    private void addFromBytesReference(DistributedResultRequest request,
+                                       DownstreamOperationContext ctx) {
         // bytesReference must be wrapped into HandlesStreamInput because it has a different readString()
         // implementation than BytesStreamInput alone.
         // and the memoryOutputStream originates from a HandlesStreamOutput.
-        HandlesStreamInput wrappedStream = new HandlesStreamInput(new BytesStreamInput(bytesReference));
+        HandlesStreamInput wrappedStream = new HandlesStreamInput(new BytesStreamInput(request.memoryStream().bytes()));
+        wrappedStream.setVersion(request.memoryStreamVersion());
         Object[][] rows = null;
         try {
             rows = DistributedResultRequest.readRemaining(ctx.streamers(), wrappedStream);
@@ -231,20 +242,25 @@ public class DistributedRequestContextManager {
             return;
         }
         assert rows != null;
-        ctx.add(rows);
+        ctx.add(rows, request.last());
     }
 
     public void setFailure(UUID contextId) {
         synchronized (lock) {
             DownstreamOperationContext downstreamOperationContext = activeMergeOperations.get(contextId);
             if (downstreamOperationContext == null) {
-                unreadFailures.add(contextId);
+                addUnreadFailure(contextId);
             } else {
                 downstreamOperationContext.addFailure(null);
             }
         }
     }
 
+    private void addUnreadFailure(UUID contextId) {
+        Integer numFailures = unreadFailures.get(contextId);
+        unreadFailures.put(contextId, numFailures == null ? 1 : numFailures + 1);
+    }
+
     public interface DoneCallback {
         public void finished();
     }
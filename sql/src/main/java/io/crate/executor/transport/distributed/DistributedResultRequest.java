@@ -23,6 +23,9 @@ package io.crate.executor.transport.distributed;
 
 import com.google.common.base.Optional;
 import io.crate.Streamer;
+import io.crate.executor.transport.ColumnarRows;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -34,16 +37,39 @@ import java.util.UUID;
 
 public class DistributedResultRequest extends TransportRequest {
 
+    /**
+     * node attribute of nodes that can receive the rows of an upstream in several pages.
+     *
+     * Older crate nodes run the same elasticsearch version, so like {@link ColumnarRows} the capability
+     * is negotiated with a node attribute and paged requests carry the {@link #REQUEST_HEADER} header,
+     * only those contain the <code>last</code> flag.
+     */
+    public static final String NODE_ATTRIBUTE = "paged_results";
+
+    /**
+     * header of requests which are a page of the rows of an upstream
+     */
+    public static final String REQUEST_HEADER = "paged_results";
+
     private DistributedRequestContextManager contextManager;
     private Streamer<?>[] streamers;
     private Object[][] rows;
     private UUID contextId;
     private BytesStreamOutput memoryStream;
+    private Version memoryStreamVersion;
 
     // TODO: change failure flag to string or enum so that the receiver can recreate the
     // exception and the error handling in the DistributedMergeTask can be simplified.
     private boolean failure = false;
 
+    /**
+     * an upstream may send its rows in several pages, only the last one completes the upstream.
+     * Requests without the {@link #REQUEST_HEADER} contain all rows of an upstream.
+     */
+    private boolean last = true;
+
+    private boolean columnar = false;
+
     public DistributedResultRequest(DistributedRequestContextManager contextManager) {
         this.contextManager = contextManager;
     }
@@ -61,6 +87,13 @@ public class DistributedResultRequest extends TransportRequest {
         return memoryStream;
     }
 
+    /**
+     * version of the stream the {@link #memoryStream()} was copied from
+     */
+    public Version memoryStreamVersion() {
+        return memoryStreamVersion;
+    }
+
     public Object[][] rows() {
         return rows;
     }
@@ -73,6 +106,31 @@ public class DistributedResultRequest extends TransportRequest {
         return memoryStream == null;
     }
 
+    public boolean last() {
+        return last;
+    }
+
+    /**
+     * mark the request as page of the rows of an upstream,
+     * only if the receiving node supports it, see {@link #isPagingSupported(DiscoveryNode)}
+     */
+    public void last(boolean last) {
+        this.last = last;
+        putHeader(REQUEST_HEADER, Boolean.TRUE);
+    }
+
+    public static boolean isPagingSupported(DiscoveryNode node) {
+        return Boolean.parseBoolean(node.attributes().get(NODE_ATTRIBUTE));
+    }
+
+    /**
+     * write the rows in the columnar format, only if the receiving node supports it,
+     * see {@link ColumnarRows#isSupported(org.elasticsearch.cluster.node.DiscoveryNode)}
+     */
+    public void columnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -82,28 +140,25 @@ public class DistributedResultRequest extends TransportRequest {
             failure= true;
             return;
         }
+        last = !hasHeader(REQUEST_HEADER) || in.readBoolean();
 
         final Optional<Streamer<?>[]> optStreamer = contextManager.getStreamer(contextId);
         if (optStreamer.isPresent()) {
-            final Streamer<?>[] streamers = optStreamer.get();
-            final int numColumns = streamers.length;
-
-            rows = new Object[in.readVInt()][];
-            for (int r = 0; r < rows.length; r++) {
-                rows[r] = new Object[numColumns];
-                for (int c = 0; c < numColumns; c++) {
-                    rows[r][c] = streamers[c].readValueFrom(in);
-                }
-            }
+            rows = readRemaining(optStreamer.get(), in);
         } else {
+            memoryStreamVersion = in.getVersion();
             memoryStream = new BytesStreamOutput();
             Streams.copy(in, memoryStream);
         }
     }
 
     public static Object[][] readRemaining(Streamer<?>[] streamers, StreamInput input) throws IOException {
+        int numRows = input.readVInt();
+        if (numRows == ColumnarRows.MARKER) {
+            return ColumnarRows.readFrom(input, streamers);
+        }
         final int numColumns = streamers.length;
-        final Object[][] rows = new Object[input.readVInt()][];
+        final Object[][] rows = new Object[numRows][];
         for (int r = 0; r < rows.length; r++) {
             rows[r] = new Object[numColumns];
             for (int c = 0; c < numColumns; c++) {
@@ -125,8 +180,15 @@ public class DistributedResultRequest extends TransportRequest {
             return;
         }
         out.writeBoolean(false);
+        if (hasHeader(REQUEST_HEADER)) {
+            out.writeBoolean(last);
+        }
 
         assert streamers != null;
+        if (columnar) {
+            ColumnarRows.writeTo(out, rows, streamers);
+            return;
+        }
         final int numColumns = streamers.length;
 
         out.writeVInt(rows.length);
@@ -85,9 +85,14 @@ public class DownstreamOperationContext {
         }
     }
 
-    public void add(Object[][] rows) {
+    /**
+     * merge a page of rows
+     *
+     * @param last true if this was the last page of an upstream
+     */
+    public void add(Object[][] rows, boolean last) {
         assert rows != null;
-        logger.trace("add rows.size: {}", rows.length);
+        logger.trace("add rows.size: {} last: {}", rows.length, last);
         synchronized (lock) {
             if (needsMoreRows) {
                 try {
@@ -99,7 +104,7 @@ public class DownstreamOperationContext {
             }
         }
 
-        if (mergeOperationsLeft.decrementAndGet() == 0) {
+        if (last && mergeOperationsLeft.decrementAndGet() == 0) {
             doneCallback.finished();
             downstreamOperation.finished();
         }
@@ -21,7 +21,9 @@
 
 package io.crate.executor.transport.merge;
 
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
 import io.crate.planner.node.dql.MergeNode;
+import io.crate.planner.projection.AbstractIndexWriterProjection;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
@@ -37,6 +39,12 @@ public class NodeMergeRequest extends TransportRequest {
 
     public NodeMergeRequest(MergeNode mergeNode) {
         this.mergeNode = mergeNode;
+        if (mergeNode.instrumented()) {
+            putHeader(AbstractDQLPlanNode.INSTRUMENTED_HEADER, Boolean.TRUE);
+        }
+        if (AbstractIndexWriterProjection.hasGeneratedColumns(mergeNode.projections())) {
+            putHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER, Boolean.TRUE);
+        }
     }
 
     public MergeNode mergeNode() {
@@ -48,11 +56,18 @@ public class NodeMergeRequest extends TransportRequest {
         super.readFrom(in);
         mergeNode = new MergeNode();
         mergeNode.readFrom(in);
+        mergeNode.instrumented(hasHeader(AbstractDQLPlanNode.INSTRUMENTED_HEADER));
+        if (hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER)) {
+            AbstractIndexWriterProjection.readGeneratedColumns(mergeNode.projections(), in);
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
         mergeNode.writeTo(out);
+        if (hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER)) {
+            AbstractIndexWriterProjection.writeGeneratedColumns(mergeNode.projections(), out);
+        }
     }
 }
@@ -22,6 +22,7 @@
 package io.crate.executor.transport.merge;
 
 import io.crate.Streamer;
+import io.crate.executor.transport.ColumnarRows;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.logging.ESLogger;
@@ -35,6 +36,7 @@ public class NodeMergeResponse extends TransportResponse {
     private final ESLogger logger = Loggers.getLogger(getClass());
     private final Streamer<?>[] streamers;
     private Object[][] rows;
+    private boolean columnar = false;
 
 
     public NodeMergeResponse(Streamer<?>[] streamers, Object[][] rows) {
@@ -50,11 +52,23 @@ public class NodeMergeResponse extends TransportResponse {
         return rows;
     }
 
+    /**
+     * write the rows in the columnar format, only if the receiver sent the {@link ColumnarRows#REQUEST_HEADER}
+     */
+    public void columnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
+        int numRows = in.readVInt();
+        if (numRows == ColumnarRows.MARKER) {
+            rows = ColumnarRows.readFrom(in, streamers);
+            return;
+        }
         final int numColumns = streamers.length;
-        rows = new Object[in.readVInt()][];
+        rows = new Object[numRows][];
 
         for (int r = 0; r < rows.length; r++) {
             rows[r] = new Object[numColumns];
@@ -67,6 +81,10 @@ public class NodeMergeResponse extends TransportResponse {
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
+        if (columnar) {
+            ColumnarRows.writeTo(out, rows, streamers);
+            return;
+        }
 
         final int numColumns = streamers.length;
 
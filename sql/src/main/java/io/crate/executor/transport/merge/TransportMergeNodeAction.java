@@ -21,9 +21,11 @@
 
 package io.crate.executor.transport.merge;
 
+import com.google.common.collect.ImmutableMap;
 import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.executor.transport.ColumnarRows;
 import io.crate.executor.transport.DistributedResultRequestHandler;
 import io.crate.executor.transport.ResponseForwarder;
 import io.crate.executor.transport.TransportActionProvider;
@@ -35,14 +37,17 @@ import io.crate.metadata.ReferenceResolver;
 import io.crate.operation.DownstreamOperation;
 import io.crate.operation.DownstreamOperationFactory;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.StatsTables;
 import io.crate.operation.merge.MergeOperation;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.planner.node.dql.MergeNode;
+import io.crate.planner.projection.AbstractIndexWriterProjection;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodeService;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
@@ -51,6 +56,9 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import javax.annotation.Nullable;
+import java.util.Map;
+
 
 public class TransportMergeNodeAction {
 
@@ -75,7 +83,8 @@ public class TransportMergeNodeAction {
                                     Functions functions,
                                     final ThreadPool threadPool,
                                     StatsTables statsTables,
-                                    CrateCircuitBreakerService breakerService) {
+                                    CrateCircuitBreakerService breakerService,
+                                    DiscoveryNodeService discoveryNodeService) {
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
@@ -88,18 +97,31 @@ public class TransportMergeNodeAction {
         planNodeStreamerVisitor = new PlanNodeStreamerVisitor(functions);
         this.contextManager = new DistributedRequestContextManager(new DownstreamOperationFactory<MergeNode>() {
             @Override
-            public DownstreamOperation create(MergeNode node, RamAccountingContext ramAccountingContext) {
+            public DownstreamOperation create(MergeNode node,
+                                              RamAccountingContext ramAccountingContext,
+                                              @Nullable OperationMetrics metrics) {
                 return new MergeOperation(
                         clusterService,
                         settings,
                         transportActionProvider,
                         implementationSymbolVisitor,
                         node,
-                        ramAccountingContext
+                        ramAccountingContext,
+                        metrics
                 );
             }
         }, functions, statsTables, circuitBreaker);
 
+        discoveryNodeService.addCustomAttributeProvider(new DiscoveryNodeService.CustomAttributesProvider() {
+            @Override
+            public Map<String, String> buildAttributes() {
+                return ImmutableMap.of(
+                        ColumnarRows.NODE_ATTRIBUTE, Boolean.TRUE.toString(),
+                        DistributedResultRequest.NODE_ATTRIBUTE, Boolean.TRUE.toString(),
+                        AbstractIndexWriterProjection.GENERATED_COLUMNS_NODE_ATTRIBUTE, Boolean.TRUE.toString());
+            }
+        });
+
         transportService.registerHandler(startMergeAction, new StartMergeHandler());
         transportService.registerHandler(failAction, new FailureHandler(contextManager));
         transportService.registerHandler(mergeRowsAction, new DistributedResultRequestHandler(contextManager));
@@ -207,6 +229,7 @@ public class TransportMergeNodeAction {
                 });
             } else {
                 logger.trace("AsyncMergeStartAction.start remote node: {} {}", this, nodeId);
+                request.putHeader(ColumnarRows.REQUEST_HEADER, Boolean.TRUE);
                 transportService.sendRequest(
                         node,
                         startMergeAction,
@@ -248,8 +271,21 @@ public class TransportMergeNodeAction {
 
         @Override
         public void messageReceived(final NodeMergeRequest request, final TransportChannel channel) throws Exception {
-            ActionListener<NodeMergeResponse> listener = ResponseForwarder.forwardTo(channel);
-            contextManager.createContext(request.mergeNode(), listener);
+            final ActionListener<NodeMergeResponse> listener = ResponseForwarder.forwardTo(channel);
+            // older nodes don't send the header and only read the row-wise format
+            final boolean columnar = request.hasHeader(ColumnarRows.REQUEST_HEADER);
+            contextManager.createContext(request.mergeNode(), new ActionListener<NodeMergeResponse>() {
+                @Override
+                public void onResponse(NodeMergeResponse nodeMergeResponse) {
+                    nodeMergeResponse.columnar(columnar);
+                    listener.onResponse(nodeMergeResponse);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    listener.onFailure(e);
+                }
+            });
         }
 
         @Override
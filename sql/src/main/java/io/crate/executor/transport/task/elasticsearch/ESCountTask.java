@@ -23,32 +23,29 @@ package io.crate.executor.transport.task.elasticsearch;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
-import io.crate.Constants;
 import io.crate.exceptions.FailedShardsException;
 import io.crate.executor.QueryResult;
 import io.crate.executor.JobTask;
 import io.crate.executor.TaskResult;
+import io.crate.executor.transport.SQLCountRequest;
+import io.crate.executor.transport.SQLCountResponse;
+import io.crate.executor.transport.TransportSQLCountAction;
 import io.crate.planner.node.dql.ESCountNode;
 import org.elasticsearch.action.ActionListener;
-import org.elasticsearch.action.count.CountRequest;
-import org.elasticsearch.action.count.CountResponse;
-import org.elasticsearch.action.count.CrateTransportCountAction;
 
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
 public class ESCountTask extends JobTask {
 
-    private final CrateTransportCountAction transportCountAction;
+    private final TransportSQLCountAction transportCountAction;
     private final List<ListenableFuture<TaskResult>> results;
-    private CountRequest request;
-    private ActionListener<CountResponse> listener;
-    private final static ESQueryBuilder queryBuilder = new ESQueryBuilder();
+    private SQLCountRequest request;
+    private ActionListener<SQLCountResponse> listener;
     private final static TaskResult ZERO_RESULT = new QueryResult(new Object[][] { new Object[] { 0L }});
 
-    public ESCountTask(UUID jobId, ESCountNode node, CrateTransportCountAction transportCountAction) {
+    public ESCountTask(UUID jobId, ESCountNode node, TransportSQLCountAction transportCountAction) {
         super(jobId);
         this.transportCountAction = transportCountAction;
         assert node != null;
@@ -60,15 +57,8 @@ public class ESCountTask extends JobTask {
         if (node.whereClause().noMatch() || indices.length == 0) {
             result.set(ZERO_RESULT);
         } else {
-            request = new CountRequest(indices)
-                    .types(Constants.DEFAULT_MAPPING_TYPE)
-                    .routing(node.whereClause().clusteredBy().orNull());
+            request = new SQLCountRequest(indices, node.whereClause(), node.whereClause().clusteredBy().orNull());
             listener = new CountResponseListener(result);
-            try {
-                request.source(queryBuilder.convert(node.whereClause()), false);
-            } catch (IOException e) {
-                result.setException(e);
-            }
         }
     }
 
@@ -89,7 +79,7 @@ public class ESCountTask extends JobTask {
         throw new UnsupportedOperationException("ESCountTask does not support upstream results");
     }
 
-    static class CountResponseListener implements ActionListener<CountResponse> {
+    static class CountResponseListener implements ActionListener<SQLCountResponse> {
 
         private final SettableFuture<TaskResult> result;
 
@@ -98,11 +88,11 @@ public class ESCountTask extends JobTask {
         }
 
         @Override
-        public void onResponse(CountResponse countResponse) {
+        public void onResponse(SQLCountResponse countResponse) {
             if (countResponse.getFailedShards() > 0) {
                 onFailure(new FailedShardsException(countResponse.getShardFailures()));
             } else {
-                result.set(new QueryResult(new Object[][] { new Object[] {countResponse.getCount() }}));
+                result.set(new QueryResult(new Object[][] { new Object[] {countResponse.count() }}));
             }
         }
 
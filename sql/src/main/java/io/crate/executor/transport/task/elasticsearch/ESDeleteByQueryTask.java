@@ -6,7 +6,7 @@
  * you may not use this file except in compliance with the License.  You may
  * obtain a copy of the License at
  *
- *  http://www.apache.org/licenses/LICENSE-2.0
+ *   http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
@@ -19,56 +19,115 @@
  * software solely pursuant to the terms of the relevant commercial agreement.
  */
 
+
 package io.crate.executor.transport.task.elasticsearch;
 
+import com.google.common.collect.ImmutableSet;
 import io.crate.executor.TaskResult;
+import io.crate.executor.transport.ShardDeleteByQueryRequest;
+import io.crate.executor.transport.ShardDeleteByQueryResponse;
+import io.crate.executor.transport.TransportShardDeleteByQueryAction;
 import io.crate.executor.transport.task.AsyncChainedTask;
 import io.crate.planner.node.dml.ESDeleteByQueryNode;
 import org.elasticsearch.action.ActionListener;
-import org.elasticsearch.action.deletebyquery.CrateTransportDeleteByQueryAction;
-import org.elasticsearch.action.deletebyquery.DeleteByQueryRequest;
-import org.elasticsearch.action.deletebyquery.DeleteByQueryResponse;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.common.bytes.BytesReference;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * deletes the documents matching the whereClause of a {@link ESDeleteByQueryNode}
+ * by sending one {@link ShardDeleteByQueryRequest} to every shard of the affected indices.
+ */
 public class ESDeleteByQueryTask extends AsyncChainedTask {
 
     private final ESDeleteByQueryNode deleteByQueryNode;
-    private final CrateTransportDeleteByQueryAction transportDeleteByQueryAction;
+    private final TransportShardDeleteByQueryAction transportShardDeleteByQueryAction;
+    private final ClusterService clusterService;
     private final ESQueryBuilder queryBuilder;
 
     public ESDeleteByQueryTask(UUID jobId,
                                ESDeleteByQueryNode deleteByQueryNode,
-                               CrateTransportDeleteByQueryAction transportDeleteByQueryAction) {
+                               TransportShardDeleteByQueryAction transportShardDeleteByQueryAction,
+                               ClusterService clusterService) {
         super(jobId);
         this.deleteByQueryNode = deleteByQueryNode;
-        this.transportDeleteByQueryAction = transportDeleteByQueryAction;
+        this.transportShardDeleteByQueryAction = transportShardDeleteByQueryAction;
+        this.clusterService = clusterService;
         this.queryBuilder = new ESQueryBuilder();
     }
 
     @Override
     public void start() {
-        final DeleteByQueryRequest request = new DeleteByQueryRequest();
-
+        final List<ShardDeleteByQueryRequest> requests;
         try {
-            request.source(queryBuilder.convert(deleteByQueryNode), false);
-            request.indices(deleteByQueryNode.indices());
-            request.routing(deleteByQueryNode.whereClause().clusteredBy().orNull());
+            requests = shardRequests();
+        } catch (Throwable e) {
+            result.setException(e);
+            return;
+        }
+        if (requests.isEmpty()) {
+            result.set(TaskResult.ROW_COUNT_UNKNOWN);
+            return;
+        }
 
-            transportDeleteByQueryAction.execute(request, new ActionListener<DeleteByQueryResponse>() {
+        final AtomicInteger pending = new AtomicInteger(requests.size());
+        final AtomicReference<Throwable> lastFailure = new AtomicReference<>();
+        for (ShardDeleteByQueryRequest request : requests) {
+            transportShardDeleteByQueryAction.execute(request, new ActionListener<ShardDeleteByQueryResponse>() {
                 @Override
-                public void onResponse(DeleteByQueryResponse deleteByQueryResponses) {
-                    result.set(TaskResult.ROW_COUNT_UNKNOWN);
+                public void onResponse(ShardDeleteByQueryResponse response) {
+                    countDown();
                 }
 
                 @Override
                 public void onFailure(Throwable e) {
-                    result.setException(e);
+                    lastFailure.set(e);
+                    countDown();
+                }
+
+                private void countDown() {
+                    if (pending.decrementAndGet() == 0) {
+                        Throwable failure = lastFailure.get();
+                        if (failure == null) {
+                            result.set(TaskResult.ROW_COUNT_UNKNOWN);
+                        } else {
+                            result.setException(failure);
+                        }
+                    }
                 }
             });
-        } catch (IOException e) {
-            result.setException(e);
         }
     }
+
+    private List<ShardDeleteByQueryRequest> shardRequests() throws Exception {
+        // only used for the translog, the shards build their query from the whereClause
+        BytesReference querySource = queryBuilder.convert(deleteByQueryNode);
+        String routing = deleteByQueryNode.whereClause().clusteredBy().orNull();
+
+        ClusterState state = clusterService.state();
+        Map<String, Set<String>> routingMap = state.metaData().resolveSearchRouting(
+                routing == null ? ImmutableSet.<String>of() : ImmutableSet.of(routing),
+                deleteByQueryNode.indices()
+        );
+        List<ShardDeleteByQueryRequest> requests = new ArrayList<>();
+        for (String index : deleteByQueryNode.indices()) {
+            GroupShardsIterator shardsIterator = clusterService.operationRouting()
+                    .deleteByQueryShards(state, index, routingMap.get(index));
+            for (ShardIterator shardIterator : shardsIterator) {
+                requests.add(new ShardDeleteByQueryRequest(
+                        index, shardIterator.shardId().id(), deleteByQueryNode.whereClause(), querySource));
+            }
+        }
+        return requests;
+    }
 }
@@ -21,18 +21,23 @@
 
 package io.crate.executor.transport.task.elasticsearch;
 
+import com.google.common.collect.ImmutableSet;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.ReferenceInfo;
 import io.crate.planner.symbol.Reference;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public abstract class ESFieldExtractor implements FieldExtractor<SearchHit> {
 
@@ -102,6 +107,47 @@ public abstract class ESFieldExtractor implements FieldExtractor<SearchHit> {
         }
     }
 
+    /**
+     * Extracts the value from the field data fields of the hit, which are loaded from doc values
+     * instead of the source if the mapping of the shard allows it.
+     * Falls back to the source if the field wasn't loaded.
+     */
+    public static class FieldDataOrSource extends Source {
+
+        /**
+         * types whose doc values can be converted to the column value,
+         * only columns of these types are loaded from doc values
+         */
+        public static final Set<DataType> SUPPORTED_TYPES = ImmutableSet.<DataType>of(
+                DataTypes.STRING,
+                DataTypes.LONG,
+                DataTypes.INTEGER,
+                DataTypes.SHORT,
+                DataTypes.BYTE,
+                DataTypes.DOUBLE,
+                DataTypes.FLOAT,
+                DataTypes.TIMESTAMP
+        );
+
+        private final String fieldName;
+        private final DataType type;
+
+        public FieldDataOrSource(ColumnIdent ident, DataType type) {
+            super(ident);
+            this.fieldName = ident.fqn();
+            this.type = type;
+        }
+
+        @Override
+        public Object extract(SearchHit hit) {
+            SearchHitField field = hit.field(fieldName);
+            if (field == null) {
+                return super.extract(hit);
+            }
+            return type.value(field.getValue());
+        }
+    }
+
     public static class PartitionedByColumnExtractor extends ESFieldExtractor {
 
         private final Reference reference;
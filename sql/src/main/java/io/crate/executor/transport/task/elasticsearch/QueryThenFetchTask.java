@@ -621,6 +621,14 @@ public class QueryThenFetchTask extends JobTask implements PageableTask {
         throw new UnsupportedOperationException("Can't have upstreamResults");
     }
 
+    /**
+     * the maximum number of rows this task returns,
+     * paged executions have to stop fetching pages once it is reached.
+     */
+    public int limit() {
+        return limit;
+    }
+
     /**
      * set the keep alive value for the search context on the shards
      */
@@ -747,6 +755,8 @@ public class QueryThenFetchTask extends JobTask implements PageableTask {
                 }
             } else if (context.partitionBy.contains(field.info())) {
                 return new ESFieldExtractor.PartitionedByColumnExtractor(field, context.partitionBy);
+            } else if (ESFieldExtractor.FieldDataOrSource.SUPPORTED_TYPES.contains(field.valueType())) {
+                return new ESFieldExtractor.FieldDataOrSource(columnIdent, field.valueType());
             } else {
                 return new ESFieldExtractor.Source(columnIdent);
             }
@@ -21,7 +21,7 @@
 
 package io.crate.lucene;
 
-import com.google.common.base.Predicates;
+import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.spatial4j.core.context.jts.JtsSpatialContext;
@@ -31,6 +31,7 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import io.crate.analyze.WhereClause;
 import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.executor.transport.task.elasticsearch.ESFieldExtractor;
 import io.crate.lucene.match.MatchQueryBuilder;
 import io.crate.lucene.match.MultiMatchQueryBuilder;
 import io.crate.metadata.DocReferenceConverter;
@@ -289,12 +290,40 @@ public class LuceneQueryBuilder {
                 Literal literal = tuple.v2();
                 CollectionType dataType = ((CollectionType) literal.valueType());
                 QueryBuilderHelper builder = QueryBuilderHelper.forType(dataType.innerType());
-                BooleanQuery booleanQuery = new BooleanQuery();
-                Set values = (Set) literal.value();
-                for (Object value : values) {
-                    booleanQuery.add(builder.eq(field, value), BooleanClause.Occur.SHOULD);
+                return builder.terms(field, (Set) literal.value());
+            }
+        }
+
+        /**
+         * <code>ref = ANY([literal, ...])</code> is resolved using a terms filter,
+         * all other forms are handled like an eq query.
+         */
+        class AnyEqQuery extends EqQuery {
+
+            @Override
+            public Query apply(Function input, Context context) {
+                assert input != null;
+                assert input.arguments().size() == 2;
+                Symbol left = input.arguments().get(0);
+                Symbol right = input.arguments().get(1);
+                if (left.symbolType() == SymbolType.LITERAL
+                        && right.symbolType() == SymbolType.REFERENCE
+                        && ((Literal) left).valueType() instanceof CollectionType
+                        && DataTypes.PRIMITIVE_TYPES.contains(((Reference) right).valueType())) {
+                    Object collection = ((Literal) left).value();
+                    if (collection == null) {
+                        return null;
+                    }
+                    Reference reference = (Reference) right;
+                    String columnName = reference.info().ident().columnIdent().fqn();
+                    QueryBuilderHelper builder = QueryBuilderHelper.forType(reference.valueType());
+                    List<Object> values = new ArrayList<>();
+                    for (Object value : AnyOperator.collectionValueToIterable(collection)) {
+                        values.add(value);
+                    }
+                    return builder.terms(columnName, values);
                 }
-                return booleanQuery;
+                return super.apply(input, context);
             }
         }
 
@@ -352,8 +381,29 @@ public class LuceneQueryBuilder {
             public Query apply(Function input, Context context) {
                 assert input != null;
                 BooleanQuery query = new BooleanQuery();
+                List<FunctionFilter> residualFilters = new ArrayList<>();
                 for (Symbol symbol : input.arguments()) {
-                    query.add(process(symbol, context), BooleanClause.Occur.MUST);
+                    Query argumentQuery = process(symbol, context);
+                    if (argumentQuery instanceof GenericFunctionQuery) {
+                        residualFilters.add(((GenericFunctionQuery) argumentQuery).functionFilter());
+                    } else {
+                        query.add(argumentQuery, BooleanClause.Occur.MUST);
+                    }
+                }
+                if (residualFilters.isEmpty()) {
+                    return query;
+                }
+                return postFilter(query.clauses().isEmpty() ? Queries.newMatchAllQuery() : query, residualFilters);
+            }
+
+            /**
+             * evaluates the residual filters only on the documents matched by the query,
+             * the cheapest filter first, so that the more expensive ones see fewer documents
+             */
+            private Query postFilter(Query query, List<FunctionFilter> residualFilters) {
+                Collections.sort(residualFilters, FunctionFilter.COST_COMPARATOR);
+                for (FunctionFilter residualFilter : residualFilters) {
+                    query = new FilteredQuery(query, residualFilter, FilteredQuery.QUERY_FIRST_FILTER_STRATEGY);
                 }
                 return query;
             }
@@ -681,7 +731,7 @@ public class LuceneQueryBuilder {
                         .put(NotPredicate.NAME, new NotQuery())
                         .put(IsNullPredicate.NAME, new IsNullQuery())
                         .put(MatchPredicate.NAME, new ToMatchQuery())
-                        .put(AnyEqOperator.NAME, eqQuery)
+                        .put(AnyEqOperator.NAME, new AnyEqQuery())
                         .put(AnyNeqOperator.NAME, new AnyNeqQuery())
                         .put(AnyLtOperator.NAME, ltQuery)
                         .put(AnyLteOperator.NAME, lteQuery)
@@ -790,45 +840,139 @@ public class LuceneQueryBuilder {
             if (function.valueType() != DataTypes.BOOLEAN) {
                 raiseUnsupported(function);
             }
-            // avoid field-cache
+            // avoid field-cache for columns without doc values
             // reason1: analyzed columns or columns with index off wouldn't work
             //   substr(n, 1, 1) in the case of n => analyzed would throw an error because n would be an array
             // reason2: would have to load each value into the field cache
-            DocReferenceConverter.convertIf(function, Predicates.<Reference>alwaysTrue());
+            // columns with doc values are read from them, which is a lot cheaper than parsing the source
+            DocReferenceConverter.convertIf(function, new Predicate<Reference>() {
+                @Override
+                public boolean apply(@Nullable Reference input) {
+                    assert input != null;
+                    return !hasDocValues(input);
+                }
+            });
 
-            final CollectInputSymbolVisitor.Context ctx = inputSymbolVisitor.process(function);
-            assert ctx.topLevelInputs().size() == 1;
-            @SuppressWarnings("unchecked")
-            final Input<Boolean> condition = (Input<Boolean>) ctx.topLevelInputs().get(0);
-            @SuppressWarnings("unchecked")
-            final List<LuceneCollectorExpression> expressions = ctx.docLevelExpressions();
-            final CollectorContext collectorContext = new CollectorContext();
-            collectorContext.searchContext(searchContext);
-            collectorContext.visitor(new LuceneDocCollector.CollectorFieldsVisitor(expressions.size()));
+            FunctionFilter filter = new FunctionFilter(function, inputSymbolVisitor, searchContext);
+            return new GenericFunctionQuery(filter, indexCache.filter().cache(filter));
+        }
+
+        private boolean hasDocValues(Reference reference) {
+            if (searchContext == null
+                    || !ESFieldExtractor.FieldDataOrSource.SUPPORTED_TYPES.contains(reference.valueType())) {
+                return false;
+            }
+            FieldMapper fieldMapper = searchContext.smartNameFieldMapper(
+                    reference.info().ident().columnIdent().fqn());
+            return fieldMapper != null && fieldMapper.hasDocValues();
+        }
+
+        /**
+         * A query which evaluates a function on every document.
+         *
+         * If it is part of a conjunction the {@link AndQuery} uses the uncached {@link FunctionFilter}
+         * as post filter instead, so that the function is only evaluated for documents which match
+         * the other, indexed, conditions.
+         */
+        static class GenericFunctionQuery extends FilteredQuery {
+
+            private final FunctionFilter functionFilter;
+
+            GenericFunctionQuery(FunctionFilter functionFilter, Filter cachedFilter) {
+                super(Queries.newMatchAllQuery(), cachedFilter);
+                this.functionFilter = functionFilter;
+            }
 
-            for (LuceneCollectorExpression expression : expressions) {
-                expression.startCollect(collectorContext);
+            FunctionFilter functionFilter() {
+                return functionFilter;
             }
-            Filter filter = new Filter() {
+        }
+
+        static class FunctionFilter extends Filter {
+
+            /**
+             * source lookups parse the whole document, so they are by far the most expensive inputs
+             */
+            private static final int SOURCE_LOOKUP_COST = 100;
+
+            static final Comparator<FunctionFilter> COST_COMPARATOR = new Comparator<FunctionFilter>() {
                 @Override
-                public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
-                    for (LuceneCollectorExpression expression : expressions) {
-                        expression.setNextReader(context);
-                    }
-                    return BitsFilteredDocIdSet.wrap(
-                            new FunctionDocSet(
-                                    context.reader(),
-                                    collectorContext.visitor(),
-                                    condition,
-                                    expressions,
-                                    context.reader().maxDoc(),
-                                    acceptDocs
-                            ),
-                            acceptDocs);
+                public int compare(FunctionFilter o1, FunctionFilter o2) {
+                    return Integer.compare(o1.cost, o2.cost);
                 }
             };
-            Filter cachedFilter = indexCache.filter().cache(filter);
-            return new FilteredQuery(Queries.newMatchAllQuery(), cachedFilter);
+
+            private final Function function;
+            private final CollectInputSymbolVisitor<LuceneCollectorExpression<?>> inputSymbolVisitor;
+            private final SearchContext searchContext;
+            private final int cost;
+
+            /**
+             * The expressions which evaluate the function keep the state of the current reader and document,
+             * so they are created per {@link #getDocIdSet(AtomicReaderContext, Bits)} call.
+             * This way the filter can be used by the concurrent work units of a
+             * {@link io.crate.operation.collect.SegmentParallelCollector} which share one weight.
+             */
+            FunctionFilter(Function function,
+                           CollectInputSymbolVisitor<LuceneCollectorExpression<?>> inputSymbolVisitor,
+                           SearchContext searchContext) {
+                this.function = function;
+                this.inputSymbolVisitor = inputSymbolVisitor;
+                this.searchContext = searchContext;
+
+                CollectInputSymbolVisitor.Context ctx = inputSymbolVisitor.process(function);
+                assert ctx.topLevelInputs().size() == 1;
+                List<LuceneCollectorExpression<?>> expressions = docLevelExpressions(ctx);
+                CollectorContext collectorContext = startCollect(expressions);
+                this.cost = expressions.size() + (collectorContext.visitor().sourceRequired() ? SOURCE_LOOKUP_COST : 0);
+            }
+
+            /**
+             * the estimated cost to evaluate the function for a single document
+             */
+            int cost() {
+                return cost;
+            }
+
+            @Override
+            public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+                CollectInputSymbolVisitor.Context ctx = inputSymbolVisitor.process(function);
+                @SuppressWarnings("unchecked")
+                Input<Boolean> condition = (Input<Boolean>) ctx.topLevelInputs().get(0);
+                List<LuceneCollectorExpression<?>> expressions = docLevelExpressions(ctx);
+                CollectorContext collectorContext = startCollect(expressions);
+                for (LuceneCollectorExpression<?> expression : expressions) {
+                    expression.setNextReader(context);
+                }
+                return new FunctionDocSet(
+                        context.reader(),
+                        collectorContext.visitor(),
+                        condition,
+                        expressions,
+                        context.reader().maxDoc(),
+                        acceptDocs
+                );
+            }
+
+            @SuppressWarnings("unchecked")
+            private static List<LuceneCollectorExpression<?>> docLevelExpressions(CollectInputSymbolVisitor.Context ctx) {
+                return (List<LuceneCollectorExpression<?>>) ctx.docLevelExpressions();
+            }
+
+            private CollectorContext startCollect(List<LuceneCollectorExpression<?>> expressions) {
+                CollectorContext collectorContext = new CollectorContext();
+                collectorContext.searchContext(searchContext);
+                collectorContext.visitor(new LuceneDocCollector.CollectorFieldsVisitor(expressions.size()));
+                for (LuceneCollectorExpression<?> expression : expressions) {
+                    expression.startCollect(collectorContext);
+                }
+                return collectorContext;
+            }
+
+            @Override
+            public String toString() {
+                return SymbolFormatter.format("FunctionFilter(%s)", function);
+            }
         }
 
         static class FunctionDocSet extends MatchDocIdSet {
@@ -836,13 +980,15 @@ public class LuceneQueryBuilder {
             private final AtomicReader reader;
             private final LuceneDocCollector.CollectorFieldsVisitor fieldsVisitor;
             private final Input<Boolean> condition;
-            private final List<LuceneCollectorExpression> expressions;
+            private final List<LuceneCollectorExpression<?>> expressions;
             private final boolean fieldsVisitorEnabled;
+            private final int maxDoc;
+            private final Bits acceptDocs;
 
             protected FunctionDocSet(AtomicReader reader,
                                      @Nullable LuceneDocCollector.CollectorFieldsVisitor fieldsVisitor,
                                      Input<Boolean> condition,
-                                     List<LuceneCollectorExpression> expressions,
+                                     List<LuceneCollectorExpression<?>> expressions,
                                      int maxDoc,
                                      @Nullable Bits acceptDocs) {
                 super(maxDoc, acceptDocs);
@@ -852,6 +998,27 @@ public class LuceneQueryBuilder {
                 this.fieldsVisitorEnabled = fieldsVisitor == null ? false : fieldsVisitor.required();
                 this.condition = condition;
                 this.expressions = expressions;
+                this.maxDoc = maxDoc;
+                this.acceptDocs = acceptDocs;
+            }
+
+            /**
+             * random access used by the query first filter strategy,
+             * only documents which are matched by the query are evaluated
+             */
+            @Override
+            public Bits bits() {
+                return new Bits() {
+                    @Override
+                    public boolean get(int index) {
+                        return (acceptDocs == null || acceptDocs.get(index)) && matchDoc(index);
+                    }
+
+                    @Override
+                    public int length() {
+                        return maxDoc;
+                    }
+                };
             }
 
             @Override
@@ -864,7 +1031,7 @@ public class LuceneQueryBuilder {
                         throw Throwables.propagate(e);
                     }
                 }
-                for (LuceneCollectorExpression expression : expressions) {
+                for (LuceneCollectorExpression<?> expression : expressions) {
                     expression.setNextDocId(doc);
                 }
                 Boolean value = condition.value();
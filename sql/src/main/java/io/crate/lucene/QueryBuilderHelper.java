@@ -4,10 +4,17 @@ import io.crate.types.CollectionType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsFilter;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.common.lucene.BytesRefs;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public abstract class QueryBuilderHelper {
 
     private final static QueryBuilderHelper intQueryBuilder = new IntegerQueryBuilder();
@@ -59,6 +66,29 @@ public abstract class QueryBuilderHelper {
         return eq(columnName, value);
     }
 
+    /**
+     * query which matches if the column value equals any of the values.
+     * null values are ignored as they never match.
+     */
+    public Query terms(String columnName, Collection<?> values) {
+        List<BytesRef> terms = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                terms.add(indexedValue(value));
+            }
+        }
+        if (terms.isEmpty()) {
+            // matches nothing
+            return new BooleanQuery();
+        }
+        return new ConstantScoreQuery(new TermsFilter(columnName, terms));
+    }
+
+    /**
+     * @return the term of an exact value as it is indexed
+     */
+    protected abstract BytesRef indexedValue(Object value);
+
     static final class BooleanQueryBuilder extends QueryBuilderHelper {
         @Override
         public Filter rangeFilter(String columnName, Object from, Object to, boolean includeLower, boolean includeUpper) {
@@ -74,6 +104,11 @@ public abstract class QueryBuilderHelper {
         public Query eq(String columnName, Object value) {
             return new TermQuery(new Term(columnName, value == true ? "T" : "F"));
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return new BytesRef(value == true ? "T" : "F");
+        }
     }
 
     static final class FloatQueryBuilder extends QueryBuilderHelper {
@@ -97,6 +132,11 @@ public abstract class QueryBuilderHelper {
         public Query rangeQuery(String columnName, Object from, Object to, boolean includeLower, boolean includeUpper) {
             return NumericRangeQuery.newFloatRange(columnName, toFloat(from), toFloat(to), includeLower, includeUpper);
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return intTerm(NumericUtils.floatToSortableInt(toFloat(value)));
+        }
     }
 
     static final class DoubleQueryBuilder extends QueryBuilderHelper {
@@ -120,6 +160,11 @@ public abstract class QueryBuilderHelper {
         public Query rangeQuery(String columnName, Object from, Object to, boolean includeLower, boolean includeUpper) {
             return NumericRangeQuery.newDoubleRange(columnName, toDouble(from), toDouble(to), includeLower, includeUpper);
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return longTerm(NumericUtils.doubleToSortableLong(toDouble(value)));
+        }
     }
 
     static final class LongQueryBuilder extends QueryBuilderHelper {
@@ -143,6 +188,11 @@ public abstract class QueryBuilderHelper {
         public Query rangeQuery(String columnName, Object from, Object to, boolean includeLower, boolean includeUpper) {
             return NumericRangeQuery.newLongRange(columnName, (Long)from, (Long)to, includeLower, includeUpper);
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return longTerm(toLong(value));
+        }
     }
 
     static final class IntegerQueryBuilder extends QueryBuilderHelper {
@@ -166,6 +216,11 @@ public abstract class QueryBuilderHelper {
         public Query rangeQuery(String columnName, Object from, Object to, boolean includeLower, boolean includeUpper) {
             return NumericRangeQuery.newIntRange(columnName, toInt(from), toInt(to), includeLower, includeUpper);
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return intTerm(toInt(value));
+        }
     }
 
     static final class StringQueryBuilder extends QueryBuilderHelper {
@@ -190,5 +245,25 @@ public abstract class QueryBuilderHelper {
             return new WildcardQuery(
                     new Term(columnName, LuceneQueryBuilder.convertWildcard(BytesRefs.toString(value))));
         }
+
+        @Override
+        protected BytesRef indexedValue(Object value) {
+            return BytesRefs.toBytesRef(value);
+        }
+    }
+
+    /**
+     * full precision term of a numeric value, see {@link NumericUtils}
+     */
+    private static BytesRef longTerm(long value) {
+        BytesRefBuilder builder = new BytesRefBuilder();
+        NumericUtils.longToPrefixCoded(value, 0, builder);
+        return builder.toBytesRef();
+    }
+
+    private static BytesRef intTerm(int value) {
+        BytesRefBuilder builder = new BytesRefBuilder();
+        NumericUtils.intToPrefixCoded(value, 0, builder);
+        return builder.toBytesRef();
     }
 }
@@ -77,6 +77,13 @@ public class FunctionInfo implements Comparable<FunctionInfo>, Streamable {
         return returnType;
     }
 
+    /**
+     * @return false if the function may return different values for the same arguments, like <code>random()</code>
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -82,4 +82,17 @@ public class Functions {
         }
         return null;
     }
+
+    /**
+     * @return false if any of the registered implementations with the given name is not deterministic,
+     *         functions which are resolved dynamically are deterministic
+     */
+    public boolean isDeterministic(String name) {
+        for (Map.Entry<FunctionIdent, FunctionImplementation> entry : functionImplementations.entrySet()) {
+            if (entry.getKey().name().equals(name) && !entry.getValue().info().isDeterministic()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
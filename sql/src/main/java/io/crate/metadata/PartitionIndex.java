@@ -0,0 +1,190 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata;
+
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Sorted lookup structure over the partition values of a partitioned table.
+ *
+ * For every partitioned-by column the partition values are kept sorted together with
+ * the ordinal of the partition inside {@link #partitions()}, so that equality, range and
+ * IN conditions on a partition column resolve to the matching partitions with a binary
+ * search instead of evaluating the condition against every single partition.
+ *
+ * Partitions with a <code>null</code> value for a column are never matched by any lookup
+ * on that column, the same way a comparison against <code>null</code> never matches.
+ */
+public class PartitionIndex {
+
+    private final List<PartitionName> partitions;
+    private final Map<ReferenceInfo, ColumnIndex> columnIndices;
+
+    public PartitionIndex(List<ReferenceInfo> partitionedByColumns, List<PartitionName> partitions) {
+        this.partitions = partitions;
+        this.columnIndices = new HashMap<>(partitionedByColumns.size());
+        for (int i = 0; i < partitionedByColumns.size(); i++) {
+            ReferenceInfo column = partitionedByColumns.get(i);
+            columnIndices.put(column, new ColumnIndex(column.type(), i, partitions));
+        }
+    }
+
+    public List<PartitionName> partitions() {
+        return partitions;
+    }
+
+    public boolean isPartitionColumn(ReferenceInfo referenceInfo) {
+        return columnIndices.containsKey(referenceInfo);
+    }
+
+    /**
+     * @return all partitions where <code>column = value</code>
+     */
+    public BitSet eq(ReferenceInfo column, @Nullable Object value) {
+        ColumnIndex index = columnIndex(column);
+        BitSet result = new BitSet(partitions.size());
+        if (value != null) {
+            index.collect(index.lowerBound(value), index.upperBound(value), result);
+        }
+        return result;
+    }
+
+    /**
+     * @return all partitions where <code>column</code> equals any of the given values
+     */
+    public BitSet in(ReferenceInfo column, Iterable<?> values) {
+        ColumnIndex index = columnIndex(column);
+        BitSet result = new BitSet(partitions.size());
+        for (Object value : values) {
+            if (value != null) {
+                index.collect(index.lowerBound(value), index.upperBound(value), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return all partitions where the value of <code>column</code> lies between
+     *         <code>from</code> and <code>to</code>. A <code>null</code> bound is unbounded.
+     */
+    public BitSet range(ReferenceInfo column,
+                        @Nullable Object from, boolean includeFrom,
+                        @Nullable Object to, boolean includeTo) {
+        ColumnIndex index = columnIndex(column);
+        int start = 0;
+        int end = index.size();
+        if (from != null) {
+            start = includeFrom ? index.lowerBound(from) : index.upperBound(from);
+        }
+        if (to != null) {
+            end = includeTo ? index.upperBound(to) : index.lowerBound(to);
+        }
+        BitSet result = new BitSet(partitions.size());
+        index.collect(start, end, result);
+        return result;
+    }
+
+    private ColumnIndex columnIndex(ReferenceInfo column) {
+        ColumnIndex index = columnIndices.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "column \"%s\" is not a partitioned-by column", column.ident().columnIdent().fqn()));
+        }
+        return index;
+    }
+
+    private static class ColumnIndex {
+
+        private final DataType type;
+        private final Object[] values;
+        private final int[] ordinals;
+
+        @SuppressWarnings("unchecked")
+        ColumnIndex(final DataType type, int valuesIndex, List<PartitionName> partitions) {
+            this.type = type;
+            List<Object[]> entries = new ArrayList<>(partitions.size());
+            for (int ordinal = 0; ordinal < partitions.size(); ordinal++) {
+                Object value = type.value(partitions.get(ordinal).values().get(valuesIndex));
+                if (value != null) {
+                    entries.add(new Object[]{value, ordinal});
+                }
+            }
+            Collections.sort(entries, new Comparator<Object[]>() {
+                @Override
+                public int compare(Object[] o1, Object[] o2) {
+                    return type.compareValueTo(o1[0], o2[0]);
+                }
+            });
+            values = new Object[entries.size()];
+            ordinals = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Object[] entry = entries.get(i);
+                values[i] = entry[0];
+                ordinals[i] = (Integer) entry[1];
+            }
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        /**
+         * @return the position of the first value that is greater than or equal to <code>value</code>
+         */
+        int lowerBound(Object value) {
+            return bound(value, false);
+        }
+
+        /**
+         * @return the position of the first value that is greater than <code>value</code>
+         */
+        int upperBound(Object value) {
+            return bound(value, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        private int bound(Object value, boolean skipEqual) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = type.compareValueTo(values[mid], value);
+                if (cmp < 0 || (skipEqual && cmp == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void collect(int start, int end, BitSet result) {
+            for (int i = start; i < end; i++) {
+                result.set(ordinals[i]);
+            }
+        }
+    }
+}
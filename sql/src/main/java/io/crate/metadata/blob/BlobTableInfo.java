@@ -22,6 +22,7 @@
 package io.crate.metadata.blob;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.PartitionName;
 import io.crate.analyze.AlterBlobTableParameterInfo;
 import io.crate.analyze.TableParameterInfo;
@@ -251,4 +252,9 @@ public class BlobTableInfo implements TableInfo {
     public TableParameterInfo tableParameterInfo() {
         return tableParameterInfo;
     }
+
+    @Override
+    public Map<ColumnIdent, String> generatedColumns() {
+        return ImmutableMap.of();
+    }
 }
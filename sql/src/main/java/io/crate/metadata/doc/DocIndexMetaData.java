@@ -85,6 +85,7 @@ public class DocIndexMetaData {
     private ImmutableList<ColumnIdent> primaryKey;
     private ColumnIdent routingCol;
     private ImmutableList<ColumnIdent> partitionedBy;
+    private ImmutableMap<ColumnIdent, String> generatedColumns;
     private final boolean isAlias;
     private final Set<String> aliases;
     private boolean hasAutoGeneratedPrimaryKey = false;
@@ -365,6 +366,18 @@ public class DocIndexMetaData {
         return builder.build();
     }
 
+    private ImmutableMap<ColumnIdent, String> getGeneratedColumns() {
+        Map<String, String> generatedColumnsMap = getNested(metaMap, "generated_columns");
+        if (generatedColumnsMap == null) {
+            return ImmutableMap.of();
+        }
+        ImmutableMap.Builder<ColumnIdent, String> builder = ImmutableMap.builder();
+        for (Map.Entry<String, String> entry : generatedColumnsMap.entrySet()) {
+            builder.put(ColumnIdent.fromPath(entry.getKey()), entry.getValue());
+        }
+        return builder.build();
+    }
+
     private ColumnPolicy getColumnPolicy() {
         Object dynamic = getNested(defaultMappingMap, "dynamic");
         if (ColumnPolicy.STRICT.value().equals(String.valueOf(dynamic).toLowerCase(Locale.ENGLISH))) {
@@ -419,6 +432,7 @@ public class DocIndexMetaData {
 
     public DocIndexMetaData build() {
         partitionedBy = getPartitionedBy();
+        generatedColumns = getGeneratedColumns();
         columnPolicy = getColumnPolicy();
         createColumnDefinitions();
         indices = createIndexDefinitions();
@@ -548,4 +562,8 @@ public class DocIndexMetaData {
     public ColumnPolicy columnPolicy() {
         return columnPolicy;
     }
+
+    public ImmutableMap<ColumnIdent, String> generatedColumns() {
+        return generatedColumns;
+    }
 }
@@ -61,12 +61,14 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
 
     private final String[] indices;
     private final List<PartitionName> partitions;
+    private volatile PartitionIndex partitionIndex;
 
     private final boolean isAlias;
     private final boolean hasAutoGeneratedPrimaryKey;
     private final boolean isPartitioned;
 
     private final ColumnPolicy columnPolicy;
+    private final Map<ColumnIdent, String> generatedColumns;
 
     public DocTableInfo(DocSchemaInfo schemaInfo,
                         TableIdent ident,
@@ -84,7 +86,8 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
                         BytesRef numberOfReplicas,
                         List<ColumnIdent> partitionedBy,
                         List<PartitionName> partitions,
-                        ColumnPolicy columnPolicy) {
+                        ColumnPolicy columnPolicy,
+                        Map<ColumnIdent, String> generatedColumns) {
         super(schemaInfo);
         this.clusterService = clusterService;
         this.columns = columns;
@@ -104,6 +107,7 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
         this.partitionedBy = partitionedBy;
         this.partitions = partitions;
         this.columnPolicy = columnPolicy;
+        this.generatedColumns = generatedColumns;
         if (isPartitioned) {
             tableParameterInfo = new AlterPartitionedTableParameterInfo();
         } else {
@@ -259,6 +263,25 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
         return partitions;
     }
 
+    @Override
+    public Map<ColumnIdent, String> generatedColumns() {
+        return generatedColumns;
+    }
+
+    /**
+     * sorted lookup of the partition values, built on first use.
+     * As table infos are cached until the cluster state changes the index is shared
+     * by all statements running against the same set of partitions.
+     */
+    public PartitionIndex partitionIndex() {
+        PartitionIndex index = partitionIndex;
+        if (index == null) {
+            index = new PartitionIndex(partitionedByColumns, partitions);
+            partitionIndex = index;
+        }
+        return index;
+    }
+
     @Override
     public boolean isPartitioned() {
         return isPartitioned;
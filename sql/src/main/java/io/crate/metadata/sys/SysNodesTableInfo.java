@@ -114,6 +114,12 @@ public class SysNodesTableInfo extends SysTableInfo {
         register("process", DataTypes.LONG, ImmutableList.of("open_file_descriptors"));
         register("process", DataTypes.LONG, ImmutableList.of("max_open_file_descriptors"));
 
+        register("plan_cache", DataTypes.OBJECT, null);
+        register("plan_cache", DataTypes.LONG, ImmutableList.of("size"));
+        register("plan_cache", DataTypes.LONG, ImmutableList.of("hits"));
+        register("plan_cache", DataTypes.LONG, ImmutableList.of("misses"));
+        register("plan_cache", DataTypes.LONG, ImmutableList.of("evictions"));
+
         register("fs", DataTypes.OBJECT, null);
         register("fs", DataTypes.OBJECT, ImmutableList.of("total"));
         register("fs", DataTypes.LONG, ImmutableList.of("total", "size"));
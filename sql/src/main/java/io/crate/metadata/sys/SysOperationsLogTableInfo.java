@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableList;
 import io.crate.analyze.WhereClause;
 import io.crate.metadata.*;
 import io.crate.planner.RowGranularity;
+import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
@@ -35,6 +36,8 @@ import java.util.*;
 
 public class SysOperationsLogTableInfo extends SysTableInfo {
 
+    private final TableColumn nodesTableColumn;
+
     public static class ColumnNames {
         public static final String ID = "id";
         public static final String JOB_ID = "job_id";
@@ -43,6 +46,11 @@ public class SysOperationsLogTableInfo extends SysTableInfo {
         public static final String ENDED = "ended";
         public static final String USED_BYTES = "used_bytes";
         public static final String ERROR = "error";
+        public static final String ROWS_IN = "rows_in";
+        public static final String ROWS_OUT = "rows_out";
+        public static final String ROWS_SENT = "rows_sent";
+        public static final String CPU_TIME = "cpu_time";
+        public static final String PROJECTORS = "projectors";
     }
 
     public static final TableIdent IDENT = new TableIdent(SCHEMA, "operations_log");
@@ -66,17 +74,31 @@ public class SysOperationsLogTableInfo extends SysTableInfo {
         register(ColumnNames.ENDED, DataTypes.TIMESTAMP);
         register(ColumnNames.USED_BYTES, DataTypes.LONG);
         register(ColumnNames.ERROR, DataTypes.STRING);
+        register(ColumnNames.ROWS_IN, DataTypes.LONG);
+        register(ColumnNames.ROWS_OUT, DataTypes.LONG);
+        register(ColumnNames.ROWS_SENT, DataTypes.LONG);
+        register(ColumnNames.CPU_TIME, DataTypes.DOUBLE);
+        register(ColumnNames.PROJECTORS, new ArrayType(DataTypes.OBJECT));
+
+        COLUMNS_INFO.put(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT));
     }
 
     @Inject
-    protected SysOperationsLogTableInfo(ClusterService clusterService, SysSchemaInfo sysSchemaInfo) {
+    protected SysOperationsLogTableInfo(ClusterService clusterService,
+                                        SysSchemaInfo sysSchemaInfo,
+                                        SysNodesTableInfo sysNodesTableInfo) {
         super(clusterService, sysSchemaInfo);
+        nodesTableColumn = sysNodesTableInfo.tableColumn();
     }
 
     @Nullable
     @Override
     public ReferenceInfo getReferenceInfo(ColumnIdent columnIdent) {
-        return columnInfo(columnIdent);
+        ReferenceInfo info = columnInfo(columnIdent);
+        if (info == null) {
+            return nodesTableColumn.getReferenceInfo(this.ident(), columnIdent);
+        }
+        return info;
     }
 
     @Nullable
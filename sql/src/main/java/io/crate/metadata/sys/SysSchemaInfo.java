@@ -49,7 +49,7 @@ public class SysSchemaInfo implements SchemaInfo {
             .put(SysJobsTableInfo.IDENT.name(), new SysJobsTableInfo(clusterService, this))
             .put(SysJobsLogTableInfo.IDENT.name(), new SysJobsLogTableInfo(clusterService, this))
             .put(SysOperationsTableInfo.IDENT.name(), new SysOperationsTableInfo(clusterService, this, sysNodesTableInfo))
-            .put(SysOperationsLogTableInfo.IDENT.name(), new SysOperationsLogTableInfo(clusterService, this))
+            .put(SysOperationsLogTableInfo.IDENT.name(), new SysOperationsLogTableInfo(clusterService, this, sysNodesTableInfo))
         .build();
     }
 
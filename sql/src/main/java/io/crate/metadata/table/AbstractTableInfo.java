@@ -1,6 +1,7 @@
 package io.crate.metadata.table;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.crate.analyze.TableParameterInfo;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.IndexReferenceInfo;
@@ -14,6 +15,7 @@ import org.apache.lucene.util.BytesRef;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractTableInfo implements TableInfo {
 
@@ -59,6 +61,11 @@ public abstract class AbstractTableInfo implements TableInfo {
         return ImmutableList.of();
     }
 
+    @Override
+    public Map<ColumnIdent, String> generatedColumns() {
+        return ImmutableMap.of();
+    }
+
     @Nullable
     @Override
     public IndexReferenceInfo indexColumn(ColumnIdent ident) {
@@ -32,6 +32,7 @@ import org.apache.lucene.util.BytesRef;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface TableInfo extends Iterable<ReferenceInfo> {
 
@@ -119,4 +120,10 @@ public interface TableInfo extends Iterable<ReferenceInfo> {
 
     public TableParameterInfo tableParameterInfo();
 
+    /**
+     * the expressions of the generated columns of this table, as defined in the
+     * CREATE TABLE statement, by generated column
+     */
+    public Map<ColumnIdent, String> generatedColumns();
+
 }
@@ -24,7 +24,14 @@ package io.crate.operation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.planner.node.dql.AbstractDQLPlanNode;
 
+import javax.annotation.Nullable;
+
 public interface DownstreamOperationFactory<TPlanNode extends AbstractDQLPlanNode> {
 
-    public DownstreamOperation create(TPlanNode node, RamAccountingContext ramAccountingContext);
+    /**
+     * @param metrics if not null the operation records its runtime metrics into it
+     */
+    public DownstreamOperation create(TPlanNode node,
+                                      RamAccountingContext ramAccountingContext,
+                                      @Nullable OperationMetrics metrics);
 }
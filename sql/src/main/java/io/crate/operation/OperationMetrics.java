@@ -0,0 +1,131 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import io.crate.operation.projectors.InstrumentedProjector;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.projectors.ProjectorMetrics;
+import jsr166e.LongAdder;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * runtime metrics of an operation executing an instrumented plan node,
+ * see {@link io.crate.planner.node.dql.AbstractDQLPlanNode#instrumented()}.
+ *
+ * Holds the metrics of the projectors of the operation by the position of their projection
+ * and the number of rows the operation sent over the network.
+ */
+public class OperationMetrics {
+
+    private final List<ProjectorMetrics> projectors = new ArrayList<>();
+    private final LongAdder rowsSent = new LongAdder();
+
+    /**
+     * @return the projector wrapped into an {@link InstrumentedProjector} which records its metrics
+     *         under the given projection index, or the projector itself if metrics is null
+     */
+    public static Projector instrument(@Nullable OperationMetrics metrics, int projectionIdx, Projector projector) {
+        if (metrics == null) {
+            return projector;
+        }
+        return InstrumentedProjector.wrap(projector, metrics.projector(projectionIdx, projector.getClass().getSimpleName()));
+    }
+
+    /**
+     * @return the metrics of the projectors executing the projection at the given index,
+     *         created with the given name if they don't exist yet
+     */
+    public synchronized ProjectorMetrics projector(int projectionIdx, String name) {
+        while (projectors.size() <= projectionIdx) {
+            projectors.add(null);
+        }
+        ProjectorMetrics metrics = projectors.get(projectionIdx);
+        if (metrics == null) {
+            metrics = new ProjectorMetrics(name);
+            projectors.set(projectionIdx, metrics);
+        }
+        return metrics;
+    }
+
+    public synchronized List<ProjectorMetrics> projectors() {
+        List<ProjectorMetrics> result = new ArrayList<>(projectors.size());
+        for (ProjectorMetrics metrics : projectors) {
+            if (metrics != null) {
+                result.add(metrics);
+            }
+        }
+        return result;
+    }
+
+    public void rowsSent(long rows) {
+        rowsSent.add(rows);
+    }
+
+    public long rowsSent() {
+        return rowsSent.sum();
+    }
+
+    /**
+     * @return the number of rows the first projector received or null if there are no projectors
+     */
+    @Nullable
+    public Long rowsIn() {
+        List<ProjectorMetrics> projectors = projectors();
+        if (projectors.isEmpty()) {
+            return null;
+        }
+        return projectors.get(0).rowsIn();
+    }
+
+    /**
+     * @return the number of rows the last projector emitted or null if there are no projectors
+     */
+    @Nullable
+    public Long rowsOut() {
+        List<ProjectorMetrics> projectors = projectors();
+        if (projectors.isEmpty()) {
+            return null;
+        }
+        return projectors.get(projectors.size() - 1).rowsOut();
+    }
+
+    public long cpuTimeNanos() {
+        long cpuTime = 0L;
+        for (ProjectorMetrics metrics : projectors()) {
+            cpuTime += metrics.cpuTimeNanos();
+        }
+        return cpuTime;
+    }
+
+    public Object[] projectorsAsMaps() {
+        List<ProjectorMetrics> projectors = projectors();
+        Object[] maps = new Object[projectors.size()];
+        for (int i = 0; i < maps.length; i++) {
+            maps[i] = projectors.get(i).toMap();
+        }
+        return maps;
+    }
+}
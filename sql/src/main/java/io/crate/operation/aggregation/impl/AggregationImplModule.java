@@ -53,5 +53,6 @@ public class AggregationImplModule extends AbstractModule {
         SumAggregation.register(this);
         CountAggregation.register(this);
         CollectSetAggregation.register(this);
+        ApproxCountDistinctAggregation.register(this);
     }
 }
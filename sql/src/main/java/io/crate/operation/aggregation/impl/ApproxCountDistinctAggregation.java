@@ -0,0 +1,326 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.types.DataType;
+import io.crate.types.DataTypeFactory;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Estimates the number of distinct values using a HyperLogLog sketch.
+ *
+ * Unlike <code>count(distinct col)</code>, which collects all values in a set,
+ * the state never grows beyond <code>2^precision</code> bytes.
+ */
+public class ApproxCountDistinctAggregation extends AggregationFunction<ApproxCountDistinctAggregation.HllState, Long> {
+
+    public static final String NAME = "approx_count_distinct";
+
+    /**
+     * 16384 registers, standard error of about 0.81%
+     */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final FunctionInfo info;
+
+    public static void register(AggregationImplModule mod) {
+        for (DataType dataType : DataTypes.PRIMITIVE_TYPES) {
+            mod.register(new ApproxCountDistinctAggregation(new FunctionInfo(
+                    new FunctionIdent(NAME, ImmutableList.of(dataType)), DataTypes.LONG,
+                    FunctionInfo.Type.AGGREGATE)));
+        }
+    }
+
+    ApproxCountDistinctAggregation(FunctionInfo info) {
+        this.info = info;
+    }
+
+    static long hash(Object value) {
+        if (value instanceof BytesRef) {
+            BytesRef bytesRef = (BytesRef) value;
+            return HASH_FUNCTION.hashBytes(bytesRef.bytes, bytesRef.offset, bytesRef.length).asLong();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return HASH_FUNCTION.hashLong(Double.doubleToLongBits(((Number) value).doubleValue())).asLong();
+        }
+        if (value instanceof Number) {
+            return HASH_FUNCTION.hashLong(((Number) value).longValue()).asLong();
+        }
+        if (value instanceof Boolean) {
+            return HASH_FUNCTION.hashInt((Boolean) value ? 1 : 0).asLong();
+        }
+        return HASH_FUNCTION.hashUnencodedChars(value.toString()).asLong();
+    }
+
+    public static class HllStateType extends DataType<HllState>
+            implements Streamer<HllState>, DataTypeFactory {
+
+        public static final int ID = 1025;
+        private static final HllStateType INSTANCE = new HllStateType();
+
+        private HllStateType() {
+            DataTypes.register(ID, this);
+        }
+
+        @Override
+        public int id() {
+            return ID;
+        }
+
+        @Override
+        public String getName() {
+            return "hll_state";
+        }
+
+        @Override
+        public Streamer<?> streamer() {
+            return this;
+        }
+
+        @Override
+        public HllState value(Object value) throws IllegalArgumentException, ClassCastException {
+            return (HllState) value;
+        }
+
+        @Override
+        public int compareValueTo(HllState val1, HllState val2) {
+            if (val1 == null) return -1;
+            if (val2 == null) return 1;
+            return Long.compare(val1.cardinality(), val2.cardinality());
+        }
+
+        @Override
+        public HllState readValueFrom(StreamInput in) throws IOException {
+            HllState state = new HllState(in.readVInt());
+            if (in.readBoolean()) {
+                int size = in.readVInt();
+                state.sparse = new LongOpenHashSet(size);
+                for (int i = 0; i < size; i++) {
+                    state.sparse.add(in.readLong());
+                }
+            } else {
+                state.sparse = null;
+                state.registers = new byte[1 << state.precision];
+                in.readBytes(state.registers, 0, state.registers.length);
+            }
+            return state;
+        }
+
+        @Override
+        public void writeValueTo(StreamOutput out, Object v) throws IOException {
+            HllState state = (HllState) v;
+            out.writeVInt(state.precision);
+            if (state.sparse != null) {
+                out.writeBoolean(true);
+                out.writeVInt(state.sparse.size());
+                for (LongCursor cursor : state.sparse) {
+                    out.writeLong(cursor.value);
+                }
+            } else {
+                out.writeBoolean(false);
+                out.writeBytes(state.registers);
+            }
+        }
+
+        @Override
+        public DataType<?> create() {
+            return INSTANCE;
+        }
+    }
+
+    /**
+     * HyperLogLog sketch using 64 bit hashes.
+     *
+     * As long as it contains fewer hashes than would fit into the registers, the hashes are kept in
+     * a sparse set and the cardinality is exact (except for hash collisions).
+     * Afterwards one byte register per bucket holds the max. number of leading zeros.
+     */
+    public static class HllState {
+
+        /**
+         * estimated number of bytes per entry of the sparse set
+         */
+        static final int SPARSE_ENTRY_SIZE = 16;
+
+        private final int precision;
+        private LongOpenHashSet sparse;
+        private byte[] registers;
+
+        public HllState(int precision) {
+            assert precision >= 4 && precision <= 18 : "precision must be between 4 and 18";
+            this.precision = precision;
+            this.sparse = new LongOpenHashSet();
+        }
+
+        int numRegisters() {
+            return 1 << precision;
+        }
+
+        /**
+         * @return the number of bytes the state grew
+         */
+        public long add(long hash) {
+            if (sparse != null) {
+                if (!sparse.add(hash)) {
+                    return 0;
+                }
+                if (sparse.size() * SPARSE_ENTRY_SIZE < numRegisters()) {
+                    return SPARSE_ENTRY_SIZE;
+                }
+                return toDense();
+            }
+            int index = (int) (hash >>> (64 - precision));
+            // leading zeros of the remaining bits, + 1; the OR-ed bit limits it to 64 - precision + 1
+            long remaining = (hash << precision) | (1L << (precision - 1));
+            byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+            if (registers[index] < rank) {
+                registers[index] = rank;
+            }
+            return 0;
+        }
+
+        private long toDense() {
+            LongOpenHashSet hashes = sparse;
+            sparse = null;
+            registers = new byte[numRegisters()];
+            for (LongCursor cursor : hashes) {
+                add(cursor.value);
+            }
+            return Math.max(0L, registers.length - (long) hashes.size() * SPARSE_ENTRY_SIZE);
+        }
+
+        /**
+         * merges the other state into this one
+         *
+         * @return the number of bytes the state grew
+         */
+        public long merge(HllState other) {
+            assert precision == other.precision : "cannot merge states with a different precision";
+            long grown = 0;
+            if (other.sparse != null) {
+                for (LongCursor cursor : other.sparse) {
+                    grown += add(cursor.value);
+                }
+                return grown;
+            }
+            if (sparse != null) {
+                grown = toDense();
+            }
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] < other.registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+            return grown;
+        }
+
+        public long cardinality() {
+            if (sparse != null) {
+                return sparse.size();
+            }
+            int m = registers.length;
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / m);
+            double estimate = alpha * m * m / sum;
+            if (estimate <= 2.5 * m && zeros > 0) {
+                // small range correction: linear counting
+                estimate = m * Math.log((double) m / zeros);
+            }
+            return Math.round(estimate);
+        }
+
+        @Override
+        public String toString() {
+            return "cardinality: " + cardinality();
+        }
+    }
+
+    @Override
+    public HllState iterate(RamAccountingContext ramAccountingContext, HllState state, Input... args)
+            throws CircuitBreakingException {
+        Object value = args[0].value();
+        if (value != null) {
+            ramAccountingContext.addBytes(state.add(hash(value)));
+        }
+        return state;
+    }
+
+    @Override
+    public HllState reduce(RamAccountingContext ramAccountingContext, HllState state1, HllState state2) {
+        if (state1 == null) {
+            return state2;
+        }
+        if (state2 == null) {
+            return state1;
+        }
+        ramAccountingContext.addBytes(state1.merge(state2));
+        return state1;
+    }
+
+    @Override
+    public Long terminatePartial(RamAccountingContext ramAccountingContext, HllState state) {
+        return state.cardinality();
+    }
+
+    @Override
+    public HllState newState(RamAccountingContext ramAccountingContext) {
+        ramAccountingContext.addBytes(36L); // state and the empty sparse set
+        return new HllState(DEFAULT_PRECISION);
+    }
+
+    @Override
+    public DataType partialType() {
+        return HllStateType.INSTANCE;
+    }
+
+    @Override
+    public FunctionInfo info() {
+        return info;
+    }
+}
@@ -32,6 +32,7 @@ public class CollectOperationModule extends AbstractModule {
         bind(UnassignedShardsCollectService.class).asEagerSingleton();
 
         bind(StatsTables.class).asEagerSingleton();
+        bind(SegmentCollectPool.class).asEagerSingleton();
         bind(SystemCollectService.class).asEagerSingleton();
     }
 }
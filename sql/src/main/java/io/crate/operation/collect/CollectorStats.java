@@ -0,0 +1,111 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation statistics of a single collect run.
+ *
+ * The allocated bytes are measured for the collecting thread and are only available
+ * if the JVM supports thread allocation accounting, otherwise they are -1.
+ */
+public class CollectorStats {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private long docs = 0L;
+    private long startNanos;
+    private long startAllocatedBytes;
+    private long tookNanos = 0L;
+    private long allocatedBytes = -1L;
+
+    public void start() {
+        startNanos = System.nanoTime();
+        startAllocatedBytes = currentThreadAllocatedBytes();
+    }
+
+    public void incrementDocs() {
+        docs++;
+    }
+
+    public void finish() {
+        tookNanos = System.nanoTime() - startNanos;
+        long currentAllocatedBytes = currentThreadAllocatedBytes();
+        if (startAllocatedBytes >= 0 && currentAllocatedBytes >= 0) {
+            allocatedBytes = currentAllocatedBytes - startAllocatedBytes;
+        }
+    }
+
+    public long docs() {
+        return docs;
+    }
+
+    public long tookNanos() {
+        return tookNanos;
+    }
+
+    /**
+     * @return the bytes allocated by the collecting thread or -1 if not available
+     */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public double docsPerSecond() {
+        if (tookNanos == 0L) {
+            return 0.0d;
+        }
+        return (double) docs / tookNanos * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the bytes allocated per collected document or -1 if not available
+     */
+    public double allocatedBytesPerDoc() {
+        if (allocatedBytes < 0 || docs == 0L) {
+            return -1.0d;
+        }
+        return (double) allocatedBytes / docs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH,
+                "docs: %d, took: %dms, docs/sec: %.1f, allocated bytes: %d, allocated bytes/doc: %.1f",
+                docs, TimeUnit.NANOSECONDS.toMillis(tookNanos), docsPerSecond(), allocatedBytes, allocatedBytesPerDoc());
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+}
@@ -31,6 +31,7 @@ import io.crate.Streamer;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.executor.TaskResult;
+import io.crate.executor.transport.ColumnarRows;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.executor.transport.distributed.DistributedFailureRequest;
 import io.crate.executor.transport.distributed.DistributedResultRequest;
@@ -38,6 +39,9 @@ import io.crate.executor.transport.distributed.DistributedResultResponse;
 import io.crate.executor.transport.merge.TransportMergeNodeAction;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
+import io.crate.operation.OperationMetrics;
+import io.crate.operation.projectors.DistributingProjector;
+import io.crate.operation.projectors.Projector;
 import io.crate.operation.projectors.ResultProvider;
 import io.crate.planner.node.PlanNodeStreamerVisitor;
 import io.crate.planner.node.dql.CollectNode;
@@ -69,6 +73,18 @@ import java.util.UUID;
  */
 public class DistributingCollectOperation extends MapSideDataCollectOperation {
 
+    /**
+     * number of rows per downstream that are sent as one page while collecting
+     */
+    public static final String PAGE_SIZE = "distributed_collect.page_size";
+    public static final int PAGE_SIZE_DEFAULT = 10_000;
+
+    /**
+     * number of pages per downstream that may be sent before the merge node acknowledged them
+     */
+    public static final String MAX_PENDING_PAGES = "distributed_collect.max_pending_pages";
+    public static final int MAX_PENDING_PAGES_DEFAULT = 2;
+
     private ESLogger logger = Loggers.getLogger(getClass());
 
     public static class DistributingShardCollectFuture extends ShardCollectFuture {
@@ -80,6 +96,7 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
         private final List<DiscoveryNode> downStreams;
         private final int numDownStreams;
         private final UUID jobId;
+        private final boolean streaming;
 
 
         public DistributingShardCollectFuture(UUID jobId,
@@ -88,7 +105,22 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                                               List<DiscoveryNode> downStreams,
                                               TransportService transportService,
                                               Streamer<?>[] streamers) {
+            this(jobId, numShards, resultProvider, downStreams, transportService, streamers, false);
+        }
+
+        /**
+         * @param streaming if true the rows have already been sent by a {@link DistributingProjector}
+         *                  while collecting, the future then only waits for its result.
+         */
+        public DistributingShardCollectFuture(UUID jobId,
+                                              int numShards,
+                                              ResultProvider resultProvider,
+                                              List<DiscoveryNode> downStreams,
+                                              TransportService transportService,
+                                              Streamer<?>[] streamers,
+                                              boolean streaming) {
             super(numShards, resultProvider);
+            this.streaming = streaming;
             Preconditions.checkNotNull(downStreams, "downstream nodes is null");
             Preconditions.checkNotNull(jobId, "jobId is null");
             this.jobId = jobId;
@@ -104,6 +136,20 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
 
         @Override
         protected void onAllShardsFinished() {
+            if (streaming) {
+                Futures.addCallback(resultProvider.result(), new FutureCallback<Object[][]>() {
+                    @Override
+                    public void onSuccess(@Nullable Object[][] result) {
+                        set(result);
+                    }
+
+                    @Override
+                    public void onFailure(@Nonnull Throwable t) {
+                        setException(t);
+                    }
+                });
+                return;
+            }
             Throwable throwable = lastException.get();
             if (throwable != null) {
                 setException(throwable);
@@ -143,6 +189,7 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
         }
 
         private void sendRequest(final DistributedResultRequest request, final DiscoveryNode node) {
+            request.columnar(ColumnarRows.isSupported(node));
             transportService.submitRequest(
                 node,
                 TransportMergeNodeAction.mergeRowsAction, // NOTICE: hard coded transport action, should be delivered by collectNode
@@ -224,6 +271,8 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
     private final TransportService transportService;
     private final PlanNodeStreamerVisitor streamerVisitor;
     private final CircuitBreaker circuitBreaker;
+    private final int pageSize;
+    private final int maxPendingPages;
 
     @Inject
     public DistributingCollectOperation(ClusterService clusterService,
@@ -243,13 +292,17 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
         this.transportService = transportService;
         this.streamerVisitor = streamerVisitor;
         this.circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        this.pageSize = settings.getAsInt(PAGE_SIZE, PAGE_SIZE_DEFAULT);
+        this.maxPendingPages = settings.getAsInt(MAX_PENDING_PAGES, MAX_PENDING_PAGES_DEFAULT);
     }
 
     @Override
-    protected ListenableFuture<Object[][]> handleNodeCollect(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+    protected ListenableFuture<Object[][]> handleNodeCollect(CollectNode collectNode,
+                                                             RamAccountingContext ramAccountingContext,
+                                                             @Nullable OperationMetrics metrics) {
         assert collectNode.jobId().isPresent();
         assert collectNode.hasDownstreams() : "distributing collect without downStreams";
-        ListenableFuture<Object[][]> future = super.handleNodeCollect(collectNode, ramAccountingContext);
+        ListenableFuture<Object[][]> future = super.handleNodeCollect(collectNode, ramAccountingContext, metrics);
 
         final List<DiscoveryNode> downStreams = toDiscoveryNodes(collectNode.downStreamNodes());
         final List<DistributedResultRequest> requests = genRequests(
@@ -294,6 +347,7 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
     }
 
     private void sendRequest(DistributedResultRequest request, DiscoveryNode discoveryNode) {
+        request.columnar(ColumnarRows.isSupported(discoveryNode));
         transportService.sendRequest(
                 discoveryNode,
                 TransportMergeNodeAction.mergeRowsAction,
@@ -333,9 +387,29 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
     }
 
     @Override
-    protected ListenableFuture<Object[][]> handleShardCollect(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+    protected ListenableFuture<Object[][]> handleShardCollect(CollectNode collectNode,
+                                                              RamAccountingContext ramAccountingContext,
+                                                              @Nullable OperationMetrics metrics) {
         assert collectNode.hasDownstreams() : "no downstreams";
-        return super.handleShardCollect(collectNode, ramAccountingContext);
+        return super.handleShardCollect(collectNode, ramAccountingContext, metrics);
+    }
+
+    /**
+     * rows are bucketed and sent to the downstreams while the shards are still collecting
+     */
+    @Override
+    protected Projector terminalProjector(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+        assert collectNode.jobId().isPresent();
+        Streamer<?>[] streamers = streamerVisitor.process(
+                collectNode, new RamAccountingContext("dummy", circuitBreaker)).outputStreamers();
+        return new DistributingProjector(
+                collectNode.jobId().get(),
+                toDiscoveryNodes(collectNode.downStreamNodes()),
+                transportService,
+                streamers,
+                pageSize,
+                maxPendingPages
+        );
     }
 
     @Override
@@ -352,7 +426,8 @@ public class DistributingCollectOperation extends MapSideDataCollectOperation {
                 projectorChain,
                 toDiscoveryNodes(collectNode.downStreamNodes()),
                 transportService,
-                streamers
+                streamers,
+                projectorChain.lastProjector() instanceof DistributingProjector
         );
     }
 }
@@ -29,7 +29,9 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.Functions;
 import io.crate.operation.Input;
+import io.crate.operation.projectors.BatchProjector;
 import io.crate.operation.projectors.Projector;
+import io.crate.operation.projectors.RowBatch;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.lucene.index.AtomicReader;
@@ -39,6 +41,9 @@ import org.apache.lucene.search.*;
 import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
@@ -59,18 +64,29 @@ import java.util.List;
 
 /**
  * collect documents from ES shard, a lucene index
+ *
+ * Columns are read from the field data of the shard, stored fields are only loaded if a
+ * collector expression requires them and <code>_source</code> only if it is required
+ * (see {@link CollectorFieldsVisitor#requireSource()}).
+ *
+ * If the downstream is a {@link BatchProjector} (which must not retain rows) the rows are written
+ * into a reused {@link RowBatch}, otherwise a new array is allocated per row.
  */
 public class LuceneDocCollector extends Collector implements CrateCollector {
 
+    private final ESLogger logger = Loggers.getLogger(getClass());
     private final CollectorFieldsVisitor fieldsVisitor;
     private boolean visitorEnabled = false;
     private AtomicReader currentReader;
     private RamAccountingContext ramAccountingContext;
+    private final ShardId shardId;
+    private final CollectorStats stats = new CollectorStats();
 
     public static class CollectorFieldsVisitor extends FieldsVisitor {
 
         final HashSet<String> requiredFields;
         private boolean required = false;
+        private boolean sourceRequired = false;
 
         public CollectorFieldsVisitor(int size) {
             requiredFields = new HashSet<>(size);
@@ -85,10 +101,22 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
             return required;
         }
 
+        /**
+         * load the <code>_source</code> of every collected document
+         */
+        public void requireSource() {
+            required = true;
+            sourceRequired = true;
+        }
+
+        public boolean sourceRequired() {
+            return sourceRequired;
+        }
+
         @Override
         public Status needsField(FieldInfo fieldInfo) throws IOException {
             if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
-                return Status.YES;
+                return sourceRequired ? Status.YES : Status.NO;
             }
             return requiredFields.contains(fieldInfo.name) ? Status.YES : Status.NO;
         }
@@ -100,8 +128,16 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
 
     private final SearchContext searchContext;
     private Projector downstream;
+    /**
+     * only used if the downstream is a {@link BatchProjector}, rows are then collected into
+     * this batch instead of allocating an array per row.
+     */
+    private RowBatch batch;
     private final List<Input<?>> topLevelInputs;
     private final List<LuceneCollectorExpression<?>> collectorExpressions;
+    // arrays of the inputs and expressions above, iterated per document without allocating iterators
+    private final Input<?>[] inputsArray;
+    private final LuceneCollectorExpression<?>[] expressionsArray;
 
     public LuceneDocCollector(ThreadPool threadPool,
                               ClusterService clusterService,
@@ -116,19 +152,57 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
                               Functions functions,
                               WhereClause whereClause,
                               Projector downStreamProjector) throws Exception {
-        downstream(downStreamProjector);
-        SearchShardTarget searchShardTarget = new SearchShardTarget(
-                clusterService.localNode().id(), shardId.getIndex(), shardId.id());
+        this(createSearchContext(threadPool, clusterService, shardId, indexService, scriptService,
+                        cacheRecycler, pageCacheRecycler, bigArrays, functions, whereClause),
+                shardId, inputs, collectorExpressions, downStreamProjector);
+    }
+
+    /**
+     * @param searchContext a search context created by
+     *                      {@link #createSearchContext(ThreadPool, ClusterService, ShardId, IndexService, ScriptService, CacheRecycler, PageCacheRecycler, BigArrays, Functions, WhereClause)},
+     *                      it is closed by {@link #doCollect(RamAccountingContext)} but not by
+     *                      {@link #collectSegments(List, Weight, RamAccountingContext)}
+     * @param downStreamProjector the downstream, if null it must be set using {@link #downstream(Projector)}
+     *                            before collecting
+     */
+    LuceneDocCollector(SearchContext searchContext,
+                       ShardId shardId,
+                       List<Input<?>> inputs,
+                       List<LuceneCollectorExpression<?>> collectorExpressions,
+                       @Nullable Projector downStreamProjector) {
+        this.searchContext = searchContext;
         this.topLevelInputs = inputs;
+        this.inputsArray = inputs.toArray(new Input<?>[inputs.size()]);
+        this.expressionsArray = collectorExpressions.toArray(new LuceneCollectorExpression<?>[collectorExpressions.size()]);
+        this.shardId = shardId;
+        if (downStreamProjector != null) {
+            downstream(downStreamProjector);
+        }
         this.collectorExpressions = collectorExpressions;
         this.fieldsVisitor = new CollectorFieldsVisitor(collectorExpressions.size());
+    }
 
+    /**
+     * create a search context on the given shard whose query matches the given whereClause
+     */
+    public static SearchContext createSearchContext(ThreadPool threadPool,
+                                                    ClusterService clusterService,
+                                                    ShardId shardId,
+                                                    IndexService indexService,
+                                                    ScriptService scriptService,
+                                                    CacheRecycler cacheRecycler,
+                                                    PageCacheRecycler pageCacheRecycler,
+                                                    BigArrays bigArrays,
+                                                    Functions functions,
+                                                    WhereClause whereClause) throws Exception {
+        SearchShardTarget searchShardTarget = new SearchShardTarget(
+                clusterService.localNode().id(), shardId.getIndex(), shardId.id());
         ShardSearchLocalRequest searchRequest = new ShardSearchLocalRequest(
                 new String[] { Constants.DEFAULT_MAPPING_TYPE },
                 System.currentTimeMillis()
         );
         IndexShard indexShard = indexService.shardSafe(shardId.id());
-        searchContext = new DefaultSearchContext(0, searchRequest,
+        SearchContext searchContext = new DefaultSearchContext(0, searchRequest,
                 searchShardTarget,
                 indexShard.acquireSearcher("search"),
                 indexService,
@@ -139,19 +213,30 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
                 bigArrays,
                 threadPool.estimatedTimeInMillisCounter()
         );
-        LuceneQueryBuilder builder = new LuceneQueryBuilder(functions, searchContext, indexService.cache());
-        LuceneQueryBuilder.Context ctx = builder.convert(whereClause);
-        searchContext.parsedQuery(new ParsedQuery(ctx.query(), ImmutableMap.<String, Filter>of()));
-        Float minScore = ctx.minScore();
-        if (minScore != null) {
-            searchContext.minimumScore(minScore);
+        try {
+            LuceneQueryBuilder builder = new LuceneQueryBuilder(functions, searchContext, indexService.cache());
+            LuceneQueryBuilder.Context ctx = builder.convert(whereClause);
+            searchContext.parsedQuery(new ParsedQuery(ctx.query(), ImmutableMap.<String, Filter>of()));
+            Float minScore = ctx.minScore();
+            if (minScore != null) {
+                searchContext.minimumScore(minScore);
+            }
+        } catch (Exception e) {
+            searchContext.close();
+            throw e;
         }
+        return searchContext;
     }
 
     @Override
     public void downstream(Projector downstream) {
         downstream.registerUpstream(this);
         this.downstream = downstream;
+        if (downstream instanceof BatchProjector) {
+            batch = new RowBatch(topLevelInputs.size());
+        } else {
+            batch = null;
+        }
     }
 
     @Override
@@ -165,17 +250,27 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
                     CrateCircuitBreakerService.breakingExceptionMessage(ramAccountingContext.contextId(),
                             ramAccountingContext.limit()));
         }
-        Object[] newRow = new Object[topLevelInputs.size()];
+        stats.incrementDocs();
         if (visitorEnabled){
             fieldsVisitor.reset();
             currentReader.document(doc, fieldsVisitor);
         }
-        for (LuceneCollectorExpression e : collectorExpressions) {
-            e.setNextDocId(doc);
+        for (LuceneCollectorExpression<?> expression : expressionsArray) {
+            expression.setNextDocId(doc);
         }
-        int i = 0;
-        for (Input<?> input : topLevelInputs) {
-            newRow[i++] = input.value();
+        if (batch != null) {
+            int position = batch.newRow();
+            for (int i = 0; i < inputsArray.length; i++) {
+                batch.set(i, position, inputsArray[i].value());
+            }
+            if (batch.isFull()) {
+                flushBatch();
+            }
+            return;
+        }
+        Object[] newRow = new Object[inputsArray.length];
+        for (int i = 0; i < inputsArray.length; i++) {
+            newRow[i] = inputsArray[i].value();
         }
         if (!downstream.setNextRow(newRow)) {
             // no more rows required, we can stop here
@@ -183,6 +278,18 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
         }
     }
 
+    private void flushBatch() throws CollectionAbortedException {
+        if (batch == null || batch.size() == 0) {
+            return;
+        }
+        boolean wantMore = ((BatchProjector) downstream).setNextBatch(batch);
+        batch.clear();
+        if (!wantMore) {
+            // no more rows required, we can stop here
+            throw new CollectionAbortedException();
+        }
+    }
+
     @Override
     public void setNextReader(AtomicReaderContext context) throws IOException {
         this.currentReader = context.reader();
@@ -198,15 +305,7 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
 
     @Override
     public void doCollect(RamAccountingContext ramAccountingContext) throws Exception {
-        this.ramAccountingContext = ramAccountingContext;
-        // start collect
-        CollectorContext collectorContext = new CollectorContext()
-                .searchContext(searchContext)
-                .visitor(fieldsVisitor);
-        for (LuceneCollectorExpression<?> collectorExpression : collectorExpressions) {
-            collectorExpression.startCollect(collectorContext);
-        }
-        visitorEnabled = fieldsVisitor.required();
+        startCollect(ramAccountingContext);
         SearchContext.setCurrent(searchContext);
         Query query = searchContext.query();
         if (query == null) {
@@ -214,8 +313,10 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
         }
 
         // do the lucene search
+        stats.start();
         try {
             searchContext.searcher().search(query, this);
+            flushBatch();
             downstream.upstreamFinished();
         } catch (CollectionAbortedException e) {
             // yeah, that's ok! :)
@@ -224,8 +325,75 @@ public class LuceneDocCollector extends Collector implements CrateCollector {
             downstream.upstreamFailed(e);
             throw e;
         } finally {
+            stats.finish();
             searchContext.close();
             SearchContext.removeCurrent();
+            if (logger.isDebugEnabled()) {
+                logger.debug("collected shard {}: {}", shardId, stats);
+            }
+        }
+    }
+
+    /**
+     * collect the documents of the given segments only.
+     *
+     * Used for the work units of a {@link SegmentParallelCollector} which share the search context
+     * and the weight of the shard, the search context is therefore not closed here.
+     */
+    void collectSegments(List<AtomicReaderContext> leaves,
+                         Weight weight,
+                         RamAccountingContext ramAccountingContext) throws Exception {
+        startCollect(ramAccountingContext);
+        SearchContext.setCurrent(searchContext);
+        stats.start();
+        try {
+            // same as IndexSearcher#search(List, Weight, Collector)
+            for (AtomicReaderContext leaf : leaves) {
+                setNextReader(leaf);
+                BulkScorer scorer = weight.bulkScorer(leaf, !acceptsDocsOutOfOrder(), leaf.reader().getLiveDocs());
+                if (scorer != null) {
+                    scorer.score(this);
+                }
+            }
+            flushBatch();
+            downstream.upstreamFinished();
+        } catch (CollectionAbortedException e) {
+            downstream.upstreamFinished();
+        } catch (Exception e) {
+            downstream.upstreamFailed(e);
+            throw e;
+        } finally {
+            stats.finish();
+            SearchContext.removeCurrent();
+            if (logger.isDebugEnabled()) {
+                logger.debug("collected {} segments of shard {}: {}", leaves.size(), shardId, stats);
+            }
         }
     }
+
+    private void startCollect(RamAccountingContext ramAccountingContext) {
+        this.ramAccountingContext = ramAccountingContext;
+        CollectorContext collectorContext = new CollectorContext()
+                .searchContext(searchContext)
+                .visitor(fieldsVisitor);
+        for (LuceneCollectorExpression<?> collectorExpression : collectorExpressions) {
+            collectorExpression.startCollect(collectorContext);
+        }
+        visitorEnabled = fieldsVisitor.required();
+    }
+
+    /**
+     * signal the downstream that this collector finished without collecting anything,
+     * used instead of {@link #collectSegments(List, Weight, RamAccountingContext)} if another work unit failed.
+     */
+    void skip(Throwable failure) {
+        downstream.upstreamFailed(failure);
+    }
+
+    /**
+     * @return throughput and allocation statistics, complete after {@link #doCollect(RamAccountingContext)} returned
+     */
+    public CollectorStats stats() {
+        return stats;
+    }
 }
@@ -35,11 +35,13 @@ import io.crate.executor.transport.TransportActionProvider;
 import io.crate.metadata.Functions;
 import io.crate.metadata.ReferenceResolver;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.files.FileCollectInputSymbolVisitor;
 import io.crate.operation.collect.files.FileInputFactory;
 import io.crate.operation.collect.files.FileReadingCollector;
 import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
+import io.crate.operation.projectors.Projector;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.CollectNode;
@@ -146,15 +148,24 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
      */
     @Override
     public ListenableFuture<Object[][]> collect(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+        return collect(collectNode, ramAccountingContext, null);
+    }
+
+    /**
+     * @param metrics if not null the projectors of the collect record their runtime metrics into it
+     */
+    public ListenableFuture<Object[][]> collect(CollectNode collectNode,
+                                                RamAccountingContext ramAccountingContext,
+                                                @Nullable OperationMetrics metrics) {
         assert collectNode.isRouted(); // not routed collect is not handled here
         String localNodeId = clusterService.localNode().id();
         if (collectNode.executionNodes().contains(localNodeId)) {
             if (!collectNode.routing().containsShards(localNodeId)) {
                 // node collect
-                return handleNodeCollect(collectNode, ramAccountingContext);
+                return handleNodeCollect(collectNode, ramAccountingContext, metrics);
             } else {
                 // shard or doc level
-                return handleShardCollect(collectNode, ramAccountingContext);
+                return handleShardCollect(collectNode, ramAccountingContext, metrics);
             }
         }
         throw new UnhandledServerException("unsupported routing");
@@ -166,14 +177,16 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
      * @param collectNode {@link io.crate.planner.node.dql.CollectNode} instance containing routing information and symbols to collect
      * @return the collect result from this node, one row only so return value is <code>Object[1][]</code>
      */
-    protected ListenableFuture<Object[][]> handleNodeCollect(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+    protected ListenableFuture<Object[][]> handleNodeCollect(CollectNode collectNode,
+                                                             RamAccountingContext ramAccountingContext,
+                                                             @Nullable OperationMetrics metrics) {
         collectNode = collectNode.normalize(nodeNormalizer);
         if (collectNode.whereClause().noMatch()) {
             return Futures.immediateFuture(TaskResult.EMPTY_RESULT.rows());
         }
 
         FlatProjectorChain projectorChain = new FlatProjectorChain(
-                collectNode.projections(), projectorVisitor, ramAccountingContext);
+                collectNode.projections(), projectorVisitor, ramAccountingContext, metrics);
 
         CrateCollector collector;
         try {
@@ -234,14 +247,17 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
      * @param collectNode {@link io.crate.planner.node.dql.CollectNode} containing routing information and symbols to collect
      * @return the collect results from all shards on this node that were given in {@link io.crate.planner.node.dql.CollectNode#routing}
      */
-    protected ListenableFuture<Object[][]> handleShardCollect(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+    protected ListenableFuture<Object[][]> handleShardCollect(CollectNode collectNode,
+                                                              RamAccountingContext ramAccountingContext,
+                                                              @Nullable OperationMetrics metrics) {
 
         String localNodeId = clusterService.localNode().id();
         final int numShards = collectNode.routing().numShards(localNodeId);
 
         collectNode = collectNode.normalize(nodeNormalizer);
         ShardProjectorChain projectorChain = new ShardProjectorChain(numShards,
-                collectNode.projections(), projectorVisitor, ramAccountingContext);
+                collectNode.projections(), projectorVisitor, ramAccountingContext,
+                terminalProjector(collectNode, ramAccountingContext), metrics);
 
         final ShardCollectFuture result = getShardCollectFuture(numShards, projectorChain, collectNode);
 
@@ -361,6 +377,17 @@ public class MapSideDataCollectOperation implements CollectOperation<Object[][]>
         }
     }
 
+    /**
+     * the projector that receives the rows at the end of the shard projector chain
+     *
+     * @return a projector implementing {@link io.crate.operation.projectors.ResultProvider}
+     *         or null to collect the rows into a {@link io.crate.operation.projectors.CollectingProjector}
+     */
+    @Nullable
+    protected Projector terminalProjector(CollectNode collectNode, RamAccountingContext ramAccountingContext) {
+        return null;
+    }
+
     /**
      * chose the right ShardCollectFuture for this class
      *
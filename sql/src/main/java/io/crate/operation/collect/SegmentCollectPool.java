@@ -0,0 +1,161 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * node wide limit for collecting the segments of a shard concurrently.
+ *
+ * The segments of a shard are split into work units (see {@link #split(java.util.List)}),
+ * the thread collecting the shard runs the work units itself and may hand some of them
+ * to other threads of the search thread pool, as long as a permit is available.
+ * The number of permits limits the additional threads used by all collect operations on this node.
+ */
+public class SegmentCollectPool {
+
+    /**
+     * number of work units that may run concurrently to the shard collectors on a node,
+     * <code>0</code> disables segment parallel collection
+     */
+    public static final String CONCURRENCY = "collect.segments.concurrency";
+
+    /**
+     * minimum number of documents a work unit should contain,
+     * shards with less than twice as many documents aren't split
+     */
+    public static final String MIN_DOCS_PER_UNIT = "collect.segments.min_docs_per_unit";
+    public static final int MIN_DOCS_PER_UNIT_DEFAULT = 100_000;
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final int concurrency;
+    private final int minDocsPerUnit;
+
+    @Inject
+    public SegmentCollectPool(Settings settings, ThreadPool threadPool) {
+        this(threadPool.executor(ThreadPool.Names.SEARCH),
+                settings.getAsInt(CONCURRENCY, EsExecutors.boundedNumberOfProcessors(settings)),
+                settings.getAsInt(MIN_DOCS_PER_UNIT, MIN_DOCS_PER_UNIT_DEFAULT));
+    }
+
+    public SegmentCollectPool(Executor executor, int concurrency, int minDocsPerUnit) {
+        this.executor = executor;
+        this.concurrency = Math.max(0, concurrency);
+        this.minDocsPerUnit = Math.max(1, minDocsPerUnit);
+        this.permits = new Semaphore(this.concurrency);
+    }
+
+    public boolean enabled() {
+        return concurrency > 0;
+    }
+
+    /**
+     * run the given runnable in another thread if a permit is available
+     *
+     * @return false if no permit was available or the executor rejected the runnable,
+     *         the caller must then run it itself
+     */
+    public boolean tryExecute(final Runnable runnable) {
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    /**
+     * split the segments of a shard into work units with roughly the same number of documents.
+     *
+     * @return the segments of each work unit ordered by their position in the reader,
+     *         a single work unit if the shard is too small to be split or if segment parallel collection is disabled
+     */
+    public List<List<AtomicReaderContext>> split(List<AtomicReaderContext> leaves) {
+        long numDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        int numUnits = (int) Math.min(
+                Math.min(concurrency + 1, leaves.size()),
+                numDocs / minDocsPerUnit);
+        if (numUnits <= 1) {
+            return Collections.singletonList(leaves);
+        }
+
+        // assign the largest segments first, each to the unit with the fewest documents
+        List<AtomicReaderContext> bySize = new ArrayList<>(leaves);
+        Collections.sort(bySize, new Comparator<AtomicReaderContext>() {
+            @Override
+            public int compare(AtomicReaderContext o1, AtomicReaderContext o2) {
+                return Integer.compare(o2.reader().maxDoc(), o1.reader().maxDoc());
+            }
+        });
+        List<List<AtomicReaderContext>> units = new ArrayList<>(numUnits);
+        long[] unitDocs = new long[numUnits];
+        for (int i = 0; i < numUnits; i++) {
+            units.add(new ArrayList<AtomicReaderContext>());
+        }
+        for (AtomicReaderContext leaf : bySize) {
+            int smallest = 0;
+            for (int i = 1; i < numUnits; i++) {
+                if (unitDocs[i] < unitDocs[smallest]) {
+                    smallest = i;
+                }
+            }
+            units.get(smallest).add(leaf);
+            unitDocs[smallest] += leaf.reader().maxDoc();
+        }
+        Comparator<AtomicReaderContext> byOrd = new Comparator<AtomicReaderContext>() {
+            @Override
+            public int compare(AtomicReaderContext o1, AtomicReaderContext o2) {
+                return Integer.compare(o1.ord, o2.ord);
+            }
+        };
+        for (List<AtomicReaderContext> unit : units) {
+            Collections.sort(unit, byOrd);
+        }
+        return units;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.operation.projectors.Projector;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * collects the segments of a shard concurrently.
+ *
+ * Every work unit is a {@link LuceneDocCollector} with its own expressions and downstream
+ * that collects a subset of the segments, all units share the search context and the weight of the shard.
+ * The query must therefore not keep per document state in its filters
+ * (see {@link io.crate.lucene.LuceneQueryBuilder}, which evaluates generic functions per segment).
+ * The calling thread runs work units until none is left, other threads of the
+ * {@link SegmentCollectPool} may take over some of them. {@link #doCollect(RamAccountingContext)}
+ * returns once all units finished, so the thread only waits for units which are
+ * already running in another thread.
+ */
+public class SegmentParallelCollector implements CrateCollector {
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
+    private final ShardId shardId;
+    private final SearchContext searchContext;
+    private final List<LuceneDocCollector> units;
+    private final List<List<AtomicReaderContext>> unitLeaves;
+    private final SegmentCollectPool pool;
+
+    private final AtomicInteger nextUnit = new AtomicInteger(0);
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private CountDownLatch unitsFinished;
+    private Weight weight;
+    private RamAccountingContext ramAccountingContext;
+
+    /**
+     * @param units the work units, each collecting the segments at the same position of <code>unitLeaves</code>,
+     *              their downstreams are set by {@link #downstream(Projector)} or on the units directly
+     */
+    public SegmentParallelCollector(ShardId shardId,
+                                    SearchContext searchContext,
+                                    List<LuceneDocCollector> units,
+                                    List<List<AtomicReaderContext>> unitLeaves,
+                                    SegmentCollectPool pool) {
+        assert units.size() == unitLeaves.size() : "each work unit requires its segments";
+        this.shardId = shardId;
+        this.searchContext = searchContext;
+        this.units = units;
+        this.unitLeaves = unitLeaves;
+        this.pool = pool;
+    }
+
+    /**
+     * connects every work unit to the given downstream, which must accept rows from concurrent upstreams.
+     * Units which require their own downstream are connected using {@link #units()} instead.
+     */
+    @Override
+    public void downstream(Projector downstream) {
+        for (LuceneDocCollector unit : units) {
+            unit.downstream(downstream);
+        }
+    }
+
+    @Override
+    public void doCollect(RamAccountingContext ramAccountingContext) throws Exception {
+        this.ramAccountingContext = ramAccountingContext;
+        this.unitsFinished = new CountDownLatch(units.size());
+        SearchContext.setCurrent(searchContext);
+        try {
+            Query query = searchContext.query();
+            if (query == null) {
+                query = new MatchAllDocsQuery();
+            }
+            weight = searchContext.searcher().createNormalizedWeight(query);
+        } catch (Exception e) {
+            failure.set(e);
+        } finally {
+            SearchContext.removeCurrent();
+        }
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                collectUnits();
+            }
+        };
+        int forked = 0;
+        for (int i = 1; i < units.size() && failure.get() == null; i++) {
+            if (!pool.tryExecute(worker)) {
+                break;
+            }
+            forked++;
+        }
+        try {
+            collectUnits();
+            unitsFinished.await();
+        } finally {
+            searchContext.close();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("collected {} work units of shard {} using {} additional threads",
+                    units.size(), shardId, forked);
+        }
+        Exception e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void collectUnits() {
+        int idx;
+        while ((idx = nextUnit.getAndIncrement()) < units.size()) {
+            LuceneDocCollector unit = units.get(idx);
+            try {
+                Exception previousFailure = failure.get();
+                if (previousFailure != null) {
+                    unit.skip(previousFailure);
+                } else {
+                    unit.collectSegments(unitLeaves.get(idx), weight, ramAccountingContext);
+                }
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                unitsFinished.countDown();
+            }
+        }
+    }
+
+    public List<LuceneDocCollector> units() {
+        return units;
+    }
+}
@@ -21,6 +21,7 @@
 
 package io.crate.operation.collect;
 
+import com.google.common.collect.ImmutableList;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.breaker.CrateCircuitBreakerService;
@@ -41,6 +42,7 @@ import io.crate.operation.reference.doc.lucene.LuceneDocLevelReferenceResolver;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.node.dql.CollectNode;
 import io.crate.planner.symbol.Literal;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
@@ -51,8 +53,11 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public class ShardCollectService {
@@ -73,6 +78,7 @@ public class ShardCollectService {
     private final Functions functions;
     private final BlobIndices blobIndices;
     private final CircuitBreaker circuitBreaker;
+    private final SegmentCollectPool segmentCollectPool;
 
     @Inject
     public ShardCollectService(ThreadPool threadPool,
@@ -89,7 +95,8 @@ public class ShardCollectService {
                                ShardReferenceResolver referenceResolver,
                                BlobIndices blobIndices,
                                BlobShardReferenceResolver blobShardReferenceResolver,
-                               CrateCircuitBreakerService breakerService) {
+                               CrateCircuitBreakerService breakerService,
+                               SegmentCollectPool segmentCollectPool) {
         this.threadPool = threadPool;
         this.clusterService = clusterService;
         this.shardId = shardId;
@@ -102,6 +109,7 @@ public class ShardCollectService {
         this.functions = functions;
         this.blobIndices = blobIndices;
         this.circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        this.segmentCollectPool = segmentCollectPool;
         isBlobShard = BlobIndices.isBlobShard(this.shardId);
 
         DocLevelReferenceResolver<? extends Input<?>> resolver = (isBlobShard ? BlobReferenceResolver.INSTANCE : LuceneDocLevelReferenceResolver.INSTANCE);
@@ -150,7 +158,7 @@ public class ShardCollectService {
                 if (isBlobShard) {
                     return getBlobIndexCollector(normalizedCollectNode, downstream);
                 } else {
-                    return getLuceneIndexCollector(normalizedCollectNode, downstream);
+                    return getLuceneIndexCollector(normalizedCollectNode, downstream, projectorChain);
                 }
             } else if (granularity == RowGranularity.SHARD) {
                 ImplementationSymbolVisitor.Context shardCtx = shardImplementationSymbolVisitor.process(normalizedCollectNode);
@@ -177,9 +185,15 @@ public class ShardCollectService {
         );
     }
 
-    private CrateCollector getLuceneIndexCollector(CollectNode collectNode, Projector downstream) throws Exception {
-        CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.process(collectNode);
-        return new LuceneDocCollector(
+    /**
+     * If the shard is large enough its segments are collected concurrently by a {@link SegmentParallelCollector}
+     * whose work units get their own downstream from the projectorChain, the given downstream is only used
+     * if the shard is collected by a single {@link LuceneDocCollector}.
+     */
+    private CrateCollector getLuceneIndexCollector(CollectNode collectNode,
+                                                   Projector downstream,
+                                                   ShardProjectorChain projectorChain) throws Exception {
+        SearchContext searchContext = LuceneDocCollector.createSearchContext(
                 threadPool,
                 clusterService,
                 shardId,
@@ -188,10 +202,45 @@ public class ShardCollectService {
                 cacheRecycler,
                 pageCacheRecycler,
                 bigArrays,
-                docCtx.topLevelInputs(),
-                docCtx.docLevelExpressions(),
                 functions,
-                collectNode.whereClause(),
-                downstream);
+                collectNode.whereClause());
+        try {
+            List<List<AtomicReaderContext>> unitLeaves;
+            if (segmentCollectPool.enabled() && projectorChain.supportsSegmentDownstreams()) {
+                unitLeaves = segmentCollectPool.split(searchContext.searcher().getIndexReader().leaves());
+            } else {
+                unitLeaves = ImmutableList.of();
+            }
+            if (unitLeaves.size() <= 1) {
+                CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.process(collectNode);
+                return new LuceneDocCollector(
+                        searchContext,
+                        shardId,
+                        docCtx.topLevelInputs(),
+                        docCtx.docLevelExpressions(),
+                        downstream);
+            }
+
+            List<LuceneDocCollector> units = new ArrayList<>(unitLeaves.size());
+            for (int i = 0; i < unitLeaves.size(); i++) {
+                // every unit requires its own expressions as they keep the state of the current document
+                CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.process(collectNode);
+                units.add(new LuceneDocCollector(
+                        searchContext,
+                        shardId,
+                        docCtx.topLevelInputs(),
+                        docCtx.docLevelExpressions(),
+                        null));
+            }
+            SegmentParallelCollector collector = new SegmentParallelCollector(
+                    shardId, searchContext, units, unitLeaves, segmentCollectPool);
+            for (LuceneDocCollector unit : collector.units()) {
+                unit.downstream(projectorChain.newSegmentDownstreamProjector(projectorVisitor));
+            }
+            return collector;
+        } catch (Exception e) {
+            searchContext.close();
+            throw e;
+        }
     }
 }
@@ -25,13 +25,21 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.projectors.CollectingProjector;
+import io.crate.operation.projectors.InstrumentedProjector;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.Projector;
 import io.crate.operation.projectors.ResultProvider;
 import io.crate.planner.RowGranularity;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.GroupProjection;
 import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Symbol;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -61,6 +69,9 @@ import java.util.List;
  *     <li> construct one from a list of projections
  *     <li> get a shard projector by calling {@linkplain #newShardDownstreamProjector(io.crate.operation.projectors.ProjectionToProjectorVisitor)}
  *          from a shard context. do this for every shard you have
+ *     <li> or, if {@linkplain #supportsSegmentDownstreams()}, get a projector for every work unit
+ *          that collects a part of a shard concurrently by calling
+ *          {@linkplain #newSegmentDownstreamProjector(io.crate.operation.projectors.ProjectionToProjectorVisitor)}
  *     <li> call {@linkplain #startProjections()}
  *     <li> feed data to the shard projectors
  *     <li> get your result from {@linkplain #result()}
@@ -70,9 +81,16 @@ public class ShardProjectorChain implements ResultProvider {
 
     private final List<Projection> projections;
     private final RamAccountingContext ramAccountingContext;
+    private final Projector terminalProjector;
+    private final ProjectionToProjectorVisitor nodeProjectorVisitor;
+    @Nullable
+    private final OperationMetrics metrics;
     protected final List<Projector> shardProjectors;
     protected final List<Projector> nodeProjectors;
+    protected final List<Projector> segmentProjectors = new ArrayList<>();
     private Projector firstNodeProjector;
+    private Projector firstNodeDownstream;
+    private Projector segmentMergeProjector;
     private ResultProvider lastProjector;
     private int shardProjectionsIndex = -1;
 
@@ -81,12 +99,34 @@ public class ShardProjectorChain implements ResultProvider {
                                List<Projection> projections,
                                ProjectionToProjectorVisitor nodeProjectorVisitor,
                                RamAccountingContext ramAccountingContext) {
+        this(numShards, projections, nodeProjectorVisitor, ramAccountingContext, null, null);
+    }
+
+    /**
+     * @param terminalProjector a projector implementing {@link io.crate.operation.projectors.ResultProvider}
+     *                          that receives the rows at the end of the chain instead of a
+     *                          {@link io.crate.operation.projectors.CollectingProjector}.
+     *                          It isn't used if the last node projector is a ResultProvider itself.
+     * @param metrics if not null the projectors are instrumented to record their runtime metrics into it.
+     *                The terminal projector isn't instrumented.
+     */
+    public ShardProjectorChain(int numShards,
+                               List<Projection> projections,
+                               ProjectionToProjectorVisitor nodeProjectorVisitor,
+                               RamAccountingContext ramAccountingContext,
+                               @Nullable Projector terminalProjector,
+                               @Nullable OperationMetrics metrics) {
+        assert terminalProjector == null || terminalProjector instanceof ResultProvider
+                : "terminalProjector must be a ResultProvider";
         this.projections = projections;
         this.ramAccountingContext = ramAccountingContext;
+        this.terminalProjector = terminalProjector;
+        this.nodeProjectorVisitor = nodeProjectorVisitor;
+        this.metrics = metrics;
         nodeProjectors = new ArrayList<>();
 
         if (projections.size() == 0) {
-            firstNodeProjector = new CollectingProjector();
+            firstNodeProjector = newTerminalProjector();
             lastProjector = (ResultProvider) firstNodeProjector;
             nodeProjectors.add(firstNodeProjector);
             shardProjectors = ImmutableList.of();
@@ -104,34 +144,67 @@ public class ShardProjectorChain implements ResultProvider {
         }
 
         Projector previousProjector = null;
+        Projector previousDelegate = null;
         // create the node level projectors
         for (int i = shardProjectionsIndex + 1; i < projections.size(); i++) {
-            Projector projector = nodeProjectorVisitor.process(projections.get(i), ramAccountingContext);
+            Projector delegate = nodeProjectorVisitor.process(projections.get(i), ramAccountingContext);
+            Projector projector = OperationMetrics.instrument(metrics, i, delegate);
             nodeProjectors.add(projector);
             if (previousProjector != null) {
                 previousProjector.downstream(projector);
+                if (firstNodeDownstream == null) {
+                    firstNodeDownstream = projector;
+                }
             } else {
                 firstNodeProjector = projector;
             }
             previousProjector = projector;
+            previousDelegate = delegate;
         }
         if (shardProjectionsIndex >= 0) {
             shardProjectors = new ArrayList<>((shardProjectionsIndex + 1) * numShards);
             // shardprojector will be created later
             if (nodeProjectors.isEmpty()) {
                 // no node projectors
-                previousProjector = firstNodeProjector = new CollectingProjector();
+                previousProjector = previousDelegate = firstNodeProjector = newTerminalProjector();
+                if (terminalProjector != null) {
+                    nodeProjectors.add(terminalProjector);
+                }
             }
         } else {
             shardProjectors = ImmutableList.of();
         }
         assert previousProjector != null;
-        if (previousProjector instanceof ResultProvider) {
-            lastProjector = (ResultProvider) previousProjector;
+        if (previousDelegate instanceof ResultProvider) {
+            lastProjector = (ResultProvider) previousDelegate;
+            if (previousProjector instanceof InstrumentedProjector) {
+                ((InstrumentedProjector) previousProjector).countResultRows();
+            }
         } else {
-            lastProjector = new CollectingProjector();
-            previousProjector.downstream((Projector) lastProjector);
+            Projector projector = newTerminalProjector();
+            lastProjector = (ResultProvider) projector;
+            previousProjector.downstream(projector);
+            if (firstNodeDownstream == null) {
+                firstNodeDownstream = projector;
+            }
+            if (terminalProjector != null) {
+                nodeProjectors.add(terminalProjector);
+            }
+        }
+    }
+
+    private Projector newTerminalProjector() {
+        if (terminalProjector != null) {
+            return terminalProjector;
         }
+        return new CollectingProjector();
+    }
+
+    /**
+     * @return the projector at the end of the chain which provides the result
+     */
+    public ResultProvider lastProjector() {
+        return lastProjector;
     }
 
 
@@ -149,7 +222,8 @@ public class ShardProjectorChain implements ResultProvider {
         Projector previousProjector = firstNodeProjector;
         Projector projector = null;
         for (int i = shardProjectionsIndex; i >= 0; i--) {
-            projector = projectorVisitor.process(projections.get(i), ramAccountingContext);
+            projector = OperationMetrics.instrument(
+                    metrics, i, projectorVisitor.process(projections.get(i), ramAccountingContext));
             projector.downstream(previousProjector);
             shardProjectors.add(projector);
             previousProjector = projector;
@@ -157,6 +231,90 @@ public class ShardProjectorChain implements ResultProvider {
         return projector;
     }
 
+    /**
+     * @return true if the rows of a shard may be collected by several concurrent upstreams,
+     *         each using a projector returned by {@link #newSegmentDownstreamProjector(io.crate.operation.projectors.ProjectionToProjectorVisitor)}.
+     *         This is not the case if there are shard projections, which require to see all rows of a shard.
+     */
+    public boolean supportsSegmentDownstreams() {
+        return shardProjectionsIndex < 0;
+    }
+
+    /**
+     * Returns a projector for one of several upstreams collecting parts of a shard concurrently.
+     *
+     * If the first node projection aggregates into partial states, every upstream gets an own
+     * projector for that projection. Their partial states are merged by a node level projector
+     * which passes them on to the downstream of the first node projector. This way the upstreams
+     * don't contend on the synchronized first node projector.
+     * Otherwise the first node projector is returned, which is used by all shards anyway.
+     */
+    public Projector newSegmentDownstreamProjector(ProjectionToProjectorVisitor projectorVisitor) {
+        assert supportsSegmentDownstreams() : "segment downstreams not supported with shard projections";
+        Projection mergeProjection = projections.isEmpty() ? null : partialMergeProjection(projections.get(0));
+        if (mergeProjection == null || firstNodeDownstream == null) {
+            return firstNodeProjector;
+        }
+        if (segmentMergeProjector == null) {
+            segmentMergeProjector = nodeProjectorVisitor.process(mergeProjection, ramAccountingContext);
+            segmentMergeProjector.downstream(firstNodeDownstream);
+            // upstream of all other node projectors, started last
+            nodeProjectors.add(0, segmentMergeProjector);
+        }
+        Projector projector = OperationMetrics.instrument(
+                metrics, 0, projectorVisitor.process(projections.get(0), ramAccountingContext));
+        projector.downstream(segmentMergeProjector);
+        segmentProjectors.add(projector);
+        return projector;
+    }
+
+    /**
+     * @return a projection that merges the partial states produced by the given projection
+     *         into partial states again, or null if the projection doesn't aggregate from rows into partial states
+     */
+    @Nullable
+    private static Projection partialMergeProjection(Projection projection) {
+        if (projection instanceof GroupProjection) {
+            GroupProjection groupProjection = (GroupProjection) projection;
+            List<Aggregation> mergeAggregations = partialMergeAggregations(
+                    groupProjection.values(), groupProjection.keys().size());
+            if (mergeAggregations == null) {
+                return null;
+            }
+            List<Symbol> keys = new ArrayList<>(groupProjection.keys().size());
+            for (int i = 0; i < groupProjection.keys().size(); i++) {
+                keys.add(new InputColumn(i, groupProjection.keys().get(i).valueType()));
+            }
+            return new GroupProjection(keys, mergeAggregations);
+        } else if (projection instanceof AggregationProjection) {
+            List<Aggregation> mergeAggregations = partialMergeAggregations(
+                    ((AggregationProjection) projection).aggregations(), 0);
+            if (mergeAggregations == null) {
+                return null;
+            }
+            return new AggregationProjection(mergeAggregations);
+        }
+        return null;
+    }
+
+    @Nullable
+    private static List<Aggregation> partialMergeAggregations(List<Aggregation> aggregations, int offset) {
+        List<Aggregation> mergeAggregations = new ArrayList<>(aggregations.size());
+        for (int i = 0; i < aggregations.size(); i++) {
+            Aggregation aggregation = aggregations.get(i);
+            if (aggregation.fromStep() != Aggregation.Step.ITER
+                    || aggregation.toStep() != Aggregation.Step.PARTIAL) {
+                return null;
+            }
+            mergeAggregations.add(new Aggregation(
+                    aggregation.functionInfo(),
+                    ImmutableList.<Symbol>of(new InputColumn(offset + i, aggregation.valueType())),
+                    Aggregation.Step.PARTIAL,
+                    Aggregation.Step.PARTIAL));
+        }
+        return mergeAggregations;
+    }
+
     public ListenableFuture<Object[][]> result() {
         return lastProjector.result();
     }
@@ -175,5 +333,8 @@ public class ShardProjectorChain implements ResultProvider {
                 p.startProjection();
             }
         }
+        for (Projector p : segmentProjectors) {
+            p.startProjection();
+        }
     }
 }
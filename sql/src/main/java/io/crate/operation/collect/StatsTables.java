@@ -24,6 +24,7 @@ package io.crate.operation.collect;
 import io.crate.core.collections.NonBlockingArrayQueue;
 import io.crate.core.collections.NoopQueue;
 import io.crate.metadata.settings.CrateSettings;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
 import io.crate.operation.reference.sys.operation.OperationContext;
@@ -158,6 +159,19 @@ public class StatsTables {
     }
 
     public void operationFinished(@Nullable UUID operationId, @Nullable String errorMessage, @Nullable long usedBytes) {
+        operationFinished(operationId, errorMessage, usedBytes, null);
+    }
+
+    /**
+     * mark an operation as finished.
+     *
+     * @param metrics the runtime metrics of the operation if its plan node was instrumented,
+     *                they are exposed by the operations log
+     */
+    public void operationFinished(@Nullable UUID operationId,
+                                  @Nullable String errorMessage,
+                                  long usedBytes,
+                                  @Nullable OperationMetrics metrics) {
         if (operationId == null || !isEnabled()) {
             return;
         }
@@ -168,6 +182,7 @@ public class StatsTables {
             return;
         }
         operationContext.usedBytes = usedBytes;
+        operationContext.metrics = metrics;
         BlockingQueue<OperationContextLog> operationContextLogs = operationsLog.get();
         operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
     }
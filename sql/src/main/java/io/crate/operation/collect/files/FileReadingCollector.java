@@ -31,14 +31,12 @@ import io.crate.operation.Input;
 import io.crate.operation.collect.CollectionAbortedException;
 import io.crate.operation.collect.CrateCollector;
 import io.crate.operation.projectors.Projector;
+import org.apache.lucene.util.BytesRef;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +66,26 @@ public class FileReadingCollector implements CrateCollector {
         }
     };
 
+    /**
+     * assign each uri to exactly one reader
+     */
+    private final Predicate<URI> moduloPredicate = new Predicate<URI>() {
+        @Override
+        public boolean apply(URI input) {
+            int hash = input.hashCode();
+            if (hash == Integer.MIN_VALUE) {
+                hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+            }
+            return Math.abs(hash) % numReaders == readerNumber;
+        }
+    };
+
+    /**
+     * local uncompressed files on shared storage of at least this size are split
+     * into byte ranges that are read by all readers
+     */
+    static final long MIN_SPLIT_FILE_SIZE = 64 * 1024 * 1024;
+
     public enum FileFormat {
         JSON
     }
@@ -149,40 +167,33 @@ public class FileReadingCollector implements CrateCollector {
             }
             return;
         }
-        Predicate<URI> uriPredicate = generateUriPredicate(fileInput);
+        boolean sharedStorage = Objects.firstNonNull(shared, fileInput.sharedStorageDefault());
+        // local uncompressed files on shared storage can be split into chunks,
+        // so all files have to be listed to decide which chunks or files to read
+        boolean canSplitFiles = sharedStorage && numReaders > 1 && !compressed && fileInput instanceof LocalFsFileInput;
+        Predicate<URI> uriPredicate = generateUriPredicate(sharedStorage && !canSplitFiles);
 
         CollectorContext collectorContext = new CollectorContext();
         for (LineCollectorExpression<?> collectorExpression : collectorExpressions) {
             collectorExpression.startCollect(collectorContext);
         }
-        Object[] newRow;
-        String line;
         List<URI> uris;
         uris = getUris(fileInput, uriPredicate);
         try {
             for (URI uri : uris) {
-                InputStream inputStream = fileInput.getStream(uri);
-                if (inputStream == null) {
+                LineReader reader;
+                if (canSplitFiles) {
+                    reader = createSplitReader((LocalFsFileInput) fileInput, uri);
+                } else {
+                    InputStream inputStream = fileInput.getStream(uri);
+                    reader = inputStream == null ? null : createReader(inputStream);
+                }
+                if (reader == null) {
                     continue;
                 }
-                BufferedReader reader;
-                reader = createReader(inputStream);
 
                 try {
-                    while ((line = reader.readLine()) != null) {
-                        collectorContext.lineContext().rawSource(line.getBytes());
-                        newRow = new Object[inputs.size()];
-                        for (LineCollectorExpression expression : collectorExpressions) {
-                            expression.setNextLine(line);
-                        }
-                        int i = 0;
-                        for (Input<?> input : inputs) {
-                            newRow[i++] = input.value();
-                        }
-                        if (!downstream.setNextRow(newRow)) {
-                            throw new CollectionAbortedException();
-                        }
-                    }
+                    collectLines(reader, collectorContext);
                 } finally {
                     reader.close();
                 }
@@ -192,15 +203,50 @@ public class FileReadingCollector implements CrateCollector {
         }
     }
 
-    private BufferedReader createReader(InputStream inputStream) throws IOException {
-        BufferedReader reader;
+    private void collectLines(LineReader reader, CollectorContext collectorContext) throws IOException {
+        Object[] newRow;
+        BytesRef line;
+        while ((line = reader.readLine()) != null) {
+            collectorContext.lineContext().rawSource(line);
+            newRow = new Object[inputs.size()];
+            for (LineCollectorExpression expression : collectorExpressions) {
+                expression.setNextLine(line);
+            }
+            int i = 0;
+            for (Input<?> input : inputs) {
+                newRow[i++] = input.value();
+            }
+            if (!downstream.setNextRow(newRow)) {
+                throw new CollectionAbortedException();
+            }
+        }
+    }
+
+    private LineReader createReader(InputStream inputStream) throws IOException {
         if (compressed) {
-            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream),
-                    StandardCharsets.UTF_8));
-        } else {
-            reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return new LineReader(new GZIPInputStream(inputStream));
+        }
+        return new LineReader(inputStream);
+    }
+
+    /**
+     * files bigger than {@link #MIN_SPLIT_FILE_SIZE} are split into one byte range per reader,
+     * smaller files are read completely by one reader
+     */
+    @Nullable
+    private LineReader createSplitReader(LocalFsFileInput fileInput, URI uri) throws IOException {
+        long size = fileInput.size(uri);
+        if (size < MIN_SPLIT_FILE_SIZE) {
+            if (!moduloPredicate.apply(uri)) {
+                return null;
+            }
+            InputStream inputStream = fileInput.getStream(uri);
+            return inputStream == null ? null : new LineReader(inputStream);
         }
-        return reader;
+        long start = size * readerNumber / numReaders;
+        long end = size * (readerNumber + 1) / numReaders;
+        InputStream inputStream = fileInput.getStream(uri, Math.max(0, start - 1));
+        return inputStream == null ? null : new LineReader(inputStream, start, end);
     }
 
     private List<URI> getUris(FileInput fileInput, Predicate<URI> uriPredicate) throws IOException {
@@ -215,28 +261,12 @@ public class FileReadingCollector implements CrateCollector {
         return uris;
     }
 
-    private Predicate<URI> generateUriPredicate(FileInput fileInput) {
-        Predicate<URI> moduloPredicate;
-        boolean sharedStorage = Objects.firstNonNull(shared, fileInput.sharedStorageDefault());
-        if (sharedStorage) {
-            moduloPredicate = new Predicate<URI>() {
-                @Override
-                public boolean apply(URI input) {
-                    int hash = input.hashCode();
-                    if (hash == Integer.MIN_VALUE) {
-                        hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
-                    }
-                    return Math.abs(hash) % numReaders == readerNumber;
-                }
-            };
-        } else {
-            moduloPredicate = MATCH_ALL_PREDICATE;
-        }
-
+    private Predicate<URI> generateUriPredicate(boolean shardByUri) {
+        Predicate<URI> uriPredicate = shardByUri ? moduloPredicate : MATCH_ALL_PREDICATE;
         if (globPredicate != null) {
-            return Predicates.and(moduloPredicate, globPredicate);
+            return Predicates.and(uriPredicate, globPredicate);
         }
-        return moduloPredicate;
+        return uriPredicate;
     }
 
     @Override
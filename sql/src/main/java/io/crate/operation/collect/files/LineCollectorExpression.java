@@ -22,10 +22,14 @@
 package io.crate.operation.collect.files;
 
 import io.crate.operation.Input;
+import org.apache.lucene.util.BytesRef;
 
 public abstract class LineCollectorExpression<ReturnType> implements Input<ReturnType> {
 
-    public abstract void setNextLine(String line);
+    /**
+     * @param line the current line, only valid until the next call
+     */
+    public abstract void setNextLine(BytesRef line);
 
     public abstract void startCollect(CollectorContext context);
 }
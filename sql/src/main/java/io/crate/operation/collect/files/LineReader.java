@@ -0,0 +1,155 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.files;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits an InputStream into lines without decoding it.
+ *
+ * Lines are returned as {@link BytesRef} slices of an internal buffer, the
+ * returned BytesRef and its content are only valid until the next call to
+ * {@link #readLine()}. Lines are terminated by <code>\n</code>, a preceding
+ * <code>\r</code> is stripped.
+ *
+ * A reader can be restricted to the byte range <code>[start, end)</code> of a stream,
+ * so that several readers can share one file. A line belongs to the range that
+ * contains its first byte. To detect if the range starts in the middle of a line,
+ * the stream of a reader with <code>start &gt; 0</code> must be positioned at
+ * <code>start - 1</code>.
+ */
+public class LineReader implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final long end;
+    private final BytesRef line = new BytesRef();
+
+    private byte[] buffer;
+    private int pos = 0;
+    private int scanPos = 0;
+    private int limit = 0;
+    private boolean eof = false;
+    private boolean skipFirstLine;
+
+    /**
+     * stream offset of <code>buffer[pos]</code>
+     */
+    private long offset;
+
+    public LineReader(InputStream in) {
+        this(in, 0, Long.MAX_VALUE, DEFAULT_BUFFER_SIZE);
+    }
+
+    public LineReader(InputStream in, long start, long end) {
+        this(in, start, end, DEFAULT_BUFFER_SIZE);
+    }
+
+    LineReader(InputStream in, long start, long end, int bufferSize) {
+        this.in = in;
+        this.end = end;
+        this.buffer = new byte[bufferSize];
+        this.skipFirstLine = start > 0;
+        this.offset = start > 0 ? start - 1 : 0;
+    }
+
+    /**
+     * @return the next line or null if the end of the stream or range is reached
+     */
+    @Nullable
+    public BytesRef readLine() throws IOException {
+        if (skipFirstLine) {
+            skipFirstLine = false;
+            if (nextLine() == null) {
+                return null;
+            }
+        }
+        if (offset >= end) {
+            return null;
+        }
+        return nextLine();
+    }
+
+    @Nullable
+    private BytesRef nextLine() throws IOException {
+        while (true) {
+            for (int i = scanPos; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return consume(i, i + 1);
+                }
+            }
+            scanPos = limit;
+            if (eof) {
+                if (pos < limit) {
+                    return consume(limit, limit);
+                }
+                return null;
+            }
+            fill();
+        }
+    }
+
+    private BytesRef consume(int lineEnd, int next) {
+        int length = lineEnd - pos;
+        if (length > 0 && buffer[lineEnd - 1] == '\r') {
+            length--;
+        }
+        line.bytes = buffer;
+        line.offset = pos;
+        line.length = length;
+        offset += next - pos;
+        pos = next;
+        scanPos = next;
+        return line;
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            scanPos -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = ArrayUtil.grow(buffer, limit + 1);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -26,6 +26,8 @@ import com.google.common.collect.ImmutableList;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
@@ -76,6 +78,29 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    /**
+     * @return a stream that starts reading at <code>position</code> or null if the file doesn't exist
+     */
+    public InputStream getStream(URI uri, long position) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            channel.position(position);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return Channels.newInputStream(channel);
+    }
+
+    public long size(URI uri) {
+        return new File(uri).length();
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
@@ -0,0 +1,516 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.Constants;
+import io.crate.breaker.ConstSizeEstimator;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.bigarray.IterableBigArray;
+import io.crate.core.bigarray.MultiNativeArrayBigArray;
+import io.crate.executor.*;
+import io.crate.operation.ProjectorUpstream;
+import io.crate.operation.projectors.FlatProjectorChain;
+import io.crate.operation.projectors.ProjectionToProjectorVisitor;
+import io.crate.operation.projectors.Projector;
+import io.crate.operation.projectors.TopN;
+import io.crate.planner.node.dql.join.HashJoinNode;
+import io.crate.planner.projection.Projection;
+import io.crate.types.DataType;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * INNER JOIN on equality predicates.
+ *
+ * Both relations are fetched completely. The smaller one is used to build an
+ * in-memory hash table on its join keys, the other one is probed against it
+ * row by row, so the cost is O(|left| + |right|) instead of the
+ * O(|left| x |right|) of the {@link NestedLoopOperation}.
+ *
+ * The hash table is accounted on the given {@link RamAccountingContext}.
+ * If the breaker trips while building it, the join falls back to processing
+ * the relations in hash partitions. Only the hash table of one partition is
+ * held at a time. The rows of both relations are assigned to their partitions
+ * in one pass, the keys and partition indices needed for that and the hash
+ * table of each partition have to fit into the memory that was already
+ * accounted before the breaker tripped. If that would require more than
+ * {@link #MAX_PARTITIONS} partitions the join fails.
+ *
+ * Rows with a <code>null</code> value in one of their join keys never match.
+ * Join keys of different types are converted to the type given by
+ * {@link HashJoinNode#joinKeyTypes()} before they are hashed.
+ */
+public class HashJoinOperation implements ProjectorUpstream {
+
+    /**
+     * HashMap entry, the list holding the matching rows and its backing array
+     */
+    static final long ENTRY_OVERHEAD = 96;
+    static final long DEFAULT_KEY_SIZE = 16;
+    static final int MIN_PARTITIONS = 8;
+    static final int MAX_PARTITIONS = 1 << 10;
+
+    /**
+     * object header, hashCode and reference to the values array of a {@link CompositeKey}
+     */
+    static final long COMPOSITE_KEY_OVERHEAD = 32;
+
+    private static final ESLogger logger = Loggers.getLogger(HashJoinOperation.class);
+
+    private final int limit;
+    private final int[] leftJoinKeys;
+    private final int[] rightJoinKeys;
+    private final List<SizeEstimator<Object>> leftKeyEstimators;
+    private final List<SizeEstimator<Object>> rightKeyEstimators;
+    private final DataType[] leftKeyConversions;
+    private final DataType[] rightKeyConversions;
+    private final int leftNumColumns;
+    private final int rightNumColumns;
+    private final List<Task> leftTasks;
+    private final List<Task> rightTasks;
+
+    private final TaskExecutor taskExecutor;
+    private final ProjectionToProjectorVisitor projectionToProjectorVisitor;
+    private final RamAccountingContext ramAccountingContext;
+    private final List<Projection> projections;
+    private Projector downstream;
+
+    /**
+     * @param hashJoinNode                 must have outputTypes set on left and right
+     * @param executor                     the executor to execute child-tasks
+     * @param projectionToProjectorVisitor used for building the ProjectorChain
+     */
+    public HashJoinOperation(HashJoinNode hashJoinNode,
+                             List<Task> leftTasks,
+                             List<Task> rightTasks,
+                             TaskExecutor executor,
+                             ProjectionToProjectorVisitor projectionToProjectorVisitor,
+                             RamAccountingContext ramAccountingContext) {
+        this.limit = hashJoinNode.limit() == TopN.NO_LIMIT ? Constants.DEFAULT_SELECT_LIMIT : hashJoinNode.limit();
+        this.leftJoinKeys = hashJoinNode.leftJoinKeys();
+        this.rightJoinKeys = hashJoinNode.rightJoinKeys();
+        this.leftNumColumns = hashJoinNode.left().outputTypes().size();
+        this.rightNumColumns = hashJoinNode.right().outputTypes().size();
+        this.leftKeyEstimators = keyEstimators(hashJoinNode.left().outputTypes(), leftJoinKeys);
+        this.rightKeyEstimators = keyEstimators(hashJoinNode.right().outputTypes(), rightJoinKeys);
+        this.leftKeyConversions = keyConversions(
+                hashJoinNode.left().outputTypes(), leftJoinKeys, hashJoinNode.joinKeyTypes());
+        this.rightKeyConversions = keyConversions(
+                hashJoinNode.right().outputTypes(), rightJoinKeys, hashJoinNode.joinKeyTypes());
+
+        this.ramAccountingContext = ramAccountingContext;
+        this.projectionToProjectorVisitor = projectionToProjectorVisitor;
+        this.projections = hashJoinNode.projections();
+        this.taskExecutor = executor;
+        this.leftTasks = leftTasks;
+        this.rightTasks = rightTasks;
+    }
+
+    private static List<SizeEstimator<Object>> keyEstimators(List<DataType> types, int[] joinKeys) {
+        List<SizeEstimator<Object>> estimators = new ArrayList<>(joinKeys.length);
+        for (int joinKey : joinKeys) {
+            SizeEstimator<Object> estimator;
+            try {
+                estimator = SizeEstimatorFactory.create(types.get(joinKey));
+            } catch (UnsupportedOperationException e) {
+                estimator = new ConstSizeEstimator(DEFAULT_KEY_SIZE);
+            }
+            estimators.add(estimator);
+        }
+        return estimators;
+    }
+
+    /**
+     * @return the type each join key has to be converted to, null if it already has that type
+     */
+    private static DataType[] keyConversions(List<DataType> types, int[] joinKeys, List<DataType> joinKeyTypes) {
+        DataType[] conversions = new DataType[joinKeys.length];
+        for (int i = 0; i < joinKeys.length; i++) {
+            if (!types.get(joinKeys[i]).equals(joinKeyTypes.get(i))) {
+                conversions[i] = joinKeyTypes.get(i);
+            }
+        }
+        return conversions;
+    }
+
+    public ListenableFuture<TaskResult> execute(final Optional<PageInfo> pageInfo) {
+        FlatProjectorChain projectorChain = new FlatProjectorChain(projections, projectionToProjectorVisitor, ramAccountingContext);
+        downstream(projectorChain.firstProjector());
+        projectorChain.startProjections();
+
+        if (limit == 0) {
+            // shortcut
+            return Futures.immediateFuture(
+                    pageInfo.isPresent()
+                            ? PageableTaskResult.EMPTY_PAGABLE_RESULT
+                            : TaskResult.EMPTY_RESULT);
+        }
+
+        List<ListenableFuture<TaskResult>> leftResults = taskExecutor.execute(leftTasks);
+        List<ListenableFuture<TaskResult>> rightResults = taskExecutor.execute(rightTasks);
+
+        Futures.addCallback(
+                Futures.allAsList(
+                        ImmutableList.of(
+                                leftResults.get(leftResults.size() - 1),
+                                rightResults.get(rightResults.size() - 1)
+                        )
+                ),
+                new FutureCallback<List<TaskResult>>() {
+                    @Override
+                    public void onSuccess(List<TaskResult> results) {
+                        assert results.size() == 2;
+                        try {
+                            join(results.get(0).rows(), results.get(1).rows());
+                            downstream.upstreamFinished();
+                        } catch (Throwable t) {
+                            logger.error("Error during execution of HASH JOIN", t);
+                            downstream.upstreamFailed(t);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        logger.error("Error during resolving the HASH JOIN source relations", t);
+                        downstream.upstreamFailed(t);
+                    }
+                });
+
+        return Futures.transform(projectorChain.result(), new Function<Object[][], TaskResult>() {
+            @Nullable
+            @Override
+            public TaskResult apply(Object[][] rows) {
+                if (pageInfo.isPresent()) {
+                    IterableBigArray<Object[]> wrappedRows = new MultiNativeArrayBigArray<Object[]>(0, rows.length, rows);
+                    return new FetchedRowsPageableTaskResult(wrappedRows, 0L, pageInfo.get());
+                } else {
+                    return new QueryResult(rows);
+                }
+            }
+        });
+    }
+
+    /**
+     * contains everything needed to build or probe with one side of the join
+     */
+    private static class JoinSide {
+
+        final Object[][] rows;
+        final int[] joinKeys;
+        final List<SizeEstimator<Object>> keyEstimators;
+        final DataType[] keyConversions;
+
+        JoinSide(Object[][] rows,
+                 int[] joinKeys,
+                 List<SizeEstimator<Object>> keyEstimators,
+                 DataType[] keyConversions) {
+            this.rows = rows;
+            this.joinKeys = joinKeys;
+            this.keyEstimators = keyEstimators;
+            this.keyConversions = keyConversions;
+        }
+
+        /**
+         * @return the join key of the row at <code>idx</code>
+         * or null if any of its join columns is null
+         */
+        @Nullable
+        Object key(int idx) {
+            Object[] row = rows[idx];
+            if (joinKeys.length == 1) {
+                return keyValue(row, 0);
+            }
+            Object[] values = new Object[joinKeys.length];
+            for (int i = 0; i < joinKeys.length; i++) {
+                values[i] = keyValue(row, i);
+                if (values[i] == null) {
+                    return null;
+                }
+            }
+            return new CompositeKey(values);
+        }
+
+        @Nullable
+        private Object keyValue(Object[] row, int keyIdx) {
+            Object value = row[joinKeys[keyIdx]];
+            if (value == null || keyConversions[keyIdx] == null) {
+                return value;
+            }
+            return keyConversions[keyIdx].value(value);
+        }
+
+        long estimateEntrySize(int idx) {
+            Object[] row = rows[idx];
+            long size = ENTRY_OVERHEAD;
+            for (int i = 0; i < joinKeys.length; i++) {
+                size += keyEstimators.get(i).estimateSize(row[joinKeys[i]]);
+            }
+            return RamAccountingContext.roundUp(size);
+        }
+    }
+
+    static class CompositeKey {
+
+        private final Object[] values;
+        private final int hashCode;
+
+        CompositeKey(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof CompositeKey && Arrays.equals(values, ((CompositeKey) o).values));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private void join(Object[][] leftRows, Object[][] rightRows) {
+        JoinSide left = new JoinSide(leftRows, leftJoinKeys, leftKeyEstimators, leftKeyConversions);
+        JoinSide right = new JoinSide(rightRows, rightJoinKeys, rightKeyEstimators, rightKeyConversions);
+        boolean buildLeft = leftRows.length <= rightRows.length;
+        JoinSide build = buildLeft ? left : right;
+        JoinSide probe = buildLeft ? right : left;
+
+        Map<Object, List<Object[]>> table = new HashMap<>();
+        long accountedBytes = 0;
+        for (int i = 0; i < build.rows.length; i++) {
+            Object key = build.key(i);
+            if (key == null) {
+                continue;
+            }
+            long entrySize = build.estimateEntrySize(i);
+            accountedBytes += entrySize;
+            try {
+                ramAccountingContext.addBytes(entrySize);
+            } catch (CircuitBreakingException e) {
+                table = null;
+                partitionedJoin(build, probe, buildLeft, accountedBytes, i + 1, e);
+                return;
+            }
+            addToTable(table, key, build.rows[i]);
+        }
+        probe(table, probe, buildLeft, null, 0, probe.rows.length);
+    }
+
+    /**
+     * @return the smallest power of two (at least {@link #MIN_PARTITIONS}) number of partitions
+     * so that the hash table of each partition is expected to fit into <code>budgetPerPartition</code>,
+     * or -1 if more than {@link #MAX_PARTITIONS} partitions would be required.
+     */
+    static int numPartitions(long budgetPerPartition, long estimatedTotal) {
+        if (budgetPerPartition <= 0) {
+            return -1;
+        }
+        int numPartitions = MIN_PARTITIONS;
+        while (budgetPerPartition * numPartitions < estimatedTotal) {
+            if (numPartitions == MAX_PARTITIONS) {
+                return -1;
+            }
+            numPartitions <<= 1;
+        }
+        return numPartitions;
+    }
+
+    /**
+     * spreads the hashCode and maps it to a partition in
+     * <code>[0, numPartitions)</code>, numPartitions must be a power of two.
+     */
+    static int partition(Object key, int numPartitions) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (numPartitions - 1);
+    }
+
+    /**
+     * the bytes needed to partition the rows of a side,
+     * its keys, the partition of every row and the row indices ordered by partition
+     */
+    private static long partitioningBytes(JoinSide side, int numPartitions) {
+        long numRows = side.rows.length;
+        long bytes = 3 * RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                + numRows * (RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                             + RamUsageEstimator.NUM_BYTES_SHORT
+                             + RamUsageEstimator.NUM_BYTES_INT)
+                + (numPartitions + 1) * RamUsageEstimator.NUM_BYTES_INT;
+        if (side.joinKeys.length > 1) {
+            bytes += numRows * (COMPOSITE_KEY_OVERHEAD + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                                + side.joinKeys.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        }
+        return RamAccountingContext.roundUp(bytes);
+    }
+
+    /**
+     * join partition by partition, using the memory which was accounted for the hash table
+     * until the breaker tripped. Nothing more is added to the ram accounting context as the
+     * breaker would trip again.
+     */
+    private void partitionedJoin(JoinSide build,
+                                 JoinSide probe,
+                                 boolean buildLeft,
+                                 long accountedBytes,
+                                 int accountedRows,
+                                 CircuitBreakingException cause) {
+        long estimatedTotal = (accountedBytes / Math.max(1, accountedRows)) * build.rows.length;
+        long partitioningBytes = partitioningBytes(build, MAX_PARTITIONS) + partitioningBytes(probe, MAX_PARTITIONS);
+        // half of the remaining budget for a partition, as the keys are not evenly distributed
+        int numPartitions = numPartitions((accountedBytes - partitioningBytes) / 2, estimatedTotal);
+        if (numPartitions < 0) {
+            throw new CircuitBreakingException(String.format(Locale.ENGLISH,
+                    "HASH JOIN of %d and %d rows exceeds the memory limit even if processed in %d partitions: %s",
+                    build.rows.length, probe.rows.length, MAX_PARTITIONS, cause.getMessage()));
+        }
+        logger.debug("[HashJoin] hash table of {} rows exceeds memory limit, joining in {} partitions",
+                build.rows.length, numPartitions);
+
+        Partitions buildPartitions = new Partitions(build, numPartitions);
+        Partitions probePartitions = new Partitions(probe, numPartitions);
+        for (int p = 0; p < numPartitions; p++) {
+            Map<Object, List<Object[]>> table = new HashMap<>();
+            for (int i = buildPartitions.offsets[p]; i < buildPartitions.offsets[p + 1]; i++) {
+                int rowIdx = buildPartitions.rowIdxs[i];
+                addToTable(table, buildPartitions.keys[rowIdx], build.rows[rowIdx]);
+            }
+            if (!table.isEmpty() && !probe(table, probe, buildLeft, probePartitions,
+                    probePartitions.offsets[p], probePartitions.offsets[p + 1])) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * the rows of one side of the join, grouped by partition with a counting sort.
+     * Rows with a null key are left out.
+     */
+    private static class Partitions {
+
+        final Object[] keys;
+        /**
+         * the indices of the rows of partition p are
+         * <code>rowIdxs[offsets[p]]</code> to <code>rowIdxs[offsets[p + 1] - 1]</code>
+         */
+        final int[] rowIdxs;
+        final int[] offsets;
+
+        Partitions(JoinSide side, int numPartitions) {
+            assert numPartitions <= MAX_PARTITIONS && MAX_PARTITIONS <= Short.MAX_VALUE + 1;
+            int numRows = side.rows.length;
+            keys = keys(side);
+            short[] partitions = new short[numRows];
+            offsets = new int[numPartitions + 1];
+            for (int i = 0; i < numRows; i++) {
+                if (keys[i] != null) {
+                    int p = partition(keys[i], numPartitions);
+                    partitions[i] = (short) p;
+                    offsets[p + 1]++;
+                }
+            }
+            for (int p = 0; p < numPartitions; p++) {
+                offsets[p + 1] += offsets[p];
+            }
+            rowIdxs = new int[offsets[numPartitions]];
+            int[] next = Arrays.copyOf(offsets, numPartitions);
+            for (int i = 0; i < numRows; i++) {
+                if (keys[i] != null) {
+                    rowIdxs[next[partitions[i]]++] = i;
+                }
+            }
+        }
+    }
+
+    private static Object[] keys(JoinSide side) {
+        Object[] keys = new Object[side.rows.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = side.key(i);
+        }
+        return keys;
+    }
+
+    private static void addToTable(Map<Object, List<Object[]>> table, Object key, Object[] row) {
+        List<Object[]> rows = table.get(key);
+        if (rows == null) {
+            rows = new ArrayList<>(1);
+            table.put(key, rows);
+        }
+        rows.add(row);
+    }
+
+    /**
+     * probe the table with the rows <code>from</code> to <code>to</code> of <code>probe</code>,
+     * or of the given partitions if they are present
+     *
+     * @return false if the downstream doesn't need any more rows
+     */
+    private boolean probe(Map<Object, List<Object[]>> table,
+                          JoinSide probe,
+                          boolean buildLeft,
+                          @Nullable Partitions partitions,
+                          int from,
+                          int to) {
+        for (int i = from; i < to; i++) {
+            int rowIdx = partitions == null ? i : partitions.rowIdxs[i];
+            Object key = partitions == null ? probe.key(rowIdx) : partitions.keys[rowIdx];
+            if (key == null) {
+                continue;
+            }
+            List<Object[]> matches = table.get(key);
+            if (matches == null) {
+                continue;
+            }
+            Object[] probeRow = probe.rows[rowIdx];
+            for (Object[] match : matches) {
+                Object[] row = buildLeft ? combine(match, probeRow) : combine(probeRow, match);
+                if (!downstream.setNextRow(row)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Object[] combine(Object[] left, Object[] right) {
+        return NestedLoopOperation.BothRowCombinator.combine(left, leftNumColumns, right, rightNumColumns);
+    }
+
+    @Override
+    public void downstream(Projector downstream) {
+        this.downstream = downstream;
+        this.downstream.registerUpstream(this);
+    }
+}
@@ -21,22 +21,37 @@
 
 package io.crate.operation.merge;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.operation.DownstreamOperation;
 import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.projectors.FlatProjectorChain;
+import io.crate.operation.projectors.OrderingByPosition;
 import io.crate.operation.projectors.ProjectionToProjectorVisitor;
 import io.crate.operation.projectors.Projector;
 import io.crate.planner.node.dql.MergeNode;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.TopNProjection;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Symbol;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * merge rows - that's it
+ *
+ * If the upstreams deliver sorted rows (see {@link MergeNode#sortedInputs()}) the rows
+ * are merged using a k-way merge once all upstreams are done. The sorting TopN projection
+ * is then replaced by a plain offset/limit one which stops the merge once enough rows are produced.
  */
 public class MergeOperation implements DownstreamOperation {
 
@@ -47,25 +62,85 @@ public class MergeOperation implements DownstreamOperation {
     private AtomicBoolean wantMore = new AtomicBoolean(true);
     private final Object lock = new Object();
 
+    @Nullable
+    private final OrderingByPosition mergeOrdering;
+    private final List<Object[][]> sortedRuns;
+
     public MergeOperation(ClusterService clusterService,
                           Settings settings,
                           TransportActionProvider transportActionProvider,
                           ImplementationSymbolVisitor symbolVisitor, MergeNode mergeNode,
                           RamAccountingContext ramAccountingContext) {
-        projectorChain = new FlatProjectorChain(mergeNode.projections(),
+        this(clusterService, settings, transportActionProvider, symbolVisitor, mergeNode, ramAccountingContext, null);
+    }
+
+    /**
+     * @param metrics if not null the projectors of the merge record their runtime metrics into it
+     */
+    public MergeOperation(ClusterService clusterService,
+                          Settings settings,
+                          TransportActionProvider transportActionProvider,
+                          ImplementationSymbolVisitor symbolVisitor, MergeNode mergeNode,
+                          RamAccountingContext ramAccountingContext,
+                          @Nullable OperationMetrics metrics) {
+        List<Projection> projections = mergeNode.projections();
+        mergeOrdering = mergeNode.sortedInputs() ? mergeOrdering(projections) : null;
+        if (mergeOrdering != null) {
+            TopNProjection topN = (TopNProjection) projections.get(0);
+            TopNProjection limitAndOffset = new TopNProjection(topN.limit(), topN.offset());
+            limitAndOffset.outputs(topN.outputs());
+            projections = ImmutableList.<Projection>builder()
+                    .add(limitAndOffset)
+                    .addAll(projections.subList(1, projections.size()))
+                    .build();
+            sortedRuns = new ArrayList<>(mergeNode.numUpstreams());
+        } else {
+            sortedRuns = null;
+        }
+        projectorChain = new FlatProjectorChain(projections,
                 new ProjectionToProjectorVisitor(
                         clusterService,
                         settings,
                         transportActionProvider,
                         symbolVisitor),
-                ramAccountingContext
+                ramAccountingContext,
+                metrics
         );
         downstream(projectorChain.firstProjector());
         this.numUpstreams = mergeNode.numUpstreams();
         projectorChain.startProjections();
     }
 
+    /**
+     * @return the ordering of the first projection if it is an ordered TopN on input columns
+     */
+    @Nullable
+    private static OrderingByPosition mergeOrdering(List<Projection> projections) {
+        if (projections.isEmpty() || !(projections.get(0) instanceof TopNProjection)) {
+            return null;
+        }
+        TopNProjection topN = (TopNProjection) projections.get(0);
+        if (!topN.isOrdered()) {
+            return null;
+        }
+        int[] positions = new int[topN.orderBy().size()];
+        for (int i = 0; i < positions.length; i++) {
+            Symbol symbol = topN.orderBy().get(i);
+            if (!(symbol instanceof InputColumn)) {
+                return null;
+            }
+            positions[i] = ((InputColumn) symbol).index();
+        }
+        return new OrderingByPosition(positions, topN.reverseFlags(), topN.nullsFirst());
+    }
+
     public boolean addRows(Object[][] rows) throws Exception {
+        if (sortedRuns != null) {
+            synchronized (lock) {
+                sortedRuns.add(rows);
+            }
+            return true;
+        }
         for (Object[] row : rows) {
             boolean more = wantMore.get();
             if (more) {
@@ -89,6 +164,16 @@ public class MergeOperation implements DownstreamOperation {
 
     @Override
     public void finished() {
+        if (sortedRuns != null) {
+            synchronized (lock) {
+                Iterator<Object[]> merged = new SortedMergeIterator(sortedRuns, mergeOrdering);
+                while (merged.hasNext()) {
+                    if (!downstream.setNextRow(merged.next())) {
+                        break;
+                    }
+                }
+            }
+        }
         downstream.upstreamFinished();
     }
 
@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.merge;
+
+import com.google.common.collect.AbstractIterator;
+import org.apache.lucene.util.PriorityQueue;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * k-way merge of runs which are already sorted by the given ordering.
+ *
+ * Only the head of every run is kept in a priority queue, so getting the first n rows
+ * costs O(n log k) and the runs are never sorted again.
+ */
+public class SortedMergeIterator extends AbstractIterator<Object[]> {
+
+    private static class Run {
+        private final Object[][] rows;
+        private int position = 0;
+
+        Run(Object[][] rows) {
+            this.rows = rows;
+        }
+
+        Object[] head() {
+            return rows[position];
+        }
+    }
+
+    private final PriorityQueue<Run> queue;
+
+    public SortedMergeIterator(List<Object[][]> runs, final Comparator<Object[]> ordering) {
+        queue = new PriorityQueue<Run>(Math.max(1, runs.size())) {
+            @Override
+            protected boolean lessThan(Run a, Run b) {
+                return ordering.compare(a.head(), b.head()) < 0;
+            }
+        };
+        for (Object[][] run : runs) {
+            if (run.length > 0) {
+                queue.add(new Run(run));
+            }
+        }
+    }
+
+    @Override
+    protected Object[] computeNext() {
+        Run run = queue.top();
+        if (run == null) {
+            return endOfData();
+        }
+        Object[] row = run.head();
+        run.position++;
+        if (run.position < run.rows.length) {
+            queue.updateTop();
+        } else {
+            queue.pop();
+        }
+        return row;
+    }
+}
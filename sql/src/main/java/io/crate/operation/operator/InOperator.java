@@ -23,6 +23,7 @@ package io.crate.operation.operator;
 import com.google.common.collect.ImmutableList;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.Input;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
@@ -31,6 +32,7 @@ import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.SetType;
 
+import java.util.List;
 import java.util.Set;
 
 public class InOperator extends Operator<Object> {
@@ -93,4 +95,43 @@ public class InOperator extends Operator<Object> {
         return inList.contains(inValue);
     }
 
+    @Override
+    public Scalar<Boolean, Object> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        Symbol inList = arguments.get(1);
+        if (inList.symbolType().isValueSymbol()) {
+            Literal literal = (Literal) inList;
+            Set<?> values = (Set<?>) literal.value();
+            if (values != null) {
+                DataType innerType = ((SetType) literal.valueType()).innerType();
+                return new CompiledInOperator(info, InSet.of(innerType, values));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * IN with a literal list, whose values are put into an {@link InSet} only once
+     */
+    private static class CompiledInOperator extends InOperator {
+
+        private final InSet inSet;
+
+        public CompiledInOperator(FunctionInfo info, InSet inSet) {
+            super(info);
+            this.inSet = inSet;
+        }
+
+        @Override
+        public Boolean evaluate(Input<Object>... args) {
+            assert (args != null);
+            assert (args.length == 2);
+
+            Object inValue = args[0].value();
+            if (inValue == null || inSet.containsNull()) {
+                return null;
+            }
+            return inSet.contains(inValue);
+        }
+    }
 }
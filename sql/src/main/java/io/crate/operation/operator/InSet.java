@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.operator;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import io.crate.types.*;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The values of a literal IN list (or ANY array), built once to be probed for every row.
+ *
+ * Integral types are stored in a primitive long hash set to avoid boxing and
+ * type specific equals calls, all other types in a {@link HashSet}.
+ * Nulls are not stored but remembered in {@link #containsNull()}.
+ */
+public abstract class InSet {
+
+    private final boolean containsNull;
+
+    protected InSet(boolean containsNull) {
+        this.containsNull = containsNull;
+    }
+
+    public static InSet of(DataType innerType, Collection<?> values) {
+        switch (innerType.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return new LongInSet(values);
+            default:
+                return new ObjectInSet(values);
+        }
+    }
+
+    public boolean containsNull() {
+        return containsNull;
+    }
+
+    private static boolean hasNull(Collection<?> values) {
+        for (Object value : values) {
+            if (value == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param value a non-null value of the type this set was created for
+     */
+    public abstract boolean contains(Object value);
+
+    public abstract int size();
+
+    static class LongInSet extends InSet {
+
+        private final LongOpenHashSet values;
+
+        LongInSet(Collection<?> values) {
+            super(hasNull(values));
+            this.values = new LongOpenHashSet(values.size());
+            for (Object value : values) {
+                if (value != null) {
+                    this.values.add(((Number) value).longValue());
+                }
+            }
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                return values.contains(((Number) value).longValue());
+            }
+            // e.g. a double which is never equal to an integral value of the set
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+
+    static class ObjectInSet extends InSet {
+
+        private final Set<Object> values;
+
+        ObjectInSet(Collection<?> values) {
+            super(hasNull(values));
+            this.values = new HashSet<>(values.size() * 2);
+            for (Object value : values) {
+                if (value != null) {
+                    this.values.add(value);
+                }
+            }
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return values.contains(value);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+}
@@ -22,14 +22,16 @@
 package io.crate.operation.operator;
 
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.Input;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.SymbolType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class LikeOperator extends Operator<BytesRef> {
 
@@ -77,14 +79,45 @@ public class LikeOperator extends Operator<BytesRef> {
             return null;
         }
 
-        return matches(expression.utf8ToString(), pattern.utf8ToString());
+        return LikePattern.compile(pattern.utf8ToString()).matches(expression);
     }
 
-    private boolean matches(String expression, String pattern) {
-        return Pattern.matches(
-                patternToRegex(pattern, DEFAULT_ESCAPE, true),
-                expression
-        );
+    @Override
+    public Scalar<Boolean, BytesRef> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        Symbol pattern = arguments.get(1);
+        if (pattern.symbolType() == SymbolType.LITERAL) {
+            Object patternValue = ((Literal) pattern).value();
+            if (patternValue != null) {
+                return new CompiledLikeOperator(info, LikePattern.compile(((BytesRef) patternValue).utf8ToString()));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * LIKE with a literal pattern, which is compiled only once
+     */
+    private static class CompiledLikeOperator extends LikeOperator {
+
+        private final LikePattern pattern;
+
+        public CompiledLikeOperator(FunctionInfo info, LikePattern pattern) {
+            super(info);
+            this.pattern = pattern;
+        }
+
+        @Override
+        public Boolean evaluate(Input<BytesRef>... args) {
+            assert (args != null);
+            assert (args.length == 2);
+
+            BytesRef expression = args[0].value();
+            if (expression == null) {
+                return null;
+            }
+            return pattern.matches(expression);
+        }
     }
 
     public static String patternToRegex(String patternString, char escapeChar, boolean shouldEscape) {
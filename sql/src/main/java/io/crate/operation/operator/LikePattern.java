@@ -0,0 +1,217 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.operator;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled LIKE pattern.
+ *
+ * Patterns that only consist of a literal with <code>%</code> wildcards at the start
+ * and/or the end (<code>foo</code>, <code>foo%</code>, <code>%foo</code>, <code>%foo%</code>)
+ * are matched directly on the UTF-8 bytes of the value.
+ * All other patterns are translated to a regular expression once.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+abstract class LikePattern {
+
+    public abstract boolean matches(BytesRef value);
+
+    public static LikePattern compile(String pattern) {
+        return compile(pattern, LikeOperator.DEFAULT_ESCAPE);
+    }
+
+    public static LikePattern compile(String pattern, char escapeChar) {
+        // literal parts between the unescaped '%' wildcards
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder(pattern.length());
+        boolean escaped = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (!escaped && c == escapeChar) {
+                escaped = true;
+                continue;
+            }
+            if (!escaped && c == '_') {
+                return new RegexPattern(pattern, escapeChar);
+            }
+            if (!escaped && c == '%') {
+                parts.add(part.toString());
+                part.setLength(0);
+            } else {
+                part.append(c);
+            }
+            escaped = false;
+        }
+        parts.add(part.toString());
+
+        String first = parts.get(0);
+        String last = parts.get(parts.size() - 1);
+        switch (parts.size()) {
+            case 1:
+                return new ExactPattern(new BytesRef(first));
+            case 2:
+                if (first.isEmpty() && last.isEmpty()) {
+                    return MATCH_ALL;
+                } else if (last.isEmpty()) {
+                    return new PrefixPattern(new BytesRef(first));
+                } else if (first.isEmpty()) {
+                    return new SuffixPattern(new BytesRef(last));
+                }
+                return new PrefixSuffixPattern(new BytesRef(first), new BytesRef(last));
+            case 3:
+                if (first.isEmpty() && last.isEmpty()) {
+                    String infix = parts.get(1);
+                    return infix.isEmpty() ? MATCH_ALL : new ContainsPattern(new BytesRef(infix));
+                }
+        }
+        for (String p : parts) {
+            if (!p.isEmpty()) {
+                return new RegexPattern(pattern, escapeChar);
+            }
+        }
+        return MATCH_ALL;
+    }
+
+    private static final LikePattern MATCH_ALL = new LikePattern() {
+        @Override
+        public boolean matches(BytesRef value) {
+            return true;
+        }
+    };
+
+    static class ExactPattern extends LikePattern {
+
+        private final BytesRef literal;
+
+        ExactPattern(BytesRef literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            return literal.bytesEquals(value);
+        }
+    }
+
+    static class PrefixPattern extends LikePattern {
+
+        private final BytesRef prefix;
+
+        PrefixPattern(BytesRef prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            return StringHelper.startsWith(value, prefix);
+        }
+    }
+
+    static class SuffixPattern extends LikePattern {
+
+        private final BytesRef suffix;
+
+        SuffixPattern(BytesRef suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            return StringHelper.endsWith(value, suffix);
+        }
+    }
+
+    static class PrefixSuffixPattern extends LikePattern {
+
+        private final BytesRef prefix;
+        private final BytesRef suffix;
+
+        PrefixSuffixPattern(BytesRef prefix, BytesRef suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            return value.length >= prefix.length + suffix.length
+                    && StringHelper.startsWith(value, prefix)
+                    && StringHelper.endsWith(value, suffix);
+        }
+    }
+
+    /**
+     * substring search on the UTF-8 bytes, which is safe because no valid
+     * UTF-8 sequence starts in the middle of another one
+     */
+    static class ContainsPattern extends LikePattern {
+
+        private final BytesRef infix;
+
+        ContainsPattern(BytesRef infix) {
+            this.infix = infix;
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            byte[] bytes = value.bytes;
+            byte[] infixBytes = infix.bytes;
+            byte first = infixBytes[infix.offset];
+            int end = value.offset + value.length - infix.length;
+            Outer:
+            for (int i = value.offset; i <= end; i++) {
+                if (bytes[i] != first) {
+                    continue;
+                }
+                for (int j = 1; j < infix.length; j++) {
+                    if (bytes[i + j] != infixBytes[infix.offset + j]) {
+                        continue Outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static class RegexPattern extends LikePattern {
+
+        private final Pattern regex;
+
+        RegexPattern(String pattern, char escapeChar) {
+            // '%' and '_' match any character, line terminators included
+            this.regex = Pattern.compile(LikeOperator.patternToRegex(pattern, escapeChar, true), Pattern.DOTALL);
+        }
+
+        @Override
+        public boolean matches(BytesRef value) {
+            return regex.matcher(value.utf8ToString()).matches();
+        }
+    }
+}
@@ -22,15 +22,19 @@
 package io.crate.operation.operator;
 
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.Input;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.SymbolType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.automaton.ByteRunAutomaton;
 import org.apache.lucene.util.automaton.RegExp;
 
+import java.util.List;
+
 
 public class RegexpMatchOperator extends Operator<BytesRef> {
 
@@ -53,9 +57,47 @@ public class RegexpMatchOperator extends Operator<BytesRef> {
         if (pattern == null) {
             return null;
         }
+        return toAutomaton(pattern).run(source.bytes, source.offset, source.length);
+    }
+
+    private static ByteRunAutomaton toAutomaton(BytesRef pattern) {
         RegExp regexp = new RegExp(pattern.utf8ToString());
-        ByteRunAutomaton regexpRunAutomaton = new ByteRunAutomaton(regexp.toAutomaton());
-        return regexpRunAutomaton.run(source.bytes, source.offset, source.length);
+        return new ByteRunAutomaton(regexp.toAutomaton());
+    }
+
+    @Override
+    public Scalar<Boolean, BytesRef> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        Symbol pattern = arguments.get(1);
+        if (pattern.symbolType() == SymbolType.LITERAL) {
+            Object patternValue = ((Literal) pattern).value();
+            if (patternValue != null) {
+                return new CompiledRegexpMatchOperator(toAutomaton((BytesRef) patternValue));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * regexp match with a literal pattern, the automaton is built only once
+     */
+    private static class CompiledRegexpMatchOperator extends RegexpMatchOperator {
+
+        private final ByteRunAutomaton automaton;
+
+        public CompiledRegexpMatchOperator(ByteRunAutomaton automaton) {
+            this.automaton = automaton;
+        }
+
+        @Override
+        public Boolean evaluate(Input<BytesRef>... args) {
+            assert args.length == 2 : "invalid number of arguments";
+            BytesRef source = args[0].value();
+            if (source == null) {
+                return null;
+            }
+            return automaton.run(source.bytes, source.offset, source.length);
+        }
     }
 
     @Override
@@ -23,9 +23,22 @@ package io.crate.operation.operator.any;
 
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
+import io.crate.operation.Input;
+import io.crate.operation.operator.InSet;
 import io.crate.operation.operator.OperatorModule;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
 import io.crate.sql.tree.ComparisonExpression;
+import io.crate.types.CollectionType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 public class AnyEqOperator extends AnyOperator<AnyEqOperator> {
 
@@ -56,4 +69,54 @@ public class AnyEqOperator extends AnyOperator<AnyEqOperator> {
     protected boolean compare(int comparisonResult) {
         return comparisonResult == 0;
     }
+
+    @Override
+    public Scalar<Boolean, Object> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        Symbol collection = arguments.get(0);
+        if (collection.symbolType().isValueSymbol()
+                && ((Literal) collection).valueType() instanceof CollectionType) {
+            Literal literal = (Literal) collection;
+            Object value = literal.value();
+            DataType innerType = ((CollectionType) literal.valueType()).innerType();
+            // maps are compared using the MapComparator, so only primitive values can be looked up
+            if (DataTypes.PRIMITIVE_TYPES.contains(innerType)) {
+                Collection<?> values = null;
+                if (value instanceof Object[]) {
+                    values = Arrays.asList((Object[]) value);
+                } else if (value instanceof Set) {
+                    values = (Set<?>) value;
+                }
+                if (values != null) {
+                    return new CompiledAnyEqOperator(functionInfo, InSet.of(innerType, values));
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * = ANY with a literal array, whose values are put into an {@link InSet} only once
+     */
+    private static class CompiledAnyEqOperator extends AnyEqOperator {
+
+        private final InSet inSet;
+
+        protected CompiledAnyEqOperator(FunctionInfo functionInfo, InSet inSet) {
+            super(functionInfo);
+            this.inSet = inSet;
+        }
+
+        @Override
+        public Boolean evaluate(Input<Object>... args) {
+            assert (args != null);
+            assert (args.length == 2);
+
+            Object value = args[1].value();
+            if (value == null) {
+                return null;
+            }
+            return inSet.contains(value);
+        }
+    }
 }
@@ -31,7 +31,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class AggregationProjector implements Projector {
+public class AggregationProjector implements BatchProjector {
 
     private final Aggregator[] aggregators;
     private final Set<CollectExpression<?>> collectExpressions;
@@ -92,6 +92,21 @@ public class AggregationProjector implements Projector {
         return upstreamFailure.get() == null;
     }
 
+    @Override
+    public synchronized boolean setNextBatch(RowBatch batch) {
+        for (int r = 0; r < batch.size(); r++) {
+            Object[] row = batch.row(r);
+            for (CollectExpression<?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            for (int i = 0; i < aggregators.length; i++) {
+                states[i] = aggregators[i].processRow(states[i]);
+            }
+        }
+        //noinspection ThrowableResultOfMethodCallIgnored
+        return upstreamFailure.get() == null;
+    }
+
     @Override
     public void registerUpstream(ProjectorUpstream upstream) {
         remainingUpstreams.incrementAndGet();
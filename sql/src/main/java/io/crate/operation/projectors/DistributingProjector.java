@@ -0,0 +1,390 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.Streamer;
+import io.crate.executor.TaskResult;
+import io.crate.executor.transport.ColumnarRows;
+import io.crate.executor.transport.distributed.DistributedFailureRequest;
+import io.crate.executor.transport.distributed.DistributedResultRequest;
+import io.crate.executor.transport.distributed.DistributedResultResponse;
+import io.crate.executor.transport.merge.TransportMergeNodeAction;
+import io.crate.operation.ProjectorUpstream;
+import io.crate.operation.collect.ModuloBucketingIterator;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.BaseTransportResponseHandler;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Projector at the end of a distributing collect which sends the rows it receives
+ * to the downstream (merge) nodes while the collect is still running.
+ *
+ * Rows are bucketed by their first column, the same way the {@link ModuloBucketingIterator} does,
+ * and a bucket is sent as one page to its downstream once it contains <code>pageSize</code> rows.
+ * At most <code>maxPendingPages</code> pages per downstream are unacknowledged, further pages are queued
+ * and sent by the response handler of an acknowledged page. Neither the collecting threads nor the
+ * threads handling the responses ever wait for a downstream, the merge requests are handled by the same
+ * thread pool, so waiting could let nodes which distribute to each other exhaust it.
+ *
+ * Downstreams which don't support pages (see {@link DistributedResultRequest#NODE_ATTRIBUTE})
+ * receive all rows of their bucket as a single page.
+ *
+ * After all upstreams finished and all pages of a downstream are acknowledged the remaining rows are
+ * sent as last page to that downstream (or a failure if any upstream or page failed).
+ * The result of this projector is always empty.
+ */
+public class DistributingProjector implements Projector, ResultProvider {
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
+
+    private final UUID jobId;
+    private final List<DiscoveryNode> downstreams;
+    private final TransportService transportService;
+    private final Streamer<?>[] streamers;
+    private final int pageSize;
+    private final int maxPendingPages;
+
+    private final List<Object[]>[] buckets;
+    private final boolean[] paged;
+    private final PendingPages[] pendingPages;
+    private final AtomicInteger remainingUpstreams = new AtomicInteger(0);
+    private final AtomicInteger remainingDownstreams;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>(null);
+    private final SettableFuture<Object[][]> result = SettableFuture.create();
+
+    @SuppressWarnings("unchecked")
+    public DistributingProjector(UUID jobId,
+                                 List<DiscoveryNode> downstreams,
+                                 TransportService transportService,
+                                 Streamer<?>[] streamers,
+                                 int pageSize,
+                                 int maxPendingPages) {
+        Preconditions.checkArgument(pageSize > 0, "pageSize must be greater than 0");
+        Preconditions.checkArgument(maxPendingPages > 0, "maxPendingPages must be greater than 0");
+        this.jobId = jobId;
+        this.downstreams = downstreams;
+        this.transportService = transportService;
+        this.streamers = streamers;
+        this.pageSize = pageSize;
+        this.maxPendingPages = maxPendingPages;
+
+        buckets = new List[downstreams.size()];
+        paged = new boolean[downstreams.size()];
+        pendingPages = new PendingPages[downstreams.size()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayList<>();
+            paged[i] = DistributedResultRequest.isPagingSupported(downstreams.get(i));
+            pendingPages[i] = new PendingPages();
+        }
+        remainingDownstreams = new AtomicInteger(downstreams.size());
+    }
+
+    @Override
+    public void startProjection() {
+        if (remainingUpstreams.get() <= 0) {
+            finish();
+        }
+    }
+
+    @Override
+    public boolean setNextRow(Object... row) {
+        if (failure.get() != null) {
+            return false;
+        }
+        int bucketIdx = ModuloBucketingIterator.bucket(row, buckets.length);
+        DistributedResultRequest page = null;
+        synchronized (buckets[bucketIdx]) {
+            List<Object[]> bucket = buckets[bucketIdx];
+            bucket.add(row);
+            if (paged[bucketIdx] && bucket.size() >= pageSize) {
+                page = newPageRequest(bucketIdx, false);
+            }
+        }
+        if (page != null) {
+            PendingPages pending = pendingPages[bucketIdx];
+            synchronized (pending) {
+                pending.queue.add(page);
+            }
+            sendNext(bucketIdx);
+        }
+        return failure.get() == null;
+    }
+
+    @Override
+    public void registerUpstream(ProjectorUpstream upstream) {
+        remainingUpstreams.incrementAndGet();
+    }
+
+    @Override
+    public void upstreamFinished() {
+        if (remainingUpstreams.decrementAndGet() <= 0) {
+            finish();
+        }
+    }
+
+    @Override
+    public void upstreamFailed(Throwable throwable) {
+        failure.compareAndSet(null, throwable);
+        if (remainingUpstreams.decrementAndGet() <= 0) {
+            finish();
+        }
+    }
+
+    @Override
+    public void downstream(Projector downstream) {
+        throw new UnsupportedOperationException(
+                "DistributingProjector is a ResultProvider. Doesn't support downstreams");
+    }
+
+    @Override
+    public ListenableFuture<Object[][]> result() {
+        return result;
+    }
+
+    @Override
+    public Iterator<Object[]> iterator() throws IllegalStateException {
+        return Collections.emptyIterator();
+    }
+
+    /**
+     * must be called while holding the lock of the bucket
+     */
+    private DistributedResultRequest newPageRequest(int bucketIdx, boolean last) {
+        List<Object[]> bucket = buckets[bucketIdx];
+        DistributedResultRequest request = new DistributedResultRequest(jobId, streamers);
+        request.rows(bucket.toArray(new Object[bucket.size()][]));
+        if (paged[bucketIdx]) {
+            request.last(last);
+        }
+        request.columnar(ColumnarRows.isSupported(downstreams.get(bucketIdx)));
+        bucket.clear();
+        return request;
+    }
+
+    /**
+     * sends the next queued page of a downstream if a slot is free,
+     * or the last page once the upstreams finished and every other page is acknowledged.
+     *
+     * Called after a page was queued, after a page was acknowledged and once all upstreams finished,
+     * each of these can free at most one slot, so one page is sent per call.
+     */
+    private void sendNext(int bucketIdx) {
+        PendingPages pending = pendingPages[bucketIdx];
+        DistributedResultRequest page = null;
+        boolean sendLast = false;
+        synchronized (pending) {
+            if (failure.get() != null) {
+                // the downstream gets a failure instead of the last page anyway
+                pending.queue.clear();
+            }
+            if (!pending.queue.isEmpty() && pending.inFlight < maxPendingPages) {
+                page = pending.queue.poll();
+                pending.inFlight++;
+            } else if (pending.finishing && !pending.lastSent
+                       && pending.queue.isEmpty() && pending.inFlight == 0) {
+                pending.lastSent = true;
+                sendLast = true;
+            }
+        }
+        if (page != null) {
+            sendPage(bucketIdx, page);
+        } else if (sendLast) {
+            sendLast(bucketIdx);
+        }
+    }
+
+    private void sendPage(final int bucketIdx, DistributedResultRequest request) {
+        final PendingPages pending = pendingPages[bucketIdx];
+        final DiscoveryNode node = downstreams.get(bucketIdx);
+        if (logger.isTraceEnabled()) {
+            logger.trace("[{}] sending page with {} rows to {}", jobId, request.rows().length, node.id());
+        }
+        transportService.submitRequest(
+                node,
+                TransportMergeNodeAction.mergeRowsAction,
+                request,
+                new BaseTransportResponseHandler<DistributedResultResponse>() {
+                    @Override
+                    public DistributedResultResponse newInstance() {
+                        return new DistributedResultResponse();
+                    }
+
+                    @Override
+                    public void handleResponse(DistributedResultResponse response) {
+                        acknowledged();
+                    }
+
+                    @Override
+                    public void handleException(TransportException exp) {
+                        logger.error("[{}] Exception sending page to {}", exp, jobId, node.id());
+                        failure.compareAndSet(null, exp.getCause() != null ? exp.getCause() : exp);
+                        acknowledged();
+                    }
+
+                    private void acknowledged() {
+                        synchronized (pending) {
+                            pending.inFlight--;
+                        }
+                        sendNext(bucketIdx);
+                    }
+
+                    @Override
+                    public String executor() {
+                        return ThreadPool.Names.SAME;
+                    }
+                }
+        );
+    }
+
+    /**
+     * send the last page (or a failure) to every downstream,
+     * once all previous pages to that downstream are acknowledged.
+     */
+    private void finish() {
+        for (int i = 0; i < downstreams.size(); i++) {
+            synchronized (pendingPages[i]) {
+                pendingPages[i].finishing = true;
+            }
+            sendNext(i);
+        }
+    }
+
+    private void sendLast(int bucketIdx) {
+        Throwable throwable = failure.get();
+        DistributedResultRequest request;
+        if (throwable == null) {
+            synchronized (buckets[bucketIdx]) {
+                request = newPageRequest(bucketIdx, true);
+            }
+        } else {
+            request = new DistributedResultRequest(jobId, streamers);
+            request.failure(true);
+        }
+        sendLast(request, downstreams.get(bucketIdx));
+
+        if (remainingDownstreams.decrementAndGet() == 0) {
+            throwable = failure.get();
+            if (throwable == null) {
+                result.set(TaskResult.EMPTY_RESULT.rows());
+            } else {
+                result.setException(throwable);
+            }
+        }
+    }
+
+    private void sendLast(final DistributedResultRequest request, final DiscoveryNode node) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("[{}] sending last page to {} ...", jobId, node.id());
+        }
+        transportService.submitRequest(
+                node,
+                TransportMergeNodeAction.mergeRowsAction,
+                request,
+                new BaseTransportResponseHandler<DistributedResultResponse>() {
+                    @Override
+                    public DistributedResultResponse newInstance() {
+                        return new DistributedResultResponse();
+                    }
+
+                    @Override
+                    public void handleResponse(DistributedResultResponse response) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("[{}] successfully sent last page to {}", jobId, node.id());
+                        }
+                    }
+
+                    @Override
+                    public void handleException(TransportException exp) {
+                        Throwable cause = exp.getCause();
+                        if (cause instanceof EsRejectedExecutionException) {
+                            // the downstream must be informed, otherwise it waits forever for this upstream
+                            sendFailure(request.contextId(), node);
+                        } else {
+                            logger.error("[{}] Exception sending last page to {}", exp, jobId, node.id());
+                        }
+                    }
+
+                    @Override
+                    public String executor() {
+                        return ThreadPool.Names.SAME;
+                    }
+                }
+        );
+    }
+
+    private void sendFailure(UUID contextId, final DiscoveryNode node) {
+        transportService.submitRequest(
+                node,
+                TransportMergeNodeAction.failAction,
+                new DistributedFailureRequest(contextId),
+                new BaseTransportResponseHandler<DistributedResultResponse>() {
+                    @Override
+                    public DistributedResultResponse newInstance() {
+                        return new DistributedResultResponse();
+                    }
+
+                    @Override
+                    public void handleResponse(DistributedResultResponse response) {
+                    }
+
+                    @Override
+                    public void handleException(TransportException exp) {
+                        logger.error("[{}] Exception sending distributing collect failure to {}",
+                                exp, jobId, node.id());
+                    }
+
+                    @Override
+                    public String executor() {
+                        return ThreadPool.Names.SAME;
+                    }
+                }
+        );
+    }
+
+    /**
+     * the pages of one downstream which are queued or unacknowledged, guarded by its own monitor
+     */
+    private static class PendingPages {
+        private final ArrayDeque<DistributedResultRequest> queue = new ArrayDeque<>();
+        private int inFlight = 0;
+        private boolean finishing = false;
+        private boolean lastSent = false;
+    }
+}
@@ -28,7 +28,7 @@ import io.crate.operation.collect.CollectExpression;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class FilterProjector implements Projector {
+public class FilterProjector implements BatchProjector {
 
     private final CollectExpression[] collectExpressions;
     private final Input<Boolean> condition;
@@ -67,6 +67,30 @@ public class FilterProjector implements Projector {
         return true;
     }
 
+    /**
+     * narrows the selection of the batch to the matching rows and passes it on
+     */
+    @Override
+    public synchronized boolean setNextBatch(RowBatch batch) {
+        int matching = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Object[] row = batch.row(i);
+            for (CollectExpression<?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            Boolean queryResult = condition.value();
+            if (queryResult != null && queryResult) {
+                batch.select(matching++, i);
+            }
+        }
+        batch.truncate(matching);
+
+        if (downstream != null && matching > 0) {
+            return RowBatches.feed(downstream, batch);
+        }
+        return true;
+    }
+
     @Override
     public void registerUpstream(ProjectorUpstream upstream) {
         remainingUpstreams.incrementAndGet();
@@ -24,8 +24,10 @@ package io.crate.operation.projectors;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.operation.OperationMetrics;
 import io.crate.planner.projection.Projection;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,6 +54,16 @@ public class FlatProjectorChain {
     public FlatProjectorChain(List<Projection> projections,
                               ProjectionToProjectorVisitor projectorVisitor,
                               RamAccountingContext ramAccountingContext) {
+        this(projections, projectorVisitor, ramAccountingContext, null);
+    }
+
+    /**
+     * @param metrics if not null the projectors are instrumented to record their runtime metrics into it
+     */
+    public FlatProjectorChain(List<Projection> projections,
+                              ProjectionToProjectorVisitor projectorVisitor,
+                              RamAccountingContext ramAccountingContext,
+                              @Nullable OperationMetrics metrics) {
         projectors = new ArrayList<>();
         if (projections.size() == 0) {
             firstProjector = new CollectingProjector();
@@ -59,8 +71,10 @@ public class FlatProjectorChain {
             projectors.add(firstProjector);
         } else {
             Projector previousProjector = null;
-            for (Projection projection : projections) {
-                Projector projector = projectorVisitor.process(projection, ramAccountingContext);
+            Projector previousDelegate = null;
+            for (int i = 0; i < projections.size(); i++) {
+                Projector delegate = projectorVisitor.process(projections.get(i), ramAccountingContext);
+                Projector projector = OperationMetrics.instrument(metrics, i, delegate);
                 projectors.add(projector);
                 if (previousProjector != null) {
                     previousProjector.downstream(projector);
@@ -68,11 +82,15 @@ public class FlatProjectorChain {
                     firstProjector = projector;
                 }
                 previousProjector = projector;
+                previousDelegate = delegate;
             }
 
             assert previousProjector != null;
-            if (previousProjector instanceof ResultProvider) {
-                lastProjector = (ResultProvider)previousProjector;
+            if (previousDelegate instanceof ResultProvider) {
+                lastProjector = (ResultProvider)previousDelegate;
+                if (previousProjector instanceof InstrumentedProjector) {
+                    ((InstrumentedProjector) previousProjector).countResultRows();
+                }
             } else {
                 lastProjector = new CollectingProjector();
                 previousProjector.downstream((Projector)lastProjector);
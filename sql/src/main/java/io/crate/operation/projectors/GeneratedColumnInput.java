@@ -0,0 +1,67 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.analyze.EvaluatingNormalizer;
+import io.crate.analyze.GeneratedColumns;
+import io.crate.metadata.ColumnIdent;
+import io.crate.operation.Input;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Input computing the value of a generated column from the current values of the columns
+ * its expression refers to.
+ */
+class GeneratedColumnInput implements Input<Object> {
+
+    private final Reference generatedColumn;
+    private final Symbol expression;
+    private final Map<ColumnIdent, Input<?>> arguments;
+    private final EvaluatingNormalizer normalizer;
+
+    GeneratedColumnInput(Reference generatedColumn,
+                         Symbol expression,
+                         Map<ColumnIdent, Input<?>> arguments,
+                         EvaluatingNormalizer normalizer) {
+        this.generatedColumn = generatedColumn;
+        this.expression = expression;
+        this.arguments = arguments;
+        this.normalizer = normalizer;
+    }
+
+    public ColumnIdent columnIdent() {
+        return generatedColumn.info().ident().columnIdent();
+    }
+
+    @Override
+    public Object value() {
+        Map<ColumnIdent, Object> values = new HashMap<>(arguments.size());
+        for (Map.Entry<ColumnIdent, Input<?>> entry : arguments.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().value());
+        }
+        return GeneratedColumns.computeValue(generatedColumn, expression, values, normalizer);
+    }
+}
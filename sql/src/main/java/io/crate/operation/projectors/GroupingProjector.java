@@ -31,22 +31,30 @@ import io.crate.operation.Input;
 import io.crate.operation.ProjectorUpstream;
 import io.crate.operation.aggregation.Aggregator;
 import io.crate.operation.collect.CollectExpression;
-import io.crate.types.DataType;
-import io.crate.types.DataTypes;
+import io.crate.types.*;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.common.util.ObjectArray;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class GroupingProjector implements Projector {
+public class GroupingProjector implements BatchProjector {
 
     private final CollectExpression[] collectExpressions;
 
@@ -63,6 +71,21 @@ public class GroupingProjector implements Projector {
                              CollectExpression[] collectExpressions,
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext,
+                BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    /**
+     * @param bigArrays used to allocate the paged hash tables and state arrays of the
+     *                  key-type specialized groupers. If null the boxed {@link java.util.HashMap}
+     *                  based groupers are used for every key type.
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             @Nullable BigArrays bigArrays) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
         this.collectExpressions = collectExpressions;
@@ -80,7 +103,16 @@ public class GroupingProjector implements Projector {
 
         // grouper object size overhead
         ramAccountingContext.addBytes(8);
-        if (keyInputs.size() == 1) {
+        if (bigArrays != null && keyInputs.size() == 1 && isLongEncodable(keyTypes.get(0))) {
+            grouper = new LongKeyGrouper(bigArrays, keyInputs.get(0), keyTypes.get(0),
+                    collectExpressions, aggregators);
+        } else if (bigArrays != null && keyInputs.size() == 1 && isBytesRefType(keyTypes.get(0))) {
+            grouper = new BytesRefKeyGrouper(bigArrays, keyInputs.get(0),
+                    collectExpressions, aggregators);
+        } else if (bigArrays != null && keyInputs.size() > 1 && allPackable(keyTypes)) {
+            grouper = new PackedKeyGrouper(bigArrays, keyInputs, keyTypes,
+                    collectExpressions, aggregators);
+        } else if (keyInputs.size() == 1) {
             grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0),
                     collectExpressions, aggregators);
         } else {
@@ -98,6 +130,38 @@ public class GroupingProjector implements Projector {
         });
     }
 
+    /**
+     * types whose values can be encoded into a long and decoded again without loss
+     */
+    private static boolean isLongEncodable(DataType type) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+            case BooleanType.ID:
+            case DoubleType.ID:
+            case FloatType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBytesRefType(DataType type) {
+        return type.id() == StringType.ID || type.id() == IpType.ID;
+    }
+
+    private static boolean allPackable(List<? extends DataType> keyTypes) {
+        for (DataType keyType : keyTypes) {
+            if (!isLongEncodable(keyType) && !isBytesRefType(keyType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void downstream(Projector downstream) {
         downstream.registerUpstream(this);
@@ -128,6 +192,27 @@ public class GroupingProjector implements Projector {
         }
     }
 
+    /**
+     * the groupers only keep the key values, not the rows, so the row buffer of the batch can be used
+     */
+    @Override
+    public synchronized boolean setNextBatch(RowBatch batch) {
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (!grouper.setNextRow(batch.row(i))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (CircuitBreakingException e) {
+            if (downstream != null) {
+                downstream.upstreamFailed(e);
+                downstream = null;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public void registerUpstream(ProjectorUpstream upstream) {
         remainingUpstreams.incrementAndGet();
@@ -192,6 +277,9 @@ public class GroupingProjector implements Projector {
     }
 
     private void cleanUp() {
+        if (grouper instanceof Releasable) {
+            Releasables.close((Releasable) grouper);
+        }
         grouper = null;
     }
 
@@ -372,4 +460,418 @@ public class GroupingProjector implements Projector {
             return rows;
         }
     }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * bytes used per group by the paged hash tables, excluding the key bytes of a {@link BytesRefHash}.
+     * Covers the key/offset slots and the id table which is kept at a load factor of 0.6
+     */
+    private static final int HASH_ENTRY_OVERHEAD = 28;
+
+    private static final long NULL_KEY = Long.MIN_VALUE;
+
+    private static long toLongKey(DataType type, Object key) {
+        switch (type.id()) {
+            case DoubleType.ID:
+                return Double.doubleToLongBits(((Number) key).doubleValue());
+            case FloatType.ID:
+                return Float.floatToIntBits(((Number) key).floatValue());
+            case BooleanType.ID:
+                return ((Boolean) key) ? 1L : 0L;
+            default:
+                return ((Number) key).longValue();
+        }
+    }
+
+    private static Object fromLongKey(DataType type, long key) {
+        switch (type.id()) {
+            case DoubleType.ID:
+                return Double.longBitsToDouble(key);
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) key);
+            case BooleanType.ID:
+                return key == 1L;
+            case IntegerType.ID:
+                return (int) key;
+            case ShortType.ID:
+                return (short) key;
+            case ByteType.ID:
+                return (byte) key;
+            default:
+                return key;
+        }
+    }
+
+    private static BytesRef toBytesRefKey(Object key) {
+        if (key instanceof BytesRef) {
+            return (BytesRef) key;
+        }
+        return DataTypes.STRING.value(key);
+    }
+
+    /**
+     * Base class for groupers which map every distinct key to a dense group id using a paged
+     * hash table allocated through {@link BigArrays}. The aggregation states are kept in one
+     * paged array per aggregator, indexed by the group id, instead of an Object[] per group.
+     */
+    private abstract class PagedGrouper implements Grouper, Releasable {
+
+        protected final BigArrays bigArrays;
+        private final Aggregator[] aggregators;
+        private final CollectExpression[] collectExpressions;
+        private final ObjectArray<Object>[] states;
+        private final int numKeys;
+        private Object[] nullKeyStates;
+
+        @SuppressWarnings("unchecked")
+        protected PagedGrouper(BigArrays bigArrays,
+                               int numKeys,
+                               CollectExpression[] collectExpressions,
+                               Aggregator[] aggregators) {
+            this.bigArrays = bigArrays;
+            this.numKeys = numKeys;
+            this.collectExpressions = collectExpressions;
+            this.aggregators = aggregators;
+            this.states = new ObjectArray[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                states[i] = bigArrays.newObjectArray(INITIAL_CAPACITY);
+            }
+        }
+
+        /**
+         * add the key of the current row to the hash.
+         *
+         * @return the id of a new group, <code>-1 - id</code> if the group already existed
+         *         or {@link #NULL_KEY} if the key is null.
+         */
+        protected abstract long addCurrentKey();
+
+        /**
+         * @return the bytes used by the hash for the group that was added last
+         */
+        protected abstract long lastGroupBytes();
+
+        protected abstract long numGroups();
+
+        /**
+         * write the key(s) of the group with the given id into the row
+         */
+        protected abstract void keyToRow(long id, Object[] row);
+
+        @Override
+        public boolean setNextRow(Object... row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+
+            long id = addCurrentKey();
+            if (id == NULL_KEY) {
+                if (nullKeyStates == null) {
+                    nullKeyStates = new Object[aggregators.length];
+                    for (int i = 0; i < aggregators.length; i++) {
+                        nullKeyStates[i] = aggregators[i].processRow(aggregators[i].prepareState());
+                    }
+                    ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + aggregators.length * 4));
+                } else {
+                    for (int i = 0; i < aggregators.length; i++) {
+                        nullKeyStates[i] = aggregators[i].processRow(nullKeyStates[i]);
+                    }
+                }
+            } else if (id < 0) {
+                id = -1 - id;
+                for (int i = 0; i < aggregators.length; i++) {
+                    ObjectArray<Object> aggStates = states[i];
+                    aggStates.set(id, aggregators[i].processRow(aggStates.get(id)));
+                }
+            } else {
+                // one state reference per aggregator
+                ramAccountingContext.addBytes(lastGroupBytes() + aggregators.length * 4);
+                for (int i = 0; i < aggregators.length; i++) {
+                    states[i] = bigArrays.grow(states[i], id + 1);
+                    states[i].set(id, aggregators[i].processRow(aggregators[i].prepareState()));
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Object[][] finish() {
+            Throwable throwable = failure.get();
+            if (throwable != null && downstream != null) {
+                downstream.upstreamFailed(throwable);
+            }
+
+            int numGroups = (int) numGroups();
+            int numRows = nullKeyStates == null ? numGroups : numGroups + 1;
+            int rowSize = numKeys + aggregators.length;
+
+            // account the multi-dimension `rows` array
+            // 1st level
+            ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + numRows * 4));
+            // 2nd level
+            ramAccountingContext.addBytes(RamAccountingContext.roundUp(12 + rowSize * 4));
+            Object[][] rows = new Object[numRows][rowSize];
+            boolean sendToDownStream = downstream != null;
+
+            for (int r = 0; r < numGroups; r++) {
+                Object[] row = rows[r];
+                keyToRow(r, row);
+                for (int i = 0; i < aggregators.length; i++) {
+                    row[numKeys + i] = aggregators[i].finishCollect(states[i].get(r));
+                }
+                if (sendToDownStream) {
+                    sendToDownStream = downstream.setNextRow(row);
+                }
+            }
+            if (nullKeyStates != null) {
+                // key columns of the null group are left null
+                Object[] row = rows[numGroups];
+                for (int i = 0; i < aggregators.length; i++) {
+                    row[numKeys + i] = aggregators[i].finishCollect(nullKeyStates[i]);
+                }
+                if (sendToDownStream) {
+                    downstream.setNextRow(row);
+                }
+            }
+            if (downstream != null) {
+                downstream.upstreamFinished();
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(states);
+        }
+    }
+
+    /**
+     * grouper for a single key whose values are encoded into a long,
+     * see {@link #toLongKey(DataType, Object)}
+     */
+    private class LongKeyGrouper extends PagedGrouper {
+
+        private final LongHash hash;
+        private final Input keyInput;
+        private final DataType keyType;
+
+        public LongKeyGrouper(BigArrays bigArrays,
+                              Input keyInput,
+                              DataType keyType,
+                              CollectExpression[] collectExpressions,
+                              Aggregator[] aggregators) {
+            super(bigArrays, 1, collectExpressions, aggregators);
+            this.keyInput = keyInput;
+            this.keyType = keyType;
+            this.hash = new LongHash(INITIAL_CAPACITY, bigArrays);
+        }
+
+        @Override
+        protected long addCurrentKey() {
+            Object key = keyInput.value();
+            if (key == null) {
+                return NULL_KEY;
+            }
+            return hash.add(toLongKey(keyType, key));
+        }
+
+        @Override
+        protected long lastGroupBytes() {
+            return HASH_ENTRY_OVERHEAD;
+        }
+
+        @Override
+        protected long numGroups() {
+            return hash.size();
+        }
+
+        @Override
+        protected void keyToRow(long id, Object[] row) {
+            row[0] = fromLongKey(keyType, hash.get(id));
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            hash.close();
+        }
+    }
+
+    /**
+     * grouper for a single string key, the key bytes are stored in the pages of a {@link BytesRefHash}
+     */
+    private class BytesRefKeyGrouper extends PagedGrouper {
+
+        private final BytesRefHash hash;
+        private final Input keyInput;
+        private final BytesRef spare = new BytesRef();
+        private int lastKeyLength = 0;
+
+        public BytesRefKeyGrouper(BigArrays bigArrays,
+                                  Input keyInput,
+                                  CollectExpression[] collectExpressions,
+                                  Aggregator[] aggregators) {
+            super(bigArrays, 1, collectExpressions, aggregators);
+            this.keyInput = keyInput;
+            this.hash = new BytesRefHash(INITIAL_CAPACITY, bigArrays);
+        }
+
+        @Override
+        protected long addCurrentKey() {
+            Object key = keyInput.value();
+            if (key == null) {
+                return NULL_KEY;
+            }
+            BytesRef bytesRef = toBytesRefKey(key);
+            lastKeyLength = bytesRef.length;
+            return hash.add(bytesRef);
+        }
+
+        @Override
+        protected long lastGroupBytes() {
+            return HASH_ENTRY_OVERHEAD + lastKeyLength;
+        }
+
+        @Override
+        protected long numGroups() {
+            return hash.size();
+        }
+
+        @Override
+        protected void keyToRow(long id, Object[] row) {
+            // the spare points into the pages of the hash which are released on close
+            row[0] = BytesRef.deepCopyOf(hash.get(id, spare));
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            hash.close();
+        }
+    }
+
+    /**
+     * grouper for multiple keys which packs all key values of a row into a single byte sequence
+     * that is stored in a {@link BytesRefHash}.
+     *
+     * Every key is encoded as a null marker byte followed by either
+     * 8 bytes (see {@link #toLongKey(DataType, Object)}) or a vInt length and the bytes of a string.
+     */
+    private class PackedKeyGrouper extends PagedGrouper {
+
+        private final BytesRefHash hash;
+        private final List<Input<?>> keyInputs;
+        private final DataType[] keyTypes;
+        private final boolean[] isLongKey;
+        private final BytesRef packed = new BytesRef(new byte[64], 0, 0);
+        private final BytesRef spare = new BytesRef();
+
+        public PackedKeyGrouper(BigArrays bigArrays,
+                                List<Input<?>> keyInputs,
+                                List<? extends DataType> keyTypes,
+                                CollectExpression[] collectExpressions,
+                                Aggregator[] aggregators) {
+            super(bigArrays, keyInputs.size(), collectExpressions, aggregators);
+            this.keyInputs = keyInputs;
+            this.keyTypes = keyTypes.toArray(new DataType[keyTypes.size()]);
+            this.isLongKey = new boolean[this.keyTypes.length];
+            for (int i = 0; i < this.keyTypes.length; i++) {
+                isLongKey[i] = isLongEncodable(this.keyTypes[i]);
+            }
+            this.hash = new BytesRefHash(INITIAL_CAPACITY, bigArrays);
+        }
+
+        @Override
+        protected long addCurrentKey() {
+            packed.length = 0;
+            for (int i = 0; i < keyTypes.length; i++) {
+                Object key = keyInputs.get(i).value();
+                if (key == null) {
+                    writeByte((byte) 0);
+                } else if (isLongKey[i]) {
+                    writeByte((byte) 1);
+                    writeLong(toLongKey(keyTypes[i], key));
+                } else {
+                    writeByte((byte) 1);
+                    BytesRef bytesRef = toBytesRefKey(key);
+                    writeVInt(bytesRef.length);
+                    ensureCapacity(bytesRef.length);
+                    System.arraycopy(bytesRef.bytes, bytesRef.offset, packed.bytes, packed.length, bytesRef.length);
+                    packed.length += bytesRef.length;
+                }
+            }
+            return hash.add(packed);
+        }
+
+        @Override
+        protected long lastGroupBytes() {
+            return HASH_ENTRY_OVERHEAD + packed.length;
+        }
+
+        @Override
+        protected long numGroups() {
+            return hash.size();
+        }
+
+        @Override
+        protected void keyToRow(long id, Object[] row) {
+            hash.get(id, spare);
+            byte[] bytes = spare.bytes;
+            int pos = spare.offset;
+            for (int i = 0; i < keyTypes.length; i++) {
+                if (bytes[pos++] == 0) {
+                    row[i] = null;
+                } else if (isLongKey[i]) {
+                    long value = 0;
+                    for (int b = 0; b < 8; b++) {
+                        value = (value << 8) | (bytes[pos++] & 0xFFL);
+                    }
+                    row[i] = fromLongKey(keyTypes[i], value);
+                } else {
+                    int length = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = bytes[pos++];
+                        length |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    row[i] = new BytesRef(Arrays.copyOfRange(bytes, pos, pos + length));
+                    pos += length;
+                }
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            packed.bytes = ArrayUtil.grow(packed.bytes, packed.length + additional);
+        }
+
+        private void writeByte(byte b) {
+            ensureCapacity(1);
+            packed.bytes[packed.length++] = b;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                packed.bytes[packed.length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                packed.bytes[packed.length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            packed.bytes[packed.length++] = (byte) value;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            hash.close();
+        }
+    }
 }
@@ -21,6 +21,7 @@
 
 package io.crate.operation.projectors;
 
+import com.google.common.collect.ImmutableList;
 import io.crate.metadata.ColumnIdent;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
@@ -65,17 +66,48 @@ public class IndexWriterProjector extends AbstractIndexWriterProjector {
                                 @Nullable String[] includes,
                                 @Nullable String[] excludes,
                                 boolean autoCreateIndices) {
+        this(clusterService, settings, transportShardBulkActionDelegate, transportCreateIndexAction,
+                tableName, primaryKeys, idInputs, partitionedByInputs, routingIdent, routingInput,
+                sourceInput, collectExpressions, bulkActions, includes, excludes, autoCreateIndices,
+                ImmutableList.<ColumnIdent>of(), ImmutableList.<Input<?>>of());
+    }
+
+    /**
+     * @param generatedColumnIdents the generated columns whose values are added to the source
+     * @param generatedColumnInputs the inputs computing the values of the generated columns,
+     *                              if given the sourceInput must provide the source as map
+     */
+    public IndexWriterProjector(ClusterService clusterService,
+                                Settings settings,
+                                TransportShardBulkActionDelegate transportShardBulkActionDelegate,
+                                TransportCreateIndexAction transportCreateIndexAction,
+                                String tableName,
+                                List<ColumnIdent> primaryKeys,
+                                List<Input<?>> idInputs,
+                                List<Input<?>> partitionedByInputs,
+                                @Nullable ColumnIdent routingIdent,
+                                @Nullable Input<?> routingInput,
+                                Input<?> sourceInput,
+                                CollectExpression<?>[] collectExpressions,
+                                @Nullable Integer bulkActions,
+                                @Nullable String[] includes,
+                                @Nullable String[] excludes,
+                                boolean autoCreateIndices,
+                                List<ColumnIdent> generatedColumnIdents,
+                                List<Input<?>> generatedColumnInputs) {
         super(clusterService, settings, transportShardBulkActionDelegate,
                 transportCreateIndexAction, tableName, primaryKeys, idInputs, partitionedByInputs,
                 routingIdent, routingInput,
                 collectExpressions, bulkActions, autoCreateIndices);
 
-        if (includes == null && excludes == null) {
+        assert generatedColumnIdents.size() == generatedColumnInputs.size();
+        if (includes == null && excludes == null && generatedColumnIdents.isEmpty()) {
             //noinspection unchecked
             generator = new BytesRefInput((Input<BytesRef>) sourceInput);
         } else {
             //noinspection unchecked
-            generator = new MapInput((Input<Map<String, Object>>) sourceInput, includes, excludes);
+            generator = new MapInput((Input<Map<String, Object>>) sourceInput, includes, excludes,
+                    generatedColumnIdents, generatedColumnInputs);
         }
     }
 
@@ -109,13 +141,21 @@ public class IndexWriterProjector extends AbstractIndexWriterProjector {
         private final Input<Map<String, Object>> sourceInput;
         private final String[] includes;
         private final String[] excludes;
+        private final List<ColumnIdent> generatedColumnIdents;
+        private final List<Input<?>> generatedColumnInputs;
         private final ESLogger logger = Loggers.getLogger(getClass());
         private int lastSourceSize;
 
-        private MapInput(Input<Map<String, Object>> sourceInput, String[] includes, String[] excludes) {
+        private MapInput(Input<Map<String, Object>> sourceInput,
+                         String[] includes,
+                         String[] excludes,
+                         List<ColumnIdent> generatedColumnIdents,
+                         List<Input<?>> generatedColumnInputs) {
             this.sourceInput = sourceInput;
             this.includes = includes;
             this.excludes = excludes;
+            this.generatedColumnIdents = generatedColumnIdents;
+            this.generatedColumnInputs = generatedColumnInputs;
             this.lastSourceSize = BigArrays.BYTE_PAGE_SIZE;
         }
 
@@ -126,6 +166,10 @@ public class IndexWriterProjector extends AbstractIndexWriterProjector {
                 return null;
             }
             Map<String, Object> filteredMap = XContentMapValues.filter(value, includes, excludes);
+            // generated columns are always computed, values given in the source are overwritten
+            for (int i = 0; i < generatedColumnIdents.size(); i++) {
+                filteredMap.put(generatedColumnIdents.get(i).fqn(), generatedColumnInputs.get(i).value());
+            }
             try {
                 BytesReference bytes = new XContentBuilder(Requests.INDEX_CONTENT_TYPE.xContent(),
                         new BytesStreamOutput(lastSourceSize)).map(filteredMap).bytes();
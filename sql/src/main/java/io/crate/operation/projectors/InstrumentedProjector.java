@@ -0,0 +1,256 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import io.crate.operation.ProjectorUpstream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A projector that records the rows flowing in and out of a wrapped projector
+ * and the wall and CPU time spent in it into {@link ProjectorMetrics}.
+ *
+ * The time spent in the downstream of the wrapped projector is measured as well and
+ * subtracted, so that only the self time of the wrapped projector is recorded.
+ *
+ * Measuring adds some overhead to every row, it is only used to execute EXPLAIN ANALYZE statements.
+ *
+ * Use {@link #wrap(Projector, ProjectorMetrics)} so that batches are still passed on to wrapped
+ * {@link BatchProjector}s and their downstreams instead of falling back to single rows.
+ */
+public class InstrumentedProjector implements Projector {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private final Projector delegate;
+    private final ProjectorMetrics metrics;
+
+    public InstrumentedProjector(Projector delegate, ProjectorMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return an instrumented projector which is a {@link BatchProjector} if the given delegate is one
+     */
+    public static InstrumentedProjector wrap(Projector delegate, ProjectorMetrics metrics) {
+        if (delegate instanceof BatchProjector) {
+            return new InstrumentedBatchProjector((BatchProjector) delegate, metrics);
+        }
+        return new InstrumentedProjector(delegate, metrics);
+    }
+
+    public Projector delegate() {
+        return delegate;
+    }
+
+    /**
+     * count the rows of the result of the wrapped projector as emitted rows.
+     * To be used if the wrapped projector is a {@link ResultProvider} at the end of a chain.
+     */
+    public void countResultRows() {
+        assert delegate instanceof ResultProvider : "delegate must be a ResultProvider";
+        Futures.addCallback(((ResultProvider) delegate).result(), new FutureCallback<Object[][]>() {
+            @Override
+            public void onSuccess(@Nullable Object[][] result) {
+                if (result != null) {
+                    metrics.rowsOut.add(result.length);
+                }
+            }
+
+            @Override
+            public void onFailure(@Nonnull Throwable t) {
+            }
+        });
+    }
+
+    @Override
+    public void startProjection() {
+        delegate.startProjection();
+    }
+
+    @Override
+    public boolean setNextRow(Object... row) {
+        metrics.rowsIn.increment();
+        long wallTime = System.nanoTime();
+        long cpuTime = cpuTime();
+        try {
+            return delegate.setNextRow(row);
+        } finally {
+            record(wallTime, cpuTime, 1);
+        }
+    }
+
+    @Override
+    public void registerUpstream(ProjectorUpstream upstream) {
+        delegate.registerUpstream(upstream);
+    }
+
+    @Override
+    public void upstreamFinished() {
+        long wallTime = System.nanoTime();
+        long cpuTime = cpuTime();
+        try {
+            delegate.upstreamFinished();
+        } finally {
+            record(wallTime, cpuTime, 1);
+        }
+    }
+
+    @Override
+    public void upstreamFailed(Throwable throwable) {
+        delegate.upstreamFailed(throwable);
+    }
+
+    @Override
+    public void downstream(Projector downstream) {
+        if (downstream instanceof BatchProjector) {
+            delegate.downstream(new BatchDownstream((BatchProjector) downstream));
+        } else {
+            delegate.downstream(new Downstream(downstream));
+        }
+    }
+
+    /**
+     * @param sign 1 to add the time elapsed since the given start times, -1 to subtract it
+     */
+    private void record(long wallTimeStart, long cpuTimeStart, int sign) {
+        metrics.wallTimeNanos.add(sign * (System.nanoTime() - wallTimeStart));
+        if (CPU_TIME_SUPPORTED) {
+            metrics.cpuTimeNanos.add(sign * (cpuTime() - cpuTimeStart));
+        }
+    }
+
+    private static long cpuTime() {
+        if (CPU_TIME_SUPPORTED) {
+            return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        }
+        return 0L;
+    }
+
+    /**
+     * the downstream as seen by the wrapped projector,
+     * counts the rows it emits and measures the time spent in the actual downstream.
+     */
+    private class Downstream implements Projector {
+
+        private final Projector downstream;
+
+        private Downstream(Projector downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void startProjection() {
+            downstream.startProjection();
+        }
+
+        @Override
+        public boolean setNextRow(Object... row) {
+            metrics.rowsOut.increment();
+            long wallTime = System.nanoTime();
+            long cpuTime = cpuTime();
+            try {
+                return downstream.setNextRow(row);
+            } finally {
+                record(wallTime, cpuTime, -1);
+            }
+        }
+
+        @Override
+        public void registerUpstream(ProjectorUpstream upstream) {
+            downstream.registerUpstream(upstream);
+        }
+
+        @Override
+        public void upstreamFinished() {
+            long wallTime = System.nanoTime();
+            long cpuTime = cpuTime();
+            try {
+                downstream.upstreamFinished();
+            } finally {
+                record(wallTime, cpuTime, -1);
+            }
+        }
+
+        @Override
+        public void upstreamFailed(Throwable throwable) {
+            downstream.upstreamFailed(throwable);
+        }
+
+        @Override
+        public void downstream(Projector downstream) {
+            this.downstream.downstream(downstream);
+        }
+    }
+
+    private static class InstrumentedBatchProjector extends InstrumentedProjector implements BatchProjector {
+
+        private final BatchProjector delegate;
+
+        private InstrumentedBatchProjector(BatchProjector delegate, ProjectorMetrics metrics) {
+            super(delegate, metrics);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean setNextBatch(RowBatch batch) {
+            super.metrics.rowsIn.add(batch.size());
+            long wallTime = System.nanoTime();
+            long cpuTime = cpuTime();
+            try {
+                return delegate.setNextBatch(batch);
+            } finally {
+                super.record(wallTime, cpuTime, 1);
+            }
+        }
+    }
+
+    private class BatchDownstream extends Downstream implements BatchProjector {
+
+        private final BatchProjector downstream;
+
+        private BatchDownstream(BatchProjector downstream) {
+            super(downstream);
+            this.downstream = downstream;
+        }
+
+        @Override
+        public boolean setNextBatch(RowBatch batch) {
+            metrics.rowsOut.add(batch.size());
+            long wallTime = System.nanoTime();
+            long cpuTime = cpuTime();
+            try {
+                return downstream.setNextBatch(batch);
+            } finally {
+                record(wallTime, cpuTime, -1);
+            }
+        }
+    }
+}
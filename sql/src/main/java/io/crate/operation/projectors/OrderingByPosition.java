@@ -0,0 +1,97 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import org.apache.lucene.util.BytesRef;
+
+import java.util.Comparator;
+
+/**
+ * Compares rows by the values at the given positions, in the order they have to be returned.
+ *
+ * Longs, doubles and BytesRefs are compared directly, without going through
+ * a chain of nullsFirst/reverse orderings and {@link Comparable#compareTo(Object)}.
+ */
+public class OrderingByPosition implements Comparator<Object[]> {
+
+    private final int[] positions;
+    private final boolean[] reverseFlags;
+    private final boolean[] nullsFirst;
+
+    /**
+     * @param positions    the positions of the values to order by
+     * @param reverseFlags for every position <code>true</code> if ordered descending
+     * @param nullsFirst   for every position if nulls come first, if null
+     *                     nulls come last if ascending and first if descending
+     */
+    public OrderingByPosition(int[] positions, boolean[] reverseFlags, Boolean[] nullsFirst) {
+        assert positions.length == reverseFlags.length && positions.length == nullsFirst.length;
+        this.positions = positions;
+        this.reverseFlags = reverseFlags;
+        this.nullsFirst = new boolean[nullsFirst.length];
+        for (int i = 0; i < nullsFirst.length; i++) {
+            this.nullsFirst[i] = nullsFirst[i] != null ? nullsFirst[i] : reverseFlags[i];
+        }
+    }
+
+    @Override
+    public int compare(Object[] left, Object[] right) {
+        for (int i = 0; i < positions.length; i++) {
+            Object l = left[positions[i]];
+            Object r = right[positions[i]];
+            int compared;
+            if (l == r) {
+                continue;
+            } else if (l == null) {
+                compared = nullsFirst[i] ? -1 : 1;
+            } else if (r == null) {
+                compared = nullsFirst[i] ? 1 : -1;
+            } else {
+                compared = compareValues(l, r);
+                if (reverseFlags[i]) {
+                    compared = -compared;
+                }
+            }
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object l, Object r) {
+        if (l instanceof Long && r instanceof Long) {
+            long lv = (Long) l;
+            long rv = (Long) r;
+            return lv < rv ? -1 : (lv == rv ? 0 : 1);
+        }
+        if (l instanceof Double && r instanceof Double) {
+            return Double.compare((Double) l, (Double) r);
+        }
+        if (l instanceof BytesRef && r instanceof BytesRef) {
+            return ((BytesRef) l).compareTo((BytesRef) r);
+        }
+        return ((Comparable) l).compareTo(r);
+    }
+}
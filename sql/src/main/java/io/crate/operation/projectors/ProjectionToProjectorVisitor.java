@@ -39,6 +39,7 @@ import org.elasticsearch.index.shard.ShardId;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -222,9 +223,11 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
         for (Symbol idSymbol : projection.ids()) {
             idInputs.add(symbolVisitor.process(idSymbol, symbolContext));
         }
-        List<Input<?>> partitionedByInputs = new ArrayList<>(projection.partitionedBySymbols().size());
-        for (Symbol partitionedBySymbol : projection.partitionedBySymbols()) {
-            partitionedByInputs.add(symbolVisitor.process(partitionedBySymbol, symbolContext));
+        Map<Reference, GeneratedColumnInput> generatedColumnInputs = generatedColumnInputs(projection, symbolContext);
+        List<Input<?>> partitionedByInputs = partitionedByInputs(projection, generatedColumnInputs, symbolContext);
+        List<ColumnIdent> generatedColumnIdents = new ArrayList<>(generatedColumnInputs.size());
+        for (GeneratedColumnInput generatedColumnInput : generatedColumnInputs.values()) {
+            generatedColumnIdents.add(generatedColumnInput.columnIdent());
         }
         Input<?> sourceInput = symbolVisitor.process(projection.rawSource(), symbolContext);
         Input<?> clusteredBy = null;
@@ -247,7 +250,9 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
                 projection.bulkActions(),
                 projection.includes(),
                 projection.excludes(),
-                projection.autoCreateIndices()
+                projection.autoCreateIndices(),
+                generatedColumnIdents,
+                new ArrayList<Input<?>>(generatedColumnInputs.values())
         );
     }
 
@@ -258,18 +263,21 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
         for (Symbol idSymbol : projection.ids()) {
             idInputs.add(symbolVisitor.process(idSymbol, symbolContext));
         }
-        List<Input<?>> partitionedByInputs = new ArrayList<>(projection.partitionedBySymbols().size());
-        for (Symbol partitionedBySymbol : projection.partitionedBySymbols()) {
-            partitionedByInputs.add(symbolVisitor.process(partitionedBySymbol, symbolContext));
-        }
+        Map<Reference, GeneratedColumnInput> generatedColumnInputs = generatedColumnInputs(projection, symbolContext);
+        List<Input<?>> partitionedByInputs = partitionedByInputs(projection, generatedColumnInputs, symbolContext);
         Input<?> clusteredBy = null;
         if (projection.clusteredBy() != null) {
             clusteredBy = symbolVisitor.process(projection.clusteredBy(), symbolContext);
         }
-        List<Input<?>> columnInputs = new ArrayList<>(projection.columnSymbols().size());
+        List<ColumnIdent> columnIdents = new ArrayList<>(projection.columnIdents());
+        List<Input<?>> columnInputs = new ArrayList<>(projection.columnSymbols().size() + generatedColumnInputs.size());
         for (Symbol columnSymbol : projection.columnSymbols()) {
             columnInputs.add(symbolVisitor.process(columnSymbol, symbolContext));
         }
+        for (GeneratedColumnInput generatedColumnInput : generatedColumnInputs.values()) {
+            columnIdents.add(generatedColumnInput.columnIdent());
+            columnInputs.add(generatedColumnInput);
+        }
         return new ColumnIndexWriterProjector(
                 clusterService,
                 settings,
@@ -281,7 +289,7 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
                 partitionedByInputs,
                 projection.clusteredByIdent(),
                 clusteredBy,
-                projection.columnIdents(),
+                columnIdents,
                 columnInputs,
                 symbolContext.collectExpressions().toArray(new CollectExpression[symbolContext.collectExpressions().size()]),
                 projection.bulkActions(),
@@ -289,6 +297,45 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
         );
     }
 
+    /**
+     * creates the inputs computing the values of the generated columns of the projection
+     */
+    private Map<Reference, GeneratedColumnInput> generatedColumnInputs(AbstractIndexWriterProjection projection,
+                                                                     ImplementationSymbolVisitor.Context symbolContext) {
+        if (projection.generatedColumns().isEmpty()) {
+            return new HashMap<Reference, GeneratedColumnInput>(0);
+        }
+        Map<ColumnIdent, Input<?>> arguments = new HashMap<>(projection.generatedColumnsArguments().size());
+        for (Map.Entry<ColumnIdent, Symbol> entry : projection.generatedColumnsArguments().entrySet()) {
+            arguments.put(entry.getKey(), symbolVisitor.process(entry.getValue(), symbolContext));
+        }
+        Map<Reference, GeneratedColumnInput> generatedColumnInputs =
+                new LinkedHashMap<>(projection.generatedColumns().size());
+        for (Map.Entry<Reference, Symbol> entry : projection.generatedColumns().entrySet()) {
+            generatedColumnInputs.put(entry.getKey(),
+                    new GeneratedColumnInput(entry.getKey(), entry.getValue(), arguments, normalizer));
+        }
+        return generatedColumnInputs;
+    }
+
+    /**
+     * generated partition columns are taken out of generatedColumnInputs,
+     * so that only the generated columns which are part of the source remain
+     */
+    private List<Input<?>> partitionedByInputs(AbstractIndexWriterProjection projection,
+                                               Map<Reference, GeneratedColumnInput> generatedColumnInputs,
+                                               ImplementationSymbolVisitor.Context symbolContext) {
+        List<Input<?>> partitionedByInputs = new ArrayList<>(projection.partitionedBySymbols().size());
+        for (Symbol partitionedBySymbol : projection.partitionedBySymbols()) {
+            Input<?> input = generatedColumnInputs.remove(partitionedBySymbol);
+            if (input == null) {
+                input = symbolVisitor.process(partitionedBySymbol, symbolContext);
+            }
+            partitionedByInputs.add(input);
+        }
+        return partitionedByInputs;
+    }
+
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
         ImplementationSymbolVisitor.Context ctx = new ImplementationSymbolVisitor.Context();
@@ -317,7 +364,7 @@ public class ProjectionToProjectorVisitor extends ProjectionVisitor<ProjectionTo
 
         return new UpdateProjector(
                 shardId,
-                transportActionProvider.transportShardUpdateAction(),
+                transportActionProvider.transportShardBulkUpdateAction(),
                 ctx.collectExpressions().toArray(new CollectExpression[ctx.collectExpressions().size()])[0],
                 projection.assignments(),
                 projection.requiredVersion());
@@ -0,0 +1,86 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableMap;
+import jsr166e.LongAdder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runtime metrics of a projector recorded by an {@link InstrumentedProjector}.
+ *
+ * The metrics of all projectors of an operation that execute the same projection
+ * (e.g. one per shard) are accumulated in one instance.
+ * Times are self times, the time spent in the downstreams of the projector isn't included.
+ */
+public class ProjectorMetrics {
+
+    private final String name;
+    final LongAdder rowsIn = new LongAdder();
+    final LongAdder rowsOut = new LongAdder();
+    final LongAdder wallTimeNanos = new LongAdder();
+    final LongAdder cpuTimeNanos = new LongAdder();
+
+    public ProjectorMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long rowsIn() {
+        return rowsIn.sum();
+    }
+
+    public long rowsOut() {
+        return rowsOut.sum();
+    }
+
+    public long wallTimeNanos() {
+        return wallTimeNanos.sum();
+    }
+
+    public long cpuTimeNanos() {
+        return cpuTimeNanos.sum();
+    }
+
+    public Map<String, Object> toMap() {
+        return ImmutableMap.<String, Object>builder()
+                .put("name", name)
+                .put("rows_in", rowsIn())
+                .put("rows_out", rowsOut())
+                .put("wall_time", toMillis(wallTimeNanos()))
+                .put("cpu_time", toMillis(cpuTimeNanos()))
+                .build();
+    }
+
+    /**
+     * @return the given nanoseconds as fractional milliseconds
+     */
+    public static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
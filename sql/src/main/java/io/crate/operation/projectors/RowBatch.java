@@ -0,0 +1,165 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A batch of rows stored column by column together with a selection vector.
+ *
+ * The producer fills the batch using {@link #newRow()} and {@link #set(int, int, Object)}
+ * and hands it to a {@link BatchProjector}. Consumers only see the selected rows,
+ * addressed by their index within the selection: <code>0 &lt;= i &lt; size()</code>.
+ * A consumer may narrow the selection (e.g. a filter) but must not retain the batch,
+ * its columns or the buffer returned by {@link #row(int)} after the call returns.
+ * Rows that need to be kept must be copied using {@link #materializeRow(int)}.
+ *
+ * The producer has to call {@link #clear()} before it re-uses the batch.
+ */
+public class RowBatch {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Object[][] columns;
+    private final int[] selection;
+    private final Object[] rowBuffer;
+    private int numRows = 0;
+    private int size = 0;
+
+    public RowBatch(int numColumns) {
+        this(numColumns, DEFAULT_CAPACITY);
+    }
+
+    public RowBatch(int numColumns, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be greater than 0");
+        columns = new Object[numColumns][capacity];
+        selection = new int[capacity];
+        rowBuffer = new Object[numColumns];
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    public int capacity() {
+        return selection.length;
+    }
+
+    /**
+     * @return the number of selected rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return numRows == selection.length;
+    }
+
+    /**
+     * add a new selected row to the batch
+     *
+     * @return the position of the new row, used to {@link #set(int, int, Object)} its values
+     */
+    public int newRow() {
+        assert numRows < selection.length : "batch is full";
+        int position = numRows++;
+        selection[size++] = position;
+        return position;
+    }
+
+    public void set(int column, int position, Object value) {
+        columns[column][position] = value;
+    }
+
+    /**
+     * add a new selected row and copy the values of the given row into it
+     */
+    public void addRow(Object[] row) {
+        int position = newRow();
+        for (int c = 0; c < columns.length; c++) {
+            columns[c][position] = row[c];
+        }
+    }
+
+    /**
+     * @return the value of the given column of the i-th selected row
+     */
+    public Object get(int column, int i) {
+        return columns[column][selection[i]];
+    }
+
+    /**
+     * @return the values of the i-th selected row written into a buffer that is re-used for every call
+     */
+    public Object[] row(int i) {
+        int position = selection[i];
+        for (int c = 0; c < columns.length; c++) {
+            rowBuffer[c] = columns[c][position];
+        }
+        return rowBuffer;
+    }
+
+    /**
+     * @return the values of the i-th selected row in a newly allocated array
+     */
+    public Object[] materializeRow(int i) {
+        int position = selection[i];
+        Object[] row = new Object[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            row[c] = columns[c][position];
+        }
+        return row;
+    }
+
+    /**
+     * make the i-th selected row the newIndex-th selected row.
+     * Used together with {@link #truncate(int)} to narrow the selection in place,
+     * <code>newIndex</code> must not be greater than <code>i</code>.
+     */
+    public void select(int newIndex, int i) {
+        assert newIndex <= i : "can only move selected rows to the front";
+        selection[newIndex] = selection[i];
+    }
+
+    /**
+     * keep only the first <code>newSize</code> selected rows
+     */
+    public void truncate(int newSize) {
+        assert newSize <= size : "cannot grow the selection";
+        size = newSize;
+    }
+
+    /**
+     * remove all rows, the column values are released so that they can be garbage collected
+     */
+    public void clear() {
+        for (Object[] column : columns) {
+            Arrays.fill(column, 0, numRows, null);
+        }
+        numRows = 0;
+        size = 0;
+    }
+}
@@ -30,7 +30,7 @@ import io.crate.operation.collect.CollectExpression;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class SimpleTopNProjector implements Projector {
+public class SimpleTopNProjector implements BatchProjector {
 
     private final Input<?>[] inputs;
     private final CollectExpression<?>[] collectExpressions;
@@ -39,6 +39,7 @@ public class SimpleTopNProjector implements Projector {
 
     private int remainingOffset;
     private int toCollect;
+    private RowBatch outputBatch;
     private AtomicReference<Throwable> failure = new AtomicReference<>(null);
 
     public SimpleTopNProjector(Input<?>[] inputs,
@@ -92,6 +93,40 @@ public class SimpleTopNProjector implements Projector {
         return toCollect > 0 && failure.get() == null;
     }
 
+    @Override
+    public synchronized boolean setNextBatch(RowBatch batch) {
+        if (toCollect < 1) {
+            return false;
+        }
+        int first = Math.min(remainingOffset, batch.size());
+        remainingOffset -= first;
+        int count = Math.min(batch.size() - first, toCollect);
+
+        if (downstream != null && count > 0) {
+            if (outputBatch == null || outputBatch.capacity() < count) {
+                outputBatch = new RowBatch(inputs.length, Math.max(count, batch.capacity()));
+            }
+            outputBatch.clear();
+            for (int r = first; r < first + count; r++) {
+                Object[] row = batch.row(r);
+                for (CollectExpression<?> collectExpression : collectExpressions) {
+                    collectExpression.setNextRow(row);
+                }
+                int position = outputBatch.newRow();
+                for (int i = 0; i < inputs.length; i++) {
+                    outputBatch.set(i, position, inputs[i].value());
+                }
+            }
+            if (!RowBatches.feed(downstream, outputBatch)) {
+                toCollect = -1;
+            }
+        }
+
+        toCollect -= count;
+
+        return toCollect > 0 && failure.get() == null;
+    }
+
     private Object[] generateNextRow(Object[] row) {
         Object[] evaluatedRow = new Object[inputs.length];
         for (CollectExpression<?> collectExpression : collectExpressions) {
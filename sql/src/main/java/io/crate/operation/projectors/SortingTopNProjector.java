@@ -22,7 +22,6 @@
 package io.crate.operation.projectors;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Constants;
@@ -32,14 +31,12 @@ import io.crate.operation.ProjectorUpstream;
 import io.crate.operation.collect.CollectExpression;
 import org.apache.lucene.util.PriorityQueue;
 
-import javax.annotation.Nullable;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class SortingTopNProjector implements Projector, ResultProvider {
+public class SortingTopNProjector implements BatchProjector, ResultProvider {
 
 
     class RowPriorityQueue extends PriorityQueue<Object[]> {
@@ -48,62 +45,22 @@ public class SortingTopNProjector implements Projector, ResultProvider {
             super(maxSize);
         }
 
+        /**
+         * the row which comes last in the result is the least one and evicted first
+         */
         @Override
         protected boolean lessThan(Object[] a, Object[] b) {
-            for (Comparator c : comparators) {
-                int compared = c.compare(a, b);
-                if (compared < 0) return true;
-                if (compared == 0) continue;
-                if (compared > 0) return false;
-            }
-            return false;
-        }
-    }
-
-    static class ColOrdering extends Ordering<Object[]> {
-
-        private final int col;
-        private final Ordering<Comparable> ordering;
-
-        ColOrdering(int col, boolean reverse, Boolean nullFirst) {
-            this.col = col;
-
-            // note, that we are reverse for the queue so this conditional is by intent
-            Ordering<Comparable> ordering;
-            nullFirst = nullFirst != null ? !nullFirst : null; // swap because queue is reverse
-            if (reverse) {
-                ordering = Ordering.natural();
-                if (nullFirst == null || !nullFirst) {
-                    ordering = ordering.nullsLast();
-                } else {
-                    ordering = ordering.nullsFirst();
-                }
-            } else {
-                ordering = Ordering.natural().reverse();
-                if (nullFirst == null || nullFirst) {
-                    ordering = ordering.nullsFirst();
-                } else {
-                    ordering = ordering.nullsLast();
-                }
-            }
-            this.ordering = ordering;
-        }
-
-        @Override
-        public int compare(@Nullable Object[] left, @Nullable Object[] right) {
-            Comparable l = left != null ? (Comparable) left[col] : null;
-            Comparable r = right != null ? (Comparable) right[col] : null;
-            return ordering.compare(l, r);
+            return ordering.compare(a, b) > 0;
         }
     }
 
-
     private final int offset;
     private final int maxSize;
     private final int numOutputs;
 
     private RowPriorityQueue pq;
-    private final Comparator[] comparators;
+    private Object[] spareRow;
+    private final OrderingByPosition ordering;
     private final Input<?>[] inputs;
     private final CollectExpression<?>[] collectExpressions;
     private final AtomicInteger remainingUpstreams = new AtomicInteger(0);
@@ -139,12 +96,7 @@ public class SortingTopNProjector implements Projector, ResultProvider {
             limit = Constants.DEFAULT_SELECT_LIMIT;
         }
         this.maxSize = this.offset + limit;
-        comparators = new Comparator[orderBy.length];
-        for (int i = 0; i < orderBy.length; i++) {
-            int col = orderBy[i];
-            boolean reverse = reverseFlags[i];
-            comparators[i] = new ColOrdering(col, reverse, nullsFirst[i]);
-        }
+        this.ordering = new OrderingByPosition(orderBy, reverseFlags, nullsFirst);
     }
 
     @Override
@@ -163,6 +115,28 @@ public class SortingTopNProjector implements Projector, ResultProvider {
         return true;
     }
 
+    /**
+     * rows which don't make it into the queue, or are evicted from it,
+     * are re-used to evaluate the next row.
+     */
+    @Override
+    public synchronized boolean setNextBatch(RowBatch batch) {
+        for (int r = 0; r < batch.size(); r++) {
+            Object[] row = batch.row(r);
+            for (CollectExpression<?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            if (spareRow == null) {
+                spareRow = new Object[inputs.length];
+            }
+            for (int i = 0; i < inputs.length; i++) {
+                spareRow[i] = inputs[i].value();
+            }
+            spareRow = pq.insertWithOverflow(spareRow);
+        }
+        return true;
+    }
+
     @Override
     public void registerUpstream(ProjectorUpstream upstream) {
         remainingUpstreams.incrementAndGet();
@@ -24,9 +24,9 @@ package io.crate.operation.projectors;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
-import io.crate.executor.transport.ShardUpdateRequest;
-import io.crate.executor.transport.TransportShardUpdateAction;
-import io.crate.executor.transport.ShardUpdateResponse;
+import io.crate.executor.transport.ShardBulkUpdateRequest;
+import io.crate.executor.transport.ShardBulkUpdateResponse;
+import io.crate.executor.transport.TransportShardBulkUpdateAction;
 import io.crate.operation.ProjectorUpstream;
 import io.crate.operation.collect.CollectExpression;
 import io.crate.planner.symbol.Symbol;
@@ -34,7 +34,6 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
-import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -45,34 +44,55 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Updates the documents of a shard whose uids are received as rows.
+ *
+ * The uids are collected into {@link ShardBulkUpdateRequest}s of up to <code>bulkSize</code> documents,
+ * the number of updated documents is passed to the downstream once all requests are done.
+ */
 public class UpdateProjector implements Projector {
 
+    public static final int DEFAULT_BULK_SIZE = 1000;
+
     private Projector downstream;
     private final AtomicInteger remainingUpstreams = new AtomicInteger(0);
     private final AtomicReference<Throwable> upstreamFailure = new AtomicReference<>(null);
     private final List<SettableFuture<Long>> updateResults = new ArrayList<>();
 
     private final ShardId shardId;
-    private final TransportShardUpdateAction transportUpdateAction;
+    private final TransportShardBulkUpdateAction transportBulkUpdateAction;
     private final CollectExpression<?> collectUidExpression;
     // The key of this map is expected to be a FQN columnIdent.
     private final Map<String, Symbol> assignments;
     @Nullable
     private final Long requiredVersion;
+    private final int bulkSize;
     private final Object lock = new Object();
 
+    private ShardBulkUpdateRequest currentRequest;
+
     private final ESLogger logger = Loggers.getLogger(getClass());
 
     public UpdateProjector(ShardId shardId,
-                           TransportShardUpdateAction transportUpdateAction,
+                           TransportShardBulkUpdateAction transportBulkUpdateAction,
                            CollectExpression<?> collectUidExpression,
                            Map<String, Symbol> assignments,
                            @Nullable Long requiredVersion) {
+        this(shardId, transportBulkUpdateAction, collectUidExpression, assignments, requiredVersion, DEFAULT_BULK_SIZE);
+    }
+
+    public UpdateProjector(ShardId shardId,
+                           TransportShardBulkUpdateAction transportBulkUpdateAction,
+                           CollectExpression<?> collectUidExpression,
+                           Map<String, Symbol> assignments,
+                           @Nullable Long requiredVersion,
+                           int bulkSize) {
         this.shardId = shardId;
-        this.transportUpdateAction = transportUpdateAction;
+        this.transportBulkUpdateAction = transportBulkUpdateAction;
         this.collectUidExpression = collectUidExpression;
         this.assignments = assignments;
         this.requiredVersion = requiredVersion;
+        this.bulkSize = bulkSize;
     }
 
     @Override
@@ -84,40 +104,71 @@ public class UpdateProjector implements Projector {
 
     @Override
     public boolean setNextRow(Object... row) {
-        Uid uid;
+        ShardBulkUpdateRequest fullRequest = null;
         synchronized (lock) {
             // resolve the Uid
             collectUidExpression.setNextRow(row);
-            uid = Uid.createUid(((BytesRef)collectUidExpression.value()).utf8ToString());
+            Uid uid = Uid.createUid(((BytesRef)collectUidExpression.value()).utf8ToString());
+
+            if (currentRequest == null) {
+                currentRequest = new ShardBulkUpdateRequest(shardId, assignments);
+            }
+            currentRequest.add(uid, requiredVersion);
+            if (currentRequest.size() >= bulkSize) {
+                fullRequest = currentRequest;
+                currentRequest = null;
+            }
         }
+        if (fullRequest != null) {
+            execute(fullRequest);
+        }
+        return true;
+    }
 
+    private void execute(ShardBulkUpdateRequest request) {
         final SettableFuture<Long> future = SettableFuture.create();
-        updateResults.add(future);
-
-        final ShardUpdateRequest updateRequest = new ShardUpdateRequest(shardId, uid, requiredVersion);
-        updateRequest.assignments(assignments);
+        synchronized (lock) {
+            updateResults.add(future);
+        }
 
-        transportUpdateAction.execute(updateRequest, new ActionListener<ShardUpdateResponse>() {
+        transportBulkUpdateAction.execute(request, new ActionListener<ShardBulkUpdateResponse>() {
             @Override
-            public void onResponse(ShardUpdateResponse updateResponse) {
-                future.set(1L);
+            public void onResponse(ShardBulkUpdateResponse response) {
+                for (ShardBulkUpdateResponse.Item item : response.items()) {
+                    if (!item.failed()) {
+                        continue;
+                    }
+                    if (item.versionConflict()) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Updating document with id {} failed because of a version conflict", item.id());
+                        }
+                    } else {
+                        logger.error("Updating document with id {} failed: {}", item.id(), item.failure());
+                    }
+                }
+                future.set(response.successfulCount());
             }
 
             @Override
             public void onFailure(Throwable e) {
-                if (e instanceof VersionConflictEngineException) {
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Updating document with id {} failed because of a version conflict", updateRequest.id());
-                    }
-                    future.set(0L);
-                } else {
-                    logger.error("Updating document with id {} failed", e, updateRequest.id());
-                    future.set(0L);
-                }
+                logger.error("Updating documents of shard {} failed", e, shardId);
+                future.set(0L);
             }
         });
+    }
 
-        return true;
+    /**
+     * send the remaining uids, must be called once all upstreams are finished
+     */
+    private void flush() {
+        ShardBulkUpdateRequest request;
+        synchronized (lock) {
+            request = currentRequest;
+            currentRequest = null;
+        }
+        if (request != null && request.size() > 0) {
+            execute(request);
+        }
     }
 
     @Override
@@ -131,6 +182,7 @@ public class UpdateProjector implements Projector {
             return;
         }
 
+        flush();
         if (downstream != null) {
             collectUpdateResultsAndPassOverRowCount();
         }
@@ -142,6 +194,7 @@ public class UpdateProjector implements Projector {
         if (remainingUpstreams.decrementAndGet() > 0) {
             return;
         }
+        flush();
         if (downstream != null) {
             collectUpdateResultsAndPassOverRowCount();
         }
@@ -154,7 +207,11 @@ public class UpdateProjector implements Projector {
     }
 
     private void collectUpdateResultsAndPassOverRowCount() {
-        Futures.addCallback(Futures.allAsList(updateResults), new FutureCallback<List<Long>>() {
+        List<SettableFuture<Long>> results;
+        synchronized (lock) {
+            results = new ArrayList<>(updateResults);
+        }
+        Futures.addCallback(Futures.allAsList(results), new FutureCallback<List<Long>>() {
             @Override
             public void onSuccess(@Nullable List<Long> result) {
                 long rowCount = 0;
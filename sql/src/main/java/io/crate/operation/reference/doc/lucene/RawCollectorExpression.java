@@ -35,7 +35,7 @@ public class RawCollectorExpression extends
 
     @Override
     public void startCollect(CollectorContext context) {
-        context.visitor().required(true);
+        context.visitor().requireSource();
         this.visitor = context.visitor();
     }
 
@@ -24,6 +24,7 @@ package io.crate.operation.reference.file;
 import io.crate.metadata.ColumnIdent;
 import io.crate.operation.collect.files.CollectorContext;
 import io.crate.operation.collect.files.LineCollectorExpression;
+import org.apache.lucene.util.BytesRef;
 
 public class ColumnExtractingLineExpression extends LineCollectorExpression<Object> {
 
@@ -40,10 +41,11 @@ public class ColumnExtractingLineExpression extends LineCollectorExpression<Obje
     }
 
     @Override
-    public void setNextLine(String line) {}
+    public void setNextLine(BytesRef line) {}
 
     @Override
     public void startCollect(CollectorContext context) {
         this.context = context.lineContext();
+        this.context.registerColumn(columnIdent);
     }
 }
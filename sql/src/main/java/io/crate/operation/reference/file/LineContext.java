@@ -23,45 +23,53 @@ package io.crate.operation.reference.file;
 
 import io.crate.metadata.ColumnIdent;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 
 import javax.annotation.Nullable;
-import java.util.LinkedList;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 public class LineContext {
 
-    private byte[] rawSource;
+    private final Set<String> referencedColumns = new HashSet<>();
+    private BytesRef rawSource;
     private Map<String, Object> parsedSource;
+    private boolean parsedFully = false;
+
+    /**
+     * register a column that is accessed using {@link #get(ColumnIdent)}.
+     * If only registered columns are accessed, only their values are decoded from the source.
+     */
+    public void registerColumn(ColumnIdent columnIdent) {
+        referencedColumns.add(columnIdent.name());
+    }
 
     @Nullable
     public BytesRef sourceAsBytesRef() {
         if (rawSource != null) {
-            return new BytesRef(rawSource);
+            // the raw source may point to a buffer that is re-used for the next line
+            return BytesRef.deepCopyOf(rawSource);
         }
         return null;
     }
 
     public Map<String, Object> sourceAsMap() {
-        if (parsedSource == null) {
-            try {
-                parsedSource = XContentHelper.convertToMap(rawSource, false).v2();
-            } catch (NullPointerException e) {
-                return null;
-            }
+        if (!parsedFully) {
+            parse(null);
         }
         return parsedSource;
     }
 
     public Object get(ColumnIdent columnIdent) {
+        if (parsedSource == null
+                || (!parsedFully && !referencedColumns.contains(columnIdent.name()))) {
+            parse(referencedColumns.contains(columnIdent.name()) ? referencedColumns : null);
+        }
         if (parsedSource == null) {
-            // TODO: optimize if collectorContext has prefetchColumns
-
-            try {
-                parsedSource = XContentHelper.convertToMap(rawSource, false).v2();
-            } catch (NullPointerException e) {
-                return null;
-            }
+            return null;
         }
 
         LinkedList<String> path = new LinkedList<>(columnIdent.path());
@@ -80,8 +88,78 @@ public class LineContext {
         return parentMap.get(path.peekFirst());
     }
 
+    /**
+     * parse the top level columns given in <code>columns</code> or all if it is null
+     */
+    private void parse(@Nullable Set<String> columns) {
+        if (rawSource == null) {
+            parsedSource = null;
+            return;
+        }
+        if (columns == null) {
+            parsedSource = XContentHelper.convertToMap(
+                    rawSource.bytes, rawSource.offset, rawSource.length, false).v2();
+            parsedFully = true;
+            return;
+        }
+        XContentParser parser = null;
+        try {
+            parser = XContentFactory.xContent(rawSource.bytes, rawSource.offset, rawSource.length)
+                    .createParser(rawSource.bytes, rawSource.offset, rawSource.length);
+            Map<String, Object> values = new HashMap<>(columns.size());
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to parse content to map, no object found");
+            }
+            while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                token = parser.nextToken();
+                if (columns.contains(fieldName)) {
+                    values.put(fieldName, readValue(parser, token));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            parsedSource = values;
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
+    @Nullable
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
     public void rawSource(byte[] bytes) {
+        rawSource(new BytesRef(bytes));
+    }
+
+    /**
+     * set the source of the current line, the given BytesRef is not copied
+     */
+    public void rawSource(BytesRef bytes) {
         this.rawSource = bytes;
         this.parsedSource = null;
+        this.parsedFully = false;
     }
 }
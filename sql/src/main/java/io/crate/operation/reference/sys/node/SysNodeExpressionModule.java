@@ -60,5 +60,6 @@ public class SysNodeExpressionModule extends AbstractModule {
         bindExpr(NodeNetworkExpression.NAME, NodeNetworkExpression.class);
         bindExpr(NodeOsExpression.NAME, NodeOsExpression.class);
         bindExpr(NodeProcessExpression.NAME, NodeProcessExpression.class);
+        bindExpr(NodePlanCacheExpression.NAME, NodePlanCacheExpression.class);
     }
 }
@@ -21,6 +21,9 @@
 
 package io.crate.operation.reference.sys.operation;
 
+import io.crate.operation.OperationMetrics;
+
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 public class OperationContext {
@@ -30,6 +33,8 @@ public class OperationContext {
     public String name;
     public long started;
     public long usedBytes;
+    @Nullable
+    public OperationMetrics metrics;
 
     public OperationContext(UUID id, UUID jobId, String name, long started) {
         this.id = id;
@@ -21,6 +21,8 @@
 
 package io.crate.operation.reference.sys.operation;
 
+import io.crate.operation.OperationMetrics;
+
 import javax.annotation.Nullable;
 import java.util.UUID;
 
@@ -61,6 +63,14 @@ public class OperationContextLog {
         return  operationContext.usedBytes;
     }
 
+    /**
+     * @return the runtime metrics of the operation or null if it wasn't instrumented
+     */
+    @Nullable
+    public OperationMetrics metrics() {
+        return operationContext.metrics;
+    }
+
     @Nullable
     public String errorMessage() {
         return errorMessage;
@@ -25,6 +25,8 @@ import com.google.common.collect.ImmutableList;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.RowContextCollectorExpression;
 import io.crate.metadata.sys.SysOperationsLogTableInfo;
+import io.crate.operation.OperationMetrics;
+import io.crate.operation.projectors.ProjectorMetrics;
 import org.apache.lucene.util.BytesRef;
 
 public abstract class SysOperationLogExpression<T> extends RowContextCollectorExpression<OperationContextLog, T> {
@@ -78,6 +80,56 @@ public abstract class SysOperationLogExpression<T> extends RowContextCollectorEx
                     }
                     return new BytesRef(row.errorMessage());
                 }
+            })
+            .add(new SysOperationLogExpression<Long>(SysOperationsLogTableInfo.ColumnNames.ROWS_IN) {
+                @Override
+                public Long value() {
+                    OperationMetrics metrics = row.metrics();
+                    if (metrics == null) {
+                        return null;
+                    }
+                    return metrics.rowsIn();
+                }
+            })
+            .add(new SysOperationLogExpression<Long>(SysOperationsLogTableInfo.ColumnNames.ROWS_OUT) {
+                @Override
+                public Long value() {
+                    OperationMetrics metrics = row.metrics();
+                    if (metrics == null) {
+                        return null;
+                    }
+                    return metrics.rowsOut();
+                }
+            })
+            .add(new SysOperationLogExpression<Long>(SysOperationsLogTableInfo.ColumnNames.ROWS_SENT) {
+                @Override
+                public Long value() {
+                    OperationMetrics metrics = row.metrics();
+                    if (metrics == null) {
+                        return null;
+                    }
+                    return metrics.rowsSent();
+                }
+            })
+            .add(new SysOperationLogExpression<Double>(SysOperationsLogTableInfo.ColumnNames.CPU_TIME) {
+                @Override
+                public Double value() {
+                    OperationMetrics metrics = row.metrics();
+                    if (metrics == null) {
+                        return null;
+                    }
+                    return ProjectorMetrics.toMillis(metrics.cpuTimeNanos());
+                }
+            })
+            .add(new SysOperationLogExpression<Object[]>(SysOperationsLogTableInfo.ColumnNames.PROJECTORS) {
+                @Override
+                public Object[] value() {
+                    OperationMetrics metrics = row.metrics();
+                    if (metrics == null) {
+                        return null;
+                    }
+                    return metrics.projectorsAsMaps();
+                }
             }).build();
 
     public SysOperationLogExpression(String name) {
@@ -0,0 +1,310 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.crate.analyze.Analysis;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.InsertFromValuesAnalyzedStatement;
+import io.crate.analyze.ParameterBinder;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.PlanNodeVisitor;
+import io.crate.planner.node.dml.ESDeleteNode;
+import io.crate.planner.node.dml.ESIndexNode;
+import io.crate.planner.node.dml.UpdateByIdNode;
+import io.crate.planner.node.dql.ESCountNode;
+import io.crate.planner.node.dql.ESGetNode;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local cache of analyzed and planned statements.
+ *
+ * Entries are keyed on the statement, the types of its parameters and the version of
+ * the cluster state it was planned against.
+ * Parameters are bound as literals during analysis, so the cached plan is reused for the
+ * same parameter values. For other values the cached analysis is bound to the new values
+ * and planned again if possible, see {@link ParameterBinder}.
+ *
+ * Only plans that are not modified during execution are cached, which are the
+ * primary key lookups, single row inserts, updates and deletes and counts.
+ * The whole cache is invalidated if the metadata or the routing table changes.
+ */
+@Singleton
+public class PlanCache implements ClusterStateListener {
+
+    public static final String SIZE_SETTING = "plan_cache.size";
+    public static final int DEFAULT_SIZE = 500;
+
+    private final ClusterService clusterService;
+    private final Cache<Key, Entry> cache;
+    private final boolean enabled;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Inject
+    public PlanCache(Settings settings, ClusterService clusterService) {
+        this.clusterService = clusterService;
+        int size = settings.getAsInt(SIZE_SETTING, DEFAULT_SIZE);
+        enabled = size > 0;
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, size))
+                .recordStats()
+                .build();
+        clusterService.add(this);
+    }
+
+    /**
+     * @return the key for the statement or null if the cache is disabled
+     */
+    @Nullable
+    public Key key(String stmt, Object[] args) {
+        if (!enabled) {
+            return null;
+        }
+        return new Key(stmt, args, clusterService.state().version());
+    }
+
+    /**
+     * Looks up the cached statement and binds it to the given arguments.
+     * If the arguments differ from the cached ones, the returned entry contains the bound
+     * analysis without a plan, which has to be planned again.
+     *
+     * @return the entry or null if the statement isn't cached or can't be bound to the arguments
+     */
+    @Nullable
+    public Entry get(Key key, Object[] args) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!Arrays.deepEquals(entry.args, args)) {
+            Analysis analysis = ParameterBinder.bind(entry.analysis, args);
+            if (analysis == null) {
+                return null;
+            }
+            entry = new Entry(args, analysis, null, false);
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * caches the analysis and the plan if the plan can be executed more than once.
+     * Lookups are only counted as misses if the statement is cacheable.
+     *
+     * @param plan the plan or null if the analyzed statement has no result
+     */
+    public void put(Key key, Object[] args, Analysis analysis, @Nullable Plan plan) {
+        if (isCacheable(analysis, plan)) {
+            misses.incrementAndGet();
+            cache.put(key, new Entry(args, analysis, plan, true));
+        }
+    }
+
+    static boolean isCacheable(Analysis analysis, @Nullable Plan plan) {
+        AnalyzedStatement analyzedStatement = analysis.analyzedStatement();
+        if (analyzedStatement.hasNoResult()) {
+            return true;
+        }
+        if (plan == null) {
+            return false;
+        }
+        if (analyzedStatement instanceof InsertFromValuesAnalyzedStatement
+                && ((InsertFromValuesAnalyzedStatement) analyzedStatement).tableInfo().hasAutoGeneratedPrimaryKey()) {
+            // the generated ids are part of the plan
+            return false;
+        }
+        return CacheablePlanVisitor.INSTANCE.process(plan, null);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.metaDataChanged() || event.routingTableChanged()) {
+            invalidateAll();
+        }
+    }
+
+    public static class Entry {
+
+        private final Object[] args;
+        private final Analysis analysis;
+        private final Plan plan;
+        private final boolean planned;
+
+        private Entry(Object[] args, Analysis analysis, @Nullable Plan plan, boolean planned) {
+            this.args = args;
+            this.analysis = analysis;
+            this.plan = plan;
+            this.planned = planned;
+        }
+
+        public Analysis analysis() {
+            return analysis;
+        }
+
+        /**
+         * @return the plan or null if the statement has no result or isn't planned yet
+         */
+        @Nullable
+        public Plan plan() {
+            return plan;
+        }
+
+        /**
+         * @return false if the analysis was bound to other arguments and has to be planned
+         */
+        public boolean planned() {
+            return planned;
+        }
+    }
+
+    public static class Key {
+
+        private final String stmt;
+        private final DataType[] argTypes;
+        private final long clusterStateVersion;
+        private final int hashCode;
+
+        Key(String stmt, Object[] args, long clusterStateVersion) {
+            this.stmt = stmt;
+            this.clusterStateVersion = clusterStateVersion;
+            argTypes = new DataType[args.length];
+            for (int i = 0; i < args.length; i++) {
+                argTypes[i] = DataTypes.guessType(args[i], true);
+            }
+            int result = stmt.hashCode();
+            result = 31 * result + Arrays.hashCode(argTypes);
+            result = 31 * result + (int) (clusterStateVersion ^ (clusterStateVersion >>> 32));
+            hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return clusterStateVersion == key.clusterStateVersion
+                    && stmt.equals(key.stmt)
+                    && Arrays.equals(argTypes, key.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CacheablePlanVisitor extends PlanVisitor<Void, Boolean> {
+
+        private static final CacheablePlanVisitor INSTANCE = new CacheablePlanVisitor();
+
+        @Override
+        protected Boolean visitPlan(Plan plan, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitIterablePlan(IterablePlan plan, Void context) {
+            if (plan.isEmpty()) {
+                return false;
+            }
+            for (PlanNode planNode : plan) {
+                if (!CacheableNodeVisitor.INSTANCE.process(planNode, null)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * accepts nodes which are only read when their tasks are created
+     */
+    private static class CacheableNodeVisitor extends PlanNodeVisitor<Void, Boolean> {
+
+        private static final CacheableNodeVisitor INSTANCE = new CacheableNodeVisitor();
+
+        @Override
+        protected Boolean visitPlanNode(PlanNode node, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitESGetNode(ESGetNode node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitESCountNode(ESCountNode node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitESIndexNode(ESIndexNode node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitESDeleteNode(ESDeleteNode node, Void context) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitUpdateByIdNode(UpdateByIdNode node, Void context) {
+            return true;
+        }
+    }
+}
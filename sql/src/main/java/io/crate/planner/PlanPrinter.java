@@ -24,6 +24,7 @@ package io.crate.planner;
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
 import io.crate.planner.node.*;
+import io.crate.planner.node.dml.QueryAndFetch;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.projection.*;
 import io.crate.planner.symbol.Aggregation;
@@ -256,4 +257,39 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
         context.dedent();
         return null;
     }
+
+    private Void printNodes(Plan plan, PrintContext context, PlanNode... nodes) {
+        visitPlan(plan, context);
+        context.indent();
+        for (PlanNode node : nodes) {
+            planNodePrinter.process(node, context);
+        }
+        context.dedent();
+        return null;
+    }
+
+    @Override
+    public Void visitGlobalAggregate(GlobalAggregate plan, PrintContext context) {
+        return printNodes(plan, context, plan.collectNode(), plan.mergeNode());
+    }
+
+    @Override
+    public Void visitQueryAndFetch(QueryAndFetch plan, PrintContext context) {
+        return printNodes(plan, context, plan.collectNode(), plan.localMergeNode());
+    }
+
+    @Override
+    public Void visitNonDistributedGroupBy(NonDistributedGroupBy plan, PrintContext context) {
+        return printNodes(plan, context, plan.collectNode(), plan.localMergeNode());
+    }
+
+    @Override
+    public Void visitDistributedGroupBy(DistributedGroupBy plan, PrintContext context) {
+        return printNodes(plan, context, plan.collectNode(), plan.reducerMergeNode(), plan.localMergeNode());
+    }
+
+    @Override
+    public Void visitExplainPlan(ExplainPlan plan, PrintContext context) {
+        return process(plan.subPlan(), context);
+    }
 }
@@ -65,4 +65,8 @@ public class PlanVisitor<C, R> {
     public R visitDistributedGroupBy(DistributedGroupBy node, C context) {
         return visitPlan(node, context);
     }
+
+    public R visitExplainPlan(ExplainPlan plan, C context) {
+        return visitPlan(plan, context);
+    }
 }
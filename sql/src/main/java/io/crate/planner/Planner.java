@@ -32,6 +32,7 @@ import io.crate.analyze.relations.TableRelation;
 import io.crate.analyze.where.WhereClauseAnalyzer;
 import io.crate.analyze.where.WhereClauseContext;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.table.TableInfo;
@@ -53,6 +54,7 @@ import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.LongType;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
@@ -124,6 +126,11 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         return consumingPlanner.plan(statement);
     }
 
+    @Override
+    public Plan visitExplainStatement(ExplainAnalyzedStatement analysis, Context context) {
+        return new ExplainPlan(process(analysis.statement(), context), analysis.analyze());
+    }
+
     @Override
     protected Plan visitInsertFromValuesStatement(InsertFromValuesAnalyzedStatement analysis, Context context) {
         Preconditions.checkState(!analysis.sourceMaps().isEmpty(), "no values given");
@@ -132,6 +139,9 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
 
     @Override
     protected Plan visitInsertFromSubQueryStatement(InsertFromSubQueryAnalyzedStatement analysis, Context context) {
+        if (!analysis.tableInfo().generatedColumns().isEmpty()) {
+            ensureGeneratedColumnsSupported(analysis.tableInfo());
+        }
         return consumingPlanner.plan(analysis);
     }
 
@@ -225,6 +235,9 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
          *    -> collect document and partition by values
          *    -> exclude partitioned by columns from document
          *    -> insert into es index (partition determined by partition by value)
+         *
+         * if the table has generated columns the document is collected in both modes,
+         * the generated values are computed by the index writer and added to the document
          */
 
         TableInfo table = analysis.table();
@@ -284,12 +297,17 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
             toCollect.add(
                     new Reference(table.getReferenceInfo(table.clusteredBy())));
         }
+        Map<Reference, Symbol> generatedColumns = generatedColumnsToWrite(table, partitionByColumns);
         // finally add _raw or _doc
-        if (table.isPartitioned() && analysis.partitionIdent() == null) {
+        if ((table.isPartitioned() && analysis.partitionIdent() == null) || !generatedColumns.isEmpty()) {
             toCollect.add(new Reference(table.getReferenceInfo(DocSysColumns.DOC)));
         } else {
             toCollect.add(new Reference(table.getReferenceInfo(DocSysColumns.RAW)));
         }
+        if (!generatedColumns.isEmpty()) {
+            ensureGeneratedColumnsSupported(table);
+            addGeneratedColumns(sourceIndexWriterProjection, table, partitionByColumns, generatedColumns, toCollect);
+        }
 
         DiscoveryNodes allNodes = clusterService.state().nodes();
         FileUriCollectNode collectNode = new FileUriCollectNode(
@@ -307,6 +325,68 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                 ImmutableList.<Projection>of(localMergeProjection()), collectNode));
     }
 
+    /**
+     * the index writers compute the generated columns on the nodes executing the plan,
+     * so writing to tables with generated columns requires that all nodes support them
+     */
+    private void ensureGeneratedColumnsSupported(TableInfo table) {
+        for (DiscoveryNode node : clusterService.state().nodes()) {
+            if (!AbstractIndexWriterProjection.isGeneratedColumnsSupported(node)) {
+                throw new UnsupportedFeatureException(String.format(Locale.ENGLISH,
+                        "Cannot write to table \"%s\" with generated columns, node \"%s\" doesn't support them",
+                        table.ident().name(), node.name()));
+            }
+        }
+    }
+
+    /**
+     * Generated partition columns are only computed if the partition is derived from the
+     * values of the documents, like other partition columns they are never part of the source.
+     */
+    private Map<Reference, Symbol> generatedColumnsToWrite(TableInfo table, List<ColumnIdent> partitionByColumns) {
+        if (table.generatedColumns().isEmpty()) {
+            return ImmutableMap.<Reference, Symbol>of();
+        }
+        Map<Reference, Symbol> generatedColumns = new LinkedHashMap<>();
+        for (Map.Entry<Reference, Symbol> entry : analysisMetaData.generatedColumns(table).expressions().entrySet()) {
+            ColumnIdent columnIdent = entry.getKey().info().ident().columnIdent();
+            if (!table.partitionedBy().contains(columnIdent) || partitionByColumns.contains(columnIdent)) {
+                generatedColumns.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return generatedColumns;
+    }
+
+    /**
+     * collects the columns the generated columns refer to, so that the index writer can compute them
+     */
+    private void addGeneratedColumns(SourceIndexWriterProjection projection,
+                                     TableInfo table,
+                                     List<ColumnIdent> partitionByColumns,
+                                     Map<Reference, Symbol> generatedColumns,
+                                     List<Symbol> toCollect) {
+        GeneratedColumns tableGeneratedColumns = analysisMetaData.generatedColumns(table);
+        Map<ColumnIdent, Symbol> arguments = new HashMap<>();
+        for (Reference generatedColumn : generatedColumns.keySet()) {
+            for (ColumnIdent referencedColumn : tableGeneratedColumns.referencedColumns(generatedColumn)) {
+                if (!arguments.containsKey(referencedColumn)) {
+                    arguments.put(referencedColumn, new InputColumn(toCollect.size(), null));
+                    toCollect.add(new Reference(table.getReferenceInfo(referencedColumn)));
+                }
+            }
+        }
+        if (!partitionByColumns.isEmpty()) {
+            List<Symbol> partitionedBySymbols = new ArrayList<>(projection.partitionedBySymbols());
+            for (int i = 0; i < partitionByColumns.size(); i++) {
+                if (tableGeneratedColumns.isGenerated(partitionByColumns.get(i))) {
+                    partitionedBySymbols.set(i, new Reference(table.getReferenceInfo(partitionByColumns.get(i))));
+                }
+            }
+            projection.partitionedBySymbols(partitionedBySymbols);
+        }
+        projection.generatedColumns(generatedColumns, arguments);
+    }
+
     private Routing generateRouting(DiscoveryNodes allNodes, int maxNodes) {
         final AtomicInteger counter = new AtomicInteger(maxNodes);
         final Map<String, Map<String, Set<Integer>>> locations = new HashMap<>();
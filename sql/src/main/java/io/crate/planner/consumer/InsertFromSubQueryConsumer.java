@@ -25,6 +25,7 @@ package io.crate.planner.consumer;
 import com.google.common.collect.Lists;
 import io.crate.Constants;
 import io.crate.analyze.AnalysisMetaData;
+import io.crate.analyze.GeneratedColumns;
 import io.crate.analyze.InsertFromSubQueryAnalyzedStatement;
 import io.crate.analyze.SelectAnalyzedStatement;
 import io.crate.analyze.relations.AnalyzedRelation;
@@ -44,14 +45,14 @@ import io.crate.planner.node.dql.DistributedGroupBy;
 import io.crate.planner.node.dql.GroupByConsumer;
 import io.crate.planner.node.dql.MergeNode;
 import io.crate.planner.projection.*;
-import io.crate.planner.symbol.Function;
-import io.crate.planner.symbol.Reference;
-import io.crate.planner.symbol.Symbol;
-import io.crate.planner.symbol.SymbolType;
+import io.crate.planner.symbol.*;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.ImmutableSettings;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
@@ -114,12 +115,47 @@ public class InsertFromSubQueryConsumer implements Consumer {
                     ImmutableSettings.EMPTY,
                     insertFromSubQueryAnalyzedStatement.tableInfo().isPartitioned()
             );
+            TableInfo tableInfo = insertFromSubQueryAnalyzedStatement.tableInfo();
+            if (!tableInfo.generatedColumns().isEmpty()) {
+                addGeneratedColumns(indexWriterProjection, tableInfo, columns);
+            }
 
             context.insertVisited = true;
             context.indexWriterProjection = indexWriterProjection;
             return insertFromSubQueryAnalyzedStatement.subQueryRelation().accept(this, context);
         }
 
+        /**
+         * let the index writer compute the generated columns from the inserted columns.
+         * The partition values are set in order of the partitioned by columns of the table,
+         * generated partition columns are represented by their reference.
+         */
+        private void addGeneratedColumns(ColumnIndexWriterProjection indexWriterProjection,
+                                         TableInfo tableInfo,
+                                         List<ColumnIdent> columns) {
+            GeneratedColumns generatedColumns = analysisMetaData.generatedColumns(tableInfo);
+            Map<ColumnIdent, Symbol> arguments = new HashMap<>();
+            for (Reference generatedColumn : generatedColumns.generatedColumns()) {
+                for (ColumnIdent referencedColumn : generatedColumns.referencedColumns(generatedColumn)) {
+                    int idx = columns.indexOf(referencedColumn);
+                    if (idx >= 0) {
+                        arguments.put(referencedColumn, new InputColumn(idx, null));
+                    }
+                }
+            }
+            List<Symbol> partitionedBySymbols = new ArrayList<>(tableInfo.partitionedBy().size());
+            for (ColumnIdent partitionedByColumn : tableInfo.partitionedBy()) {
+                if (generatedColumns.isGenerated(partitionedByColumn)) {
+                    partitionedBySymbols.add(new Reference(tableInfo.getReferenceInfo(partitionedByColumn)));
+                } else {
+                    int idx = columns.indexOf(partitionedByColumn.getRoot());
+                    partitionedBySymbols.add(idx < 0 ? Literal.NULL : new InputColumn(idx, null));
+                }
+            }
+            indexWriterProjection.partitionedBySymbols(partitionedBySymbols);
+            indexWriterProjection.generatedColumns(generatedColumns.expressions(), arguments);
+        }
+
         @Override
         public AnalyzedRelation visitSelectAnalyzedStatement(SelectAnalyzedStatement statement, Context context) {
             if(!context.insertVisited){
@@ -237,6 +237,8 @@ public class QueryAndFetchConsumer implements Consumer {
             );
             handlerTopN.outputs(finalOutputs);
             mergeNode = PlanNodeBuilder.localMerge(ImmutableList.<Projection>of(handlerTopN), collectNode);
+            // every node sorts its rows using the same order by inputs
+            mergeNode.sortedInputs(statement.orderBy().isSorted());
         } else {
             collectNode = PlanNodeBuilder.collect(tableInfo, whereClause, outputSymbols, ImmutableList.<Projection>of());
             mergeNode = PlanNodeBuilder.localMerge(ImmutableList.<Projection>of(), collectNode);
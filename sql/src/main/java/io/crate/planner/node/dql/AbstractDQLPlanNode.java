@@ -41,6 +41,13 @@ public abstract class AbstractDQLPlanNode implements DQLPlanNode, Streamable {
     protected List<Projection> projections = ImmutableList.of();
     protected List<DataType> outputTypes = ImmutableList.of();
     private List<DataType> inputTypes;
+    private boolean instrumented = false;
+
+    /**
+     * header of the requests carrying an {@link #instrumented()} plan node.
+     * The flag isn't part of the streamed plan node, nodes which don't know the header ignore it.
+     */
+    public static final String INSTRUMENTED_HEADER = "instrumented";
 
     public AbstractDQLPlanNode() {
 
@@ -82,6 +89,18 @@ public abstract class AbstractDQLPlanNode implements DQLPlanNode, Streamable {
         return outputTypes;
     }
 
+    /**
+     * @return true if the operations executing this node should record runtime metrics
+     *         of their projectors, see {@link io.crate.operation.OperationMetrics}
+     */
+    public boolean instrumented() {
+        return instrumented;
+    }
+
+    public void instrumented(boolean instrumented) {
+        this.instrumented = instrumented;
+    }
+
     @Override
     public void inputTypes(List<DataType> dataTypes) {
         this.inputTypes = dataTypes;
@@ -111,7 +130,6 @@ public abstract class AbstractDQLPlanNode implements DQLPlanNode, Streamable {
                 projections.add(Projection.fromStream(in));
             }
         }
-
     }
 
     @Override
@@ -246,6 +246,7 @@ public class CollectNode extends AbstractDQLPlanNode {
             result.downStreamNodes = downStreamNodes;
             result.maxRowgranularity = maxRowgranularity;
             result.jobId = jobId;
+            result.instrumented(instrumented());
             result.whereClause(newWhereClause);
         }
         return result;
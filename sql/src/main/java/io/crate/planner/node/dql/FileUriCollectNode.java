@@ -89,6 +89,7 @@ public class FileUriCollectNode extends CollectNode {
         result.downStreamNodes(downStreamNodes());
         result.maxRowGranularity(maxRowGranularity());
         result.whereClause(normalizedWhereClause);
+        result.instrumented(instrumented());
         if (jobId().isPresent()) {
             result.jobId(jobId().get());
         }
@@ -41,6 +41,7 @@ public class MergeNode extends AbstractDQLPlanNode {
     private int numUpstreams;
     private Set<String> executionNodes;
     private UUID contextId;
+    private boolean sortedInputs = false;
 
     public MergeNode() {
         numUpstreams = 0;
@@ -76,6 +77,18 @@ public class MergeNode extends AbstractDQLPlanNode {
         this.contextId = contextId;
     }
 
+    /**
+     * true if every upstream returns its rows sorted by the ordering of the first
+     * (ordered) TopNProjection of this node, so they can be merged instead of sorted again.
+     */
+    public boolean sortedInputs() {
+        return sortedInputs;
+    }
+
+    public void sortedInputs(boolean sortedInputs) {
+        this.sortedInputs = sortedInputs;
+    }
+
     public List<DataType> inputTypes() {
         return inputTypes;
     }
@@ -95,6 +108,7 @@ public class MergeNode extends AbstractDQLPlanNode {
 
         numUpstreams = in.readVInt();
         contextId = new UUID(in.readLong(), in.readLong());
+        sortedInputs = in.readBoolean();
 
         int numCols = in.readVInt();
         if (numCols > 0) {
@@ -120,6 +134,7 @@ public class MergeNode extends AbstractDQLPlanNode {
         out.writeVInt(numUpstreams);
         out.writeLong(contextId.getMostSignificantBits());
         out.writeLong(contextId.getLeastSignificantBits());
+        out.writeBoolean(sortedInputs);
 
         int numCols = inputTypes.size();
         out.writeVInt(numCols);
@@ -145,6 +160,7 @@ public class MergeNode extends AbstractDQLPlanNode {
                 .add("outputTypes", outputTypes)
                 .add("contextId", contextId)
                 .add("numUpstreams", numUpstreams)
+                .add("sortedInputs", sortedInputs)
                 .add("executionNodes", executionNodes)
                 .add("inputTypes", inputTypes)
                 .toString();
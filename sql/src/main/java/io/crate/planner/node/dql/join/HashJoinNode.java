@@ -0,0 +1,196 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.node.dql.join;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.PlanNodeVisitor;
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Plan Node that will be executed with a hash join performing INNER JOINs
+ * whose join condition consists of equality predicates only
+ * (<code>left.a = right.b AND left.c = right.d</code>).
+ *
+ * Like the {@link NestedLoopNode} it assumes that
+ *
+ * <ul>
+ * <li> where clause parts that only reference one relation are already pushed down
+ *      to left and right plan nodes
+ * <li> the columns used in the join condition are part of the outputs of
+ *      left and right plan nodes. Their positions in the output rows are given by
+ *      <code>leftJoinKeys</code> and <code>rightJoinKeys</code>
+ * </ul>
+ *
+ * Join keys of different types are converted to a common type before they are compared,
+ * see {@link #joinKeyTypes()}.
+ *
+ * The resulting rows contain the columns of the left relation followed by the
+ * columns of the right relation, so projections can treat this node exactly
+ * like a {@link NestedLoopNode}. The order of the resulting rows is undefined.
+ */
+public class HashJoinNode extends AbstractDQLPlanNode {
+
+    private static final Set<DataType> INTEGRAL_TYPES = ImmutableSet.<DataType>of(
+            DataTypes.BYTE, DataTypes.SHORT, DataTypes.INTEGER, DataTypes.LONG, DataTypes.TIMESTAMP);
+
+    private final PlanNode left;
+    private final PlanNode right;
+    private final int[] leftJoinKeys;
+    private final int[] rightJoinKeys;
+    private final List<DataType> joinKeyTypes;
+    private final int limit;
+    private final int offset;
+
+    /**
+     * create a new HashJoinNode, the outputTypes of left and right must be set
+     *
+     * @param leftJoinKeys positions of the join columns inside the rows of the left relation
+     * @param rightJoinKeys positions of the join columns inside the rows of the right relation,
+     *                      <code>rightJoinKeys[i]</code> is compared to <code>leftJoinKeys[i]</code>
+     * @param limit the maximum number of rows to return
+     * @param offset the number of rows to skip
+     */
+    public HashJoinNode(PlanNode left,
+                        PlanNode right,
+                        int[] leftJoinKeys,
+                        int[] rightJoinKeys,
+                        int limit,
+                        int offset) {
+        super("hashJoin");
+        Preconditions.checkArgument(leftJoinKeys.length > 0, "hash join requires at least one join key");
+        Preconditions.checkArgument(leftJoinKeys.length == rightJoinKeys.length,
+                "number of left and right join keys must match");
+        this.left = left;
+        this.right = right;
+        this.leftJoinKeys = leftJoinKeys;
+        this.rightJoinKeys = rightJoinKeys;
+        this.joinKeyTypes = new ArrayList<>(leftJoinKeys.length);
+        for (int i = 0; i < leftJoinKeys.length; i++) {
+            joinKeyTypes.add(commonType(
+                    left.outputTypes().get(leftJoinKeys[i]),
+                    right.outputTypes().get(rightJoinKeys[i])));
+        }
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    public PlanNode left() {
+        return left;
+    }
+
+    public PlanNode right() {
+        return right;
+    }
+
+    public int[] leftJoinKeys() {
+        return leftJoinKeys;
+    }
+
+    public int[] rightJoinKeys() {
+        return rightJoinKeys;
+    }
+
+    /**
+     * the types the join keys are compared as, <code>joinKeyTypes().get(i)</code> is the type of
+     * <code>leftJoinKeys[i]</code> and <code>rightJoinKeys[i]</code> if both are of the same type.
+     * Otherwise both are converted to it, e.g. an integer and a long key are compared as long.
+     */
+    public List<DataType> joinKeyTypes() {
+        return joinKeyTypes;
+    }
+
+    /**
+     * equal values of different types have different hashCodes, so keys of different
+     * numeric types are converted to long or double, others can't be joined.
+     */
+    static DataType commonType(DataType leftType, DataType rightType) {
+        if (leftType.equals(rightType) || rightType.equals(DataTypes.UNDEFINED)) {
+            return leftType;
+        }
+        if (leftType.equals(DataTypes.UNDEFINED)) {
+            return rightType;
+        }
+        if (INTEGRAL_TYPES.contains(leftType) && INTEGRAL_TYPES.contains(rightType)) {
+            return DataTypes.LONG;
+        }
+        if (DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(leftType)
+            && DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(rightType)) {
+            return DataTypes.DOUBLE;
+        }
+        throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "join keys of type %s and %s can't be compared", leftType, rightType));
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public Set<String> executionNodes() {
+        return ImmutableSet.of();
+    }
+
+    @Override
+    public <C, R> R accept(PlanNodeVisitor<C, R> visitor, C context) {
+        return visitor.visitHashJoinNode(this, context);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        throw new UnsupportedOperationException("HashJoinNode not serializable");
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        throw new UnsupportedOperationException("HashJoinNode not serializable");
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id())
+                .add("projections", projections)
+                .add("outputTypes", outputTypes)
+                .add("left", left)
+                .add("right", right)
+                .add("leftJoinKeys", Arrays.toString(leftJoinKeys))
+                .add("rightJoinKeys", Arrays.toString(rightJoinKeys))
+                .add("joinKeyTypes", joinKeyTypes)
+                .add("offset", offset())
+                .add("limit", limit())
+                .toString();
+    }
+}
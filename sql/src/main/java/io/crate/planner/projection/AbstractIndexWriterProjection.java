@@ -23,11 +23,14 @@ package io.crate.planner.projection;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.ColumnIdent;
 import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.planner.symbol.Value;
 import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
@@ -35,7 +38,9 @@ import org.elasticsearch.common.settings.Settings;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractIndexWriterProjection extends Projection {
 
@@ -43,6 +48,21 @@ public abstract class AbstractIndexWriterProjection extends Projection {
             new Value(DataTypes.LONG)  // number of rows imported
     );
 
+    /**
+     * node attribute of nodes that can compute generated columns while writing rows.
+     *
+     * Older crate nodes run the same elasticsearch version, so the capability is negotiated
+     * with a node attribute. The generated columns aren't part of the streamed projection,
+     * requests carrying them have the {@link #GENERATED_COLUMNS_HEADER} header and stream them
+     * after their plan node, see {@link #writeGeneratedColumns(List, StreamOutput)}.
+     */
+    public static final String GENERATED_COLUMNS_NODE_ATTRIBUTE = "generated_columns";
+
+    /**
+     * header of requests whose plan node contains index writer projections with generated columns
+     */
+    public static final String GENERATED_COLUMNS_HEADER = "generated_columns";
+
     protected final static String BULK_SIZE = "bulk_size";
     protected final static int BULK_SIZE_DEFAULT = 10000;
 
@@ -55,6 +75,9 @@ public abstract class AbstractIndexWriterProjection extends Projection {
     protected List<Symbol> partitionedBySymbols;
     protected @Nullable Symbol clusteredBySymbol;
 
+    protected Map<Reference, Symbol> generatedColumns = ImmutableMap.of();
+    protected Map<ColumnIdent, Symbol> generatedColumnsArguments = ImmutableMap.of();
+
     protected boolean autoCreateIndices;
 
     protected AbstractIndexWriterProjection() {}
@@ -91,6 +114,33 @@ public abstract class AbstractIndexWriterProjection extends Projection {
         return partitionedBySymbols;
     }
 
+    public void partitionedBySymbols(List<Symbol> partitionedBySymbols) {
+        this.partitionedBySymbols = partitionedBySymbols;
+    }
+
+    /**
+     * the expressions of the generated columns which are computed for every written row.
+     *
+     * Generated columns which are also contained in {@link #partitionedBySymbols()} only
+     * determine the partition, all others are added to the source.
+     */
+    public Map<Reference, Symbol> generatedColumns() {
+        return generatedColumns;
+    }
+
+    /**
+     * the symbols providing the values of the top level columns the generated columns refer to
+     */
+    public Map<ColumnIdent, Symbol> generatedColumnsArguments() {
+        return generatedColumnsArguments;
+    }
+
+    public void generatedColumns(Map<Reference, Symbol> generatedColumns,
+                                 Map<ColumnIdent, Symbol> generatedColumnsArguments) {
+        this.generatedColumns = generatedColumns;
+        this.generatedColumnsArguments = generatedColumnsArguments;
+    }
+
     public boolean autoCreateIndices() {
         return autoCreateIndices;
     }
@@ -148,6 +198,8 @@ public abstract class AbstractIndexWriterProjection extends Projection {
             return false;
         if (!primaryKeys.equals(that.primaryKeys)) return false;
         if (!tableName.equals(that.tableName)) return false;
+        if (!generatedColumns.equals(that.generatedColumns)) return false;
+        if (!generatedColumnsArguments.equals(that.generatedColumnsArguments)) return false;
 
         return true;
     }
@@ -161,6 +213,8 @@ public abstract class AbstractIndexWriterProjection extends Projection {
         result = 31 * result + idSymbols.hashCode();
         result = 31 * result + partitionedBySymbols.hashCode();
         result = 31 * result + (clusteredBySymbol != null ? clusteredBySymbol.hashCode() : 0);
+        result = 31 * result + generatedColumns.hashCode();
+        result = 31 * result + generatedColumnsArguments.hashCode();
         return result;
     }
 
@@ -232,4 +286,66 @@ public abstract class AbstractIndexWriterProjection extends Projection {
         out.writeVInt(bulkActions);
         out.writeBoolean(autoCreateIndices);
     }
+
+    public static boolean isGeneratedColumnsSupported(DiscoveryNode node) {
+        return Boolean.parseBoolean(node.attributes().get(GENERATED_COLUMNS_NODE_ATTRIBUTE));
+    }
+
+    public static boolean hasGeneratedColumns(List<Projection> projections) {
+        for (Projection projection : projections) {
+            if (projection instanceof AbstractIndexWriterProjection
+                && !((AbstractIndexWriterProjection) projection).generatedColumns.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * write the generated columns of all index writer projections,
+     * must only be sent to nodes which support them, see {@link #isGeneratedColumnsSupported(DiscoveryNode)}
+     */
+    public static void writeGeneratedColumns(List<Projection> projections, StreamOutput out) throws IOException {
+        for (Projection projection : projections) {
+            if (projection instanceof AbstractIndexWriterProjection) {
+                ((AbstractIndexWriterProjection) projection).writeGeneratedColumns(out);
+            }
+        }
+    }
+
+    public static void readGeneratedColumns(List<Projection> projections, StreamInput in) throws IOException {
+        for (Projection projection : projections) {
+            if (projection instanceof AbstractIndexWriterProjection) {
+                ((AbstractIndexWriterProjection) projection).readGeneratedColumns(in);
+            }
+        }
+    }
+
+    private void readGeneratedColumns(StreamInput in) throws IOException {
+        int numGeneratedColumns = in.readVInt();
+        generatedColumns = new LinkedHashMap<>(numGeneratedColumns);
+        for (int i = 0; i < numGeneratedColumns; i++) {
+            generatedColumns.put((Reference) Symbol.fromStream(in), Symbol.fromStream(in));
+        }
+        int numArguments = in.readVInt();
+        generatedColumnsArguments = new LinkedHashMap<>(numArguments);
+        for (int i = 0; i < numArguments; i++) {
+            ColumnIdent ident = new ColumnIdent();
+            ident.readFrom(in);
+            generatedColumnsArguments.put(ident, Symbol.fromStream(in));
+        }
+    }
+
+    private void writeGeneratedColumns(StreamOutput out) throws IOException {
+        out.writeVInt(generatedColumns.size());
+        for (Map.Entry<Reference, Symbol> entry : generatedColumns.entrySet()) {
+            Symbol.toStream(entry.getKey(), out);
+            Symbol.toStream(entry.getValue(), out);
+        }
+        out.writeVInt(generatedColumnsArguments.size());
+        for (Map.Entry<ColumnIdent, Symbol> entry : generatedColumnsArguments.entrySet()) {
+            entry.getKey().writeTo(out);
+            Symbol.toStream(entry.getValue(), out);
+        }
+    }
 }
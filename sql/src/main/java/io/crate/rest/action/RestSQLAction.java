@@ -25,6 +25,7 @@ import io.crate.action.sql.*;
 import io.crate.action.sql.parser.SQLXContentSourceContext;
 import io.crate.action.sql.parser.SQLXContentSourceParser;
 import io.crate.exceptions.SQLParseException;
+import io.crate.http.netty.NettyHttpChannel;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.inject.Inject;
@@ -39,9 +40,17 @@ import java.io.StringWriter;
 
 public class RestSQLAction extends BaseRestHandler {
 
+    /**
+     * number of rows fetched at once if the result is streamed
+     */
+    public static final int DEFAULT_STREAM_PAGE_SIZE = 10_000;
+
+    private final TransportSQLAction transportSQLAction;
+
     @Inject
-    public RestSQLAction(Settings settings, Client client, RestController controller) {
+    public RestSQLAction(Settings settings, Client client, RestController controller, TransportSQLAction transportSQLAction) {
         super(settings, controller, client);
+        this.transportSQLAction = transportSQLAction;
 
         controller.registerHandler(RestRequest.Method.POST, "/_sql", this);
     }
@@ -86,6 +95,22 @@ public class RestSQLAction extends BaseRestHandler {
         requestBuilder.stmt(context.stmt());
         requestBuilder.args(context.args());
         requestBuilder.includeTypesOnResponse(request.paramAsBoolean("types", false));
+        if (request.paramAsBoolean("stream", false) && channel instanceof NettyHttpChannel) {
+            // the result is sent in chunks while the query is paged through
+            // instead of collecting all rows and rendering them at once
+            SQLRequest sqlRequest = requestBuilder.request();
+            transportSQLAction.executePaged(
+                    sqlRequest,
+                    request.paramAsInt("page_size", DEFAULT_STREAM_PAGE_SIZE),
+                    new StreamingSQLResponseListener(
+                            request,
+                            (NettyHttpChannel) channel,
+                            "ndjson".equals(request.param("format")),
+                            sqlRequest.includeTypesOnResponse(),
+                            sqlRequest.creationTime())
+            );
+            return;
+        }
         requestBuilder.execute(RestSQLAction.<SQLResponse>newListener(request, channel));
     }
 
@@ -0,0 +1,247 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.rest.action;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.SQLActionException;
+import io.crate.action.sql.SQLBaseResponse;
+import io.crate.action.sql.SQLPagedResultListener;
+import io.crate.http.netty.NettyHttpChannel;
+import io.crate.types.DataType;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+import static org.elasticsearch.ExceptionsHelper.detailedMessage;
+
+/**
+ * Writes the result of a paged SQL execution as HTTP response with chunked transfer encoding,
+ * every page becomes one chunk.
+ *
+ * The result is either written as JSON object in the format of a regular SQL response
+ * (with the duration following the rows) or as newline delimited JSON:
+ * a header object containing the columns, one array per row and a trailing object with rowcount and duration.
+ *
+ * If the request doesn't support chunked responses the result is buffered and sent as a whole.
+ */
+class StreamingSQLResponseListener implements SQLPagedResultListener {
+
+    static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson; charset=UTF-8";
+
+    private static final ESLogger logger = Loggers.getLogger(StreamingSQLResponseListener.class);
+    private static final byte NEW_LINE = '\n';
+
+    private final RestRequest request;
+    private final NettyHttpChannel channel;
+    private final boolean newLineDelimited;
+    private final boolean includeTypes;
+    private final long requestStartedTime;
+    private final BytesStreamOutput out = new BytesStreamOutput();
+
+    /**
+     * builder of the json format, it spans all chunks of the response
+     */
+    private XContentBuilder builder;
+
+    /**
+     * null if the response is buffered
+     */
+    private NettyHttpChannel.ChunkedResponse chunkedResponse;
+
+    StreamingSQLResponseListener(RestRequest request,
+                                 NettyHttpChannel channel,
+                                 boolean newLineDelimited,
+                                 boolean includeTypes,
+                                 long requestStartedTime) {
+        this.request = request;
+        this.channel = channel;
+        this.newLineDelimited = newLineDelimited;
+        this.includeTypes = includeTypes;
+        this.requestStartedTime = requestStartedTime;
+    }
+
+    private String contentType() {
+        return newLineDelimited ? NDJSON_CONTENT_TYPE : JSON_CONTENT_TYPE;
+    }
+
+    @Override
+    public void onStart(String[] outputNames, DataType[] outputTypes) {
+        chunkedResponse = channel.startChunkedResponse(RestStatus.OK, contentType());
+        try {
+            XContentBuilder header = XContentFactory.jsonBuilder(out);
+            header.startObject();
+            header.array("cols", outputNames);
+            if (includeTypes) {
+                header.startArray("colTypes");
+                for (DataType outputType : outputTypes) {
+                    SQLBaseResponse.toXContentNestedDataType(header, outputType);
+                }
+                header.endArray();
+            }
+            if (newLineDelimited) {
+                header.endObject();
+                header.flush();
+                out.write(NEW_LINE);
+            } else {
+                header.startArray("rows");
+                builder = header;
+            }
+        } catch (IOException e) {
+            onFailure(e);
+        }
+    }
+
+    @Override
+    public ListenableFuture<?> onPage(Object[][] rows) {
+        try {
+            if (newLineDelimited) {
+                for (Object[] row : rows) {
+                    XContentBuilder rowBuilder = XContentFactory.jsonBuilder(out);
+                    writeRow(rowBuilder, row);
+                    rowBuilder.flush();
+                    out.write(NEW_LINE);
+                }
+            } else {
+                for (Object[] row : rows) {
+                    writeRow(builder, row);
+                }
+                builder.flush();
+            }
+            return flush();
+        } catch (Throwable t) {
+            return Futures.immediateFailedFuture(t);
+        }
+    }
+
+    private static void writeRow(XContentBuilder builder, Object[] row) throws IOException {
+        builder.startArray();
+        for (Object value : row) {
+            builder.value(value);
+        }
+        builder.endArray();
+    }
+
+    /**
+     * send everything written so far as one chunk.
+     * Nothing is sent if nothing has been written (e.g. for an empty last page)
+     * because an empty chunk terminates the response.
+     *
+     * @return a future that is done once the chunk has been written to the channel
+     */
+    private ListenableFuture<?> flush() {
+        if (chunkedResponse == null || out.size() == 0) {
+            return Futures.immediateFuture(null);
+        }
+        BytesReference chunk = out.bytes().copyBytesArray();
+        out.reset();
+        final SettableFuture<Void> future = SettableFuture.create();
+        chunkedResponse.write(chunk).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture channelFuture) throws Exception {
+                if (channelFuture.isSuccess()) {
+                    future.set(null);
+                } else if (channelFuture.getCause() != null) {
+                    future.setException(channelFuture.getCause());
+                } else {
+                    future.setException(new ClosedChannelException());
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void onFinish(long rowCount) {
+        long duration = requestStartedTime > 0 ? System.currentTimeMillis() - requestStartedTime : -1L;
+        try {
+            if (newLineDelimited) {
+                XContentBuilder trailer = XContentFactory.jsonBuilder(out);
+                trailer.startObject()
+                        .field("rowcount", rowCount)
+                        .field("duration", duration)
+                        .endObject();
+                trailer.flush();
+                out.write(NEW_LINE);
+            } else {
+                builder.endArray();
+                builder.field("rowcount", rowCount);
+                builder.field("duration", duration);
+                builder.endObject();
+                builder.flush();
+            }
+            if (chunkedResponse == null) {
+                channel.sendResponse(new BytesRestResponse(RestStatus.OK, contentType(), out.bytes()));
+            } else {
+                flush();
+                chunkedResponse.finish();
+            }
+        } catch (Throwable t) {
+            onFailure(t);
+        }
+    }
+
+    @Override
+    public void onFailure(Throwable e) {
+        if (chunkedResponse == null) {
+            try {
+                channel.sendResponse(new CrateThrowableRestResponse(channel, e));
+            } catch (Throwable e1) {
+                logger.error("failed to send failure response", e1);
+            }
+            return;
+        }
+        // the response status has been sent already,
+        // the connection is closed without the terminating chunk to mark the response as incomplete.
+        logger.debug("streaming sql response to {} failed", e, request.path());
+        if (newLineDelimited && chunkedResponse.isOpen()) {
+            try {
+                out.reset();
+                XContentBuilder error = XContentFactory.jsonBuilder(out);
+                error.startObject().startObject("error")
+                        .field("message", detailedMessage(e))
+                        .field("code", e instanceof SQLActionException ? ((SQLActionException) e).errorCode() : 5000)
+                        .endObject().endObject();
+                error.flush();
+                out.write(NEW_LINE);
+                chunkedResponse.write(out.bytes().copyBytesArray()).addListener(ChannelFutureListener.CLOSE);
+                return;
+            } catch (Throwable e1) {
+                logger.error("failed to send failure", e1);
+            }
+        }
+        chunkedResponse.abort();
+    }
+}
@@ -32,6 +32,8 @@ import org.elasticsearch.action.admin.indices.create.TransportCreateIndexAction;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.AutoCreateIndex;
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -43,10 +45,7 @@ import org.elasticsearch.indices.IndexAlreadyExistsException;
 
 import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -56,31 +55,54 @@ import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadF
  * Processor to do Bulk Inserts, similar to {@link org.elasticsearch.action.bulk.BulkProcessor}
  * but less flexible (only supports IndexRequests)
  *
- * If the Bulk threadPool Queue is full retries are made and
- * the {@link #add(String, org.elasticsearch.common.bytes.BytesReference, String, String)} method will start to block.
+ * Requests are buffered per shard. A shard buffer is flushed as soon as it contains
+ * <code>bulkSize</code> items or if its oldest item is older than the flush interval.
+ * The number of requests in flight is limited per shard and per node, if the limit is reached the
+ * {@link #add(String, org.elasticsearch.common.bytes.BytesReference, String, String)} method will block.
+ *
+ * If the Bulk threadPool Queue is full retries are made with an increasing delay and
+ * the {@link #add(String, org.elasticsearch.common.bytes.BytesReference, String, String)} method
+ * will block until the retries succeeded.
  */
 public class BulkShardProcessor {
 
+    public static final String MAX_IN_FLIGHT_PER_SHARD = "insert_by_query.max_in_flight_requests_per_shard";
+    public static final String MAX_IN_FLIGHT_PER_NODE = "insert_by_query.max_in_flight_requests_per_node";
+    public static final String FLUSH_INTERVAL = "insert_by_query.flush_interval";
+
+    static final int DEFAULT_MAX_IN_FLIGHT_PER_SHARD = 2;
+    static final int DEFAULT_MAX_IN_FLIGHT_PER_NODE = 8;
+    static final TimeValue DEFAULT_FLUSH_INTERVAL = TimeValue.timeValueSeconds(1);
+    static final int MAX_RETRY_DELAY_MS = 1000;
+
+    /**
+     * used as node key for shards whose primary is not assigned
+     */
+    private static final String UNKNOWN_NODE = "";
+
     private final ClusterService clusterService;
     private final TransportShardBulkActionDelegate transportShardBulkActionDelegate;
     private final TransportCreateIndexAction transportCreateIndexAction;
     private final boolean autoCreateIndices;
     private final boolean allowCreateOnly;
     private final int bulkSize;
-    private final Map<ShardId, List<BulkItemRequest>> requestsByShard = new HashMap<>();
+    private final int maxInFlightPerShard;
+    private final int maxInFlightPerNode;
+    private final long flushIntervalNanos;
+    private final ConcurrentMap<ShardId, ShardBuffer> buffersByShard = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Semaphore> inFlightByNode = new ConcurrentHashMap<>();
     private final AutoCreateIndex autoCreateIndex;
     private final AtomicInteger globalCounter = new AtomicInteger(0);
-    private final AtomicInteger counter = new AtomicInteger(0);
     private final SettableFuture<BitSet> result;
     private final AtomicInteger pending = new AtomicInteger(0);
     private final AtomicInteger currentDelay = new AtomicInteger(0);
+    private final AtomicInteger activeRetries = new AtomicInteger(0);
+    private final Object retryMonitor = new Object();
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
     private final BitSet responses;
     private final Object responsesLock = new Object();
     private volatile boolean closed = false;
-    private final Set<String> indicesCreated = new HashSet<>();
-    private final ReadWriteLock retryLock = new ReadWriteLock();
-    private final Semaphore executeLock = new Semaphore(1);
+    private final Set<String> indicesCreated = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private final ScheduledExecutorService scheduledExecutorService =
             Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("bulkShardProcessor"));
     private final TimeValue requestTimeout;
@@ -104,6 +126,16 @@ public class BulkShardProcessor {
         result = SettableFuture.create();
         autoCreateIndex = new AutoCreateIndex(settings);
         requestTimeout = settings.getAsTime("insert_by_query.request_timeout", BulkShardRequest.DEFAULT_TIMEOUT);
+        maxInFlightPerShard = settings.getAsInt(MAX_IN_FLIGHT_PER_SHARD, DEFAULT_MAX_IN_FLIGHT_PER_SHARD);
+        maxInFlightPerNode = settings.getAsInt(MAX_IN_FLIGHT_PER_NODE, DEFAULT_MAX_IN_FLIGHT_PER_NODE);
+        TimeValue flushInterval = settings.getAsTime(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+        flushIntervalNanos = flushInterval.nanos();
+        scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushExpiredBuffers();
+            }
+        }, flushInterval.millis(), flushInterval.millis(), TimeUnit.MILLISECONDS);
     }
 
     public boolean add(String indexName, BytesReference source, String id, @Nullable String routing) {
@@ -119,26 +151,25 @@ public class BulkShardProcessor {
             createIndexIfRequired(indexName);
         }
 
-        // will only block if retries/writer are active
-        try {
-            retryLock.readLock();
-        } catch (InterruptedException e) {
-            Thread.interrupted();
-        }
+        // will only block if rejected requests are retried
+        awaitRetries();
 
-        partitionRequestByShard(indexName, source, id, routing);
-        executeIfNeeded();
+        ShardBuffer buffer = partitionRequestByShard(indexName, source, id, routing);
+        if (buffer.size() >= bulkSize) {
+            flush(buffer, true);
+        }
         return true;
     }
 
-    private void partitionRequestByShard(String indexName, BytesReference source, String id, @Nullable String routing) {
-        ShardId shardId = clusterService.operationRouting().indexShards(
+    private ShardBuffer partitionRequestByShard(String indexName, BytesReference source, String id, @Nullable String routing) {
+        ShardIterator shardIterator = clusterService.operationRouting().indexShards(
                 clusterService.state(),
                 indexName,
                 Constants.DEFAULT_MAPPING_TYPE,
                 id,
                 routing
-        ).shardId();
+        );
+        ShardId shardId = shardIterator.shardId();
 
         IndexRequest indexRequest = new IndexRequest(indexName, Constants.DEFAULT_MAPPING_TYPE, id);
         if (routing != null) {
@@ -148,19 +179,41 @@ public class BulkShardProcessor {
         indexRequest.timestamp(Long.toString(System.currentTimeMillis()));
         indexRequest.create(allowCreateOnly);
 
-        try {
-            executeLock.acquire();
-        } catch (InterruptedException e) {
-            Thread.interrupted();
-        }
-        List<BulkItemRequest> items = requestsByShard.get(shardId);
-        if (items == null) {
-            items = new ArrayList<>();
-            requestsByShard.put(shardId, items);
-        }
-        counter.getAndIncrement();
-        items.add(new BulkItemRequest(globalCounter.getAndIncrement(), indexRequest));
-        executeLock.release();
+        ShardBuffer buffer = buffersByShard.get(shardId);
+        if (buffer == null) {
+            buffer = new ShardBuffer(shardId, nodeInFlight(primaryNodeId(shardIterator)), maxInFlightPerShard);
+            ShardBuffer existing = buffersByShard.putIfAbsent(shardId, buffer);
+            if (existing != null) {
+                buffer = existing;
+            }
+        }
+        buffer.add(new BulkItemRequest(globalCounter.getAndIncrement(), indexRequest));
+        return buffer;
+    }
+
+    private static String primaryNodeId(ShardIterator shardIterator) {
+        for (int i = 0; i < shardIterator.size(); i++) {
+            ShardRouting shardRouting = shardIterator.nextOrNull();
+            if (shardRouting == null) {
+                break;
+            }
+            if (shardRouting.primary() && shardRouting.currentNodeId() != null) {
+                return shardRouting.currentNodeId();
+            }
+        }
+        return UNKNOWN_NODE;
+    }
+
+    private Semaphore nodeInFlight(String nodeId) {
+        Semaphore semaphore = inFlightByNode.get(nodeId);
+        if (semaphore == null) {
+            semaphore = new Semaphore(maxInFlightPerNode);
+            Semaphore existing = inFlightByNode.putIfAbsent(nodeId, semaphore);
+            if (existing != null) {
+                semaphore = existing;
+            }
+        }
+        return semaphore;
     }
 
     public ListenableFuture<BitSet> result() {
@@ -170,7 +223,11 @@ public class BulkShardProcessor {
     public void close() {
         trace("close");
         closed = true;
-        executeRequests();
+        for (ShardBuffer buffer : buffersByShard.values()) {
+            while (!buffer.isEmpty() && failure.get() == null) {
+                flush(buffer, true);
+            }
+        }
         if (pending.get() == 0) {
             setResult();
         }
@@ -180,6 +237,10 @@ public class BulkShardProcessor {
         failure.compareAndSet(null, e);
         result.setException(e);
         scheduledExecutorService.shutdown();
+        // wake up producers waiting for retries
+        synchronized (retryMonitor) {
+            retryMonitor.notifyAll();
+        }
     }
 
     private void setResult() {
@@ -200,65 +261,111 @@ public class BulkShardProcessor {
         }
     }
 
-    private void executeIfNeeded() {
-        if (closed || counter.get() >= bulkSize) {
-            executeRequests();
+    private void flushExpiredBuffers() {
+        long now = System.nanoTime();
+        for (ShardBuffer buffer : buffersByShard.values()) {
+            if (!buffer.isEmpty() && now - buffer.firstItemNanos >= flushIntervalNanos) {
+                // never block the scheduler, the buffer is checked again with the next run
+                flush(buffer, false);
+            }
         }
     }
 
-    private void executeRequests() {
-        try {
-            executeLock.acquire();
-        } catch (InterruptedException e) {
-            Thread.interrupted();
-        }
-        for (Iterator<Map.Entry<ShardId, List<BulkItemRequest>>> it = requestsByShard.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<ShardId, List<BulkItemRequest>> entry = it.next();
-            ShardId shardId= entry.getKey();
-            List<BulkItemRequest> items = entry.getValue();
-            BulkShardRequest bulkShardRequest = new BulkShardRequest(
-                    new BulkRequest(),
-                    shardId.index().name(),
-                    shardId.id(),
-                    false,
-                    items.toArray(new BulkItemRequest[items.size()]));
-            bulkShardRequest.timeout(requestTimeout);
-            execute(bulkShardRequest);
-            it.remove();
-        }
-        counter.set(0);
-        executeLock.release();
+    /**
+     * send up to <code>bulkSize</code> items of the buffer to its shard
+     *
+     * @param block if true, wait until the in-flight limits allow another request,
+     *              otherwise don't flush if they are exhausted
+     */
+    private void flush(ShardBuffer buffer, boolean block) {
+        if (block) {
+            buffer.nodeInFlight.acquireUninterruptibly();
+            buffer.inFlight.acquireUninterruptibly();
+        } else {
+            if (!buffer.nodeInFlight.tryAcquire()) {
+                return;
+            }
+            if (!buffer.inFlight.tryAcquire()) {
+                buffer.nodeInFlight.release();
+                return;
+            }
+        }
+        BulkItemRequest[] items = buffer.drain(bulkSize);
+        if (items.length == 0) {
+            buffer.release();
+            return;
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(
+                new BulkRequest(),
+                buffer.shardId.index().name(),
+                buffer.shardId.id(),
+                false,
+                items);
+        bulkShardRequest.timeout(requestTimeout);
+        execute(bulkShardRequest, buffer);
     }
 
-    private void execute(BulkShardRequest bulkShardRequest) {
-        trace(String.format("execute shard request %d", bulkShardRequest.shardId()));
-        transportShardBulkActionDelegate.execute(bulkShardRequest, new ResponseListener(bulkShardRequest));
+    private void execute(BulkShardRequest bulkShardRequest, ShardBuffer buffer) {
+        trace(String.format(Locale.ENGLISH, "execute shard request %d", bulkShardRequest.shardId()));
+        transportShardBulkActionDelegate.execute(bulkShardRequest, new ResponseListener(bulkShardRequest, buffer));
     }
 
-    private void doRetry(final BulkShardRequest request, final boolean repeatingRetry) {
-        trace("doRetry");
-        if (repeatingRetry) {
-            try {
-                Thread.sleep(currentDelay.incrementAndGet());
-            } catch (InterruptedException e) {
-                Thread.interrupted();
+    private void awaitRetries() {
+        if (activeRetries.get() == 0) {
+            return;
+        }
+        synchronized (retryMonitor) {
+            while (activeRetries.get() > 0 && failure.get() == null) {
+                try {
+                    retryMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.interrupted();
+                    return;
+                }
             }
-            transportShardBulkActionDelegate.execute(request, new RetryResponseListener(request));
-        } else {
-            // new retries will be spawned in new thread because they can block
+        }
+    }
+
+    private void retryFinished() {
+        if (activeRetries.decrementAndGet() == 0) {
+            synchronized (retryMonitor) {
+                retryMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * doubles the delay with every rejection up to {@link #MAX_RETRY_DELAY_MS},
+     * a successful retry resets it.
+     */
+    private int nextRetryDelay() {
+        while (true) {
+            int delay = currentDelay.get();
+            int next = Math.min(MAX_RETRY_DELAY_MS, Math.max(1, delay * 2));
+            if (currentDelay.compareAndSet(delay, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void doRetry(final BulkShardRequest request, final ShardBuffer buffer, boolean repeatingRetry) {
+        trace("doRetry");
+        if (!repeatingRetry) {
+            // producers are blocked until all retries are done
+            activeRetries.incrementAndGet();
+        }
+        try {
             scheduledExecutorService.schedule(
                     new Runnable() {
                         @Override
                         public void run() {
-                            // will block if other retries/writer are active
-                            try {
-                                retryLock.writeLock();
-                            } catch (InterruptedException e) {
-                                Thread.interrupted();
-                            }
-                            transportShardBulkActionDelegate.execute(request, new RetryResponseListener(request));
+                            transportShardBulkActionDelegate.execute(request, new RetryResponseListener(request, buffer));
                         }
-                    }, currentDelay.getAndIncrement(), TimeUnit.MILLISECONDS);
+                    }, nextRetryDelay(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // scheduler is shut down because of a failure
+            retryFinished();
+            buffer.release();
         }
     }
 
@@ -293,21 +400,17 @@ public class BulkShardProcessor {
         setResultIfDone(bulkShardResponse.getResponses().length);
     }
 
-    private void processFailure(Throwable e, BulkShardRequest bulkShardRequest, boolean repeatingRetry) {
+    private void processFailure(Throwable e, BulkShardRequest bulkShardRequest, ShardBuffer buffer, boolean repeatingRetry) {
         trace("execute failure");
         e = Exceptions.unwrap(e);
         if (e instanceof EsRejectedExecutionException) {
             logger.trace("{}, retrying", e.getMessage());
-            doRetry(bulkShardRequest, repeatingRetry);
+            doRetry(bulkShardRequest, buffer, repeatingRetry);
         } else {
             if (repeatingRetry) {
-                // release failed retry
-                try {
-                    retryLock.writeUnlock();
-                } catch (InterruptedException ex) {
-                    Thread.interrupted();
-                }
+                retryFinished();
             }
+            buffer.release();
             for (BulkItemRequest bulkItemRequest : bulkShardRequest.items()) {
                 synchronized (responsesLock) {
                     responses.set(bulkItemRequest.id(), false);
@@ -317,101 +420,107 @@ public class BulkShardProcessor {
         }
     }
 
+    /**
+     * items waiting to be sent to one shard
+     */
+    private static class ShardBuffer {
+
+        private final ShardId shardId;
+        private final Semaphore inFlight;
+        private final Semaphore nodeInFlight;
+        private final Queue<BulkItemRequest> items = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        private volatile long firstItemNanos;
+
+        ShardBuffer(ShardId shardId, Semaphore nodeInFlight, int maxInFlight) {
+            this.shardId = shardId;
+            this.nodeInFlight = nodeInFlight;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        void add(BulkItemRequest item) {
+            items.add(item);
+            if (size.getAndIncrement() == 0) {
+                firstItemNanos = System.nanoTime();
+            }
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        boolean isEmpty() {
+            return items.isEmpty();
+        }
+
+        BulkItemRequest[] drain(int maxItems) {
+            List<BulkItemRequest> drained = new ArrayList<>(Math.max(0, Math.min(maxItems, size.get())));
+            BulkItemRequest item;
+            while (drained.size() < maxItems && (item = items.poll()) != null) {
+                drained.add(item);
+            }
+            if (size.addAndGet(-drained.size()) > 0) {
+                firstItemNanos = System.nanoTime();
+            }
+            return drained.toArray(new BulkItemRequest[drained.size()]);
+        }
+
+        /**
+         * release the in-flight permits of a finished request
+         */
+        void release() {
+            inFlight.release();
+            nodeInFlight.release();
+        }
+    }
+
     class ResponseListener implements ActionListener<BulkShardResponse> {
 
         protected final BulkShardRequest bulkShardRequest;
+        protected final ShardBuffer buffer;
 
-        public ResponseListener(BulkShardRequest bulkShardRequest) {
+        public ResponseListener(BulkShardRequest bulkShardRequest, ShardBuffer buffer) {
             this.bulkShardRequest = bulkShardRequest;
+            this.buffer = buffer;
         }
 
         @Override
         public void onResponse(BulkShardResponse bulkShardResponse) {
+            buffer.release();
             processResponse(bulkShardResponse);
         }
 
         @Override
         public void onFailure(Throwable e) {
-            processFailure(e, bulkShardRequest, false);
+            processFailure(e, bulkShardRequest, buffer, false);
         }
     }
 
     private void trace(String message) {
         if (logger.isTraceEnabled()) {
             logger.trace("BulkShardProcessor: pending: {}; active retries: {} - {}",
-                    pending.get(), retryLock.activeWriters(), message);
+                    pending.get(), activeRetries.get(), message);
         }
     }
 
     class RetryResponseListener extends ResponseListener {
 
-        public RetryResponseListener(BulkShardRequest bulkShardRequest) {
-            super(bulkShardRequest);
+        public RetryResponseListener(BulkShardRequest bulkShardRequest, ShardBuffer buffer) {
+            super(bulkShardRequest, buffer);
         }
 
         @Override
         public void onResponse(BulkShardResponse bulkShardResponse) {
             trace("BulkShardProcessor retry success");
             currentDelay.set(0);
-            try {
-                retryLock.writeUnlock();
-            } catch (InterruptedException e) {
-                Thread.interrupted();
-            }
-            processResponse(bulkShardResponse);
+            retryFinished();
+            super.onResponse(bulkShardResponse);
         }
 
         @Override
         public void onFailure(Throwable e) {
             trace("BulkShardProcessor retry failure");
-            processFailure(e, bulkShardRequest, true);
+            processFailure(e, bulkShardRequest, buffer, true);
         }
     }
-
-    /**
-     * A {@link Semaphore} based read/write lock allowing multiple readers,
-     * no reader will block others, and only 1 active writer. Writers take
-     * precedence over readers, a writer will block all readers.
-     * Compared to a {@link ReadWriteLock}, no lock is owned by a thread.
-     */
-    class ReadWriteLock {
-        private final Semaphore readLock = new Semaphore(1, true);
-        private final Semaphore writeLock = new Semaphore(1, true);
-        private final AtomicInteger activeWriters = new AtomicInteger(0);
-        private final AtomicInteger waitingReaders = new AtomicInteger(0);
-
-        public ReadWriteLock() {
-        }
-
-        public void writeLock() throws InterruptedException {
-            // check readLock permits to prevent deadlocks
-            if (activeWriters.getAndIncrement() == 0 && readLock.availablePermits() == 1) {
-                // draining read permits, so all reads will block
-                readLock.drainPermits();
-            }
-            writeLock.acquire();
-        }
-
-        public void writeUnlock() throws InterruptedException {
-            if (activeWriters.decrementAndGet() == 0) {
-                // unlock all readers
-                readLock.release(waitingReaders.getAndSet(0)+1);
-            }
-            writeLock.release();
-        }
-
-        public void readLock() throws InterruptedException {
-            // only acquire permit if writers are active
-            if(activeWriters.get() > 0) {
-                waitingReaders.getAndIncrement();
-                readLock.acquire();
-            }
-        }
-
-        public int activeWriters() {
-            return activeWriters.get();
-        }
-
-    }
-
 }
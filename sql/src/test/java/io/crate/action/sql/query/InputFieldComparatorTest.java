@@ -0,0 +1,128 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql.query;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
+import io.crate.types.DataTypes;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.SortField;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class InputFieldComparatorTest {
+
+    /**
+     * returns the value at the index of the current doc
+     */
+    private static class ArrayExpression extends LuceneCollectorExpression<Object> {
+
+        private final Object[] values;
+        private int doc;
+
+        private ArrayExpression(Object... values) {
+            this.values = values;
+        }
+
+        @Override
+        public void setNextDocId(int doc) {
+            this.doc = doc;
+        }
+
+        @Override
+        public Object value() {
+            return values[doc];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private FieldComparator comparator(SortField.Type type, Object missingValue, Object... values) {
+        ArrayExpression expression = new ArrayExpression(values);
+        return CrateSearchService.newInputComparator(
+                values.length,
+                new CollectorContext(),
+                ImmutableList.<LuceneCollectorExpression>of(expression),
+                expression,
+                DataTypes.LONG,
+                type,
+                missingValue);
+    }
+
+    @Test
+    public void testLongComparator() throws Exception {
+        FieldComparator comparator = comparator(SortField.Type.LONG, Long.MAX_VALUE, 3L, null, -1L);
+        assertThat(comparator, instanceOf(CrateSearchService.LongInputFieldComparator.class));
+        for (int doc = 0; doc < 3; doc++) {
+            comparator.copy(doc, doc);
+        }
+        assertThat(comparator.compare(0, 2), greaterThan(0));
+        assertThat(comparator.compare(2, 0), lessThan(0));
+        // null is replaced by the missing value
+        assertThat(comparator.compare(1, 0), greaterThan(0));
+        assertThat((Long) comparator.value(1), is(Long.MAX_VALUE));
+
+        comparator.setBottom(0);
+        assertThat(comparator.compareBottom(2), greaterThan(0));
+        assertThat(comparator.compareBottom(0), is(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDoubleComparator() throws Exception {
+        FieldComparator comparator = comparator(SortField.Type.DOUBLE, Double.NEGATIVE_INFINITY, 1.5d, 0.5d, null);
+        assertThat(comparator, instanceOf(CrateSearchService.DoubleInputFieldComparator.class));
+        for (int doc = 0; doc < 3; doc++) {
+            comparator.copy(doc, doc);
+        }
+        assertThat(comparator.compare(0, 1), greaterThan(0));
+        assertThat(comparator.compare(2, 1), lessThan(0));
+
+        comparator.setTopValue(1.0d);
+        assertThat(comparator.compareTop(0), lessThan(0));
+        assertThat(comparator.compareTop(1), greaterThan(0));
+    }
+
+    @Test
+    public void testIntAndFloatComparators() throws Exception {
+        FieldComparator intComparator = comparator(SortField.Type.INT, Integer.MIN_VALUE, 2, 1);
+        assertThat(intComparator, instanceOf(CrateSearchService.IntInputFieldComparator.class));
+        intComparator.copy(0, 0);
+        intComparator.copy(1, 1);
+        assertThat(intComparator.compare(0, 1), greaterThan(0));
+
+        FieldComparator floatComparator = comparator(SortField.Type.FLOAT, Float.MIN_VALUE, 0.1f, 0.2f);
+        assertThat(floatComparator, instanceOf(CrateSearchService.FloatInputFieldComparator.class));
+        floatComparator.copy(0, 0);
+        floatComparator.copy(1, 1);
+        assertThat(floatComparator.compare(0, 1), lessThan(0));
+    }
+
+    @Test
+    public void testOtherTypesUseGenericComparator() throws Exception {
+        FieldComparator comparator = comparator(SortField.Type.STRING, null, 1L, 2L);
+        assertThat(comparator, instanceOf(CrateSearchService.InputFieldComparator.class));
+    }
+}
@@ -32,6 +32,7 @@ import io.crate.metadata.sys.MetaDataSysModule;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.metadata.table.SchemaInfo;
 import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.scalar.ScalarFunctionModule;
 import io.crate.testing.MockedClusterServiceModule;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.settings.ImmutableSettings;
@@ -85,7 +86,8 @@ public class CreateAlterTableStatementAnalyzerTest extends BaseAnalyzerTest {
                         new MetaDataInformationModule(),
                         new TestMetaDataModule(),
                         new MetaDataSysModule(),
-                        new OperatorModule())
+                        new OperatorModule(),
+                        new ScalarFunctionModule())
         );
         return modules;
     }
@@ -644,4 +646,53 @@ public class CreateAlterTableStatementAnalyzerTest extends BaseAnalyzerTest {
         expectedException.expectMessage("column name \"'test\" is invalid");
         analyze("create table my_table (\"'test\" string)");
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateTableWithGeneratedColumn() throws Exception {
+        CreateTableAnalyzedStatement analysis = (CreateTableAnalyzedStatement) analyze(
+                "create table foo (ts timestamp, day timestamp generated always as (date_trunc('day', ts)))");
+
+        Map<String, Object> metaMapping = (Map<String, Object>) analysis.mapping().get("_meta");
+        Map<String, Object> generatedColumns = (Map<String, Object>) metaMapping.get("generated_columns");
+        assertThat((String) generatedColumns.get("day"), is("date_trunc('day', \"ts\")"));
+
+        Map<String, Object> dayMapping = (Map<String, Object>) analysis.mappingProperties().get("day");
+        assertThat((String) dayMapping.get("type"), is("date"));
+    }
+
+    @Test
+    public void testGeneratedColumnReferencingUnknownColumn() throws Exception {
+        expectedException.expect(ColumnUnknownException.class);
+        expectedException.expectMessage("Column foo unknown");
+        analyze("create table t (ts timestamp, day timestamp generated always as (date_trunc('day', foo)))");
+    }
+
+    @Test
+    public void testGeneratedColumnReferencingGeneratedColumn() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Generated column \"y\" cannot refer to generated column \"x\"");
+        analyze("create table t (a int, x int generated always as (a + 1), y int generated always as (x + 1))");
+    }
+
+    @Test
+    public void testGeneratedColumnAsPrimaryKey() throws Exception {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("Generated column \"x\" cannot be part of the primary key");
+        analyze("create table t (a int, x int generated always as (a + 1) primary key)");
+    }
+
+    @Test
+    public void testGeneratedColumnWithNonDeterministicFunction() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Expression of generated column \"x\" must be deterministic, \"random\" is not");
+        analyze("create table t (a double, x double generated always as (a + random()))");
+    }
+
+    @Test
+    public void testGeneratedColumnWithCurrentTimestamp() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Expression of generated column \"x\" must be deterministic, \"current_timestamp\" is not");
+        analyze("create table t (ts timestamp, x long generated always as (ts - current_timestamp))");
+    }
 }
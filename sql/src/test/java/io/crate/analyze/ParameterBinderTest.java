@@ -0,0 +1,116 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.sys.MetaDataSysModule;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Symbol;
+import io.crate.sql.parser.SqlParser;
+import io.crate.testing.MockedClusterServiceModule;
+import org.elasticsearch.common.inject.Module;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.assertLiteralSymbol;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ParameterBinderTest extends BaseAnalyzerTest {
+
+    @Override
+    protected List<Module> getModules() {
+        List<Module> modules = super.getModules();
+        modules.addAll(Arrays.<Module>asList(
+                        new MockedClusterServiceModule(),
+                        new DeleteAnalyzerTest.TestMetaDataModule(),
+                        new MetaDataSysModule(),
+                        new OperatorModule())
+        );
+        return modules;
+    }
+
+    private Analysis analysis(String statement, Object... args) {
+        return analyzer.analyze(SqlParser.createStatement(statement), args, new Object[0][]);
+    }
+
+    private static Symbol whereArgument(WhereClause whereClause, int idx) {
+        return ((Function) whereClause.query()).arguments().get(idx);
+    }
+
+    @Test
+    public void testBindDelete() throws Exception {
+        Analysis analysis = analysis("delete from users where name = ?", "Trillian");
+        Analysis bound = ParameterBinder.bind(analysis, new Object[]{"Arthur"});
+        assertThat(bound, notNullValue());
+
+        DeleteAnalyzedStatement boundStatement = (DeleteAnalyzedStatement) bound.analyzedStatement();
+        assertLiteralSymbol(whereArgument(boundStatement.whereClauses().get(0), 1), "Arthur");
+
+        DeleteAnalyzedStatement statement = (DeleteAnalyzedStatement) analysis.analyzedStatement();
+        assertLiteralSymbol(whereArgument(statement.whereClauses().get(0), 1), "Trillian");
+    }
+
+    @Test
+    public void testBindUpdate() throws Exception {
+        Analysis analysis = analysis("update users set name = ? where id = ?", "Trillian", 1L);
+        Analysis bound = ParameterBinder.bind(analysis, new Object[]{"Arthur", 2L});
+        assertThat(bound, notNullValue());
+
+        UpdateAnalyzedStatement.NestedAnalyzedStatement nestedStatement =
+                ((UpdateAnalyzedStatement) bound.analyzedStatement()).nestedStatements().get(0);
+        assertLiteralSymbol(nestedStatement.assignments().values().iterator().next(), "Arthur");
+        assertLiteralSymbol(whereArgument(nestedStatement.whereClause(), 1), 2L);
+    }
+
+    @Test
+    public void testBindSelect() throws Exception {
+        Analysis analysis = analysis("select name from users where name = ?", "Trillian");
+        Analysis bound = ParameterBinder.bind(analysis, new Object[]{"Arthur"});
+        assertThat(bound, notNullValue());
+
+        SelectAnalyzedStatement boundStatement = (SelectAnalyzedStatement) bound.analyzedStatement();
+        assertThat(boundStatement.outputNames(), contains("name"));
+        assertLiteralSymbol(whereArgument(boundStatement.whereClause(), 1), "Arthur");
+    }
+
+    @Test
+    public void testParameterUsedAsValueCanNotBeBound() throws Exception {
+        Analysis analysis = analysis("select name from users limit ?", 1);
+        assertThat(ParameterBinder.bind(analysis, new Object[]{2}), nullValue());
+    }
+
+    @Test
+    public void testConvertedParameterCanNotBeBound() throws Exception {
+        // the integer literal is converted to a long literal for the comparison with the long column
+        Analysis analysis = analysis("select name from users where id = ?", 1);
+        assertThat(ParameterBinder.bind(analysis, new Object[]{2}), nullValue());
+    }
+
+    @Test
+    public void testNullValueCanNotBeBound() throws Exception {
+        Analysis analysis = analysis("select name from users where name = ?", "Trillian");
+        assertThat(ParameterBinder.bind(analysis, new Object[]{null}), nullValue());
+    }
+}
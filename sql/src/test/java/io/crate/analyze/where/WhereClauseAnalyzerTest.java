@@ -39,6 +39,7 @@ import io.crate.operation.operator.OperatorModule;
 import io.crate.operation.predicate.PredicateModule;
 import io.crate.operation.scalar.ScalarFunctionModule;
 import io.crate.planner.RowGranularity;
+import io.crate.planner.symbol.Function;
 import io.crate.sql.parser.SqlParser;
 import io.crate.testing.MockedClusterServiceModule;
 import io.crate.types.ArrayType;
@@ -56,6 +57,8 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
+import static io.crate.testing.TestingHelpers.isFunction;
+import static io.crate.testing.TestingHelpers.isReference;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -136,6 +139,12 @@ public class WhereClauseAnalyzerTest extends AbstractRandomizedTest {
                     .add("friends", new ArrayType(DataTypes.OBJECT), null, ColumnPolicy.DYNAMIC)
                     .clusteredBy("id")
                     .build());
+            when(schemaInfo.getTableInfo("generated_col")).thenReturn(
+                TestingTableInfo.builder(new TableIdent("doc", "generated_col"), RowGranularity.DOC, twoNodeRouting)
+                    .add("ts", DataTypes.TIMESTAMP, null)
+                    .add("x", DataTypes.INTEGER, null)
+                    .addGeneratedColumn("day", DataTypes.TIMESTAMP, "date_trunc('day', ts)", false)
+                    .build());
             schemaBinder.addBinding(ReferenceInfos.DEFAULT_SCHEMA_NAME).toInstance(schemaInfo);
         }
     }
@@ -547,4 +556,38 @@ public class WhereClauseAnalyzerTest extends AbstractRandomizedTest {
                     "partitioned columns led to a query that can't be executed."));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGeneratedColumnExpressionIsRewrittenToColumn() throws Exception {
+        WhereClauseContext ctx = analyzeSelectWhere(
+                "select ts from generated_col where date_trunc('day', ts) = 1395874800000 and x = 1");
+        Function and = (Function) ctx.whereClause().query();
+        assertThat(and, isFunction("op_and"));
+        assertThat(and.arguments().get(0), isFunction("op_="));
+        assertThat(((Function) and.arguments().get(0)).arguments().get(0), isReference("day"));
+        assertThat(((Function) and.arguments().get(1)).arguments().get(0), isReference("x"));
+    }
+
+    @Test
+    public void testOtherExpressionIsNotRewrittenToGeneratedColumn() throws Exception {
+        WhereClauseContext ctx = analyzeSelectWhere(
+                "select ts from generated_col where date_trunc('month', ts) = 1393632000000");
+        Function eq = (Function) ctx.whereClause().query();
+        assertThat(eq.arguments().get(0), isFunction("date_trunc"));
+    }
+
+    @Test
+    public void testGeneratedColumnsAreAnalyzedOncePerTableInfo() throws Exception {
+        TableInfo tableInfo = ctxMetaData.referenceInfos().getTableInfoUnsafe(new TableIdent("doc", "generated_col"));
+        GeneratedColumns generatedColumns = ctxMetaData.generatedColumns(tableInfo);
+        assertThat(ctxMetaData.generatedColumns(tableInfo), sameInstance(generatedColumns));
+
+        // a new table info, as created if the mapping changes, is analyzed again
+        TableInfo changedTableInfo = TestingTableInfo.builder(
+                new TableIdent("doc", "generated_col"), RowGranularity.DOC, twoNodeRouting)
+                .add("ts", DataTypes.TIMESTAMP, null)
+                .addGeneratedColumn("day", DataTypes.TIMESTAMP, "date_trunc('day', ts)", false)
+                .build();
+        assertThat(ctxMetaData.generatedColumns(changedTableInfo), not(sameInstance(generatedColumns)));
+    }
+}
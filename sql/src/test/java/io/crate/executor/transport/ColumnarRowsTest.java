@@ -0,0 +1,193 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.Streamer;
+import io.crate.executor.transport.distributed.DistributedResultRequest;
+import io.crate.executor.transport.merge.NodeMergeResponse;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ColumnarRowsTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+            DataTypes.LONG.streamer(),
+            DataTypes.INTEGER.streamer(),
+            DataTypes.SHORT.streamer(),
+            DataTypes.DOUBLE.streamer(),
+            DataTypes.FLOAT.streamer(),
+            DataTypes.BOOLEAN.streamer(),
+            DataTypes.STRING.streamer(),
+            DataTypes.TIMESTAMP.streamer(),
+            DataTypes.OBJECT.streamer()
+    };
+
+    private Object[][] rows(int numRows, int numDistinctStrings) {
+        Object[][] rows = new Object[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            Map<String, Object> obj = new HashMap<>();
+            obj.put("i", i);
+            rows[i] = new Object[]{
+                    i % 7 == 0 ? null : (i % 2 == 0 ? Long.MAX_VALUE - i : Long.MIN_VALUE + i),
+                    i % 5 == 0 ? null : -i,
+                    (short) i,
+                    i * 0.5d,
+                    i % 3 == 0 ? null : i * 1.5f,
+                    i % 4 == 0 ? null : i % 3 == 1,
+                    i % 6 == 0 ? null : new BytesRef("Trillian-" + (i % numDistinctStrings)),
+                    1420070400000L + i * 1000L,
+                    obj
+            };
+        }
+        return rows;
+    }
+
+    private Object[][] streamed(Object[][] rows) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        ColumnarRows.writeTo(out, rows, STREAMERS);
+        StreamInput in = new BytesStreamInput(out.bytes());
+        assertThat(in.readVInt(), is(ColumnarRows.MARKER));
+        return ColumnarRows.readFrom(in, STREAMERS);
+    }
+
+    @Test
+    public void testStreamingWithDictionaryEncodedStrings() throws Exception {
+        Object[][] rows = rows(100, 3);
+        assertThat(streamed(rows), is(rows));
+    }
+
+    @Test
+    public void testStreamingWithPrefixEncodedStrings() throws Exception {
+        Object[][] rows = rows(100, 100);
+        assertThat(streamed(rows), is(rows));
+    }
+
+    @Test
+    public void testStreamingOfEmptyAndNullRows() throws Exception {
+        assertThat(streamed(new Object[0][]).length, is(0));
+
+        Object[][] rows = new Object[][]{new Object[STREAMERS.length], new Object[STREAMERS.length]};
+        assertThat(streamed(rows), is(rows));
+    }
+
+    @Test
+    public void testColumnarIsSmallerThanRowWise() throws Exception {
+        Object[][] rows = rows(1000, 10);
+        BytesStreamOutput columnar = new BytesStreamOutput();
+        ColumnarRows.writeTo(columnar, rows, STREAMERS);
+
+        BytesStreamOutput rowWise = new BytesStreamOutput();
+        for (Object[] row : rows) {
+            for (int c = 0; c < STREAMERS.length; c++) {
+                STREAMERS[c].writeValueTo(rowWise, row[c]);
+            }
+        }
+        assertThat(columnar.size(), lessThan(rowWise.size()));
+    }
+
+    @Test
+    public void testIsSupportedByNodeAttribute() throws Exception {
+        DiscoveryNode newNode = new DiscoveryNode("n1", "n1", DummyTransportAddress.INSTANCE,
+                ImmutableMap.of(ColumnarRows.NODE_ATTRIBUTE, "true"), Version.CURRENT);
+        DiscoveryNode oldNode = new DiscoveryNode("n2", "n2", DummyTransportAddress.INSTANCE,
+                ImmutableMap.<String, String>of(), Version.CURRENT);
+        assertThat(ColumnarRows.isSupported(newNode), is(true));
+        assertThat(ColumnarRows.isSupported(oldNode), is(false));
+    }
+
+    @Test
+    public void testRowWiseStreamingForOldNodes() throws Exception {
+        // older crate releases run on the same elasticsearch version and only read the row-wise format
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.LONG.streamer(), DataTypes.STRING.streamer()};
+        Object[][] rows = new Object[][]{
+                new Object[]{1L, new BytesRef("Arthur")},
+                new Object[]{2L, null}
+        };
+        DistributedResultRequest request = new DistributedResultRequest(UUID.randomUUID(), streamers);
+        request.rows(rows);
+        request.columnar(false);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_1_3_0);
+        request.writeTo(out);
+
+        BytesStreamOutput expected = new BytesStreamOutput();
+        expected.setVersion(Version.V_1_3_0);
+        expected.writeBoolean(false); // no headers
+        expected.writeLong(request.contextId().getMostSignificantBits());
+        expected.writeLong(request.contextId().getLeastSignificantBits());
+        expected.writeBoolean(false); // failure
+        expected.writeBoolean(true);  // last
+        expected.writeVInt(rows.length);
+        for (Object[] row : rows) {
+            for (int c = 0; c < streamers.length; c++) {
+                streamers[c].writeValueTo(expected, row[c]);
+            }
+        }
+        assertThat(out.bytes().toBytes(), is(expected.bytes().toBytes()));
+
+        StreamInput in = new BytesStreamInput(out.bytes());
+        in.setVersion(Version.V_1_3_0);
+        in.readBoolean(); // headers
+        in.readLong();
+        in.readLong();
+        in.readBoolean();
+        in.readBoolean();
+        assertThat(DistributedResultRequest.readRemaining(streamers, in), is(rows));
+    }
+
+    @Test
+    public void testNodeMergeResponseStreamingInBothFormats() throws Exception {
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.INTEGER.streamer(), DataTypes.STRING.streamer()};
+        Object[][] rows = new Object[][]{
+                new Object[]{1, new BytesRef("Arthur")},
+                new Object[]{null, new BytesRef("Trillian")}
+        };
+        for (boolean columnar : new boolean[]{false, true}) {
+            NodeMergeResponse response = new NodeMergeResponse(streamers, rows);
+            response.columnar(columnar);
+            BytesStreamOutput out = new BytesStreamOutput();
+            out.setVersion(Version.V_1_3_0);
+            response.writeTo(out);
+
+            StreamInput in = new BytesStreamInput(out.bytes());
+            in.setVersion(Version.V_1_3_0);
+            NodeMergeResponse streamed = new NodeMergeResponse(streamers);
+            streamed.readFrom(in);
+            assertThat(streamed.rows(), is(rows));
+        }
+    }
+}
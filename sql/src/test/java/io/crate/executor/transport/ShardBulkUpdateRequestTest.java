@@ -0,0 +1,82 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ShardBulkUpdateRequestTest {
+
+    @Test
+    public void testStreaming() throws Exception {
+        ShardBulkUpdateRequest request = new ShardBulkUpdateRequest(new ShardId("t", 2),
+                ImmutableMap.<String, Symbol>of("name", Literal.newLiteral("Arthur")));
+        request.add(new Uid("default", "1"), null);
+        request.add(new Uid("default", "2"), 5L);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        ShardBulkUpdateRequest streamed = new ShardBulkUpdateRequest();
+        streamed.readFrom(new BytesStreamInput(out.bytes()));
+
+        assertThat(streamed.index(), is("t"));
+        assertThat(streamed.shardId(), is(2));
+        assertThat(streamed.size(), is(2));
+        assertThat(streamed.id(0), is("1"));
+        assertThat(streamed.version(0), is(Versions.MATCH_ANY));
+        assertThat(streamed.id(1), is("2"));
+        assertThat(streamed.version(1), is(5L));
+        assertThat(streamed.assignments(), is(request.assignments()));
+    }
+
+    @Test
+    public void testResponseStreaming() throws Exception {
+        ShardBulkUpdateResponse response = new ShardBulkUpdateResponse(Arrays.asList(
+                ShardBulkUpdateResponse.Item.success("1", 3L),
+                ShardBulkUpdateResponse.Item.failure("2", "version conflict", true)
+        ));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        response.writeTo(out);
+        ShardBulkUpdateResponse streamed = new ShardBulkUpdateResponse();
+        streamed.readFrom(new BytesStreamInput(out.bytes()));
+
+        assertThat(streamed.items().size(), is(2));
+        assertThat(streamed.successfulCount(), is(1L));
+        assertThat(streamed.items().get(0).version(), is(3L));
+        assertThat(streamed.items().get(1).failed(), is(true));
+        assertThat(streamed.items().get(1).versionConflict(), is(true));
+    }
+}
@@ -66,6 +66,29 @@ public class DistributedResultRequestTest {
         assertEquals(r1.rows().length, r2.rows().length);
 
         assertThat(r1.rows(), is(r2.rows()));
+        assertThat(r2.hasHeader(DistributedResultRequest.REQUEST_HEADER), is(false));
+        assertThat(r2.last(), is(true));
+    }
+
+    @Test
+    public void testStreamingPage() throws Exception {
+        DistributedRequestContextManager cm = mock(DistributedRequestContextManager.class);
+
+        Streamer<?>[] streamers = new Streamer[]{DataTypes.STRING.streamer()};
+        when(cm.getStreamer((UUID) anyObject())).thenReturn(Optional.of(streamers));
+
+        DistributedResultRequest r1 = new DistributedResultRequest(UUID.randomUUID(), streamers);
+        r1.rows(new Object[][]{{new BytesRef("ab")}});
+        r1.last(false);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        DistributedResultRequest r2 = new DistributedResultRequest(cm);
+        r2.readFrom(in);
+
+        assertThat(r2.last(), is(false));
+        assertThat(r2.rows(), is(r1.rows()));
     }
 
 }
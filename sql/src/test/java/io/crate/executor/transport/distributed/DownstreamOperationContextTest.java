@@ -0,0 +1,94 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport.distributed;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.Streamer;
+import io.crate.exceptions.UnknownUpstreamFailure;
+import io.crate.operation.DownstreamOperation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class DownstreamOperationContextTest {
+
+    private DownstreamOperation downstreamOperation;
+    private DistributedRequestContextManager.DoneCallback doneCallback;
+    private SettableFuture<Object[][]> listener;
+    private DownstreamOperationContext context;
+
+    @Before
+    public void prepare() throws Exception {
+        downstreamOperation = mock(DownstreamOperation.class);
+        when(downstreamOperation.numUpstreams()).thenReturn(2);
+        when(downstreamOperation.result()).thenReturn(SettableFuture.<Object[][]>create());
+        when(downstreamOperation.addRows(any(Object[][].class))).thenReturn(true);
+        doneCallback = mock(DistributedRequestContextManager.DoneCallback.class);
+        listener = SettableFuture.create();
+        context = new DownstreamOperationContext(downstreamOperation, listener, new Streamer[0], doneCallback);
+    }
+
+    @Test
+    public void testUpstreamIsFinishedOnItsLastPage() throws Exception {
+        Object[][] page = new Object[][]{ new Object[]{ 1 } };
+
+        context.add(page, false);
+        context.add(page, false);
+        context.add(page, true);
+        verify(downstreamOperation, never()).finished();
+
+        context.add(page, false);
+        verify(downstreamOperation, never()).finished();
+
+        context.add(new Object[0][], true);
+        verify(downstreamOperation, times(5)).addRows(any(Object[][].class));
+        verify(downstreamOperation, times(1)).finished();
+        verify(doneCallback, times(1)).finished();
+    }
+
+    @Test
+    public void testFailedUpstreamCountsAsFinished() throws Exception {
+        context.add(new Object[][]{ new Object[]{ 1 } }, false);
+        context.addFailure(null);
+
+        try {
+            listener.get();
+            fail("failure wasn't propagated");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(UnknownUpstreamFailure.class));
+        }
+        verify(downstreamOperation, never()).finished();
+
+        context.add(new Object[][]{ new Object[]{ 2 } }, true);
+        verify(downstreamOperation, times(1)).finished();
+        verify(doneCallback, times(1)).finished();
+        assertThat(listener.isDone(), is(true));
+    }
+}
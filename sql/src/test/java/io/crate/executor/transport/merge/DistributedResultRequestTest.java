@@ -33,6 +33,7 @@ import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.Functions;
 import io.crate.operation.DownstreamOperation;
 import io.crate.operation.DownstreamOperationFactory;
+import io.crate.operation.OperationMetrics;
 import io.crate.operation.collect.StatsTables;
 import io.crate.operation.projectors.Projector;
 import io.crate.planner.node.dql.MergeNode;
@@ -56,6 +57,7 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.UUID;
 
@@ -193,6 +195,38 @@ public class DistributedResultRequestTest {
         }
     }
 
+    @Test
+    public void testFailuresBeforeContextCreationAreCountedPerUpstream() throws Exception {
+        MergeNode mergeNode = new MergeNode("dummy", 2);
+        mergeNode.contextId(contextId);
+        mergeNode.inputTypes(Arrays.<DataType>asList(DataTypes.INTEGER, DataTypes.STRING));
+
+        DummyDownstreamOperationFactory downstreamOperationFactory = new DummyDownstreamOperationFactory(rows);
+        DistributedRequestContextManager contextManager =
+                new DistributedRequestContextManager(downstreamOperationFactory, functions,
+                        new StatsTables(ImmutableSettings.EMPTY, mock(NodeSettingsService.class)),
+                        new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+
+        contextManager.setFailure(contextId);
+        contextManager.setFailure(contextId);
+
+        final SettableFuture<Throwable> failure = SettableFuture.create();
+        contextManager.createContext(mergeNode, new ActionListener<NodeMergeResponse>() {
+            @Override
+            public void onResponse(NodeMergeResponse nodeMergeResponse) {
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                failure.set(e);
+            }
+        });
+
+        assertNotNull(failure.get());
+        // both upstreams failed, so the merge operation is finished
+        assertTrue(downstreamOperationFactory.futureResult.isDone());
+    }
+
     class NoopActionListener implements ActionListener<NodeMergeResponse> {
 
         @Override
@@ -214,7 +248,9 @@ public class DistributedResultRequestTest {
         }
 
         @Override
-        public DownstreamOperation create(final MergeNode node, RamAccountingContext ramAccountingContext) {
+        public DownstreamOperation create(final MergeNode node,
+                                          RamAccountingContext ramAccountingContext,
+                                          @Nullable OperationMetrics metrics) {
             return new DownstreamOperation() {
                 @Override
                 public boolean addRows(Object[][] rows) {
@@ -24,8 +24,8 @@ package io.crate.executor.transport.task.elasticsearch;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.exceptions.FailedShardsException;
 import io.crate.executor.TaskResult;
+import io.crate.executor.transport.SQLCountResponse;
 import org.elasticsearch.action.ShardOperationFailedException;
-import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.action.support.DefaultShardOperationFailedException;
 import org.elasticsearch.index.shard.IndexShardException;
 import org.elasticsearch.index.shard.ShardId;
@@ -56,7 +56,7 @@ public class ESCountTaskTest {
                 new DefaultShardOperationFailedException("dummy", 2,
                         new IndexShardException(new ShardId("dummy", 2), "dummy message"))
         };
-        CountResponse countResponse = mock(CountResponse.class);
+        SQLCountResponse countResponse = mock(SQLCountResponse.class);
         when(countResponse.getFailedShards()).thenReturn(1);
         when(countResponse.getShardFailures()).thenReturn(shardFailures);
 
@@ -24,6 +24,13 @@ package io.crate.executor.transport.task.elasticsearch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.StringAndBytesText;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.elasticsearch.search.internal.InternalSearchHitField;
 import org.junit.Test;
 
 import java.util.*;
@@ -110,4 +117,33 @@ public class ESFieldExtractorTest {
         assertEquals(expected, ex.toValue(source));
     }
 
+    @Test
+    public void testFieldDataOrSource() throws Exception {
+        ESFieldExtractor ex = new ESFieldExtractor.FieldDataOrSource(
+                new ColumnIdent("top", "child1"), DataTypes.INTEGER);
+
+        // loaded from doc values, doc values of integers are returned as long
+        InternalSearchHit hit = new InternalSearchHit(1, "1", new StringAndBytesText("default"),
+                ImmutableMap.<String, SearchHitField>of("top.child1",
+                        new InternalSearchHitField("top.child1", ImmutableList.<Object>of(10L))));
+        assertEquals(10, ex.extract(hit));
+
+        // no doc value
+        hit = new InternalSearchHit(1, "1", new StringAndBytesText("default"),
+                ImmutableMap.<String, SearchHitField>of("top.child1",
+                        new InternalSearchHitField("top.child1", ImmutableList.<Object>of())));
+        assertNull(ex.extract(hit));
+
+        // not loaded from doc values
+        hit = new InternalSearchHit(1, "1", new StringAndBytesText("default"),
+                ImmutableMap.<String, SearchHitField>of());
+        hit.sourceRef(new BytesArray("{\"top\": {\"child1\": 20}}"));
+        assertEquals(20, ex.extract(hit));
+
+        ex = new ESFieldExtractor.FieldDataOrSource(new ColumnIdent("name"), DataTypes.STRING);
+        hit = new InternalSearchHit(1, "1", new StringAndBytesText("default"),
+                ImmutableMap.<String, SearchHitField>of("name",
+                        new InternalSearchHitField("name", ImmutableList.<Object>of("foo"))));
+        assertEquals(new BytesRef("foo"), ex.extract(hit));
+    }
 }
@@ -38,6 +38,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
@@ -221,6 +222,53 @@ public class CopyIntegrationTest extends SQLTransportIntegrationTest {
         assertThat(TestingHelpers.printedTable(response.rows()), is("2| Trillian\n"));
     }
 
+    @Test
+    public void testCopyFromComputesGeneratedColumns() throws Exception {
+        execute("create table quotes (id int primary key, quote string, " +
+                "initial string generated always as (substr(quote, 1, 1))) with (number_of_replicas=0)");
+        ensureGreen();
+
+        File file = folder.newFile("generated.json");
+        Files.write(file.toPath(), Arrays.asList(
+                "{\"id\": 1, \"quote\": \"Don't panic\"}",
+                "{\"id\": 2, \"quote\": \"Time is an illusion\", \"initial\": \"x\"}"
+        ), StandardCharsets.UTF_8);
+        execute("copy quotes from ? with (shared=true)", new Object[]{file.getAbsolutePath()});
+        assertThat(response.rowCount(), is(2L));
+        refresh();
+
+        execute("select id, initial from quotes order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "1| D\n" +
+                "2| T\n"));
+    }
+
+    @Test
+    public void testCopyFromIntoTablePartitionedByGeneratedColumn() throws Exception {
+        execute("create table events (id int, ts timestamp, " +
+                "day timestamp generated always as (date_trunc('day', ts))) " +
+                "partitioned by (day) with (number_of_replicas=0)");
+        ensureGreen();
+
+        File file = folder.newFile("generated_partitioned.json");
+        Files.write(file.toPath(), Arrays.asList(
+                "{\"id\": 1, \"ts\": \"2015-01-01T10:00:00\"}",
+                "{\"id\": 2, \"ts\": \"2015-01-01T23:00:00\"}",
+                "{\"id\": 3, \"ts\": \"2015-01-02T08:00:00\"}"
+        ), StandardCharsets.UTF_8);
+        execute("copy events from ? with (shared=true)", new Object[]{file.getAbsolutePath()});
+        assertThat(response.rowCount(), is(3L));
+        execute("refresh table events");
+
+        execute("select id, day from events order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "1| 1420070400000\n" +
+                "2| 1420070400000\n" +
+                "3| 1420156800000\n"));
+        execute("select count(*) from information_schema.table_partitions where table_name = 'events'");
+        assertThat((Long) response.rows()[0][0], is(2L));
+    }
+
     @Test
     public void testCopyToDirectoryPath() throws Exception {
         expectedException.expect(SQLActionException.class);
@@ -107,4 +107,23 @@ public class CountStarIntegrationTest extends SQLTransportIntegrationTest {
         execute("select count(*) from auto_id where name=','");
         assertThat((Long)response.rows()[0][0], is(1L)); // FOUND ONE
     }
+
+    @Test
+    public void testCountAndDeleteWithScalarInWhereClause() throws Exception {
+        execute("create table scalar_where (id int, name string) with (number_of_replicas=0)");
+        ensureGreen();
+        execute("insert into scalar_where (id, name) values (-3, 'Arthur'), (2, 'Trillian'), (5, 'Ford')");
+        execute("refresh table scalar_where");
+
+        execute("select count(*) from scalar_where where abs(id) > 2");
+        assertThat((Long) response.rows()[0][0], is(2L));
+
+        execute("select count(*) from scalar_where where abs(id) > 2 and name like 'A%'");
+        assertThat((Long) response.rows()[0][0], is(1L));
+
+        execute("delete from scalar_where where abs(id) > 2");
+        execute("refresh table scalar_where");
+        execute("select count(*) from scalar_where");
+        assertThat((Long) response.rows()[0][0], is(1L));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.test.integration.CrateIntegrationTest;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+
+@CrateIntegrationTest.ClusterScope(scope = CrateIntegrationTest.Scope.SUITE, numNodes = 2)
+public class DeleteByQueryIntegrationTest extends SQLTransportIntegrationTest {
+
+    private long count(String preference) {
+        return client().prepareCount("t").setPreference(preference).execute().actionGet().getCount();
+    }
+
+    /**
+     * The primary deletes the documents matching the query built by the LuceneQueryBuilder,
+     * a replica recovering from the translog parses the query rendered by the ESQueryBuilder instead.
+     * Both have to delete the same documents.
+     */
+    private void assertReplayedDeleteMatchesPrimary(String whereClause, long expectedRemaining) throws Exception {
+        execute("create table t (id integer, name string) " +
+                "clustered into 1 shards with (number_of_replicas = 0)");
+        ensureGreen();
+        // keep the operations in the translog so that they are replayed when the replica recovers
+        client().admin().indices().prepareUpdateSettings("t")
+                .setSettings(ImmutableSettings.builder().put("index.translog.disable_flush", true))
+                .execute().actionGet();
+        Object[][] bulkArgs = new Object[10][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i + 1, (i % 2 == 0 ? "foo" : "bar") + (i + 1)};
+        }
+        execute("insert into t (id, name) values (?, ?)", bulkArgs);
+        refresh();
+
+        execute("delete from t where " + whereClause);
+        refresh();
+        assertThat(count("_primary"), is(expectedRemaining));
+
+        execute("alter table t set (number_of_replicas = 1)");
+        ensureGreen();
+        refresh();
+        assertThat(count("_replica"), is(expectedRemaining));
+    }
+
+    @Test
+    public void testReplayedRangeAndLikeDelete() throws Exception {
+        // deletes bar4, bar6, bar8, bar10
+        assertReplayedDeleteMatchesPrimary("id > 3 and name like 'bar%'", 6L);
+    }
+
+    @Test
+    public void testReplayedNegatedInDelete() throws Exception {
+        // deletes all but ids 1 and 2
+        assertReplayedDeleteMatchesPrimary("not id in (1, 2)", 2L);
+    }
+
+    @Test
+    public void testReplayedOrDelete() throws Exception {
+        // deletes foo1, foo3, foo5, foo7, foo9 and bar10
+        assertReplayedDeleteMatchesPrimary("name like 'foo%' or id = 10", 4L);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.action.sql.SQLActionException;
+import io.crate.test.integration.CrateIntegrationTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+@CrateIntegrationTest.ClusterScope(scope = CrateIntegrationTest.Scope.GLOBAL)
+public class ExplainIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Before
+    public void initTestData() throws Exception {
+        execute("create table t (id integer, name string) " +
+                "clustered into 2 shards with (number_of_replicas = 0)");
+        ensureGreen();
+        execute("insert into t (id, name) values (?, ?)", new Object[][]{
+                new Object[]{1, "foo"},
+                new Object[]{2, "bar"},
+                new Object[]{3, "baz"},
+        });
+        refresh();
+    }
+
+    @After
+    public void resetStats() throws Exception {
+        execute("reset global stats.enabled");
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        execute("explain select name, count(*) from t group by name");
+        assertThat(response.cols(), is(new String[]{"plan"}));
+        assertThat(response.rowCount(), is(1L));
+        assertThat((String) response.rows()[0][0], containsString("Collect"));
+    }
+
+    @Test
+    public void testExplainAnalyzeRequiresStats() throws Exception {
+        expectedException.expect(SQLActionException.class);
+        expectedException.expectMessage("EXPLAIN ANALYZE requires stats to be enabled");
+        execute("explain analyze select name from t");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExplainAnalyze() throws Exception {
+        execute("set global stats.enabled = true");
+        execute("explain analyze select name, count(*) from t group by name");
+        assertThat(response.cols(), is(new String[]{"plan", "metrics"}));
+        assertThat(response.rowCount(), is(1L));
+        assertThat((String) response.rows()[0][0], containsString("Collect"));
+
+        Map<String, Object> metrics = (Map<String, Object>) response.rows()[0][1];
+        assertThat(((Number) metrics.get("rows")).longValue(), is(3L));
+        List<Map<String, Object>> operations = (List<Map<String, Object>>) metrics.get("operations");
+        assertThat(operations, not(empty()));
+
+        long collectedRows = 0;
+        for (Map<String, Object> operation : operations) {
+            assertThat(operation.get("error"), nullValue());
+            if ("collect".equals(operation.get("name"))) {
+                collectedRows += ((Number) operation.get("rows_in")).longValue();
+            }
+        }
+        assertThat(collectedRows, is(3L));
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.integrationtests;
 
 import io.crate.test.integration.CrateIntegrationTest;
+import io.crate.testing.TestingHelpers;
 import org.hamcrest.core.IsNull;
 import org.junit.Test;
 
@@ -79,6 +80,35 @@ public class InsertIntoIntegrationTest extends SQLTransportIntegrationTest {
         assertThat(((String) response.rows()[3][0]), is("Trillian"));
     }
 
+    @Test
+    public void testInsertFromQueryComputesGeneratedColumns() throws Exception {
+        execute("create table source (id int, ts timestamp) clustered into 1 shards with (number_of_replicas = 0)");
+        execute("create table target (id int, ts timestamp, " +
+                "day timestamp generated always as (date_trunc('day', ts)), " +
+                "id_doubled long generated always as (id * 2)) " +
+                "clustered into 1 shards partitioned by (day) with (number_of_replicas = 0)");
+        ensureGreen();
+
+        execute("insert into source (id, ts) values (?, ?)", new Object[][]{
+                new Object[]{1, "2015-01-01T10:00:00"},
+                new Object[]{2, "2015-01-01T23:00:00"},
+                new Object[]{3, "2015-01-02T08:00:00"},
+        });
+        execute("refresh table source");
+
+        execute("insert into target (id, ts) (select id, ts from source)");
+        assertThat(response.rowCount(), is(3L));
+        execute("refresh table target");
+
+        execute("select id, day, id_doubled from target order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is(
+                "1| 1420070400000| 2\n" +
+                "2| 1420070400000| 4\n" +
+                "3| 1420156800000| 6\n"));
+        execute("select count(*) from information_schema.table_partitions where table_name = 'target'");
+        assertThat((Long) response.rows()[0][0], is(2L));
+    }
+
     @Test
     public void testInsertArrayLiteralFirstNull() throws Exception {
         execute("create table users(id int primary key, friends array(string))");
@@ -22,6 +22,7 @@
 package io.crate.integrationtests;
 
 import io.crate.test.integration.CrateIntegrationTest;
+import io.crate.testing.TestingHelpers;
 import org.junit.Test;
 
 import static org.hamcrest.core.Is.is;
@@ -78,4 +79,46 @@ public class LuceneQueryBuilderIntegrationTest extends SQLTransportIntegrationTe
         assertThat(response.rowCount(), is(1L));
         assertThat(((String) response.rows()[0][0]), is("yalla"));
     }
+
+    private void createConjunctionTable() throws Exception {
+        // name has doc values, text is only available in the source
+        execute("create table t (id integer, name string, text string index off) " +
+                "clustered into 2 shards with (number_of_replicas = 0)");
+        ensureGreen();
+        execute("insert into t (id, name, text) values (?, ?, ?)", new Object[][]{
+                new Object[]{1, "hello", "hello"},
+                new Object[]{2, "hi", "hi"},
+                new Object[]{3, "hey", "hey"},
+                new Object[]{4, "world", "world"},
+                new Object[]{5, "hola", "hola"},
+        });
+        refresh();
+    }
+
+    @Test
+    public void testWhereIndexedAndFunctionOnDocValuesColumn() throws Exception {
+        createConjunctionTable();
+        execute("select id from t where id > 1 and substr(name, 1, 1) = 'h' order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("2\n3\n5\n"));
+
+        execute("select id from t where id > 1 and substr(name, 1, 1) = 'h' and substr(name, 2, 1) = 'e' order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("3\n"));
+    }
+
+    @Test
+    public void testWhereIndexedAndFunctionOnSourceOnlyColumn() throws Exception {
+        createConjunctionTable();
+        execute("select id from t where id > 1 and substr(text, 1, 1) = 'h' order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("2\n3\n5\n"));
+
+        execute("select id from t where id > 1 and substr(text, 1, 1) = 'h' and substr(text, 2, 1) = 'e' order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("3\n"));
+    }
+
+    @Test
+    public void testWhereIndexedAndFunctionsOnDocValuesAndSourceOnlyColumn() throws Exception {
+        createConjunctionTable();
+        execute("select id from t where id < 5 and substr(name, 1, 1) = 'h' and substr(text, 2, 1) = 'i' order by id");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("2\n"));
+    }
 }
@@ -25,10 +25,15 @@ package io.crate.integrationtests;
 import io.crate.test.integration.CrateIntegrationTest;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.util.EntityUtils;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 
 @CrateIntegrationTest.ClusterScope(scope = CrateIntegrationTest.Scope.GLOBAL)
@@ -58,4 +63,69 @@ public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
         String bodyAsString = EntityUtils.toString(response.getEntity());
         assertEquals("{\"error\":{\"message\":\"SQLActionException[request body contains args and bulk_args. It's forbidden to provide both]\",\"code\":4000},\"error_trace\":null}", bodyAsString);
     }
+
+    private void createStreamedTable() {
+        execute("create table streamed (id integer, name string) with (number_of_replicas=0)");
+        ensureGreen();
+        Object[][] bulkArgs = new Object[25][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i, "name-" + i};
+        }
+        execute("insert into streamed (id, name) values (?, ?)", bulkArgs);
+        refresh();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamedSelect() throws IOException {
+        createStreamedTable();
+        CloseableHttpResponse response = post(
+                "{\"stmt\": \"select id, name from streamed order by id limit 20\"}", "stream&page_size=7");
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals("chunked", response.getFirstHeader("Transfer-Encoding").getValue());
+
+        Map<String, Object> result = JsonXContent.jsonXContent.createParser(
+                EntityUtils.toString(response.getEntity())).map();
+        assertThat((List<String>) result.get("cols"), contains("id", "name"));
+        List<List<Object>> rows = (List<List<Object>>) result.get("rows");
+        assertThat(rows.size(), is(20));
+        assertThat(rows.get(0), contains((Object) 0, "name-0"));
+        assertThat(rows.get(19), contains((Object) 19, "name-19"));
+        assertThat(((Number) result.get("rowcount")).intValue(), is(20));
+
+        response = post("{\"stmt\": \"select id, name from streamed order by id\"}", "stream&format=ndjson&page_size=10");
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        String[] lines = EntityUtils.toString(response.getEntity()).split("\n");
+        assertThat(lines.length, is(27));
+        assertEquals("{\"cols\":[\"id\",\"name\"]}", lines[0]);
+        assertEquals("[0,\"name-0\"]", lines[1]);
+        assertEquals("[24,\"name-24\"]", lines[25]);
+        assertThat(lines[26], startsWith("{\"rowcount\":25,\"duration\":"));
+
+        // not paged, the result is sent as one chunk
+        response = post("{\"stmt\": \"select count(*) from streamed\"}", "stream");
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        result = JsonXContent.jsonXContent.createParser(EntityUtils.toString(response.getEntity())).map();
+        assertThat(((List<List<Number>>) result.get("rows")).get(0).get(0).intValue(), is(25));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamedSelectWithMultipleOfPageSizeRows() throws IOException {
+        // 25 rows are 5 full pages, the last page is empty and must not terminate the chunked response
+        createStreamedTable();
+        CloseableHttpResponse response = post(
+                "{\"stmt\": \"select id, name from streamed order by id\"}", "stream&page_size=5");
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        Map<String, Object> result = JsonXContent.jsonXContent.createParser(
+                EntityUtils.toString(response.getEntity())).map();
+        assertThat(((List<List<Object>>) result.get("rows")).size(), is(25));
+        assertThat(((Number) result.get("rowcount")).intValue(), is(25));
+
+        response = post("{\"stmt\": \"select id, name from streamed order by id\"}", "stream&format=ndjson&page_size=5");
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        String[] lines = EntityUtils.toString(response.getEntity()).split("\n");
+        assertThat(lines.length, is(27));
+        assertThat(lines[26], startsWith("{\"rowcount\":25,\"duration\":"));
+    }
 }
@@ -37,11 +37,12 @@ import java.net.InetSocketAddress;
 public class SQLHttpIntegrationTest extends SQLTransportIntegrationTest {
 
     private HttpPost httpPost;
+    private InetSocketAddress address;
 
     @Before
     public void setup() {
         HttpServerTransport httpServerTransport = cluster().getInstance(HttpServerTransport.class);
-        InetSocketAddress address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress())
+        address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress())
                 .address();
         httpPost = new HttpPost(String.format("http://%s:%s/_sql?error_trace", address.getHostName(), address.getPort()));
     }
@@ -57,6 +58,16 @@ public class SQLHttpIntegrationTest extends SQLTransportIntegrationTest {
         return httpClient.execute(httpPost);
     }
 
+    /**
+     * post the body to the _sql endpoint using the given query string
+     */
+    protected CloseableHttpResponse post(String body, String queryString) throws IOException {
+        HttpPost post = new HttpPost(String.format("http://%s:%s/_sql?%s",
+                address.getHostName(), address.getPort(), queryString));
+        post.setEntity(new StringEntity(body));
+        return httpClient.execute(post);
+    }
+
     protected CloseableHttpResponse post() throws IOException {
         return post(null);
     }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import io.crate.operation.collect.SegmentCollectPool;
+import io.crate.test.integration.CrateIntegrationTest;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+
+@CrateIntegrationTest.ClusterScope(scope = CrateIntegrationTest.Scope.SUITE, numNodes = 1)
+public class SegmentParallelCollectIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        // split every shard with more than one segment
+        return ImmutableSettings.builder()
+                .put(SegmentCollectPool.CONCURRENCY, 4)
+                .put(SegmentCollectPool.MIN_DOCS_PER_UNIT, 1)
+                .build();
+    }
+
+    /**
+     * creates a table with a single shard consisting of several segments
+     */
+    private void createSegmentedTable() throws Exception {
+        execute("create table t (id integer, name string, text string index off) " +
+                "clustered into 1 shards with (number_of_replicas = 0)");
+        ensureGreen();
+        for (int segment = 0; segment < 4; segment++) {
+            Object[][] bulkArgs = new Object[50][];
+            for (int i = 0; i < bulkArgs.length; i++) {
+                int id = segment * bulkArgs.length + i;
+                String name = (id % 2 == 0 ? "a" : "b") + id;
+                bulkArgs[i] = new Object[]{id, name, name};
+            }
+            execute("insert into t (id, name, text) values (?, ?, ?)", bulkArgs);
+            refresh();
+        }
+    }
+
+    @Test
+    public void testGenericFunctionFilterOnSplitShard() throws Exception {
+        createSegmentedTable();
+        for (int i = 0; i < 10; i++) {
+            execute("select id from t where substr(name, 1, 1) = 'a'");
+            assertThat(response.rowCount(), is(100L));
+            execute("select id from t where substr(text, 1, 1) = 'a'");
+            assertThat(response.rowCount(), is(100L));
+        }
+    }
+
+    @Test
+    public void testIndexedAndGenericFunctionFilterOnSplitShard() throws Exception {
+        createSegmentedTable();
+        for (int i = 0; i < 10; i++) {
+            execute("select id from t where id >= 100 and substr(name, 1, 1) = 'a'");
+            assertThat(response.rowCount(), is(50L));
+            execute("select count(*) from t where id >= 100 and substr(text, 1, 1) = 'b'");
+            assertThat((Long) response.rows()[0][0], is(50L));
+        }
+    }
+}
@@ -26,13 +26,17 @@ import io.crate.analyze.WhereClause;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
+import io.crate.operation.operator.AndOperator;
 import io.crate.operation.operator.EqOperator;
 import io.crate.operation.operator.InOperator;
 import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.operator.any.AnyEqOperator;
 import io.crate.planner.symbol.*;
+import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.SetType;
+import org.apache.lucene.queries.TermsFilter;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.inject.ModulesBuilder;
@@ -43,10 +47,14 @@ import org.junit.Test;
 import org.mockito.Answers;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static io.crate.testing.TestingHelpers.createFunction;
 import static io.crate.testing.TestingHelpers.createReference;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
@@ -72,7 +80,7 @@ public class LuceneQueryBuilderTest {
 
 
     @Test
-    public void testWhereRefInSetLiteralIsConvertedToBooleanQuery() throws Exception {
+    public void testWhereRefInSetLiteralIsConvertedToTermsFilter() throws Exception {
         DataType dataType = new SetType(DataTypes.STRING);
         Reference foo = createReference("foo", DataTypes.STRING);
         WhereClause whereClause = new WhereClause(
@@ -81,21 +89,99 @@ public class LuceneQueryBuilderTest {
                         Literal.newLiteral(dataType, Sets.newHashSet(new BytesRef("foo"), new BytesRef("bar")))
                 ));
         Query query = convert(whereClause);
-        assertThat(query, instanceOf(BooleanQuery.class));
-        for (BooleanClause booleanClause : (BooleanQuery) query) {
-            assertThat(booleanClause.getQuery(), instanceOf(TermQuery.class));
+        assertThat(query, instanceOf(ConstantScoreQuery.class));
+        assertThat(((ConstantScoreQuery) query).getFilter(), instanceOf(TermsFilter.class));
+    }
+
+    @Test
+    public void testWhereRefInLargeSetLiteralDoesNotExceedMaxClauseCount() throws Exception {
+        DataType dataType = new SetType(DataTypes.LONG);
+        Set<Long> values = new HashSet<>();
+        for (long i = 0; i < BooleanQuery.getMaxClauseCount() * 2; i++) {
+            values.add(i);
         }
+        Reference foo = createReference("foo", DataTypes.LONG);
+        WhereClause whereClause = new WhereClause(
+                createFunction(InOperator.NAME, DataTypes.BOOLEAN, foo, Literal.newLiteral(dataType, values)));
+        Query query = convert(whereClause);
+        assertThat(query, instanceOf(ConstantScoreQuery.class));
     }
 
+    @Test
+    public void testWhereRefEqAnyArrayLiteralIsConvertedToTermsFilter() throws Exception {
+        Reference foo = createReference("foo", DataTypes.INTEGER);
+        WhereClause whereClause = new WhereClause(
+                createFunction(AnyEqOperator.NAME, DataTypes.BOOLEAN,
+                        Literal.newLiteral(new ArrayType(DataTypes.INTEGER), new Object[]{1, 2, 3}),
+                        foo
+                ));
+        Query query = convert(whereClause);
+        assertThat(query, instanceOf(ConstantScoreQuery.class));
+        assertThat(((ConstantScoreQuery) query).getFilter(), instanceOf(TermsFilter.class));
+    }
+
+    @Test
+    public void testWhereRefInSetLiteralWithOnlyNullMatchesNothing() throws Exception {
+        DataType dataType = new SetType(DataTypes.STRING);
+        Reference foo = createReference("foo", DataTypes.STRING);
+        WhereClause whereClause = new WhereClause(
+                createFunction(InOperator.NAME, DataTypes.BOOLEAN,
+                        foo,
+                        Literal.newLiteral(dataType, Sets.newHashSet((Object) null))
+                ));
+        Query query = convert(whereClause);
+        assertThat(query, instanceOf(BooleanQuery.class));
+        assertThat(((BooleanQuery) query).clauses().size(), is(0));
+    }
+
+
+    @Test
+    public void testGenericFunctionInConjunctionIsAppliedAsPostFilter() throws Exception {
+        Reference foo = createReference("foo", DataTypes.STRING);
+        Reference bar = createReference("bar", DataTypes.STRING);
+        Query query = convert(new WhereClause(createFunction(AndOperator.NAME, DataTypes.BOOLEAN,
+                eqFunction(foo, foo),
+                eqFunction(bar, Literal.newLiteral("bar")))));
+
+        assertThat(query, instanceOf(FilteredQuery.class));
+        FilteredQuery filteredQuery = (FilteredQuery) query;
+        assertThat(filteredQuery.getFilterStrategy(), is(FilteredQuery.QUERY_FIRST_FILTER_STRATEGY));
+        assertThat(filteredQuery.getFilter(), instanceOf(LuceneQueryBuilder.Visitor.FunctionFilter.class));
+        assertThat(filteredQuery.getQuery(), instanceOf(BooleanQuery.class));
+        assertThat(((BooleanQuery) filteredQuery.getQuery()).clauses().size(), is(1));
+    }
+
+    @Test
+    public void testCheaperGenericFunctionIsEvaluatedFirst() throws Exception {
+        Reference foo = createReference("foo", DataTypes.STRING);
+        Reference id = createReference("_id", DataTypes.STRING);
+        Query query = convert(new WhereClause(createFunction(AndOperator.NAME, DataTypes.BOOLEAN,
+                eqFunction(foo, foo),
+                eqFunction(id, id))));
+
+        // foo is read from the source, _id from the stored fields
+        FilteredQuery outer = (FilteredQuery) query;
+        FilteredQuery inner = (FilteredQuery) outer.getQuery();
+        assertThat(inner.getQuery(), not(instanceOf(FilteredQuery.class)));
+        assertThat(inner.getFilterStrategy(), is(FilteredQuery.QUERY_FIRST_FILTER_STRATEGY));
+
+        LuceneQueryBuilder.Visitor.FunctionFilter first = (LuceneQueryBuilder.Visitor.FunctionFilter) inner.getFilter();
+        LuceneQueryBuilder.Visitor.FunctionFilter second = (LuceneQueryBuilder.Visitor.FunctionFilter) outer.getFilter();
+        assertThat(first.cost() < second.cost(), is(true));
+    }
 
     private Query convert(WhereClause eq) {
         return builder.convert(eq).query;
     }
 
     private WhereClause eq(Symbol left, Symbol right) {
-        return new WhereClause(new Function(new FunctionInfo(
+        return new WhereClause(eqFunction(left, right));
+    }
+
+    private Function eqFunction(Symbol left, Symbol right) {
+        return new Function(new FunctionInfo(
                 new FunctionIdent(EqOperator.NAME, Arrays.asList(left.valueType(), right.valueType())), DataTypes.BOOLEAN),
                 Arrays.<Symbol>asList(left, right)
-        ));
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.planner.RowGranularity;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PartitionIndexTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static final TableIdent TABLE_IDENT = new TableIdent("doc", "parted");
+    private static final ReferenceInfo NUM = new ReferenceInfo(
+            new ReferenceIdent(TABLE_IDENT, "num"), RowGranularity.PARTITION, DataTypes.INTEGER);
+    private static final ReferenceInfo NAME = new ReferenceInfo(
+            new ReferenceIdent(TABLE_IDENT, "name"), RowGranularity.PARTITION, DataTypes.STRING);
+
+    private PartitionIndex index;
+
+    private static PartitionName partition(String num, String name) {
+        List<BytesRef> values = new ArrayList<>(2);
+        values.add(num == null ? null : new BytesRef(num));
+        values.add(name == null ? null : new BytesRef(name));
+        return new PartitionName("parted", values);
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bitSet = new BitSet();
+        for (int ordinal : ordinals) {
+            bitSet.set(ordinal);
+        }
+        return bitSet;
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        index = new PartitionIndex(ImmutableList.of(NUM, NAME), ImmutableList.of(
+                partition("10", "b"),
+                partition("2", "a"),
+                partition(null, "c"),
+                partition("30", "a"),
+                partition("2", null)
+        ));
+    }
+
+    @Test
+    public void testEq() throws Exception {
+        assertThat(index.eq(NUM, 2), is(bits(1, 4)));
+        assertThat(index.eq(NUM, 3), is(bits()));
+        assertThat(index.eq(NUM, null), is(bits()));
+        assertThat(index.eq(NAME, new BytesRef("a")), is(bits(1, 3)));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertThat(index.range(NUM, 2, false, null, false), is(bits(0, 3)));
+        assertThat(index.range(NUM, 2, true, null, false), is(bits(0, 1, 3, 4)));
+        assertThat(index.range(NUM, null, false, 10, false), is(bits(1, 4)));
+        assertThat(index.range(NUM, null, false, 10, true), is(bits(0, 1, 4)));
+        assertThat(index.range(NUM, 3, true, 30, false), is(bits(0)));
+        assertThat(index.range(NUM, 31, true, null, false), is(bits()));
+        assertThat(index.range(NAME, new BytesRef("b"), true, null, false), is(bits(0, 2)));
+    }
+
+    @Test
+    public void testIn() throws Exception {
+        assertThat(index.in(NUM, Arrays.asList(30, null, 10, 4)), is(bits(0, 3)));
+        assertThat(index.in(NAME, Arrays.asList(new BytesRef("c"), new BytesRef("b"))), is(bits(0, 2)));
+    }
+
+    @Test
+    public void testLookupOnNonPartitionColumn() throws Exception {
+        ReferenceInfo other = new ReferenceInfo(
+                new ReferenceIdent(TABLE_IDENT, "other"), RowGranularity.DOC, DataTypes.INTEGER);
+        assertThat(index.isPartitionColumn(other), is(false));
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("column \"other\" is not a partitioned-by column");
+        index.eq(other, 1);
+    }
+}
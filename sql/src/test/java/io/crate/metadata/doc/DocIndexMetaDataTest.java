@@ -651,7 +651,10 @@ public class DocIndexMetaDataTest {
                     new DocSchemaInfo(clusterService, transportPutIndexTemplateAction)),
                     clusterService,
                     transportPutIndexTemplateAction),
-            new FulltextAnalyzerResolver(clusterService, mock(IndicesAnalysisService.class))
+            new FulltextAnalyzerResolver(clusterService, mock(IndicesAnalysisService.class)),
+            new Functions(
+                    ImmutableMap.<FunctionIdent, FunctionImplementation>of(),
+                    ImmutableMap.<String, DynamicFunctionResolver>of())
         );
 
         CreateTableAnalyzedStatement analysis = (CreateTableAnalyzedStatement) analyzer.newAnalysis(
@@ -42,7 +42,8 @@ public class DocTableInfoTest {
                 new BytesRef("0"),
                 ImmutableList.<ColumnIdent>of(),
                 ImmutableList.<PartitionName>of(),
-                ColumnPolicy.DYNAMIC);
+                ColumnPolicy.DYNAMIC,
+                ImmutableMap.<ColumnIdent, String>of());
 
         ReferenceInfo foobar = info.getReferenceInfo(new ColumnIdent("o", ImmutableList.of("foobar")));
         assertNull(foobar);
@@ -85,7 +86,8 @@ public class DocTableInfoTest {
                 new BytesRef("0"),
                 ImmutableList.<ColumnIdent>of(),
                 ImmutableList.<PartitionName>of(),
-                ColumnPolicy.DYNAMIC);
+                ColumnPolicy.DYNAMIC,
+                ImmutableMap.<ColumnIdent, String>of());
 
 
         try {
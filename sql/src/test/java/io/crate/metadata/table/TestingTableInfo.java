@@ -61,6 +61,7 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
         private final ImmutableList.Builder<ColumnIdent> partitionedBy = ImmutableList.builder();
         private final ImmutableList.Builder<PartitionName> partitions = ImmutableList.builder();
         private final ImmutableMap.Builder<ColumnIdent, IndexReferenceInfo> indexColumns = ImmutableMap.builder();
+        private final ImmutableMap.Builder<ColumnIdent, String> generatedColumns = ImmutableMap.builder();
         private ColumnIdent clusteredBy;
 
 
@@ -129,6 +130,12 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
             return this;
         }
 
+        public Builder addGeneratedColumn(String column, DataType type, String expression, boolean partitionBy) {
+            add(column, type, null, partitionBy);
+            generatedColumns.put(new ColumnIdent(column), expression);
+            return this;
+        }
+
         public Builder addIndex(ColumnIdent columnIdent, ReferenceInfo.IndexType indexType) {
             IndexReferenceInfo.Builder builder = new IndexReferenceInfo.Builder()
                     .ident(new ReferenceIdent(ident, columnIdent))
@@ -181,7 +188,8 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
                     partitionedBy.build(),
                     partitions.build(),
                     columnPolicy,
-                    schemaInfo == null ? mock(SchemaInfo.class, Answers.RETURNS_MOCKS.get()) : schemaInfo);
+                    schemaInfo == null ? mock(SchemaInfo.class, Answers.RETURNS_MOCKS.get()) : schemaInfo,
+                    generatedColumns.build());
         }
 
     }
@@ -200,6 +208,7 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
     private final List<PartitionName> partitions;
     private final ColumnPolicy columnPolicy;
     private final TableParameterInfo tableParameterInfo;
+    private final Map<ColumnIdent, String> generatedColumns;
 
 
     public TestingTableInfo(List<ReferenceInfo> columns,
@@ -214,7 +223,8 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
                             List<ColumnIdent> partitionedBy,
                             List<PartitionName> partitions,
                             ColumnPolicy columnPolicy,
-                            SchemaInfo schemaInfo
+                            SchemaInfo schemaInfo,
+                            Map<ColumnIdent, String> generatedColumns
                             ) {
         super(schemaInfo);
         this.columns = columns;
@@ -231,6 +241,7 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
         this.hasAutoGeneratedPrimaryKey = (primaryKey == null || primaryKey.size()==0);
         this.partitionedBy = partitionedBy;
         this.partitions = partitions;
+        this.generatedColumns = generatedColumns;
         if (partitionedByColumns.isEmpty()) {
             tableParameterInfo = new TableParameterInfo();
         } else {
@@ -321,6 +332,11 @@ public class TestingTableInfo extends AbstractDynamicTableInfo {
         return references.values().iterator();
     }
 
+    @Override
+    public Map<ColumnIdent, String> generatedColumns() {
+        return generatedColumns;
+    }
+
     @Override
     public List<ColumnIdent> partitionedBy() {
         return partitionedBy;
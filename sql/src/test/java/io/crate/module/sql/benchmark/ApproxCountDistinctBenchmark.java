@@ -0,0 +1,117 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.Functions;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.ApproxCountDistinctAggregation;
+import io.crate.operation.aggregation.impl.CollectSetAggregation;
+import io.crate.planner.symbol.Literal;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Set;
+
+/**
+ * Compares count(distinct) using collect_set with approx_count_distinct.
+ * The error, the accounted memory and the size of the serialized partial state are logged.
+ */
+@BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+public class ApproxCountDistinctBenchmark {
+
+    private static final int NUM_VALUES = 1_000_000;
+    private static final ESLogger LOGGER = Loggers.getLogger(ApproxCountDistinctBenchmark.class);
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Functions functions;
+    private Literal[] values;
+
+    @Before
+    public void prepare() {
+        functions = new ModulesBuilder().add(new AggregationImplModule())
+                .createInjector().getInstance(Functions.class);
+        values = new Literal[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            values[i] = Literal.newLiteral("user-" + i);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void aggregate(String name, int numDistinct) throws Exception {
+        AggregationFunction impl = (AggregationFunction) functions.get(
+                new FunctionIdent(name, ImmutableList.<DataType>of(DataTypes.STRING)));
+        RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("benchmark", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        Object state = impl.newState(ramAccountingContext);
+        for (int i = 0; i < NUM_VALUES; i++) {
+            state = impl.iterate(ramAccountingContext, state, values[i % numDistinct]);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        impl.partialType().streamer().writeValueTo(out, state);
+
+        Object result = impl.terminatePartial(ramAccountingContext, state);
+        long count = result instanceof Set ? ((Set) result).size() : (Long) result;
+        LOGGER.info("{} distinct={} result={} error={}% accounted={} bytes serialized={} bytes",
+                name, numDistinct, count,
+                String.format("%.3f", Math.abs(count - numDistinct) * 100.0 / numDistinct),
+                ramAccountingContext.totalBytes(), out.size());
+    }
+
+    @Test
+    public void testCollectSet1000() throws Exception {
+        aggregate(CollectSetAggregation.NAME, 1_000);
+    }
+
+    @Test
+    public void testApproxCountDistinct1000() throws Exception {
+        aggregate(ApproxCountDistinctAggregation.NAME, 1_000);
+    }
+
+    @Test
+    public void testCollectSet1000000() throws Exception {
+        aggregate(CollectSetAggregation.NAME, NUM_VALUES);
+    }
+
+    @Test
+    public void testApproxCountDistinct1000000() throws Exception {
+        aggregate(ApproxCountDistinctAggregation.NAME, NUM_VALUES);
+    }
+}
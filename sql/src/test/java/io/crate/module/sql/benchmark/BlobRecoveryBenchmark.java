@@ -0,0 +1,163 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.blob.PutChunkAction;
+import io.crate.blob.PutChunkRequest;
+import io.crate.blob.StartBlobAction;
+import io.crate.blob.StartBlobRequest;
+import io.crate.blob.v2.BlobIndices;
+import io.crate.test.integration.CrateTestCluster;
+import io.crate.test.integration.NodeSettingsSource;
+import org.apache.lucene.util.AbstractRandomizedTest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Throughput of the blob recovery from a primary to a newly allocated replica on a second local node.
+ *
+ * The table contains mostly small blobs and a few large ones,
+ * the number of blobs can be set using <code>-Dbenchmark.recovery.blobs</code>.
+ */
+@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+public class BlobRecoveryBenchmark {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(BlobRecoveryBenchmark.class);
+    private static final String TABLE_NAME = "recovery_bench";
+    private static final int NUM_BLOBS = Integer.getInteger("benchmark.recovery.blobs", 500);
+    private static final int SMALL_BLOB_SIZE = 16 * 1024;
+    private static final int LARGE_BLOB_SIZE = 8 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static CrateTestCluster cluster =
+        new CrateTestCluster(
+            System.nanoTime(),
+            0,
+            CrateTestCluster.clusterName("benchmark",
+                Integer.toString(AbstractRandomizedTest.CHILD_JVM_ID), System.nanoTime()),
+            NodeSettingsSource.EMPTY
+        );
+
+    private static String node1;
+    private static Random random = new Random(42);
+    private long totalSize;
+
+    @BeforeClass
+    public static void startNodes() {
+        node1 = cluster.startNode();
+        cluster.startNode();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        cluster.afterTest();
+    }
+
+    @Before
+    public void createTable() throws Exception {
+        BlobIndices blobIndices = cluster.getInstance(BlobIndices.class, node1);
+        blobIndices.createBlobTable(TABLE_NAME, ImmutableSettings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build()).get();
+        ensureGreen();
+
+        totalSize = 0;
+        for (int i = 0; i < NUM_BLOBS; i++) {
+            totalSize += upload(i % 50 == 0 ? LARGE_BLOB_SIZE : SMALL_BLOB_SIZE);
+        }
+    }
+
+    @After
+    public void dropTable() throws Exception {
+        cluster.getInstance(BlobIndices.class, node1).dropBlobTable(TABLE_NAME).get();
+    }
+
+    private void ensureGreen() {
+        ClusterHealthResponse response = cluster.client().admin().cluster()
+            .prepareHealth(BlobIndices.fullIndexName(TABLE_NAME))
+            .setWaitForGreenStatus()
+            .setWaitForRelocatingShards(0)
+            .setTimeout(TimeValue.timeValueMinutes(30))
+            .execute().actionGet();
+        assertThat(response.isTimedOut(), is(false));
+    }
+
+    private long upload(int size) throws Exception {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+        String index = BlobIndices.fullIndexName(TABLE_NAME);
+        Client client = cluster.client(node1);
+
+        int length = Math.min(CHUNK_SIZE, size);
+        StartBlobRequest startBlobRequest = new StartBlobRequest(
+            index, digest, new BytesArray(content, 0, length), length == size);
+        client.execute(StartBlobAction.INSTANCE, startBlobRequest).actionGet();
+        for (int pos = length; pos < size; pos += length) {
+            length = Math.min(CHUNK_SIZE, size - pos);
+            client.execute(PutChunkAction.INSTANCE, new PutChunkRequest(
+                index, digest, startBlobRequest.transferId(), new BytesArray(content, pos, length),
+                pos, pos + length == size)).actionGet();
+        }
+        return size;
+    }
+
+    @Test
+    public void testRecoverReplica() throws Exception {
+        long start = System.nanoTime();
+        cluster.getInstance(BlobIndices.class, node1).alterBlobTable(TABLE_NAME, ImmutableSettings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 1)
+            .build()).get();
+        ensureGreen();
+        long end = System.nanoTime();
+        LOGGER.info("recovered {} blobs with {}: {} MB/s",
+            NUM_BLOBS,
+            new ByteSizeValue(totalSize),
+            (totalSize / 1024.0 / 1024.0) / ((end - start) / 1_000_000_000.0));
+    }
+}
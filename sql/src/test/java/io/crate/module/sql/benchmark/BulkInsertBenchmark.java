@@ -34,12 +34,21 @@ import io.crate.action.sql.SQLBulkAction;
 import io.crate.action.sql.SQLBulkRequest;
 import io.crate.action.sql.SQLRequest;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.RuleChain;
 import org.junit.rules.TestRule;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @AxisRange(min = 0)
 @BenchmarkHistoryChart(filePrefix="benchmark-bulk-insert-history", labelWith = LabelType.CUSTOM_KEY)
@@ -55,6 +64,9 @@ public class BulkInsertBenchmark extends BenchmarkBase {
 
     public static final int BENCHMARK_ROUNDS = 10;
     public static final int ROWS = 10000;
+    public static final int MAX_PRODUCERS = 64;
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
 
     public static final String SINGLE_INSERT_SQL_STMT = "INSERT INTO countries " +
             "(\"countryName\", \"countryCode\", \"isoNumeric\", \"east\", \"north\", \"west\", \"south\"," +
@@ -125,4 +137,41 @@ public class BulkInsertBenchmark extends BenchmarkBase {
         }
     }
 
+    /**
+     * runs bulk inserts from 1, 2, 4 ... {@link #MAX_PRODUCERS} concurrent producers
+     * and reports the achieved throughput in docs/sec
+     */
+    @BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+    @Test
+    public void testConcurrentBulkInsertThroughput() throws Exception {
+        for (int producers = 1; producers <= MAX_PRODUCERS; producers *= 2) {
+            final List<SQLBulkRequest> requests = new ArrayList<>(producers);
+            for (int i = 0; i < producers; i++) {
+                requests.add(getBulkArgsRequest());
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(producers);
+            try {
+                List<Future<?>> futures = new ArrayList<>(producers);
+                long started = System.nanoTime();
+                for (final SQLBulkRequest request : requests) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            getClient(false).execute(SQLBulkAction.INSTANCE, request).actionGet();
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                long tookNanos = System.nanoTime() - started;
+                double docsPerSecond = (double) producers * ROWS / tookNanos * TimeUnit.SECONDS.toNanos(1);
+                logger.info(String.format(Locale.ENGLISH,
+                        "producers: %2d, docs: %8d, took: %6d ms, docs/sec: %10.1f",
+                        producers, producers * ROWS, TimeUnit.NANOSECONDS.toMillis(tookNanos), docsPerSecond));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
 }
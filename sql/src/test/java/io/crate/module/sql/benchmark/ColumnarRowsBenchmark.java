@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.Streamer;
+import io.crate.executor.transport.ColumnarRows;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Compares the row-wise streamer serialization of result rows with {@link ColumnarRows}.
+ * The size of the serialized rows is logged.
+ */
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 3)
+public class ColumnarRowsBenchmark {
+
+    private static final int NUM_ROWS = 200_000;
+    private static final ESLogger LOGGER = Loggers.getLogger(ColumnarRowsBenchmark.class);
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+            DataTypes.LONG.streamer(),
+            DataTypes.TIMESTAMP.streamer(),
+            DataTypes.INTEGER.streamer(),
+            DataTypes.DOUBLE.streamer(),
+            DataTypes.BOOLEAN.streamer(),
+            DataTypes.STRING.streamer(),
+            DataTypes.STRING.streamer()
+    };
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Object[][] rows;
+
+    @Before
+    public void prepare() {
+        rows = new Object[NUM_ROWS][];
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows[i] = new Object[]{
+                    (long) i,
+                    1420070400000L + i * 500L,
+                    i % 10 == 0 ? null : i % 1000,
+                    i * 0.25d,
+                    i % 2 == 0,
+                    new BytesRef("country-" + (i % 20)),
+                    new BytesRef("http://crate.io/docs/page/" + i)
+            };
+        }
+    }
+
+    @Test
+    public void testRowWise() throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeVInt(rows.length);
+        for (Object[] row : rows) {
+            for (int c = 0; c < STREAMERS.length; c++) {
+                STREAMERS[c].writeValueTo(out, row[c]);
+            }
+        }
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        int numRows = in.readVInt();
+        for (int r = 0; r < numRows; r++) {
+            for (Streamer<?> streamer : STREAMERS) {
+                streamer.readValueFrom(in);
+            }
+        }
+        LOGGER.info("row-wise: {} bytes", out.size());
+    }
+
+    @Test
+    public void testColumnar() throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        ColumnarRows.writeTo(out, rows, STREAMERS);
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        in.readVInt(); // marker
+        ColumnarRows.readFrom(in, STREAMERS);
+        LOGGER.info("columnar: {} bytes", out.size());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.blob.BlobContainer;
+import io.crate.blob.DigestBlob;
+import io.crate.common.Hex;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload throughput and commit latency of {@link DigestBlob}s,
+ * for a plain upload and for a resumed upload whose head arrives after the tail.
+ *
+ * The blob size in MB can be set using <code>-Dbenchmark.blob.size</code>.
+ */
+@BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+public class DigestBlobBenchmark {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(DigestBlobBenchmark.class);
+    private static final int BLOB_SIZE = Integer.getInteger("benchmark.blob.size", 64) * 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int HEAD_LENGTH = BLOB_SIZE / 4;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static Path tmpDir;
+    private static byte[] content;
+    private static String digest;
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        tmpDir = Files.createTempDirectory(DigestBlobBenchmark.class.getName());
+        content = new byte[BLOB_SIZE];
+        new Random(42).nextBytes(content);
+        digest = Hex.encodeHexString(MessageDigest.getInstance("SHA-1").digest(content));
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        content = null;
+        Files.walkFileTree(tmpDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void addTail(DigestBlob digestBlob, int from) {
+        for (int pos = from; pos < BLOB_SIZE; pos += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, BLOB_SIZE - pos);
+            digestBlob.addContent(new BytesArray(content, pos, length), pos + length == BLOB_SIZE);
+        }
+    }
+
+    private void commit(DigestBlob digestBlob, long startNanos, String name) {
+        long commitStart = System.nanoTime();
+        File file = digestBlob.commit();
+        long end = System.nanoTime();
+        LOGGER.info("{} of {}: {} MB/s, commit took {} ms",
+                name,
+                new ByteSizeValue(BLOB_SIZE),
+                (BLOB_SIZE / 1024.0 / 1024.0) / ((end - startNanos) / 1_000_000_000.0),
+                TimeUnit.NANOSECONDS.toMillis(end - commitStart));
+        file.delete();
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        long start = System.nanoTime();
+        DigestBlob digestBlob = new DigestBlob(container, digest, UUID.randomUUID());
+        addTail(digestBlob, 0);
+        commit(digestBlob, start, "upload");
+    }
+
+    @Test
+    public void testResumedUploadHeadAfterTail() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        long start = System.nanoTime();
+        DigestBlob digestBlob = DigestBlob.resumeTransfer(container, digest, UUID.randomUUID(), HEAD_LENGTH);
+        addTail(digestBlob, HEAD_LENGTH);
+        for (int pos = 0; pos < HEAD_LENGTH; pos += CHUNK_SIZE) {
+            digestBlob.addToHead(new BytesArray(content, pos, Math.min(CHUNK_SIZE, HEAD_LENGTH - pos)));
+        }
+        digestBlob.waitForHead();
+        commit(digestBlob, start, "resumed upload");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import io.crate.action.sql.SQLAction;
+import io.crate.action.sql.SQLBulkAction;
+import io.crate.action.sql.SQLBulkRequest;
+import io.crate.action.sql.SQLRequest;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequest;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+/**
+ * count(*) with conditions which mix indexed predicates and scalar functions
+ * that have to be evaluated per document
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix="benchmark-generic-function-filter-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-generic-function-filter")
+public class GenericFunctionFilterBenchmark extends BenchmarkBase {
+
+    static {
+        ClassLoader.getSystemClassLoader().setDefaultAssertionStatus(true);
+    }
+
+    @Rule
+    public TestRule benchmarkRun = RuleChain.outerRule(new BenchmarkRule()).around(super.ruleChain);
+
+    public static final String INDEX_NAME = "mixed_predicates";
+    public static final int BENCHMARK_ROUNDS = 10;
+    public static final int NUM_REQUESTS_PER_TEST = 20;
+    public static final int ROWS = 100_000;
+    public static final int CATEGORIES = 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        if (NODE1 == null) {
+            NODE1 = cluster.startNode(getNodeSettings(1));
+        }
+        if (NODE2 == null) {
+            NODE2 = cluster.startNode(getNodeSettings(2));
+        }
+        if (!indexExists()) {
+            execute("create table mixed_predicates (" +
+                    "    id integer primary key," +
+                    "    category integer," +
+                    "    name string," +
+                    "    description string index using fulltext" +
+                    ") clustered into 2 shards with (number_of_replicas=0)", new Object[0], false);
+            client().admin().cluster().prepareHealth(INDEX_NAME).setWaitForGreenStatus().execute().actionGet();
+            createSampleData();
+        }
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        cluster.client().admin().indices().prepareDelete(INDEX_NAME).execute().actionGet();
+    }
+
+    @Override
+    public boolean indexExists() {
+        return getClient(false).admin().indices().exists(new IndicesExistsRequest(INDEX_NAME)).actionGet().isExists();
+    }
+
+    private void createSampleData() {
+        Object[][] bulkArgs = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            bulkArgs[i] = new Object[]{
+                    i,
+                    i % CATEGORIES,
+                    RandomStringUtils.randomAlphabetic(10),
+                    RandomStringUtils.randomAlphabetic(10)
+            };
+        }
+        client().execute(SQLBulkAction.INSTANCE, new SQLBulkRequest(
+                "insert into mixed_predicates (id, category, name, description) values (?, ?, ?, ?)",
+                bulkArgs)).actionGet();
+        refresh(client());
+    }
+
+    private void count(String whereClause) {
+        SQLRequest request = new SQLRequest("select count(*) from mixed_predicates where " + whereClause);
+        for (int i = 0; i < NUM_REQUESTS_PER_TEST; i++) {
+            getClient(false).execute(SQLAction.INSTANCE, request).actionGet();
+        }
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testFunctionOnly() throws Exception {
+        count("substr(name, 1, 1) = 'a'");
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testIndexedAndFunctionOnDocValues() throws Exception {
+        count("category = 42 and substr(name, 1, 1) = 'a'");
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testIndexedAndFunctionOnSource() throws Exception {
+        count("category = 42 and substr(description, 1, 1) = 'a'");
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = 1)
+    @Test
+    public void testIndexedAndFunctionsWithDifferentCosts() throws Exception {
+        count("category = 42 and substr(description, 1, 1) = 'a' and substr(name, 1, 1) = 'b'");
+    }
+}
@@ -30,6 +30,7 @@ import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.CountAggregation;
 import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.operation.collect.CollectExpression;
@@ -44,19 +45,29 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.BigArrays;
 import org.junit.Rule;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 public class GroupingProjectorBenchmark {
 
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
             new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
 
+    private static final int HIGH_CARDINALITY_ROWS = 5_000_000;
+    private static final int HIGH_CARDINALITY_GROUPS = 1_000_000;
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
+
     @Rule
     public BenchmarkRule benchmarkRule = new BenchmarkRule();
 
@@ -128,4 +139,105 @@ public class GroupingProjectorBenchmark {
 
         groupingProjector.upstreamFinished();
     }
+
+    private GroupingProjector countProjector(List<? extends DataType> keyTypes,
+                                             RamAccountingContext ramAccountingContext,
+                                             @Nullable BigArrays bigArrays) {
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+                .createInjector().getInstance(Functions.class);
+
+        List<Input<?>> keyInputs = new ArrayList<>(keyTypes.size());
+        CollectExpression[] collectExpressions = new CollectExpression[keyTypes.size()];
+        for (int i = 0; i < keyTypes.size(); i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            keyInputs.add(keyInput);
+            collectExpressions[i] = keyInput;
+        }
+
+        FunctionIdent countFuncIdent = new FunctionIdent(CountAggregation.NAME, Arrays.<DataType>asList());
+        FunctionInfo countFuncInfo = new FunctionInfo(countFuncIdent, DataTypes.LONG, FunctionInfo.Type.AGGREGATE);
+        AggregationFunction countAgg = (AggregationFunction) functions.get(countFuncIdent);
+        Aggregation aggregation = new Aggregation(countFuncInfo,
+                Arrays.<Symbol>asList(), Aggregation.Step.ITER, Aggregation.Step.FINAL);
+        AggregationContext[] aggregations = new AggregationContext[] { new AggregationContext(countAgg, aggregation) };
+        return new GroupingProjector(keyTypes, keyInputs, collectExpressions, aggregations,
+                ramAccountingContext, bigArrays);
+    }
+
+    /**
+     * group {@link #HIGH_CARDINALITY_ROWS} rows into {@link #HIGH_CARDINALITY_GROUPS} groups and
+     * log the throughput and the accounted bytes per group.
+     *
+     * @param bigArrays if null the boxed HashMap based groupers are used
+     */
+    private void groupHighCardinality(String name,
+                                      List<? extends DataType> keyTypes,
+                                      @Nullable BigArrays bigArrays) {
+        RamAccountingContext ramAccountingContext =
+                new RamAccountingContext(name, new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+        GroupingProjector groupingProjector = countProjector(keyTypes, ramAccountingContext, bigArrays);
+        groupingProjector.registerUpstream(null);
+        groupingProjector.startProjection();
+
+        Object[][] rows = new Object[HIGH_CARDINALITY_GROUPS][];
+        for (int i = 0; i < HIGH_CARDINALITY_GROUPS; i++) {
+            Object[] row = new Object[keyTypes.size()];
+            for (int k = 0; k < row.length; k++) {
+                if (keyTypes.get(k).equals(DataTypes.STRING)) {
+                    row[k] = new BytesRef("user-" + i);
+                } else if (keyTypes.get(k).equals(DataTypes.INTEGER)) {
+                    row[k] = i % 1000;
+                } else {
+                    row[k] = (long) i * 31;
+                }
+            }
+            rows[i] = row;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < HIGH_CARDINALITY_ROWS; i++) {
+            groupingProjector.setNextRow(rows[i % HIGH_CARDINALITY_GROUPS]);
+        }
+        groupingProjector.upstreamFinished();
+        long tookNanos = System.nanoTime() - start;
+
+        // closing the context adds the not yet flushed bytes to the total
+        ramAccountingContext.close();
+        logger.info("{}: {} rows/sec, {} bytes per group",
+                name,
+                HIGH_CARDINALITY_ROWS * TimeUnit.SECONDS.toNanos(1) / Math.max(tookNanos, 1),
+                ramAccountingContext.totalBytes() / HIGH_CARDINALITY_GROUPS);
+    }
+
+    @Test
+    public void testGroupByLongHighCardinalityBoxed() throws Exception {
+        groupHighCardinality("long key boxed", Arrays.asList(DataTypes.LONG), null);
+    }
+
+    @Test
+    public void testGroupByLongHighCardinalityPaged() throws Exception {
+        groupHighCardinality("long key paged", Arrays.asList(DataTypes.LONG), BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    @Test
+    public void testGroupByBytesRefHighCardinalityBoxed() throws Exception {
+        groupHighCardinality("string key boxed", Arrays.asList(DataTypes.STRING), null);
+    }
+
+    @Test
+    public void testGroupByBytesRefHighCardinalityPaged() throws Exception {
+        groupHighCardinality("string key paged", Arrays.asList(DataTypes.STRING), BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    @Test
+    public void testGroupByManyKeysHighCardinalityBoxed() throws Exception {
+        groupHighCardinality("string, integer, long keys boxed",
+                Arrays.asList(DataTypes.STRING, DataTypes.INTEGER, DataTypes.LONG), null);
+    }
+
+    @Test
+    public void testGroupByManyKeysHighCardinalityPaged() throws Exception {
+        groupHighCardinality("string, integer, long keys paged",
+                Arrays.asList(DataTypes.STRING, DataTypes.INTEGER, DataTypes.LONG), BigArrays.NON_RECYCLING_INSTANCE);
+    }
 }
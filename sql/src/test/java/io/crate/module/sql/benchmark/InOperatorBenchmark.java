@@ -0,0 +1,148 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.metadata.Scalar;
+import io.crate.operation.operator.InOperator;
+import io.crate.operation.operator.Operator;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.types.DataTypes;
+import io.crate.types.SetType;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+@BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+public class InOperatorBenchmark {
+
+    private static final int NUM_VALUES = 100_000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final InOperator inOperator = new InOperator(
+            Operator.generateInfo(InOperator.NAME, DataTypes.LONG));
+
+    private Literal<Long>[] longValues;
+    private Literal<BytesRef>[] stringValues;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void prepare() {
+        longValues = new Literal[NUM_VALUES];
+        stringValues = new Literal[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            longValues[i] = Literal.newLiteral((long) i * 7);
+            stringValues[i] = Literal.newLiteral("value-" + (i * 7));
+        }
+    }
+
+    private static Literal longList(int size) {
+        Set<Long> values = new HashSet<>(size * 2);
+        for (long i = 0; i < size; i++) {
+            values.add(i * 3);
+        }
+        return Literal.newLiteral(new SetType(DataTypes.LONG), values);
+    }
+
+    private static Literal stringList(int size) {
+        Set<BytesRef> values = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(new BytesRef("value-" + (i * 3)));
+        }
+        return Literal.newLiteral(new SetType(DataTypes.STRING), values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int evaluate(Literal[] values, Literal inList) {
+        Scalar<Boolean, Object> impl = inOperator.compile(
+                Arrays.<Symbol>asList(new InputColumn(0, DataTypes.LONG), inList));
+        int matches = 0;
+        for (Literal value : values) {
+            if (impl.evaluate(value, inList)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int evaluatePerRow(Literal[] values, Literal inList) {
+        int matches = 0;
+        for (Literal value : values) {
+            if (inOperator.evaluate(value, inList)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Test
+    public void testInLong10() throws Exception {
+        evaluate(longValues, longList(10));
+    }
+
+    @Test
+    public void testInLong1000() throws Exception {
+        evaluate(longValues, longList(1_000));
+    }
+
+    @Test
+    public void testInLong100000() throws Exception {
+        evaluate(longValues, longList(100_000));
+    }
+
+    @Test
+    public void testInLong100000NotCompiled() throws Exception {
+        evaluatePerRow(longValues, longList(100_000));
+    }
+
+    @Test
+    public void testInString10() throws Exception {
+        evaluate(stringValues, stringList(10));
+    }
+
+    @Test
+    public void testInString1000() throws Exception {
+        evaluate(stringValues, stringList(1_000));
+    }
+
+    @Test
+    public void testInString100000() throws Exception {
+        evaluate(stringValues, stringList(100_000));
+    }
+
+    @Test
+    public void testInString100000NotCompiled() throws Exception {
+        evaluatePerRow(stringValues, stringList(100_000));
+    }
+}
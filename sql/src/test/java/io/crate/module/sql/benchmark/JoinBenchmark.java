@@ -0,0 +1,269 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.executor.*;
+import io.crate.executor.transport.TransportActionProvider;
+import io.crate.metadata.*;
+import io.crate.operation.ImplementationSymbolVisitor;
+import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.join.HashJoinOperation;
+import io.crate.operation.join.NestedLoopOperation;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.OperatorModule;
+import io.crate.operation.projectors.ProjectionToProjectorVisitor;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.PlanNodeVisitor;
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
+import io.crate.planner.node.dql.join.HashJoinNode;
+import io.crate.planner.node.dql.join.NestedLoopNode;
+import io.crate.planner.projection.AggregationProjection;
+import io.crate.planner.projection.FilterProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.symbol.Aggregation;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Symbol;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.inject.AbstractModule;
+import org.elasticsearch.common.inject.Injector;
+import org.elasticsearch.common.inject.ModulesBuilder;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Answers;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * compares the {@link NestedLoopOperation} filtering the cross product
+ * with the {@link HashJoinOperation} for <code>left.id = right.id</code>,
+ * every row of one side matches exactly one row of the other side.
+ *
+ * The 10 million rows per side benchmark needs a heap of about 4gb.
+ */
+@BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+public class JoinBenchmark {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private ProjectionToProjectorVisitor visitor;
+    private Functions functions;
+
+    private static class ImmediateTask extends JobTask {
+
+        private final List<ListenableFuture<TaskResult>> result;
+
+        public ImmediateTask(Object[][] rows) {
+            super(UUID.randomUUID());
+            this.result = ImmutableList.of(Futures.<TaskResult>immediateFuture(new QueryResult(rows)));
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public List<ListenableFuture<TaskResult>> result() {
+            return result;
+        }
+
+        @Override
+        public void upstreamResult(List<ListenableFuture<TaskResult>> result) {
+        }
+    }
+
+    private static class IntegerRelationNode extends AbstractDQLPlanNode {
+
+        private IntegerRelationNode() {
+            outputTypes(Arrays.<DataType>asList(DataTypes.INTEGER));
+        }
+
+        @Override
+        public Set<String> executionNodes() {
+            return ImmutableSet.of();
+        }
+
+        @Override
+        public <C, R> R accept(PlanNodeVisitor<C, R> visitor, C context) {
+            return null;
+        }
+    }
+
+    private static final TaskExecutor EXECUTOR = new TaskExecutor() {
+        @Override
+        public List<Task> newTasks(PlanNode planNode, UUID jobId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ListenableFuture<TaskResult>> execute(Collection<Task> tasks) {
+            return Iterables.getLast(tasks).result();
+        }
+    };
+
+    @Before
+    public void prepare() {
+        Injector injector = new ModulesBuilder()
+                .add(new AggregationImplModule())
+                .add(new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(Client.class).toInstance(mock(Client.class));
+                    }
+                })
+                .add(new OperatorModule())
+                .createInjector();
+        functions = injector.getInstance(Functions.class);
+        ImplementationSymbolVisitor symbolVisitor = new ImplementationSymbolVisitor(
+                new GlobalReferenceResolver(new HashMap<ReferenceIdent, ReferenceImplementation>()),
+                functions,
+                RowGranularity.CLUSTER);
+        visitor = new ProjectionToProjectorVisitor(
+                mock(ClusterService.class),
+                ImmutableSettings.EMPTY,
+                mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get()),
+                symbolVisitor);
+    }
+
+    private static Object[][] rows(int numRows) {
+        Object[][] rows = new Object[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            rows[i] = new Object[] { i };
+        }
+        return rows;
+    }
+
+    private AggregationProjection countProjection() {
+        FunctionInfo countInfo = new FunctionInfo(
+                new FunctionIdent(CountAggregation.NAME, Arrays.<DataType>asList(DataTypes.INTEGER)), DataTypes.LONG);
+        AggregationProjection projection = new AggregationProjection();
+        projection.aggregations(Arrays.asList(new Aggregation(countInfo,
+                Arrays.<Symbol>asList(new InputColumn(0, DataTypes.INTEGER)),
+                Aggregation.Step.ITER, Aggregation.Step.FINAL)));
+        return projection;
+    }
+
+    private void assertCount(String name, int rowsPerSide, ListenableFuture<TaskResult> result, long start) throws Exception {
+        Object[][] rows = result.get().rows();
+        long tookNanos = System.nanoTime() - start;
+        assertThat((Long) rows[0][0], is((long) rowsPerSide));
+        logger.info("{} with {} rows per side took {} ms",
+                name, rowsPerSide, TimeUnit.NANOSECONDS.toMillis(tookNanos));
+    }
+
+    private void nestedLoop(int rowsPerSide) throws Exception {
+        EqOperator eq = (EqOperator) functions.get(new FunctionIdent(EqOperator.NAME,
+                ImmutableList.<DataType>of(DataTypes.INTEGER, DataTypes.INTEGER)));
+        FilterProjection filter = new FilterProjection(new Function(eq.info(), Arrays.<Symbol>asList(
+                new InputColumn(0, DataTypes.INTEGER), new InputColumn(1, DataTypes.INTEGER))));
+        filter.outputs(Arrays.<Symbol>asList(new InputColumn(0, DataTypes.INTEGER)));
+
+        NestedLoopNode node = new NestedLoopNode(
+                new IntegerRelationNode(), new IntegerRelationNode(), true, -1, 0);
+        node.projections(ImmutableList.<Projection>of(filter, countProjection()));
+        NestedLoopOperation operation = new NestedLoopOperation(node,
+                Arrays.<Task>asList(new ImmediateTask(rows(rowsPerSide))),
+                Arrays.<Task>asList(new ImmediateTask(rows(rowsPerSide))),
+                EXECUTOR,
+                visitor,
+                RAM_ACCOUNTING_CONTEXT);
+        long start = System.nanoTime();
+        assertCount("nested loop", rowsPerSide, operation.execute(Optional.<PageInfo>absent()), start);
+    }
+
+    private void hashJoin(int rowsPerSide) throws Exception {
+        HashJoinNode node = new HashJoinNode(new IntegerRelationNode(), new IntegerRelationNode(),
+                new int[] { 0 }, new int[] { 0 }, -1, 0);
+        node.projections(ImmutableList.<Projection>of(countProjection()));
+        HashJoinOperation operation = new HashJoinOperation(node,
+                Arrays.<Task>asList(new ImmediateTask(rows(rowsPerSide))),
+                Arrays.<Task>asList(new ImmediateTask(rows(rowsPerSide))),
+                EXECUTOR,
+                visitor,
+                RAM_ACCOUNTING_CONTEXT);
+        long start = System.nanoTime();
+        assertCount("hash join", rowsPerSide, operation.execute(Optional.<PageInfo>absent()), start);
+    }
+
+    @Test
+    public void testNestedLoop10K() throws Exception {
+        nestedLoop(10_000);
+    }
+
+    @Test
+    public void testNestedLoop100K() throws Exception {
+        // 10^10 row combinations, expect this to run for a very long time
+        nestedLoop(100_000);
+    }
+
+    @Test
+    public void testHashJoin10K() throws Exception {
+        hashJoin(10_000);
+    }
+
+    @Test
+    public void testHashJoin100K() throws Exception {
+        hashJoin(100_000);
+    }
+
+    @Test
+    public void testHashJoin1M() throws Exception {
+        hashJoin(1_000_000);
+    }
+
+    @Test
+    public void testHashJoin10M() throws Exception {
+        hashJoin(10_000_000);
+    }
+}
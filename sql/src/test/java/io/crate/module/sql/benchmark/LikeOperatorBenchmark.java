@@ -0,0 +1,135 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.metadata.Scalar;
+import io.crate.operation.Input;
+import io.crate.operation.operator.LikeOperator;
+import io.crate.operation.operator.RegexpMatchOperator;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+@BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+public class LikeOperatorBenchmark {
+
+    private static final int NUM_VALUES = 100_000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final LikeOperator likeOperator = new LikeOperator(
+            LikeOperator.generateInfo(LikeOperator.NAME, DataTypes.STRING));
+    private final RegexpMatchOperator regexpMatchOperator = new RegexpMatchOperator();
+
+    private Literal<BytesRef>[] values;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void prepare() {
+        values = new Literal[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            values[i] = Literal.newLiteral("user-" + i + "@some-domain-" + (i % 100) + ".com");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int evaluate(Scalar<Boolean, BytesRef> scalar, String pattern) {
+        Literal<BytesRef> patternLiteral = Literal.newLiteral(pattern);
+        Scalar<Boolean, BytesRef> impl = scalar.compile(
+                Arrays.<Symbol>asList(new InputColumn(0, DataTypes.STRING), patternLiteral));
+        int matches = 0;
+        for (Literal<BytesRef> value : values) {
+            if (impl.evaluate(value, patternLiteral)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int evaluatePerRow(Scalar<Boolean, BytesRef> scalar, String pattern) {
+        Input<BytesRef> patternLiteral = Literal.newLiteral(pattern);
+        int matches = 0;
+        for (Literal<BytesRef> value : values) {
+            if (scalar.evaluate(value, patternLiteral)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Test
+    public void testLikeExact() throws Exception {
+        evaluate(likeOperator, "user-42@some-domain-42.com");
+    }
+
+    @Test
+    public void testLikePrefix() throws Exception {
+        evaluate(likeOperator, "user-42%");
+    }
+
+    @Test
+    public void testLikeSuffix() throws Exception {
+        evaluate(likeOperator, "%domain-42.com");
+    }
+
+    @Test
+    public void testLikeContains() throws Exception {
+        evaluate(likeOperator, "%-42@%");
+    }
+
+    @Test
+    public void testLikeRegex() throws Exception {
+        evaluate(likeOperator, "user-4_@%.com");
+    }
+
+    @Test
+    public void testLikePrefixNotCompiled() throws Exception {
+        evaluatePerRow(likeOperator, "user-42%");
+    }
+
+    @Test
+    public void testLikeRegexNotCompiled() throws Exception {
+        evaluatePerRow(likeOperator, "user-4_@%.com");
+    }
+
+    @Test
+    public void testRegexpMatch() throws Exception {
+        evaluate(regexpMatchOperator, "user-4.@.*\\.com");
+    }
+
+    @Test
+    public void testRegexpMatchNotCompiled() throws Exception {
+        evaluatePerRow(regexpMatchOperator, "user-4.@.*\\.com");
+    }
+}
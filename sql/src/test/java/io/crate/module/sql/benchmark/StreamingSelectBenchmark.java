@@ -0,0 +1,160 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.module.sql.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import io.crate.action.sql.SQLBulkAction;
+import io.crate.action.sql.SQLBulkRequest;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.http.HttpServerTransport;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares a regular HTTP SELECT with a streamed one.
+ * Time to first byte, total time and the peak heap usage of the JVM running the test cluster are logged.
+ *
+ * The number of rows defaults to 200000, use -Dbenchmark.streaming.rows=10000000 for the 10M rows case.
+ */
+@BenchmarkOptions(benchmarkRounds = 3, warmupRounds = 1)
+public class StreamingSelectBenchmark extends BenchmarkBase {
+
+    private static final int NUM_ROWS = Integer.getInteger("benchmark.streaming.rows", 200_000);
+    private static final int BULK_SIZE = 10_000;
+    private static final String STMT = "{\"stmt\": \"select \\\"countryName\\\", \\\"countryCode\\\", population " +
+                                       "from countries limit " + NUM_ROWS + "\"}";
+
+    private final ESLogger logger = Loggers.getLogger(getClass());
+
+    @Rule
+    public TestRule benchmarkRun = RuleChain.outerRule(new BenchmarkRule()).around(super.ruleChain);
+
+    @Override
+    public boolean loadData() {
+        return true;
+    }
+
+    @Override
+    public void doLoadData() throws Exception {
+        for (int offset = 0; offset < NUM_ROWS; offset += BULK_SIZE) {
+            Object[][] bulkArgs = new Object[Math.min(BULK_SIZE, NUM_ROWS - offset)][];
+            for (int i = 0; i < bulkArgs.length; i++) {
+                int id = offset + i;
+                bulkArgs[i] = new Object[]{"country-" + id, "C" + (id % 100), id};
+            }
+            getClient(true).execute(SQLBulkAction.INSTANCE, new SQLBulkRequest(
+                    "insert into countries (\"countryName\", \"countryCode\", population) values (?, ?, ?)",
+                    bulkArgs)).actionGet();
+        }
+        refresh(getClient(true));
+    }
+
+    private void select(String queryString) throws Exception {
+        InetSocketAddress address = ((InetSocketTransportAddress) cluster.getInstance(HttpServerTransport.class, NODE1)
+                .boundAddress().publishAddress()).address();
+        URL url = new URL(String.format("http://%s:%d/_sql?%s", address.getHostName(), address.getPort(), queryString));
+
+        final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        final AtomicLong peakHeap = new AtomicLong(0L);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Thread heapSampler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    long used = memoryMXBean.getHeapMemoryUsage().getUsed();
+                    if (used > peakHeap.get()) {
+                        peakHeap.set(used);
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+        System.gc();
+        long heapBefore = memoryMXBean.getHeapMemoryUsage().getUsed();
+        heapSampler.start();
+
+        long started = System.nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(STMT.getBytes(StandardCharsets.UTF_8));
+        }
+        long bytes = 0L;
+        long firstByte = -1L;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (firstByte < 0) {
+                    firstByte = System.nanoTime();
+                }
+                bytes += read;
+            }
+        }
+        long finished = System.nanoTime();
+        done.set(true);
+        heapSampler.join();
+
+        logger.info("{}: {} bytes, time to first byte {}ms, total {}ms, peak heap growth {}MB",
+                queryString,
+                bytes,
+                (firstByte - started) / 1_000_000,
+                (finished - started) / 1_000_000,
+                (peakHeap.get() - heapBefore) / (1024 * 1024));
+    }
+
+    @Test
+    public void testBufferedSelect() throws Exception {
+        select("buffered");
+    }
+
+    @Test
+    public void testStreamedSelect() throws Exception {
+        select("stream");
+    }
+
+    @Test
+    public void testStreamedNewLineDelimitedSelect() throws Exception {
+        select("stream&format=ndjson");
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.FunctionIdent;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.AggregationTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class ApproxCountDistinctAggregationTest extends AggregationTest {
+
+    private Object[][] executeAggregation(DataType dataType, Object[][] data) throws Exception {
+        return executeAggregation(ApproxCountDistinctAggregation.NAME, dataType, data);
+    }
+
+    private static ApproxCountDistinctAggregation.HllState state(long from, long to) {
+        ApproxCountDistinctAggregation.HllState state =
+                new ApproxCountDistinctAggregation.HllState(ApproxCountDistinctAggregation.DEFAULT_PRECISION);
+        for (long i = from; i < to; i++) {
+            state.add(ApproxCountDistinctAggregation.hash(i));
+        }
+        return state;
+    }
+
+    @Test
+    public void testReturnType() throws Exception {
+        FunctionIdent fi = new FunctionIdent(ApproxCountDistinctAggregation.NAME,
+                ImmutableList.<DataType>of(DataTypes.STRING));
+        assertEquals(DataTypes.LONG, functions.get(fi).info().returnType());
+    }
+
+    @Test
+    public void testSmallCardinalityIsExact() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.STRING, new Object[][]{
+                {new BytesRef("Youri")}, {new BytesRef("Ruben")}, {new BytesRef("Ruben")}, {null}});
+        assertThat((Long) result[0][0], is(2L));
+
+        result = executeAggregation(DataTypes.DOUBLE, new Object[][]{{0.7d}, {0.3d}, {0.3d}});
+        assertThat((Long) result[0][0], is(2L));
+    }
+
+    @Test
+    public void testLargeCardinalityIsEstimated() throws Exception {
+        long cardinality = state(0, 1_000_000).cardinality();
+        assertThat((double) cardinality, closeTo(1_000_000, 1_000_000 * 0.03));
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        FunctionIdent fi = new FunctionIdent(ApproxCountDistinctAggregation.NAME,
+                ImmutableList.<DataType>of(DataTypes.LONG));
+        ApproxCountDistinctAggregation impl = (ApproxCountDistinctAggregation) functions.get(fi);
+
+        // sparse into dense, dense into sparse and overlapping values
+        ApproxCountDistinctAggregation.HllState reduced = impl.reduce(ramAccountingContext,
+                state(0, 10), state(5, 100_000));
+        reduced = impl.reduce(ramAccountingContext, state(90_000, 100_010), reduced);
+        assertThat((double) reduced.cardinality(), closeTo(100_010, 100_010 * 0.03));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerialization() throws Exception {
+        FunctionIdent fi = new FunctionIdent(ApproxCountDistinctAggregation.NAME,
+                ImmutableList.<DataType>of(DataTypes.LONG));
+        AggregationFunction impl = (AggregationFunction) functions.get(fi);
+
+        for (ApproxCountDistinctAggregation.HllState state : new ApproxCountDistinctAggregation.HllState[]{
+                state(0, 10), state(0, 50_000)}) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput();
+            impl.partialType().streamer().writeValueTo(streamOutput, state);
+
+            ApproxCountDistinctAggregation.HllState newState = (ApproxCountDistinctAggregation.HllState)
+                    impl.partialType().streamer().readValueFrom(new BytesStreamInput(streamOutput.bytes()));
+            assertThat(newState.cardinality(), is(state.cardinality()));
+        }
+    }
+}
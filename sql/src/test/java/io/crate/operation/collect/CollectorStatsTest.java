@@ -0,0 +1,55 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class CollectorStatsTest {
+
+    @Test
+    public void testStatsOfCollectRun() throws Exception {
+        CollectorStats stats = new CollectorStats();
+        stats.start();
+        for (int i = 0; i < 1000; i++) {
+            stats.incrementDocs();
+        }
+        Thread.sleep(1);
+        stats.finish();
+
+        assertThat(stats.docs(), is(1000L));
+        assertThat(stats.tookNanos(), greaterThan(0L));
+        assertThat(stats.docsPerSecond(), greaterThan(0.0d));
+        assertThat(stats.allocatedBytes(), greaterThanOrEqualTo(-1L));
+        assertThat(stats.toString(), startsWith("docs: 1000, took: "));
+    }
+
+    @Test
+    public void testStatsWithoutDocs() throws Exception {
+        CollectorStats stats = new CollectorStats();
+        assertThat(stats.docsPerSecond(), is(0.0d));
+        assertThat(stats.allocatedBytesPerDoc(), is(-1.0d));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class SegmentCollectPoolTest {
+
+    private IndexWriter writer;
+    private DirectoryReader reader;
+
+    @Before
+    public void prepare() throws Exception {
+        writer = new IndexWriter(new RAMDirectory(),
+                new IndexWriterConfig(Lucene.VERSION, new StandardAnalyzer())
+                        .setMergePolicy(NoMergePolicy.NO_COMPOUND_FILES));
+        // segments with 100, 80, 60, 40 and 20 documents
+        for (int segment = 5; segment > 0; segment--) {
+            for (int i = 0; i < segment * 20; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("name", "doc" + i, Field.Store.NO));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+        }
+        reader = DirectoryReader.open(writer, true);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        reader.close();
+        writer.close();
+        writer.getDirectory().close();
+    }
+
+    private static long numDocs(List<AtomicReaderContext> leaves) {
+        long numDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            numDocs += leaf.reader().maxDoc();
+        }
+        return numDocs;
+    }
+
+    @Test
+    public void testSplitBalancesDocuments() throws Exception {
+        assertThat(reader.leaves().size(), is(5));
+        SegmentCollectPool pool = new SegmentCollectPool(MoreExecutors.sameThreadExecutor(), 1, 10);
+
+        List<List<AtomicReaderContext>> units = pool.split(reader.leaves());
+        assertThat(units.size(), is(2));
+        // 100 + 40 + 20 and 80 + 60
+        assertThat(numDocs(units.get(0)), is(160L));
+        assertThat(numDocs(units.get(1)), is(140L));
+        for (List<AtomicReaderContext> unit : units) {
+            for (int i = 1; i < unit.size(); i++) {
+                assertThat(unit.get(i - 1).ord, lessThan(unit.get(i).ord));
+            }
+        }
+    }
+
+    @Test
+    public void testSplitLimitedByNumberOfSegments() throws Exception {
+        SegmentCollectPool pool = new SegmentCollectPool(MoreExecutors.sameThreadExecutor(), 10, 1);
+        List<List<AtomicReaderContext>> units = pool.split(reader.leaves());
+        assertThat(units.size(), is(5));
+        for (List<AtomicReaderContext> unit : units) {
+            assertThat(unit.size(), is(1));
+        }
+    }
+
+    @Test
+    public void testNoSplitOfSmallShards() throws Exception {
+        SegmentCollectPool pool = new SegmentCollectPool(MoreExecutors.sameThreadExecutor(), 4, 200);
+        List<List<AtomicReaderContext>> units = pool.split(reader.leaves());
+        assertThat(units.size(), is(1));
+        assertThat(units.get(0).size(), is(5));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        SegmentCollectPool pool = new SegmentCollectPool(MoreExecutors.sameThreadExecutor(), 0, 1);
+        assertThat(pool.enabled(), is(false));
+        assertThat(pool.split(reader.leaves()).size(), is(1));
+        assertThat(pool.tryExecute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }), is(false));
+    }
+
+    @Test
+    public void testTryExecuteIsLimitedByPermits() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            SegmentCollectPool pool = new SegmentCollectPool(executor, 2, 1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger ran = new AtomicInteger(0);
+            Runnable blocking = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                        ran.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            assertThat(pool.tryExecute(blocking), is(true));
+            assertThat(pool.tryExecute(blocking), is(true));
+            assertThat(pool.tryExecute(blocking), is(false));
+
+            release.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+            assertThat(ran.get(), is(2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
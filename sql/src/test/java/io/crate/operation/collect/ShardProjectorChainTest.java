@@ -63,6 +63,8 @@ import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -241,4 +243,71 @@ public class ShardProjectorChainTest {
 
         assertThat(chain.shardProjectors.size(), is(0));
     }
+
+    @Test
+    public void testSegmentDownstreamsMergePartialStates() throws Exception {
+        GroupProjection groupProjection = new GroupProjection(
+                Arrays.<Symbol>asList(Literal.newLiteral(true)),
+                Arrays.asList(countAggregation()));
+        ShardProjectorChain chain = new ShardProjectorChain(
+                2,
+                ImmutableList.<Projection>of(groupProjection),
+                projectionToProjectorVisitor,
+                RAM_ACCOUNTING_CONTEXT);
+        assertThat(chain.supportsSegmentDownstreams(), is(true));
+
+        Projector projector1 = chain.newSegmentDownstreamProjector(projectionToProjectorVisitor);
+        Projector projector2 = chain.newSegmentDownstreamProjector(projectionToProjectorVisitor);
+        assertThat(projector1, is(instanceOf(GroupingProjector.class)));
+        assertThat(projector2, is(instanceOf(GroupingProjector.class)));
+        assertThat(projector1, is(not(sameInstance(projector2))));
+        assertThat(chain.segmentProjectors.size(), is(2));
+
+        // merge projector and first node projector
+        assertThat(chain.nodeProjectors.size(), is(2));
+        assertThat(chain.nodeProjectors.get(0), is(instanceOf(GroupingProjector.class)));
+
+        chain.startProjections();
+        projector1.setNextRow(1L);
+        projector1.setNextRow(2L);
+        projector1.upstreamFinished();
+        projector2.setNextRow(3L);
+        projector2.upstreamFinished();
+
+        Object[][] result = chain.result().get();
+        assertThat(result.length, is(1));
+        assertThat((Boolean) result[0][0], is(true));
+        assertThat((Long) result[0][1], is(3L));
+    }
+
+    @Test
+    public void testSegmentDownstreamsWithoutAggregation() throws Exception {
+        TopNProjection topN = new TopNProjection(10, 0);
+        ShardProjectorChain chain = new ShardProjectorChain(
+                2,
+                ImmutableList.<Projection>of(topN),
+                projectionToProjectorVisitor,
+                RAM_ACCOUNTING_CONTEXT);
+        assertThat(chain.supportsSegmentDownstreams(), is(true));
+
+        Projector projector1 = chain.newSegmentDownstreamProjector(projectionToProjectorVisitor);
+        Projector projector2 = chain.newSegmentDownstreamProjector(projectionToProjectorVisitor);
+        assertThat(projector1, is(sameInstance(projector2)));
+        assertThat(chain.segmentProjectors.size(), is(0));
+        assertThat(chain.nodeProjectors.size(), is(1));
+    }
+
+    @Test
+    public void testNoSegmentDownstreamsWithShardProjections() throws Exception {
+        GroupProjection groupProjection = new GroupProjection(
+                Arrays.<Symbol>asList(Literal.newLiteral(true)),
+                Arrays.asList(countAggregation()));
+        groupProjection.setRequiredGranularity(RowGranularity.SHARD);
+        ShardProjectorChain chain = new ShardProjectorChain(
+                2,
+                ImmutableList.<Projection>of(groupProjection, new TopNProjection(0, 1)),
+                projectionToProjectorVisitor,
+                RAM_ACCOUNTING_CONTEXT);
+        assertThat(chain.supportsSegmentDownstreams(), is(false));
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect.files;
+
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LineReaderTest {
+
+    private static final String CONTENT = "{\"id\": 1}\n{\"id\": 2, \"name\": \"Ford\"}\r\n\n{\"id\": 3}\n{\"id\": 4, \"name\": \"Zaphod\"}";
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readLines(LineReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BytesRef line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line.utf8ToString());
+        }
+        return lines;
+    }
+
+    private static List<String> readRange(byte[] content, long start, long end, int bufferSize) throws IOException {
+        int position = (int) Math.max(0, start - 1);
+        ByteArrayInputStream in = new ByteArrayInputStream(content, position, content.length - position);
+        return readLines(new LineReader(in, start, end, bufferSize));
+    }
+
+    @Test
+    public void testReadLines() throws Exception {
+        List<String> lines = readLines(new LineReader(new ByteArrayInputStream(bytes(CONTENT))));
+        assertThat(lines, is(Arrays.asList(
+                "{\"id\": 1}", "{\"id\": 2, \"name\": \"Ford\"}", "", "{\"id\": 3}", "{\"id\": 4, \"name\": \"Zaphod\"}")));
+    }
+
+    @Test
+    public void testLinesLongerThanBuffer() throws Exception {
+        List<String> lines = readRange(bytes(CONTENT), 0, Long.MAX_VALUE, 4);
+        assertThat(lines, is(readLines(new LineReader(new ByteArrayInputStream(bytes(CONTENT))))));
+    }
+
+    @Test
+    public void testNoContent() throws Exception {
+        assertThat(readLines(new LineReader(new ByteArrayInputStream(new byte[0]))).size(), is(0));
+        assertThat(readLines(new LineReader(new ByteArrayInputStream(bytes("\n")))), is(Arrays.asList("")));
+    }
+
+    @Test
+    public void testMultiByteCharacters() throws Exception {
+        List<String> lines = readRange(bytes("Kürbis\nÖl\n"), 0, Long.MAX_VALUE, 3);
+        assertThat(lines, is(Arrays.asList("Kürbis", "Öl")));
+    }
+
+    @Test
+    public void testRangesReturnEveryLineExactlyOnce() throws Exception {
+        byte[] content = bytes(CONTENT);
+        List<String> expected = readLines(new LineReader(new ByteArrayInputStream(content)));
+        for (int numRanges = 1; numRanges <= content.length; numRanges++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < numRanges; i++) {
+                long start = (long) content.length * i / numRanges;
+                long end = (long) content.length * (i + 1) / numRanges;
+                lines.addAll(readRange(content, start, end, 8));
+            }
+            assertThat("numRanges: " + numRanges, lines, is(expected));
+        }
+    }
+}
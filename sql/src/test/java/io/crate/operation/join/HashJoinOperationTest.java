@@ -0,0 +1,322 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.join;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.executor.*;
+import io.crate.planner.node.PlanNode;
+import io.crate.planner.node.PlanNodeVisitor;
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
+import io.crate.planner.node.dql.join.HashJoinNode;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class HashJoinOperationTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static class ImmediateTestTask extends JobTask {
+
+        private final List<ListenableFuture<TaskResult>> result;
+
+        public ImmediateTestTask(Object[][] rows) {
+            super(UUID.randomUUID());
+            this.result = ImmutableList.of(
+                    Futures.<TaskResult>immediateFuture(new QueryResult(rows)));
+        }
+
+        @Override
+        public void start() {
+            // ignore
+        }
+
+        @Override
+        public List<ListenableFuture<TaskResult>> result() {
+            return result;
+        }
+
+        @Override
+        public void upstreamResult(List result) {
+            // ignore
+        }
+    }
+
+    private static class TestDQLNode extends AbstractDQLPlanNode {
+
+        private TestDQLNode(int numColumns) {
+            this(Collections.<DataType>nCopies(numColumns, DataTypes.UNDEFINED));
+        }
+
+        private TestDQLNode(List<DataType> outputTypes) {
+            this.outputTypes(outputTypes);
+        }
+
+        @Override
+        public Set<String> executionNodes() {
+            return ImmutableSet.of();
+        }
+
+        @Override
+        public <C, R> R accept(PlanNodeVisitor<C, R> visitor, C context) {
+            return null;
+        }
+    }
+
+    private static class TestExecutor implements TaskExecutor {
+
+        @Override
+        public List<Task> newTasks(PlanNode planNode, UUID jobId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ListenableFuture<TaskResult>> execute(Collection<Task> tasks) {
+            return Iterables.getLast(tasks).result();
+        }
+    }
+
+    private Object[][] join(Object[][] left, int[] leftKeys,
+                            Object[][] right, int[] rightKeys,
+                            RamAccountingContext ramAccountingContext) throws Exception {
+        HashJoinNode node = new HashJoinNode(
+                new TestDQLNode(left.length > 0 ? left[0].length : 1),
+                new TestDQLNode(right.length > 0 ? right[0].length : 1),
+                leftKeys, rightKeys, -1, 0);
+        return join(node, left, right, ramAccountingContext);
+    }
+
+    private Object[][] join(HashJoinNode node,
+                            Object[][] left,
+                            Object[][] right,
+                            RamAccountingContext ramAccountingContext) throws Exception {
+        HashJoinOperation operation = new HashJoinOperation(
+                node,
+                Arrays.<Task>asList(new ImmediateTestTask(left)),
+                Arrays.<Task>asList(new ImmediateTestTask(right)),
+                new TestExecutor(),
+                null,
+                ramAccountingContext);
+        return operation.execute(Optional.<PageInfo>absent()).get().rows();
+    }
+
+    /**
+     * naive nested loop, used to verify the hash join result
+     */
+    private Set<List<Object>> expected(Object[][] left, int leftKey, Object[][] right, int rightKey) {
+        Set<List<Object>> result = new HashSet<>();
+        for (Object[] l : left) {
+            for (Object[] r : right) {
+                if (l[leftKey] != null && l[leftKey].equals(r[rightKey])) {
+                    List<Object> row = new ArrayList<>(Arrays.asList(l));
+                    row.addAll(Arrays.asList(r));
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<List<Object>> asSet(Object[][] rows) {
+        Set<List<Object>> result = new HashSet<>();
+        for (Object[] row : rows) {
+            result.add(Arrays.asList(row));
+        }
+        return result;
+    }
+
+    private Object[][] rows(int numRows, int numKeys, String prefix) {
+        Object[][] rows = new Object[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            rows[i] = new Object[] { prefix + i, i % numKeys == 0 ? null : i % numKeys };
+        }
+        return rows;
+    }
+
+    @Test
+    public void testNoRows() throws Exception {
+        Object[][] right = new Object[][] { new Object[] { 1, "a" } };
+        assertThat(join(new Object[0][], new int[] { 0 }, right, new int[] { 0 },
+                mock(RamAccountingContext.class)).length, is(0));
+        assertThat(join(right, new int[] { 0 }, new Object[0][], new int[] { 0 },
+                mock(RamAccountingContext.class)).length, is(0));
+    }
+
+    @Test
+    public void testJoinOutputsLeftColumnsFirst() throws Exception {
+        Object[][] left = new Object[][] {
+                new Object[] { 1, "a" },
+                new Object[] { 2, "b" },
+                new Object[] { 3, "c" },
+        };
+        Object[][] right = new Object[][] {
+                new Object[] { "x", 2 },
+        };
+        // right side is smaller and used to build the hash table
+        Object[][] result = join(left, new int[] { 0 }, right, new int[] { 1 }, mock(RamAccountingContext.class));
+        assertThat(result.length, is(1));
+        assertThat(Arrays.asList(result[0]), is(Arrays.<Object>asList(2, "b", "x", 2)));
+
+        result = join(right, new int[] { 1 }, left, new int[] { 0 }, mock(RamAccountingContext.class));
+        assertThat(result.length, is(1));
+        assertThat(Arrays.asList(result[0]), is(Arrays.<Object>asList("x", 2, 2, "b")));
+    }
+
+    @Test
+    public void testJoinWithDuplicateAndNullKeys() throws Exception {
+        Object[][] left = rows(100, 7, "l");
+        Object[][] right = rows(30, 5, "r");
+        Object[][] result = join(left, new int[] { 1 }, right, new int[] { 1 }, mock(RamAccountingContext.class));
+        assertThat(asSet(result), is(expected(left, 1, right, 1)));
+        assertThat(result.length, is(expected(left, 1, right, 1).size()));
+    }
+
+    @Test
+    public void testJoinOnMultipleKeys() throws Exception {
+        Object[][] left = new Object[][] {
+                new Object[] { 1, "a", 10 },
+                new Object[] { 1, "b", 11 },
+                new Object[] { 2, "a", 12 },
+                new Object[] { 2, null, 13 },
+        };
+        Object[][] right = new Object[][] {
+                new Object[] { "a", 1 },
+                new Object[] { "a", 2 },
+                new Object[] { null, 2 },
+        };
+        Object[][] result = join(left, new int[] { 0, 1 }, right, new int[] { 1, 0 }, mock(RamAccountingContext.class));
+        assertThat(asSet(result), is(asSet(new Object[][] {
+                new Object[] { 1, "a", 10, "a", 1 },
+                new Object[] { 2, "a", 12, "a", 2 },
+        })));
+        assertThat(result.length, is(2));
+    }
+
+    @Test
+    public void testJoinIntegerAndLongKeys() throws Exception {
+        Object[][] left = new Object[][] {
+                new Object[] { 1, "a" },
+                new Object[] { 2, "b" },
+                new Object[] { null, "c" },
+        };
+        Object[][] right = new Object[][] {
+                new Object[] { 2L, "x" },
+                new Object[] { 3L, "y" },
+        };
+        HashJoinNode node = new HashJoinNode(
+                new TestDQLNode(Arrays.<DataType>asList(DataTypes.INTEGER, DataTypes.STRING)),
+                new TestDQLNode(Arrays.<DataType>asList(DataTypes.LONG, DataTypes.STRING)),
+                new int[] { 0 }, new int[] { 0 }, -1, 0);
+        assertThat(node.joinKeyTypes(), is(Arrays.<DataType>asList(DataTypes.LONG)));
+
+        Object[][] result = join(node, left, right, mock(RamAccountingContext.class));
+        assertThat(result.length, is(1));
+        // the rows contain the original values
+        assertThat(Arrays.asList(result[0]), is(Arrays.<Object>asList(2, "b", 2L, "x")));
+    }
+
+    @Test
+    public void testJoinKeysOfIncompatibleTypes() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("join keys of type integer and string can't be compared");
+        new HashJoinNode(
+                new TestDQLNode(Arrays.<DataType>asList(DataTypes.INTEGER)),
+                new TestDQLNode(Arrays.<DataType>asList(DataTypes.STRING)),
+                new int[] { 0 }, new int[] { 0 }, -1, 0);
+    }
+
+    /**
+     * a ram accounting context which trips once more than <code>limit</code> bytes are added
+     */
+    private RamAccountingContext trippingRamAccountingContext(final long limit) {
+        RamAccountingContext ramAccountingContext = mock(RamAccountingContext.class);
+        doAnswer(new Answer() {
+            long accounted = 0;
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                accounted += (Long) invocation.getArguments()[0];
+                if (accounted > limit) {
+                    throw new CircuitBreakingException("dummy");
+                }
+                return null;
+            }
+        }).when(ramAccountingContext).addBytes(anyLong());
+        return ramAccountingContext;
+    }
+
+    @Test
+    public void testPartitionedJoinIfBreakerTrips() throws Exception {
+        RamAccountingContext ramAccountingContext = trippingRamAccountingContext(40_000);
+
+        Object[][] left = rows(1000, 101, "l");
+        Object[][] right = rows(500, 37, "r");
+        Object[][] result = join(left, new int[] { 1 }, right, new int[] { 1 }, ramAccountingContext);
+        assertThat(asSet(result), is(expected(left, 1, right, 1)));
+        assertThat(result.length, is(expected(left, 1, right, 1).size()));
+        // nothing is added after the breaker tripped
+        verify(ramAccountingContext, atMost(500)).addBytes(anyLong());
+    }
+
+    @Test
+    public void testJoinFailsIfPartitionsDontFitIntoMemory() throws Exception {
+        RamAccountingContext ramAccountingContext = trippingRamAccountingContext(0);
+
+        Object[][] left = rows(1000, 101, "l");
+        Object[][] right = rows(500, 37, "r");
+        expectedException.expect(ExecutionException.class);
+        expectedException.expectCause(instanceOf(CircuitBreakingException.class));
+        join(left, new int[] { 1 }, right, new int[] { 1 }, ramAccountingContext);
+    }
+
+    @Test
+    public void testNumPartitions() throws Exception {
+        assertThat(HashJoinOperation.numPartitions(1000, 1000), is(HashJoinOperation.MIN_PARTITIONS));
+        assertThat(HashJoinOperation.numPartitions(500, 100_000), is(256));
+        assertThat(HashJoinOperation.numPartitions(10, 10 * HashJoinOperation.MAX_PARTITIONS),
+                is(HashJoinOperation.MAX_PARTITIONS));
+        assertThat(HashJoinOperation.numPartitions(10, 10 * HashJoinOperation.MAX_PARTITIONS + 1), is(-1));
+        assertThat(HashJoinOperation.numPartitions(0, 10), is(-1));
+    }
+}
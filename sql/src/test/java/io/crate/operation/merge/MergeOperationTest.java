@@ -163,4 +163,36 @@ public class MergeOperationTest {
         assertThat((Double)mergeResult[0][1], is(2.5d));
     }
 
+    @Test
+    public void testMergeSortedRuns() throws Exception {
+        // order by col 1 desc, return col 0
+        TopNProjection topNProjection = new TopNProjection(3, 1,
+                Arrays.<Symbol>asList(new InputColumn(1)), new boolean[]{true}, new Boolean[] { null });
+        topNProjection.outputs(Arrays.<Symbol>asList(new InputColumn(0)));
+
+        MergeNode mergeNode = new MergeNode("merge", 3);
+        mergeNode.projections(Arrays.<Projection>asList(topNProjection));
+        mergeNode.sortedInputs(true);
+
+        MergeOperation mergeOperation = new MergeOperation(
+                mock(ClusterService.class),
+                ImmutableSettings.EMPTY,
+                mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get()),
+                symbolVisitor,
+                mergeNode,
+                ramAccountingContext
+        );
+        assertTrue(mergeOperation.addRows(new Object[][]{
+                new Object[]{"a", null}, new Object[]{"b", 9L}, new Object[]{"c", 4L}}));
+        assertTrue(mergeOperation.addRows(new Object[0][]));
+        assertTrue(mergeOperation.addRows(new Object[][]{
+                new Object[]{"d", 8L}, new Object[]{"e", 7L}, new Object[]{"f", 1L}}));
+        mergeOperation.finished();
+
+        Object[][] mergeResult = mergeOperation.result().get();
+        assertThat(mergeResult.length, is(3));
+        assertThat((String) mergeResult[0][0], is("b"));
+        assertThat((String) mergeResult[1][0], is("d"));
+        assertThat((String) mergeResult[2][0], is("e"));
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.merge;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.operation.projectors.OrderingByPosition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+public class SortedMergeIteratorTest {
+
+    private static final OrderingByPosition ASC = new OrderingByPosition(
+            new int[]{0}, new boolean[]{false}, new Boolean[]{null});
+
+    private static List<Object> merge(Object[][]... runs) {
+        SortedMergeIterator iterator = new SortedMergeIterator(ImmutableList.copyOf(runs), ASC);
+        List<Object> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next()[0]);
+        }
+        return values;
+    }
+
+    private static Object[][] run(Object... values) {
+        Object[][] rows = new Object[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            rows[i] = new Object[]{values[i]};
+        }
+        return rows;
+    }
+
+    @Test
+    public void testMergeRuns() throws Exception {
+        assertThat(merge(run(1L, 4L, 7L), run(2L, 5L), run(3L, 6L, 8L, 9L)),
+                contains((Object) 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+    }
+
+    @Test
+    public void testMergeWithEmptyRunsAndNulls() throws Exception {
+        assertThat(merge(run(), run(2L, null), run(1L, 3L)),
+                contains((Object) 1L, 2L, 3L, null));
+    }
+
+    @Test
+    public void testMergeNoRuns() throws Exception {
+        assertThat(merge(), empty());
+    }
+}
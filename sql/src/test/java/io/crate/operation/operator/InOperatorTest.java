@@ -21,8 +21,10 @@
 package io.crate.operation.operator;
 
 import com.google.common.collect.Sets;
+import io.crate.metadata.Scalar;
 import io.crate.operation.operator.input.ObjectInput;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
@@ -33,6 +35,8 @@ import org.apache.lucene.util.BytesRef;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -42,6 +46,8 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 
@@ -194,4 +200,38 @@ public class InOperatorTest {
         assertNull(op.evaluate(new ObjectInput("something"), new ObjectInput(null)));
     }
 
+    @SuppressWarnings("unchecked")
+    private Boolean compiledIn(DataType setType, Object inValue, Object... inList) {
+        Set<Object> inListValues = new HashSet<>();
+        Collections.addAll(inListValues, inList);
+        InOperator op = new InOperator(Operator.generateInfo(InOperator.NAME, DataTypes.INTEGER));
+        Literal inListLiteral = Literal.newLiteral(setType, inListValues);
+        Scalar<Boolean, Object> compiled = op.compile(
+                Arrays.<Symbol>asList(new InputColumn(0, DataTypes.INTEGER), inListLiteral));
+        assertThat(compiled, not(sameInstance((Scalar<Boolean, Object>) op)));
+        return compiled.evaluate(new ObjectInput(inValue), inListLiteral);
+    }
+
+    @Test
+    public void testEvaluateCompiledInOperator() {
+        assertTrue(compiledIn(INTEGER_SET_TYPE, 1, 1, 2, 4, 8));
+        assertFalse(compiledIn(INTEGER_SET_TYPE, 128, 1, 2, 4, 8));
+        assertTrue(compiledIn(new SetType(DataTypes.LONG), 8L, 1L, 2L, 4L, 8L));
+        assertFalse(compiledIn(INTEGER_SET_TYPE, 2.5, 1, 2, 4, 8));
+        assertTrue(compiledIn(STRING_SET_TYPE, new BytesRef("charlie"),
+                new BytesRef("alpha"), new BytesRef("charlie")));
+        assertFalse(compiledIn(STRING_SET_TYPE, new BytesRef("not included"),
+                new BytesRef("alpha"), new BytesRef("charlie")));
+        assertNull(compiledIn(INTEGER_SET_TYPE, null, 1, 2));
+        assertNull(compiledIn(INTEGER_SET_TYPE, 1, 1, null));
+        assertNull(compiledIn(STRING_SET_TYPE, new BytesRef("something"), new Object[]{null}));
+    }
+
+    @Test
+    public void testCompileWithoutLiteralListReturnsSameInstance() {
+        InOperator op = new InOperator(Operator.generateInfo(InOperator.NAME, DataTypes.INTEGER));
+        Scalar<Boolean, Object> compiled = op.compile(Arrays.<Symbol>asList(
+                new InputColumn(0, DataTypes.INTEGER), new InputColumn(1, INTEGER_SET_TYPE)));
+        assertThat(compiled, sameInstance((Scalar<Boolean, Object>) op));
+    }
 }
@@ -20,7 +20,9 @@
  */
 package io.crate.operation.operator;
 
+import io.crate.metadata.Scalar;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Symbol;
 import io.crate.types.DataTypes;
@@ -159,4 +161,74 @@ public class LikeOperatorTest {
         assertNull(op.evaluate(Literal.newLiteral("foobarbaz"), brNullValue));
     }
 
+    private Boolean likeCompiled(String expression, String pattern) {
+        LikeOperator op = new LikeOperator(
+                LikeOperator.generateInfo(LikeOperator.NAME, DataTypes.STRING)
+        );
+        Literal<BytesRef> patternLiteral = Literal.newLiteral(pattern);
+        Scalar<Boolean, BytesRef> compiled = op.compile(
+                Arrays.<Symbol>asList(new InputColumn(0, DataTypes.STRING), patternLiteral));
+        assertNotSame(op, compiled);
+        return compiled.evaluate(Literal.newLiteral(expression), patternLiteral);
+    }
+
+    @Test
+    public void testCompiledPatternShapes() {
+        // exact
+        assertTrue(likeCompiled("foo", "foo"));
+        assertFalse(likeCompiled("foobar", "foo"));
+        // prefix
+        assertTrue(likeCompiled("foobar", "foo%"));
+        assertTrue(likeCompiled("foo", "foo%"));
+        assertFalse(likeCompiled("fo", "foo%"));
+        // suffix
+        assertTrue(likeCompiled("barfoo", "%foo"));
+        assertFalse(likeCompiled("foobar", "%foo"));
+        // contains
+        assertTrue(likeCompiled("barfoobaz", "%foo%"));
+        assertTrue(likeCompiled("foo", "%foo%"));
+        assertFalse(likeCompiled("fobaro", "%foo%"));
+        // prefix and suffix
+        assertTrue(likeCompiled("foobarbaz", "foo%baz"));
+        assertFalse(likeCompiled("foobaz", "fooba%obaz"));
+        // match all
+        assertTrue(likeCompiled("", "%"));
+        assertTrue(likeCompiled("foo", "%%"));
+        // regex fallback
+        assertTrue(likeCompiled("foobarbaz", "f_o%b_z"));
+        assertFalse(likeCompiled("foobarbaz", "foo_baz"));
+        assertTrue(likeCompiled("fooXbarYbaz", "foo%bar%baz"));
+    }
+
+    @Test
+    public void testCompiledPatternEscaping() {
+        assertTrue(likeCompiled("100%", "100\\%"));
+        assertFalse(likeCompiled("1000", "100\\%"));
+        assertTrue(likeCompiled("a_b", "%\\_%"));
+        assertFalse(likeCompiled("ab", "%\\_%"));
+    }
+
+    @Test
+    public void testCompiledPatternMultiByteCharacters() {
+        assertTrue(likeCompiled("Kürbiskernöl", "Kür%"));
+        assertTrue(likeCompiled("Kürbiskernöl", "%kernöl"));
+        assertTrue(likeCompiled("Kürbiskernöl", "%biskern%"));
+        assertTrue(likeCompiled("Kürbiskernöl", "K_rbis%"));
+    }
+
+    @Test
+    public void testWildcardsMatchLineTerminators() {
+        assertTrue(like("foo\nbar", "foo%"));
+        assertTrue(like("foo\nbar", "foo_bar"));
+        assertTrue(likeCompiled("foo\nbar", "%o_b%"));
+    }
+
+    @Test
+    public void testCompileWithNonLiteralPattern() {
+        LikeOperator op = new LikeOperator(
+                LikeOperator.generateInfo(LikeOperator.NAME, DataTypes.STRING)
+        );
+        assertSame(op, op.compile(Arrays.<Symbol>asList(
+                Literal.newLiteral("foo"), new InputColumn(0, DataTypes.STRING))));
+    }
 }
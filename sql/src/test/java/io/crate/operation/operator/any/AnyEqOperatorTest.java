@@ -24,8 +24,10 @@ package io.crate.operation.operator.any;
 import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.operator.input.ObjectInput;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.InputColumn;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Symbol;
 import io.crate.types.ArrayType;
@@ -116,4 +118,26 @@ public class AnyEqOperatorTest {
         assertFalse(anyEqNormalizeSymbol(42, new Object[]{41, 43, -42}));
     }
 
+    private Boolean compiledAnyEq(Object[] arrayExpr, Object value) {
+        AnyEqOperator anyEqOperator = new AnyEqOperator(
+                new FunctionInfo(
+                        new FunctionIdent("any_=", Arrays.<DataType>asList(new ArrayType(DataTypes.INTEGER), DataTypes.INTEGER)),
+                        DataTypes.BOOLEAN)
+        );
+        Literal arrayLiteral = Literal.newLiteral(new ArrayType(DataTypes.INTEGER), arrayExpr);
+        Scalar<Boolean, Object> compiled = anyEqOperator.compile(
+                Arrays.<Symbol>asList(arrayLiteral, new InputColumn(0, DataTypes.INTEGER)));
+        assertNotSame(anyEqOperator, compiled);
+        return compiled.evaluate(arrayLiteral, new ObjectInput(value));
+    }
+
+    @Test
+    public void testEvaluateCompiled() throws Exception {
+        assertTrue(compiledAnyEq(new Object[]{1, 42, 2}, 42));
+        assertFalse(compiledAnyEq(new Object[]{41, 43, -42}, 42));
+        assertFalse(compiledAnyEq(new Object[]{}, 42));
+        assertFalse(compiledAnyEq(new Object[]{null, 41}, 42));
+        assertTrue(compiledAnyEq(new Object[]{null, 42}, 42));
+        assertNull(compiledAnyEq(new Object[]{42}, null));
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.Streamer;
+import io.crate.executor.TaskResult;
+import io.crate.executor.transport.distributed.DistributedResultRequest;
+import io.crate.executor.transport.distributed.DistributedResultResponse;
+import io.crate.executor.transport.merge.TransportMergeNodeAction;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DistributingProjectorTest {
+
+    @Test
+    public void testRowsAreSentInPages() throws Exception {
+        final List<DistributedResultRequest> requests = new ArrayList<>();
+        TransportService transportService = mock(TransportService.class);
+        Mockito.doAnswer(new Answer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                requests.add((DistributedResultRequest) args[2]);
+                ((TransportResponseHandler<DistributedResultResponse>) args[3])
+                        .handleResponse(new DistributedResultResponse());
+                return null;
+            }
+        }).when(transportService).submitRequest(any(DiscoveryNode.class),
+                Matchers.same(TransportMergeNodeAction.mergeRowsAction),
+                Matchers.<TransportRequest>any(),
+                any(TransportResponseHandler.class));
+
+        DiscoveryNode node = pagingNode();
+
+        DistributingProjector projector = new DistributingProjector(
+                UUID.randomUUID(),
+                Arrays.asList(node),
+                transportService,
+                new Streamer[] { DataTypes.INTEGER.streamer() },
+                2,
+                1
+        );
+        projector.registerUpstream(null);
+        projector.startProjection();
+        for (int i = 0; i < 5; i++) {
+            assertThat(projector.setNextRow(i), is(true));
+        }
+        projector.upstreamFinished();
+
+        assertThat(projector.result().get(), is(TaskResult.EMPTY_RESULT.rows()));
+        assertThat(requests.size(), is(3));
+        assertThat(requests.get(0).rows().length, is(2));
+        assertThat(requests.get(0).last(), is(false));
+        assertThat(requests.get(1).rows().length, is(2));
+        assertThat(requests.get(1).last(), is(false));
+        assertThat(requests.get(2).rows().length, is(1));
+        assertThat(requests.get(2).last(), is(true));
+    }
+
+    @Test
+    public void testPageFailureWithoutCauseFailsTheResult() throws Exception {
+        final List<DistributedResultRequest> requests = new ArrayList<>();
+        TransportService transportService = mock(TransportService.class);
+        Mockito.doAnswer(new Answer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                DistributedResultRequest request = (DistributedResultRequest) args[2];
+                requests.add(request);
+                TransportResponseHandler<DistributedResultResponse> handler =
+                        (TransportResponseHandler<DistributedResultResponse>) args[3];
+                if (request.last()) {
+                    handler.handleResponse(new DistributedResultResponse());
+                } else {
+                    handler.handleException(new TransportException("merge node is gone"));
+                }
+                return null;
+            }
+        }).when(transportService).submitRequest(any(DiscoveryNode.class),
+                Matchers.same(TransportMergeNodeAction.mergeRowsAction),
+                Matchers.<TransportRequest>any(),
+                any(TransportResponseHandler.class));
+
+        DiscoveryNode node = pagingNode();
+
+        DistributingProjector projector = new DistributingProjector(
+                UUID.randomUUID(),
+                Arrays.asList(node),
+                transportService,
+                new Streamer[] { DataTypes.INTEGER.streamer() },
+                1,
+                1
+        );
+        projector.registerUpstream(null);
+        projector.startProjection();
+        projector.setNextRow(1);
+        assertThat(projector.setNextRow(2), is(false));
+        projector.upstreamFinished();
+
+        try {
+            projector.result().get();
+            fail("expected the page failure to fail the result");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TransportException.class));
+        }
+        DistributedResultRequest last = requests.get(requests.size() - 1);
+        assertThat(last.failure(), is(true));
+    }
+
+    @Test
+    public void testPagesAreQueuedWhileTheDownstreamIsBusy() throws Exception {
+        final List<DistributedResultRequest> requests = new ArrayList<>();
+        final List<TransportResponseHandler<DistributedResultResponse>> handlers = new ArrayList<>();
+        TransportService transportService = mock(TransportService.class);
+        Mockito.doAnswer(new Answer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                requests.add((DistributedResultRequest) args[2]);
+                handlers.add((TransportResponseHandler<DistributedResultResponse>) args[3]);
+                return null;
+            }
+        }).when(transportService).submitRequest(any(DiscoveryNode.class),
+                Matchers.same(TransportMergeNodeAction.mergeRowsAction),
+                Matchers.<TransportRequest>any(),
+                any(TransportResponseHandler.class));
+
+        DistributingProjector projector = new DistributingProjector(
+                UUID.randomUUID(),
+                Arrays.asList(pagingNode()),
+                transportService,
+                new Streamer[] { DataTypes.INTEGER.streamer() },
+                1,
+                1
+        );
+        projector.registerUpstream(null);
+        projector.startProjection();
+        for (int i = 0; i < 3; i++) {
+            // doesn't wait for the unacknowledged page
+            assertThat(projector.setNextRow(i), is(true));
+        }
+        projector.upstreamFinished();
+        assertThat(requests.size(), is(1));
+        assertThat(projector.result().isDone(), is(false));
+
+        handlers.get(0).handleResponse(new DistributedResultResponse());
+        assertThat(requests.size(), is(2));
+        handlers.get(1).handleResponse(new DistributedResultResponse());
+        assertThat(requests.size(), is(3));
+        assertThat(projector.result().isDone(), is(false));
+        handlers.get(2).handleResponse(new DistributedResultResponse());
+
+        assertThat(requests.size(), is(4));
+        assertThat(requests.get(2).rows()[0][0], is((Object) 2));
+        assertThat(requests.get(3).last(), is(true));
+        assertThat(requests.get(3).rows().length, is(0));
+        assertThat(projector.result().get(), is(TaskResult.EMPTY_RESULT.rows()));
+    }
+
+    @Test
+    public void testDownstreamWithoutPagingReceivesAllRowsAtOnce() throws Exception {
+        final List<DistributedResultRequest> requests = new ArrayList<>();
+        TransportService transportService = mock(TransportService.class);
+        Mockito.doAnswer(new Answer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                requests.add((DistributedResultRequest) args[2]);
+                ((TransportResponseHandler<DistributedResultResponse>) args[3])
+                        .handleResponse(new DistributedResultResponse());
+                return null;
+            }
+        }).when(transportService).submitRequest(any(DiscoveryNode.class),
+                Matchers.same(TransportMergeNodeAction.mergeRowsAction),
+                Matchers.<TransportRequest>any(),
+                any(TransportResponseHandler.class));
+
+        DiscoveryNode node = mock(DiscoveryNode.class);
+        when(node.id()).thenReturn("n1");
+        when(node.attributes()).thenReturn(ImmutableMap.<String, String>of());
+
+        DistributingProjector projector = new DistributingProjector(
+                UUID.randomUUID(),
+                Arrays.asList(node),
+                transportService,
+                new Streamer[] { DataTypes.INTEGER.streamer() },
+                2,
+                1
+        );
+        projector.registerUpstream(null);
+        projector.startProjection();
+        for (int i = 0; i < 5; i++) {
+            assertThat(projector.setNextRow(i), is(true));
+        }
+        projector.upstreamFinished();
+
+        assertThat(projector.result().get(), is(TaskResult.EMPTY_RESULT.rows()));
+        assertThat(requests.size(), is(1));
+        assertThat(requests.get(0).rows().length, is(5));
+        assertThat(requests.get(0).hasHeader(DistributedResultRequest.REQUEST_HEADER), is(false));
+    }
+
+    private static DiscoveryNode pagingNode() {
+        DiscoveryNode node = mock(DiscoveryNode.class);
+        when(node.id()).thenReturn("n1");
+        when(node.attributes()).thenReturn(
+                ImmutableMap.of(DistributedResultRequest.NODE_ATTRIBUTE, Boolean.TRUE.toString()));
+        return node;
+    }
+}
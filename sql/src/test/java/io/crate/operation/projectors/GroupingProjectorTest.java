@@ -10,6 +10,7 @@ import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.planner.symbol.Aggregation;
 import io.crate.planner.symbol.Symbol;
 import io.crate.types.DataType;
@@ -21,6 +22,9 @@ import org.elasticsearch.common.inject.ModulesBuilder;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.Matchers.instanceOf;
@@ -78,6 +82,83 @@ public class GroupingProjectorTest {
         assertThat(rows[0][1], instanceOf(Long.class));
     }
 
+    private AggregationContext countAggregation() {
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation =
+                new Aggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER, Aggregation.Step.FINAL);
+        Functions functions = new ModulesBuilder()
+                .add(new AggregationImplModule()).createInjector().getInstance(Functions.class);
+        return new AggregationContext((AggregationFunction) functions.get(countInfo.ident()), countAggregation);
+    }
+
+    @Test
+    public void testGroupByLongEncodedKeyWithNull() throws Exception {
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        GroupingProjector projector = new GroupingProjector(
+                Arrays.asList(DataTypes.DOUBLE),
+                ImmutableList.<Input<?>>of(keyInput),
+                new CollectExpression[] { keyInput },
+                new AggregationContext[] { countAggregation() },
+                RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingProjector collectingProjector = new CollectingProjector();
+        projector.registerUpstream(null);
+        projector.downstream(collectingProjector);
+
+        projector.startProjection();
+        projector.setNextRow(1.5d);
+        projector.setNextRow(-0.25d);
+        projector.setNextRow(new Object[] { null });
+        projector.setNextRow(1.5d);
+        projector.setNextRow(new Object[] { null });
+        projector.upstreamFinished();
+        Object[][] rows = collectingProjector.result().get();
+
+        Map<Object, Object> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(row[0], row[1]);
+        }
+        assertThat(rows.length, is(3));
+        assertThat((Long) counts.get(1.5d), is(2L));
+        assertThat((Long) counts.get(-0.25d), is(1L));
+        assertThat((Long) counts.get(null), is(2L));
+    }
+
+    @Test
+    public void testGroupByPackedManyKeys() throws Exception {
+        InputCollectExpression nameInput = new InputCollectExpression(0);
+        InputCollectExpression ageInput = new InputCollectExpression(1);
+        GroupingProjector projector = new GroupingProjector(
+                Arrays.asList(DataTypes.STRING, DataTypes.INTEGER),
+                ImmutableList.<Input<?>>of(nameInput, ageInput),
+                new CollectExpression[] { nameInput, ageInput },
+                new AggregationContext[] { countAggregation() },
+                RAM_ACCOUNTING_CONTEXT
+        );
+        CollectingProjector collectingProjector = new CollectingProjector();
+        projector.registerUpstream(null);
+        projector.downstream(collectingProjector);
+
+        projector.startProjection();
+        projector.setNextRow(new BytesRef("Arthur"), 42);
+        projector.setNextRow(new BytesRef("Arthur"), 43);
+        projector.setNextRow(new BytesRef("Arthur"), 42);
+        projector.setNextRow(null, 42);
+        projector.setNextRow(new BytesRef("Trillian"), null);
+        projector.upstreamFinished();
+        Object[][] rows = collectingProjector.result().get();
+
+        Map<List<Object>, Object> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(Arrays.asList(row[0], row[1]), row[2]);
+        }
+        assertThat(rows.length, is(4));
+        assertThat((Long) counts.get(Arrays.<Object>asList(new BytesRef("Arthur"), 42)), is(2L));
+        assertThat((Long) counts.get(Arrays.<Object>asList(new BytesRef("Arthur"), 43)), is(1L));
+        assertThat((Long) counts.get(Arrays.<Object>asList(null, 42)), is(1L));
+        assertThat((Long) counts.get(Arrays.<Object>asList(new BytesRef("Trillian"), null)), is(1L));
+    }
+
     class DummyInput implements Input<BytesRef> {
 
         private final BytesRef[] values;
@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import io.crate.operation.Input;
+import io.crate.operation.OperationMetrics;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InstrumentedProjectorTest {
+
+    private static final Input<Integer> input = new InputCollectExpression<>(0);
+    private static final Object[] row = new Object[]{42};
+
+    @Test
+    public void testInstrumentWithoutMetrics() throws Exception {
+        Projector projector = new CollectingProjector();
+        assertThat(OperationMetrics.instrument(null, 0, projector), sameInstance(projector));
+    }
+
+    @Test
+    public void testRecordRows() throws Throwable {
+        OperationMetrics metrics = new OperationMetrics();
+        CollectingProjector collectingProjector = new CollectingProjector();
+        Projector projector = OperationMetrics.instrument(metrics, 0, new SimpleTopNProjector(
+                new Input<?>[]{input}, new CollectExpression[]{(CollectExpression) input}, 10, TopN.NO_OFFSET));
+        assertThat(projector, instanceOf(InstrumentedProjector.class));
+
+        projector.downstream(collectingProjector);
+        projector.registerUpstream(null);
+        projector.startProjection();
+        for (int i = 0; i < 12; i++) {
+            if (!projector.setNextRow(row)) {
+                break;
+            }
+        }
+        projector.upstreamFinished();
+        assertThat(collectingProjector.result().get().length, is(10));
+
+        assertThat(metrics.projectors().size(), is(1));
+        ProjectorMetrics projectorMetrics = metrics.projectors().get(0);
+        assertThat(projectorMetrics.name(), is("SimpleTopNProjector"));
+        assertThat(projectorMetrics.rowsIn(), is(10L));
+        assertThat(projectorMetrics.rowsOut(), is(10L));
+        assertThat(metrics.rowsIn(), is(10L));
+        assertThat(metrics.rowsOut(), is(10L));
+
+        Map<String, Object> map = projectorMetrics.toMap();
+        assertThat((String) map.get("name"), is("SimpleTopNProjector"));
+        assertThat((Long) map.get("rows_in"), is(10L));
+    }
+
+    @Test
+    public void testCountResultRows() throws Throwable {
+        OperationMetrics metrics = new OperationMetrics();
+        CollectingProjector collectingProjector = new CollectingProjector();
+        InstrumentedProjector projector = (InstrumentedProjector) OperationMetrics.instrument(
+                metrics, 1, collectingProjector);
+        projector.countResultRows();
+        projector.registerUpstream(null);
+        projector.startProjection();
+        projector.setNextRow(row);
+        projector.setNextRow(row);
+        projector.upstreamFinished();
+        collectingProjector.result().get();
+
+        assertThat(metrics.projectors().size(), is(1));
+        assertThat(metrics.rowsIn(), is(2L));
+        assertThat(metrics.rowsOut(), is(2L));
+        assertThat(metrics.projectorsAsMaps().length, is(1));
+    }
+
+    @Test
+    public void testBatchesArePassedThrough() throws Throwable {
+        OperationMetrics metrics = new OperationMetrics();
+        BatchCollectingProjector collectingProjector = new BatchCollectingProjector();
+        Projector projector = OperationMetrics.instrument(metrics, 0, new SimpleTopNProjector(
+                new Input<?>[]{input}, new CollectExpression[]{(CollectExpression) input}, 10, TopN.NO_OFFSET));
+        assertThat(projector, instanceOf(BatchProjector.class));
+
+        projector.downstream(collectingProjector);
+        projector.registerUpstream(null);
+        projector.startProjection();
+        RowBatch batch = new RowBatch(1);
+        for (int i = 0; i < 12; i++) {
+            batch.addRow(row);
+        }
+        RowBatches.feed(projector, batch);
+        projector.upstreamFinished();
+
+        assertThat(collectingProjector.result().get().length, is(10));
+        assertThat(collectingProjector.batches, is(1));
+        ProjectorMetrics projectorMetrics = metrics.projectors().get(0);
+        assertThat(projectorMetrics.rowsIn(), is(12L));
+        assertThat(projectorMetrics.rowsOut(), is(10L));
+    }
+
+    private static class BatchCollectingProjector extends CollectingProjector implements BatchProjector {
+
+        private int batches = 0;
+
+        @Override
+        public boolean setNextBatch(RowBatch batch) {
+            batches++;
+            for (int i = 0; i < batch.size(); i++) {
+                setNextRow(batch.materializeRow(i));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class OrderingByPositionTest {
+
+    private static OrderingByPosition ordering(boolean reverse, Boolean nullsFirst) {
+        return new OrderingByPosition(new int[]{0}, new boolean[]{reverse}, new Boolean[]{nullsFirst});
+    }
+
+    private static int compare(OrderingByPosition ordering, Object left, Object right) {
+        return ordering.compare(new Object[]{left}, new Object[]{right});
+    }
+
+    @Test
+    public void testAscending() throws Exception {
+        OrderingByPosition asc = ordering(false, null);
+        assertThat(compare(asc, 1L, 2L), lessThan(0));
+        assertThat(compare(asc, 2.5d, 1.5d), greaterThan(0));
+        assertThat(compare(asc, new BytesRef("a"), new BytesRef("b")), lessThan(0));
+        assertThat(compare(asc, 3, 3), is(0));
+        // nulls last
+        assertThat(compare(asc, null, 1L), greaterThan(0));
+        assertThat(compare(ordering(false, true), null, 1L), lessThan(0));
+    }
+
+    @Test
+    public void testDescending() throws Exception {
+        OrderingByPosition desc = ordering(true, null);
+        assertThat(compare(desc, 1L, 2L), greaterThan(0));
+        assertThat(compare(desc, new BytesRef("a"), new BytesRef("b")), greaterThan(0));
+        // nulls first
+        assertThat(compare(desc, null, 1L), lessThan(0));
+        assertThat(compare(ordering(true, false), null, 1L), greaterThan(0));
+    }
+
+    @Test
+    public void testMultiplePositions() throws Exception {
+        OrderingByPosition ordering = new OrderingByPosition(
+                new int[]{1, 0}, new boolean[]{false, true}, new Boolean[]{null, null});
+        assertThat(ordering.compare(new Object[]{1L, "a"}, new Object[]{2L, "a"}), greaterThan(0));
+        assertThat(ordering.compare(new Object[]{1L, "a"}, new Object[]{2L, "b"}), lessThan(0));
+        assertThat(ordering.compare(new Object[]{1L, "a"}, new Object[]{1L, "a"}), is(0));
+    }
+}
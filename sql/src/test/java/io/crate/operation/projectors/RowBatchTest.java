@@ -0,0 +1,106 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RowBatchTest {
+
+    private RowBatch batchOf(Object[]... rows) {
+        RowBatch batch = new RowBatch(rows[0].length, 8);
+        for (Object[] row : rows) {
+            batch.addRow(row);
+        }
+        return batch;
+    }
+
+    @Test
+    public void testNarrowSelection() throws Exception {
+        RowBatch batch = batchOf(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"});
+        assertThat(batch.size(), is(3));
+
+        batch.select(0, 1);
+        batch.select(1, 2);
+        batch.truncate(2);
+
+        assertThat(batch.size(), is(2));
+        assertThat((Integer) batch.get(0, 0), is(2));
+        assertThat((String) batch.row(1)[1], is("c"));
+
+        batch.clear();
+        assertThat(batch.size(), is(0));
+        assertThat(batch.isFull(), is(false));
+    }
+
+    @Test
+    public void testFilterBatchIntoRowProjector() throws Exception {
+        final InputCollectExpression<Integer> valueInput = new InputCollectExpression<>(0);
+        Input<Boolean> isEven = new Input<Boolean>() {
+            @Override
+            public Boolean value() {
+                Integer value = valueInput.value();
+                return value == null ? null : value % 2 == 0;
+            }
+        };
+        FilterProjector filterProjector = new FilterProjector(new CollectExpression[]{ valueInput }, isEven);
+        CollectingProjector collectingProjector = new CollectingProjector();
+        filterProjector.downstream(collectingProjector);
+        filterProjector.registerUpstream(null);
+        filterProjector.startProjection();
+
+        RowBatch batch = batchOf(new Object[]{1}, new Object[]{2}, new Object[]{null}, new Object[]{4});
+        assertThat(RowBatches.feed(filterProjector, batch), is(true));
+        filterProjector.upstreamFinished();
+
+        Object[][] rows = collectingProjector.result().get();
+        assertThat(rows.length, is(2));
+        assertThat((Integer) rows[0][0], is(2));
+        assertThat((Integer) rows[1][0], is(4));
+    }
+
+    @Test
+    public void testSimpleTopNBatchWithOffsetAndLimit() throws Exception {
+        InputCollectExpression<Integer> input = new InputCollectExpression<>(0);
+        SimpleTopNProjector topNProjector = new SimpleTopNProjector(
+                new Input<?>[]{ input }, new CollectExpression[]{ input }, 2, 1);
+        CollectingProjector collectingProjector = new CollectingProjector();
+        topNProjector.downstream(collectingProjector);
+        topNProjector.registerUpstream(null);
+        topNProjector.startProjection();
+
+        RowBatch batch = batchOf(new Object[]{1}, new Object[]{2}, new Object[]{3}, new Object[]{4});
+        assertThat(topNProjector.setNextBatch(batch), is(false));
+        topNProjector.upstreamFinished();
+
+        Object[][] rows = collectingProjector.result().get();
+        assertThat(rows.length, is(2));
+        assertThat((Integer) rows[0][0], is(2));
+        assertThat((Integer) rows[1][0], is(3));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.executor.transport.ShardBulkUpdateRequest;
+import io.crate.executor.transport.ShardBulkUpdateResponse;
+import io.crate.executor.transport.TransportShardBulkUpdateAction;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class UpdateProjectorTest {
+
+    private static final ShardId SHARD_ID = new ShardId("t", 0);
+
+    @SuppressWarnings("unchecked")
+    private TransportShardBulkUpdateAction bulkUpdateAction(final int failEvery) {
+        TransportShardBulkUpdateAction action = mock(TransportShardBulkUpdateAction.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ShardBulkUpdateRequest request = (ShardBulkUpdateRequest) invocation.getArguments()[0];
+                ActionListener<ShardBulkUpdateResponse> listener =
+                        (ActionListener<ShardBulkUpdateResponse>) invocation.getArguments()[1];
+                List<ShardBulkUpdateResponse.Item> items = new ArrayList<>(request.size());
+                for (int i = 0; i < request.size(); i++) {
+                    if (failEvery > 0 && i % failEvery == 0) {
+                        items.add(ShardBulkUpdateResponse.Item.failure(request.id(i), "conflict", true));
+                    } else {
+                        items.add(ShardBulkUpdateResponse.Item.success(request.id(i), 2L));
+                    }
+                }
+                listener.onResponse(new ShardBulkUpdateResponse(items));
+                return null;
+            }
+        }).when(action).execute(any(ShardBulkUpdateRequest.class), any(ActionListener.class));
+        return action;
+    }
+
+    private Object[] update(TransportShardBulkUpdateAction action, int numRows, int bulkSize) throws Exception {
+        CollectingProjector collectingProjector = new CollectingProjector();
+        UpdateProjector updateProjector = new UpdateProjector(
+                SHARD_ID,
+                action,
+                new InputCollectExpression<>(0),
+                ImmutableMap.<String, Symbol>of("x", Literal.newLiteral(1)),
+                null,
+                bulkSize);
+        updateProjector.downstream(collectingProjector);
+        updateProjector.registerUpstream(null);
+        updateProjector.startProjection();
+        for (int i = 0; i < numRows; i++) {
+            updateProjector.setNextRow(new BytesRef("default#" + i));
+        }
+        updateProjector.upstreamFinished();
+        return collectingProjector.result().get(10, TimeUnit.SECONDS)[0];
+    }
+
+    @Test
+    public void testUidsAreSentInBulks() throws Exception {
+        TransportShardBulkUpdateAction action = bulkUpdateAction(0);
+        Object[] row = update(action, 5, 2);
+
+        assertThat((Long) row[0], is(5L));
+        ArgumentCaptor<ShardBulkUpdateRequest> captor = ArgumentCaptor.forClass(ShardBulkUpdateRequest.class);
+        verify(action, times(3)).execute(captor.capture(), any(ActionListener.class));
+        List<ShardBulkUpdateRequest> requests = captor.getAllValues();
+        assertThat(requests.get(0).size(), is(2));
+        assertThat(requests.get(0).id(0), is("0"));
+        assertThat(requests.get(2).size(), is(1));
+        assertThat(requests.get(2).id(0), is("4"));
+    }
+
+    @Test
+    public void testFailedItemsAreNotCounted() throws Exception {
+        TransportShardBulkUpdateAction action = bulkUpdateAction(2);
+        Object[] row = update(action, 10, 5);
+
+        // items 0, 2 and 4 of every bulk fail
+        assertThat((Long) row[0], is(4L));
+    }
+
+    @Test
+    public void testNoRequestWithoutRows() throws Exception {
+        TransportShardBulkUpdateAction action = bulkUpdateAction(0);
+        Object[] row = update(action, 0, 5);
+
+        assertThat((Long) row[0], is(0L));
+        verify(action, never()).execute(any(ShardBulkUpdateRequest.class), any(ActionListener.class));
+    }
+}
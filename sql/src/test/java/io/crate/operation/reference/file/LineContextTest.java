@@ -21,9 +21,13 @@
 
 package io.crate.operation.reference.file;
 
+import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.ColumnIdent;
+import org.apache.lucene.util.BytesRef;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -39,4 +43,20 @@ public class LineContextTest {
         assertNull(context.get(new ColumnIdent("details", "invalid")));
         assertEquals(43, context.get(new ColumnIdent("details", "age")));
     }
+
+    @Test
+    public void testGetRegisteredColumns() throws Exception {
+        LineContext context = new LineContext();
+        context.registerColumn(new ColumnIdent("details", "age"));
+        context.registerColumn(new ColumnIdent("name"));
+
+        String source = "{\"name\": \"foo\", \"tags\": [\"a\", {\"b\": 1}], \"details\": {\"age\": 43}}";
+        context.rawSource(new BytesRef(source));
+
+        assertEquals(43, context.get(new ColumnIdent("details", "age")));
+        assertEquals("foo", context.get(new ColumnIdent("name")));
+        // not registered, needs to parse the whole source
+        assertEquals(Arrays.<Object>asList("a", ImmutableMap.of("b", 1)), context.get(new ColumnIdent("tags")));
+        assertEquals(3, context.sourceAsMap().size());
+    }
 }
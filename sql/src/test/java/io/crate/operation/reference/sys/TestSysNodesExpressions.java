@@ -507,6 +507,18 @@ public class TestSysNodesExpressions {
         assertEquals(1000L, (long) v.get("max_open_file_descriptors"));
     }
 
+    @Test
+    public void testPlanCache() throws Exception {
+        ReferenceIdent ident = new ReferenceIdent(SysNodesTableInfo.IDENT, "plan_cache");
+        SysObjectReference planCache = (SysObjectReference) resolver.getImplementation(ident);
+
+        Map<String, Object> v = planCache.value();
+        assertEquals(0L, v.get("size"));
+        assertEquals(0L, v.get("hits"));
+        assertEquals(0L, v.get("misses"));
+        assertEquals(0L, v.get("evictions"));
+    }
+
     @Test
     public void testNestedBytesRefExpressionsString() throws Exception {
         ReferenceIdent ident = new ReferenceIdent(SysNodesTableInfo.IDENT, "version");
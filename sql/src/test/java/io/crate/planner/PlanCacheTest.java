@@ -0,0 +1,189 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner;
+
+import com.google.common.base.Optional;
+import io.crate.analyze.*;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.EqOperator;
+import io.crate.planner.node.dml.ESDeleteNode;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.node.dql.ESCountNode;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Answers;
+
+import java.util.Arrays;
+
+import static io.crate.testing.TestingHelpers.assertLiteralSymbol;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PlanCacheTest {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private ClusterService clusterService;
+    private PlanCache planCache;
+
+    @Before
+    public void setUp() throws Exception {
+        clusterService = mock(ClusterService.class, Answers.RETURNS_DEEP_STUBS.get());
+        when(clusterService.state().version()).thenReturn(1L);
+        planCache = new PlanCache(ImmutableSettings.EMPTY, clusterService);
+    }
+
+    private Analysis analysis(boolean hasNoResult) {
+        AnalyzedStatement analyzedStatement = mock(AnalyzedStatement.class);
+        when(analyzedStatement.hasNoResult()).thenReturn(hasNoResult);
+        return new Analysis(analyzedStatement);
+    }
+
+    @Test
+    public void testHitForSameStatementAndArgs() throws Exception {
+        Analysis analysis = analysis(false);
+        Plan plan = new IterablePlan(new ESDeleteNode("t", "1", null, Optional.<Long>absent()));
+        Object[] args = new Object[]{1};
+        planCache.put(planCache.key("delete from t where id = ?", args), args, analysis, plan);
+
+        args = new Object[]{1};
+        PlanCache.Entry entry = planCache.get(planCache.key("delete from t where id = ?", args), args);
+        assertThat(entry, notNullValue());
+        assertThat(entry.planned(), is(true));
+        assertThat(entry.analysis(), sameInstance(analysis));
+        assertThat(entry.plan(), sameInstance(plan));
+        assertThat(planCache.hits(), is(1L));
+        assertThat(planCache.misses(), is(1L));
+        assertThat(planCache.size(), is(1L));
+    }
+
+    @Test
+    public void testArgumentValuesAreNotPartOfTheKey() throws Exception {
+        Object[] args = new Object[]{1};
+        PlanCache.Key key = planCache.key("delete from t where id = ?", args);
+        planCache.put(key, args, analysis(false), new IterablePlan(new ESDeleteNode("t", "1", null, Optional.<Long>absent())));
+
+        PlanCache.Key otherValueKey = planCache.key("delete from t where id = ?", new Object[]{2});
+        assertThat(otherValueKey.hashCode(), is(key.hashCode()));
+        assertThat(otherValueKey, is(key));
+        assertThat(planCache.key("delete from t where id = ?", new Object[]{1L}), not(key));
+    }
+
+    @Test
+    public void testOtherArgsAreBoundToTheCachedAnalysis() throws Exception {
+        ParameterContext parameterContext = new ParameterContext(new Object[]{"foo"}, new Object[0][]);
+        FunctionInfo eqInfo = new FunctionInfo(
+                new FunctionIdent(EqOperator.NAME, Arrays.<DataType>asList(DataTypes.STRING, DataTypes.STRING)),
+                DataTypes.BOOLEAN);
+        DeleteAnalyzedStatement analyzedStatement = new DeleteAnalyzedStatement(
+                parameterContext, mock(AnalyzedRelation.class));
+        analyzedStatement.whereClauses().add(new WhereClause(
+                new Function(eqInfo, Arrays.<Symbol>asList(parameterContext.getAsSymbol(0), Literal.newLiteral("foo")))));
+        Analysis analysis = new Analysis(analyzedStatement, parameterContext);
+
+        Object[] args = new Object[]{"foo"};
+        PlanCache.Key key = planCache.key("delete from t where id = ?", args);
+        planCache.put(key, args, analysis, new IterablePlan(new ESDeleteNode("t", "foo", null, Optional.<Long>absent())));
+
+        PlanCache.Entry entry = planCache.get(key, new Object[]{"bar"});
+        assertThat(entry, notNullValue());
+        assertThat(entry.planned(), is(false));
+        assertThat(entry.plan(), nullValue());
+        WhereClause whereClause = ((DeleteAnalyzedStatement) entry.analysis().analyzedStatement()).whereClauses().get(0);
+        assertLiteralSymbol(((Function) whereClause.query()).arguments().get(0), "bar");
+        assertThat(planCache.hits(), is(1L));
+    }
+
+    @Test
+    public void testArgsThatCanNotBeBoundAreNoHit() throws Exception {
+        Object[] args = new Object[]{1};
+        PlanCache.Key key = planCache.key("delete from t where id = ?", args);
+        planCache.put(key, args, analysis(false), new IterablePlan(new ESDeleteNode("t", "1", null, Optional.<Long>absent())));
+
+        assertThat(planCache.get(key, new Object[]{2}), nullValue());
+        assertThat(planCache.hits(), is(0L));
+    }
+
+    @Test
+    public void testArrayArgsAreComparedByValue() throws Exception {
+        Object[] args = new Object[]{new Object[]{1, 2}};
+        PlanCache.Key key = planCache.key("select count(*) from t where x = any(?)", args);
+        planCache.put(key, args, analysis(false), new IterablePlan(new ESCountNode(new String[]{"t"}, WhereClause.MATCH_ALL)));
+        assertThat(planCache.get(key, new Object[]{new Object[]{1, 2}}), notNullValue());
+    }
+
+    @Test
+    public void testClusterStateVersionIsPartOfTheKey() throws Exception {
+        PlanCache.Key key = planCache.key("select 1", EMPTY_ARGS);
+        planCache.put(key, EMPTY_ARGS, analysis(true), null);
+        assertThat(planCache.get(key, EMPTY_ARGS), notNullValue());
+
+        when(clusterService.state().version()).thenReturn(2L);
+        assertThat(planCache.get(planCache.key("select 1", EMPTY_ARGS), EMPTY_ARGS), nullValue());
+    }
+
+    @Test
+    public void testPlansModifiedDuringExecutionAreNotCached() throws Exception {
+        PlanCache.Key key = planCache.key("select * from t", EMPTY_ARGS);
+        planCache.put(key, EMPTY_ARGS, analysis(false), new IterablePlan(new CollectNode("collect")));
+        assertThat(planCache.get(key, EMPTY_ARGS), nullValue());
+
+        planCache.put(key, EMPTY_ARGS, analysis(false), NoopPlan.INSTANCE);
+        assertThat(planCache.get(key, EMPTY_ARGS), nullValue());
+
+        // lookups of statements that can't be cached are no misses
+        assertThat(planCache.misses(), is(0L));
+        assertThat(planCache.hits(), is(0L));
+    }
+
+    @Test
+    public void testMetaDataChangeInvalidatesCache() throws Exception {
+        PlanCache.Key key = planCache.key("select 1", EMPTY_ARGS);
+        planCache.put(key, EMPTY_ARGS, analysis(true), null);
+
+        ClusterChangedEvent event = mock(ClusterChangedEvent.class);
+        when(event.metaDataChanged()).thenReturn(true);
+        planCache.clusterChanged(event);
+
+        assertThat(planCache.size(), is(0L));
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        PlanCache disabled = new PlanCache(
+                ImmutableSettings.builder().put(PlanCache.SIZE_SETTING, 0).build(), clusterService);
+        assertThat(disabled.key("select 1", EMPTY_ARGS), nullValue());
+    }
+}
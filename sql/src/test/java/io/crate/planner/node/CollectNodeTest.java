@@ -22,18 +22,34 @@
 package io.crate.planner.node;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.crate.executor.transport.NodeCollectRequest;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.ReferenceIdent;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.metadata.TableIdent;
 import io.crate.planner.RowGranularity;
+import io.crate.planner.node.dql.AbstractDQLPlanNode;
 import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.AbstractIndexWriterProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.SourceIndexWriterProjection;
+import io.crate.planner.symbol.InputColumn;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.planner.symbol.Value;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.junit.Test;
 
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CollectNodeTest {
 
@@ -83,4 +99,67 @@ public class CollectNodeTest {
         assertEquals(cn.downStreamNodes(), cn2.downStreamNodes());
         assertEquals(cn.maxRowGranularity(), cn2.maxRowGranularity());
     }
+
+    @Test
+    public void testStreamingInstrumented() throws Exception {
+        CollectNode cn = new CollectNode("cn");
+        cn.maxRowGranularity(RowGranularity.DOC);
+        cn.toCollect(ImmutableList.<Symbol>of(new Value(DataTypes.STRING)));
+        cn.instrumented(true);
+
+        // the flag is sent as header of the request, not as part of the plan node
+        NodeCollectRequest request = new NodeCollectRequest(cn);
+        assertTrue(request.hasHeader(AbstractDQLPlanNode.INSTRUMENTED_HEADER));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        NodeCollectRequest request2 = new NodeCollectRequest();
+        request2.readFrom(in);
+        assertTrue(request2.collectNode().instrumented());
+        assertEquals(cn.toCollect(), request2.collectNode().toCollect());
+
+        cn.instrumented(false);
+        out = new BytesStreamOutput();
+        new NodeCollectRequest(cn).writeTo(out);
+        in = new BytesStreamInput(out.bytes());
+        request2 = new NodeCollectRequest();
+        request2.readFrom(in);
+        assertFalse(request2.collectNode().instrumented());
+    }
+
+    @Test
+    public void testStreamingGeneratedColumns() throws Exception {
+        SourceIndexWriterProjection projection = new SourceIndexWriterProjection(
+                "t", ImmutableList.<ColumnIdent>of(), ImmutableList.<ColumnIdent>of(), null, -1,
+                ImmutableSettings.EMPTY, null, null, false);
+        Reference generated = new Reference(new ReferenceInfo(
+                new ReferenceIdent(new TableIdent(null, "t"), "b"), RowGranularity.DOC, DataTypes.LONG));
+        projection.generatedColumns(
+                ImmutableMap.<Reference, Symbol>of(generated, Literal.newLiteral(1L)),
+                ImmutableMap.<ColumnIdent, Symbol>of(new ColumnIdent("a"), new InputColumn(0, DataTypes.LONG)));
+        CollectNode cn = new CollectNode("cn");
+        cn.maxRowGranularity(RowGranularity.DOC);
+        cn.toCollect(ImmutableList.<Symbol>of(new Value(DataTypes.STRING)));
+        cn.projections(ImmutableList.<Projection>of(projection));
+
+        // the generated columns are only streamed to nodes which support them
+        NodeCollectRequest request = new NodeCollectRequest(cn);
+        assertTrue(request.hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        NodeCollectRequest request2 = new NodeCollectRequest();
+        request2.readFrom(in);
+        AbstractIndexWriterProjection projection2 =
+                (AbstractIndexWriterProjection) request2.collectNode().projections().get(0);
+        assertEquals(projection.generatedColumns(), projection2.generatedColumns());
+        assertEquals(projection.generatedColumnsArguments(), projection2.generatedColumnsArguments());
+
+        // requests without generated columns stream the projection as before
+        projection.generatedColumns(ImmutableMap.<Reference, Symbol>of(), ImmutableMap.<ColumnIdent, Symbol>of());
+        request = new NodeCollectRequest(cn);
+        assertFalse(request.hasHeader(AbstractIndexWriterProjection.GENERATED_COLUMNS_HEADER));
+    }
 }
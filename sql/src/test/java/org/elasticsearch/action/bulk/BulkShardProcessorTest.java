@@ -55,8 +55,8 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
@@ -170,6 +170,88 @@ public class BulkShardProcessorTest {
         assertTrue(hadBlocked.get());
     }
 
+    @Test
+    public void testItemsAreBufferedPerShardUntilBulkSizeIsReached() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        OperationRouting operationRouting = mock(OperationRouting.class);
+
+        mockShard(operationRouting, 1);
+        mockShard(operationRouting, 2);
+        when(clusterService.operationRouting()).thenReturn(operationRouting);
+
+        final AtomicReference<BulkShardRequest> requestRef = new AtomicReference<>();
+        TransportShardBulkActionDelegate transportShardBulkActionDelegate = new TransportShardBulkActionDelegate() {
+            @Override
+            public void execute(BulkShardRequest request, ActionListener<BulkShardResponse> listener) {
+                requestRef.set(request);
+            }
+        };
+
+        final BulkShardProcessor bulkShardProcessor = new BulkShardProcessor(
+                clusterService,
+                ImmutableSettings.EMPTY,
+                transportShardBulkActionDelegate,
+                mock(TransportCreateIndexAction.class),
+                false,
+                false,
+                2
+        );
+
+        bulkShardProcessor.add("foo", new BytesArray("{\"foo\": \"bar1\"}"), "1", null);
+        bulkShardProcessor.add("foo", new BytesArray("{\"foo\": \"bar2\"}"), "2", null);
+        // one item per shard, nothing is sent yet
+        assertNull(requestRef.get());
+
+        bulkShardProcessor.add("foo", new BytesArray("{\"foo\": \"bar3\"}"), "1", null);
+        BulkShardRequest request = requestRef.get();
+        assertNotNull(request);
+        assertThat(request.shardId(), is(1));
+        assertThat(request.items().length, is(2));
+    }
+
+    @Test
+    public void testAddBlocksIfShardInFlightLimitIsReached() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        OperationRouting operationRouting = mock(OperationRouting.class);
+
+        mockShard(operationRouting, 1);
+        when(clusterService.operationRouting()).thenReturn(operationRouting);
+
+        final AtomicReference<ActionListener<BulkShardResponse>> ref = new AtomicReference<>();
+        TransportShardBulkActionDelegate transportShardBulkActionDelegate = new TransportShardBulkActionDelegate() {
+            @Override
+            public void execute(BulkShardRequest request, ActionListener<BulkShardResponse> listener) {
+                ref.set(listener);
+            }
+        };
+
+        final BulkShardProcessor bulkShardProcessor = new BulkShardProcessor(
+                clusterService,
+                ImmutableSettings.builder().put(BulkShardProcessor.MAX_IN_FLIGHT_PER_SHARD, 1).build(),
+                transportShardBulkActionDelegate,
+                mock(TransportCreateIndexAction.class),
+                false,
+                false,
+                1
+        );
+
+        // response is never received, so the only permit of shard 1 is never released
+        bulkShardProcessor.add("foo", new BytesArray("{\"foo\": \"bar1\"}"), "1", null);
+        assertNotNull(ref.get());
+
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                bulkShardProcessor.add("foo", new BytesArray("{\"foo\": \"bar2\"}"), "1", null);
+                added.countDown();
+            }
+        });
+        producer.setDaemon(true);
+        producer.start();
+        assertFalse(added.await(50, TimeUnit.MILLISECONDS));
+    }
+
     private void mockShard(OperationRouting operationRouting, Integer shardId) {
         ShardIterator shardIterator = mock(ShardIterator.class);
         when(operationRouting.indexShards(